@@ -0,0 +1,70 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Deterministic synthetic rows shared by the benchmarks.
+ * Columns mirror a typical customer table: numeric id, names, phone, dates and amounts.
+ */
+final class BenchmarkData {
+    static final List<String> KEY_COLUMNS = List.of("customer_id");
+    static final List<String> COMPOSITE_KEY_COLUMNS = List.of("customer_id", "branch_code", "created_date");
+
+    private BenchmarkData() {
+    }
+
+    static Map<String, Object> row(long id) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("customer_id", id);
+        row.put("branch_code", "BR" + (id % 97));
+        row.put("first_name", "First" + id);
+        row.put("last_name", "Last" + (id % 1000));
+        row.put("email", "user" + id + "@example.com");
+        row.put("phone", String.format("%04d-%02d-%02d", id % 10000, id % 100, (id / 100) % 100));
+        row.put("created_date", new Timestamp(1_600_000_000_000L + id * 60_000L));
+        row.put("birth_date", "19" + (50 + id % 50) + "-0" + (1 + id % 9) + "-1" + (id % 10));
+        row.put("balance", BigDecimal.valueOf(id * 37 % 100_000, 2));
+        row.put("status", id % 3 == 0 ? "ACTIVE" : "INACTIVE");
+        return row;
+    }
+
+    /**
+     * A copy of a row with one non-key value changed
+     */
+    static Map<String, Object> drift(Map<String, Object> row) {
+        Map<String, Object> copy = new HashMap<>(row);
+        copy.put("email", "changed-" + row.get("email"));
+        return copy;
+    }
+
+    static List<Map<String, Object>> source(int rows) {
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(row(i));
+        }
+        return data;
+    }
+
+    /**
+     * Target rows derived from the source: diffRatio of them drift, orphanRatio are missing
+     * and replaced by rows only the target has
+     */
+    static List<Map<String, Object>> target(List<Map<String, Object>> source, double diffRatio, double orphanRatio) {
+        Random random = new Random(42);
+        List<Map<String, Object>> data = new ArrayList<>(source.size());
+        long nextOrphanId = source.size();
+        for (Map<String, Object> row : source) {
+            double draw = random.nextDouble();
+            if (draw < orphanRatio) {
+                data.add(row(nextOrphanId++));
+            } else if (draw < orphanRatio + diffRatio) {
+                data.add(drift(row));
+            } else {
+                data.add(new HashMap<>(row));
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,244 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import com.DBCompareX.DBCompareX.config.CheckpointConfig;
+import com.DBCompareX.DBCompareX.config.DatabaseConfig;
+import com.DBCompareX.DBCompareX.config.KeyFirstConfig;
+import com.DBCompareX.DBCompareX.config.KeySelectionConfig;
+import com.DBCompareX.DBCompareX.config.KeylessConfig;
+import com.DBCompareX.DBCompareX.config.LoadLimitConfig;
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.config.ResultStoreConfig;
+import com.DBCompareX.DBCompareX.config.SchedulerConfig;
+import com.DBCompareX.DBCompareX.config.SparkEngineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
+import com.DBCompareX.DBCompareX.dao.entities.ExcelGenerator;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import com.DBCompareX.DBCompareX.service.CheckpointStore;
+import com.DBCompareX.DBCompareX.service.ComparisonMetrics;
+import com.DBCompareX.DBCompareX.service.ComparisonPipeline;
+import com.DBCompareX.DBCompareX.service.DiffResultStore;
+import com.DBCompareX.DBCompareX.service.FairScheduler;
+import com.DBCompareX.DBCompareX.service.KeyFirstComparison;
+import com.DBCompareX.DBCompareX.service.KeySelector;
+import com.DBCompareX.DBCompareX.service.LoadLimiter;
+import com.DBCompareX.DBCompareX.service.RecordComparator;
+import com.DBCompareX.DBCompareX.service.ReportStorageService;
+import com.DBCompareX.DBCompareX.service.RowHashComparison;
+import com.DBCompareX.DBCompareX.service.SparkComparisonEngine;
+import com.DBCompareX.DBCompareX.service.TableSchemaExtractor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.tools.Server;
+
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Offline end-to-end benchmark: loads synthetic tables into embedded H2 databases running in MySQL,
+ * PostgreSQL and Oracle compatibility modes and drives compareAndGenerateReport over JDBC.
+ * Reports rows/sec, peak heap and GC time for the load, compare and report phases, and fails once every
+ * scenario has run if any found other difference counts than the synthetic drift put in.
+ *
+ * Both sides are always compared with the generic h2 dialect: the modes change how H2 parses DDL and
+ * returns values, not the SQL the comparison sends, so dialect-specific queries are not exercised.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec@e2e -De2e.args="rows=1000000 modes=MySQL:Oracle"
+ * Options (key=value): rows, width, types, keyShape, drift, changedRatio, missingRatio, extraRatio,
+ * modes (source:target pairs), engine (JDBC or KEY_FIRST), output.
+ */
+public final class EndToEndBenchmark {
+    // Compatibility modes are set in the H2 URL; the application only knows the databases as h2
+    private static final String DB_TYPE = "h2";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private EndToEndBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<Integer> rowCounts = new ArrayList<>();
+        for (String rows : options.getOrDefault("rows", "100000").split(",")) {
+            rowCounts.add(Integer.parseInt(rows.trim()));
+        }
+        int width = Integer.parseInt(options.getOrDefault("width", "10"));
+        List<String> types = Arrays.asList(options.getOrDefault("types", "varchar,int,decimal,date,timestamp").split(","));
+        SyntheticTables.KeyShape keyShape = SyntheticTables.KeyShape.valueOf(options.getOrDefault("keyShape", "INT").toUpperCase());
+        SyntheticTables.Drift drift = SyntheticTables.Drift.valueOf(options.getOrDefault("drift", "VALUES").toUpperCase());
+        double changedRatio = Double.parseDouble(options.getOrDefault("changedRatio", "0.01"));
+        double missingRatio = Double.parseDouble(options.getOrDefault("missingRatio", "0.001"));
+        double extraRatio = Double.parseDouble(options.getOrDefault("extraRatio", "0.001"));
+        List<String> modePairs = Arrays.asList(options.getOrDefault("modes",
+                "MySQL:MySQL,PostgreSQL:PostgreSQL,Oracle:Oracle,MySQL:Oracle").split(","));
+        EngineMode engine = EngineMode.fromValue(options.getOrDefault("engine", "JDBC"));
+        Path outputDir = Paths.get(options.getOrDefault("output", "target/e2e-benchmark")).toAbsolutePath();
+        Path dataDir = outputDir.resolve("data");
+        Files.createDirectories(dataDir);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        Server server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-baseDir", dataDir.toString(),
+                "-ifNotExists").start();
+        List<String> lines = new ArrayList<>();
+        List<String> mismatches = new ArrayList<>();
+        lines.add("source_mode,target_mode,rows,width,key_shape,drift,engine,phase,millis,rows_per_sec,peak_heap_mb,"
+                + "gc_count,gc_millis,differences,expected_differences,source_only,expected_source_only,"
+                + "target_only,expected_target_only");
+        try {
+            for (int rows : rowCounts) {
+                for (String pair : modePairs) {
+                    String[] modes = pair.trim().split(":");
+                    SyntheticTables tables = new SyntheticTables(rows, width, types, keyShape, changedRatio,
+                            missingRatio, extraRatio, drift);
+                    tables.setDatesWithTime(modes[0].equalsIgnoreCase("Oracle") || modes[1].equalsIgnoreCase("Oracle"));
+                    ScenarioResult result = runScenario(port, modes[0], modes[1], tables, rows, engine, outputDir);
+                    for (PhaseRecorder.Phase phase : result.phases) {
+                        String line = String.join(",", modes[0], modes[1], String.valueOf(rows), String.valueOf(width),
+                                keyShape.name(), drift.name(), engine.name(), phase.name, String.valueOf(phase.millis),
+                                String.format(Locale.ROOT, "%.0f", phase.rowsPerSecond()),
+                                String.valueOf(phase.peakHeapBytes / (1024 * 1024)), String.valueOf(phase.gcCount),
+                                String.valueOf(phase.gcMillis), String.valueOf(result.differences),
+                                String.valueOf(tables.getExpectedDifferences()), String.valueOf(result.sourceOnly),
+                                String.valueOf(tables.getExpectedSourceOnly()), String.valueOf(result.targetOnly),
+                                String.valueOf(tables.getExpectedTargetOnly()));
+                        lines.add(line);
+                        System.out.printf(Locale.ROOT, "%-10s -> %-10s rows=%-9d %-8s %8d ms %12.0f rows/s heap=%5d MB gc=%d (%d ms)%n",
+                                modes[0], modes[1], rows, phase.name, phase.millis, phase.rowsPerSecond(),
+                                phase.peakHeapBytes / (1024 * 1024), phase.gcCount, phase.gcMillis);
+                    }
+                    if (result.differences != tables.getExpectedDifferences()
+                            || result.sourceOnly != tables.getExpectedSourceOnly()
+                            || result.targetOnly != tables.getExpectedTargetOnly()) {
+                        String mismatch = String.format("%s -> %s rows=%d found %d/%d/%d differences/source-only/"
+                                        + "target-only, expected %d/%d/%d", modes[0], modes[1], rows, result.differences,
+                                result.sourceOnly, result.targetOnly, tables.getExpectedDifferences(),
+                                tables.getExpectedSourceOnly(), tables.getExpectedTargetOnly());
+                        System.out.println("MISMATCH: " + mismatch);
+                        mismatches.add(mismatch);
+                    }
+                }
+            }
+        } finally {
+            server.stop();
+        }
+
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path resultFile = outputDir.resolve("e2e-" + timestamp + ".csv");
+        Files.write(resultFile, lines, StandardCharsets.UTF_8);
+        System.out.println("Results written to " + resultFile);
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("Comparison results differ from the synthetic drift: " + mismatches);
+        }
+    }
+
+    private static ScenarioResult runScenario(int port, String sourceMode, String targetMode, SyntheticTables tables,
+                                              int rows, EngineMode engine, Path outputDir) throws Exception {
+        String sourceDb = "./src_" + sourceMode.toLowerCase() + ";MODE=" + sourceMode;
+        String targetDb = "./tgt_" + targetMode.toLowerCase() + ";MODE=" + targetMode;
+        String baseUrl = "jdbc:h2:tcp://localhost:" + port + "/";
+        PhaseRecorder recorder = new PhaseRecorder();
+        ScenarioResult result = new ScenarioResult();
+
+        System.gc();
+        recorder.begin("load", 0);
+        try (Connection source = DriverManager.getConnection(baseUrl + sourceDb, USER, PASSWORD);
+             Connection target = DriverManager.getConnection(baseUrl + targetDb, USER, PASSWORD)) {
+            source.setAutoCommit(false);
+            target.setAutoCommit(false);
+            tables.createSource(source);
+            tables.createTarget(target);
+        }
+        recorder.setRows(rows + tables.targetRows());
+        recorder.end();
+
+        ReportStorageConfig storageConfig = new ReportStorageConfig();
+        storageConfig.setStorageDir(outputDir.resolve("reports").toString());
+        ReportStorageService storage = new ReportStorageService(storageConfig);
+        TableSchemaExtractor extractor = createExtractor(storage, recorder, result);
+        String jobId = storage.newJobId();
+
+        TableMapping mapping = new TableMapping(SyntheticTables.TABLE_NAME, SyntheticTables.TABLE_NAME);
+        mapping.setKeyColumns(tables.keyColumns());
+
+        System.gc();
+        recorder.begin("compare", rows + tables.targetRows());
+        extractor.compareAndGenerateReport(DB_TYPE, DB_TYPE,
+                "localhost", port, sourceDb, USER, PASSWORD,
+                "localhost", port, targetDb, USER, PASSWORD,
+                jobId, storage.getOutputPath(jobId, "comparison_report.xlsx"), List.of(mapping),
+                null, null, null, engine, null);
+        recorder.end();
+
+        result.phases = recorder.getPhases();
+        return result;
+    }
+
+    /**
+     * Wires the comparison engine by hand; the report generator switches the recorder to the report phase
+     */
+    private static TableSchemaExtractor createExtractor(ReportStorageService storage, PhaseRecorder recorder,
+                                                        ScenarioResult result) {
+        DatabaseConfig databaseConfig = new DatabaseConfig();
+        databaseConfig.setJdbcUrl(Map.of(DB_TYPE, "jdbc:h2:tcp://"));
+        databaseConfig.setDriver(Map.of(DB_TYPE, "org.h2.Driver"));
+
+        DiffResultStore diffResultStore = new DiffResultStore(new ResultStoreConfig(), storage, new ObjectMapper());
+
+        ExcelGenerator excelGenerator = new ExcelGenerator() {
+            @Override
+            public File generateExcelReport(Map<String, Object> results, String outputPath, List<TableMapping> tableMappings) {
+                result.differences = ((List<?>) results.get("differences")).size();
+                result.sourceOnly = ((List<?>) results.get("unmatched_source")).size();
+                result.targetOnly = ((List<?>) results.get("unmatched_target")).size();
+                recorder.begin("report", result.differences);
+                try {
+                    return super.generateExcelReport(results, outputPath, tableMappings);
+                } finally {
+                    recorder.end();
+                }
+            }
+        };
+
+        ComparisonMetrics metrics = new ComparisonMetrics(new SimpleMeterRegistry());
+        return new TableSchemaExtractor(databaseConfig, excelGenerator, diffResultStore,
+                new ComparisonPipeline(new PipelineConfig(), new RecordComparator(), metrics), new PipelineConfig(),
+                new SparkComparisonEngine(null, new SparkEngineConfig()), metrics,
+                new KeySelector(new KeySelectionConfig()),
+                new RowHashComparison(new KeylessConfig(), metrics), new KeylessConfig(), DialectRegistry.builtIn(),
+                new CheckpointStore(new CheckpointConfig(), storage, new ObjectMapper()),
+                new LoadLimiter(new LoadLimitConfig()),
+                new FairScheduler(new SchedulerConfig()),
+                new KeyFirstComparison(new KeyFirstConfig(), new RecordComparator(), metrics));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static final class ScenarioResult {
+        private List<PhaseRecorder.Phase> phases;
+        private long differences;
+        private long sourceOnly;
+        private long targetOnly;
+    }
+}
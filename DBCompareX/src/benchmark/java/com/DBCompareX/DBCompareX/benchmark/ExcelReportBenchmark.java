@@ -0,0 +1,84 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ExcelGenerator;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.service.ComparisonMetrics;
+import com.DBCompareX.DBCompareX.service.ComparisonPipeline;
+import com.DBCompareX.DBCompareX.service.RecordComparator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Excel report generation for a given number of differing records
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExcelReportBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int differences;
+
+    private final ExcelGenerator excelGenerator = new ExcelGenerator();
+    private Map<String, Object> results;
+    private List<TableMapping> mappings;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<Map<String, Object>> source = BenchmarkData.source(differences);
+        // Every target row drifts, so each source row becomes one difference
+        List<Map<String, Object>> target = BenchmarkData.target(source, 1.0, 0.0);
+        TableMapping mapping = new TableMapping("customers", "customers");
+        mapping.setKeyColumns(BenchmarkData.KEY_COLUMNS);
+        mappings = List.of(mapping);
+        ComparisonPipeline pipeline = new ComparisonPipeline(new PipelineConfig(), new RecordComparator(),
+                new ComparisonMetrics(new SimpleMeterRegistry()));
+        results = pipeline.compareTable(mapping,
+                sink -> {
+                    for (Map<String, Object> row : source) {
+                        sink.accept(row);
+                    }
+                },
+                sink -> {
+                    for (Map<String, Object> row : target) {
+                        sink.accept(row);
+                    }
+                },
+                null);
+        outputDir = Files.createTempDirectory("dbcomparex-bench");
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteReports() throws IOException {
+        try (Stream<Path> files = Files.list(outputDir)) {
+            files.map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutputDir() throws IOException {
+        try (Stream<Path> files = Files.walk(outputDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public File generateExcelReport() {
+        return excelGenerator.generateExcelReport(results, outputDir.resolve("report.xlsx").toString(), mappings);
+    }
+}
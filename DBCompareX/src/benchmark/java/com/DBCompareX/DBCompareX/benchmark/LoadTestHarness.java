@@ -0,0 +1,391 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import com.DBCompareX.DBCompareX.DbCompareXApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.catalina.connector.Connector;
+import org.h2.tools.Server;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * REST load test of the comparison API. Sends a weighted mix of get-available-tables,
+ * compare-selected-tables and execute-query requests from a fixed number of concurrent clients
+ * against synthetic tables in an embedded H2 server.
+ *
+ * By default the application is started in-process so Tomcat's request thread pool and the heap can be
+ * sampled; with baseUrl=... an already running instance is targeted and only client-side figures are reported.
+ * Every client sends the same bodies, so the in-process application runs with request coalescing disabled;
+ * start a targeted instance with coalescing.enabled=false too, or the figures measure cache hits.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec@load -Dload.args="concurrency=32 duration=120 mix=tables:50,compare:10,query:40"
+ * Options (key=value): baseUrl, concurrency, duration (seconds), warmup (seconds), mix, rows, query, output.
+ */
+public final class LoadTestHarness {
+    private static final String DB_TYPE = "h2";
+    private static final String USER = "bench";
+    private static final String PASSWORD = "bench";
+    private static final long SAMPLE_INTERVAL_MS = 250;
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int rows = Integer.parseInt(options.getOrDefault("rows", "10000"));
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", "tables:45,compare:10,query:45"));
+        String query = options.getOrDefault("query", "SELECT * FROM " + SyntheticTables.TABLE_NAME + " WHERE row_num < 100");
+        Path outputDir = Paths.get(options.getOrDefault("output", "target/load-test")).toAbsolutePath();
+        Files.createDirectories(outputDir.resolve("data"));
+
+        int dbPort = freePort();
+        Server h2 = Server.createTcpServer("-tcpPort", String.valueOf(dbPort), "-baseDir",
+                outputDir.resolve("data").toString(), "-ifNotExists").start();
+        ConfigurableApplicationContext context = null;
+        try {
+            SyntheticTables tables = new SyntheticTables(rows, 10, List.of("varchar", "int", "decimal", "date", "timestamp"),
+                    SyntheticTables.KeyShape.INT, 0.01, 0.001, 0.001, SyntheticTables.Drift.VALUES);
+            String baseDbUrl = "jdbc:h2:tcp://localhost:" + dbPort + "/";
+            try (Connection source = DriverManager.getConnection(baseDbUrl + "./load_src", USER, PASSWORD);
+                 Connection target = DriverManager.getConnection(baseDbUrl + "./load_tgt", USER, PASSWORD)) {
+                source.setAutoCommit(false);
+                target.setAutoCommit(false);
+                tables.createSource(source);
+                tables.createTarget(target);
+            }
+
+            String baseUrl = options.get("baseUrl");
+            if (baseUrl == null) {
+                context = startApplication(outputDir);
+                baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            }
+            RequestFactory requests = new RequestFactory(baseUrl, dbPort, tables.keyColumns(), query);
+
+            System.out.printf("Warming up for %d s against %s%n", warmupSeconds, baseUrl);
+            run(requests, mix, concurrency, warmupSeconds, null);
+            System.out.printf("Measuring for %d s with %d clients, mix %s%n", durationSeconds, concurrency, mix);
+            ServerSampler sampler = new ServerSampler(context);
+            Map<String, EndpointStats> stats = run(requests, mix, concurrency, durationSeconds, sampler);
+
+            Map<String, Object> report = buildReport(options, concurrency, durationSeconds, mix, stats, sampler);
+            String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            Path reportFile = outputDir.resolve("load-" + timestamp + ".json");
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile.toFile(), report);
+            printReport(stats, sampler);
+            System.out.println("Report written to " + reportFile);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            h2.stop();
+        }
+    }
+
+    /**
+     * Run the request mix for the given time; every client sends its next request as soon as the previous one returns
+     */
+    private static Map<String, EndpointStats> run(RequestFactory requests, Map<String, Integer> mix, int concurrency,
+                                                  int seconds, ServerSampler sampler) throws InterruptedException {
+        Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+        for (String endpoint : mix.keySet()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        List<String> weighted = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> weighted.addAll(Collections.nCopies(weight, endpoint)));
+
+        // The client's own pool is non-daemon, so it is shut down with the rest once the run ends
+        ExecutorService clientPool = Executors.newFixedThreadPool(concurrency);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientPool)
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        ScheduledExecutorService sampling = Executors.newSingleThreadScheduledExecutor();
+        if (sampler != null) {
+            sampling.scheduleAtFixedRate(sampler::sample, 0, SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        for (int i = 0; i < concurrency; i++) {
+            long seed = i;
+            clients.submit(() -> {
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline) {
+                    String endpoint = weighted.get(random.nextInt(weighted.size()));
+                    EndpointStats endpointStats = stats.get(endpoint);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(requests.create(endpoint),
+                                HttpResponse.BodyHandlers.discarding());
+                        endpointStats.record(System.nanoTime() - start, response.statusCode() >= 400);
+                    } catch (Exception e) {
+                        endpointStats.record(System.nanoTime() - start, true);
+                    }
+                }
+            });
+        }
+        try {
+            clients.shutdown();
+            clients.awaitTermination(seconds + 600L, TimeUnit.SECONDS);
+        } finally {
+            clients.shutdownNow();
+            sampling.shutdownNow();
+            clientPool.shutdownNow();
+        }
+        return stats;
+    }
+
+    private static ConfigurableApplicationContext startApplication(Path outputDir) {
+        // DevTools would otherwise restart this main class in a new class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return SpringApplication.run(DbCompareXApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--database.jdbc-url." + DB_TYPE + "=jdbc:h2:tcp://",
+                "--database.driver." + DB_TYPE + "=org.h2.Driver",
+                "--report.storage-dir=" + outputDir.resolve("reports"),
+                // Identical bodies would otherwise be answered from the coalescer's result cache
+                "--coalescing.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.DBCompareX=WARN");
+    }
+
+    private static Map<String, Object> buildReport(Map<String, String> options, int concurrency, int duration,
+                                                   Map<String, Integer> mix, Map<String, EndpointStats> stats,
+                                                   ServerSampler sampler) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("concurrency", concurrency);
+        report.put("durationSeconds", duration);
+        report.put("mix", mix);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((endpoint, endpointStats) -> endpoints.put(endpoint, endpointStats.summary(duration)));
+        report.put("endpoints", endpoints);
+        report.put("server", sampler.summary());
+        return report;
+    }
+
+    private static void printReport(Map<String, EndpointStats> stats, ServerSampler sampler) {
+        System.out.printf("%-10s %8s %8s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        stats.forEach((endpoint, endpointStats) -> {
+            Map<String, Object> summary = endpointStats.summary(1);
+            System.out.printf(Locale.ROOT, "%-10s %8d %7.2f%% %9.1f %9.1f %9.1f %9.1f%n", endpoint,
+                    summary.get("requests"), (Double) summary.get("errorRate") * 100, summary.get("p50Ms"),
+                    summary.get("p95Ms"), summary.get("p99Ms"), summary.get("maxMs"));
+        });
+        System.out.println("Server: " + sampler.summary());
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = Integer.parseInt(parts[1]);
+            if (!RequestFactory.ENDPOINTS.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Unknown endpoint in mix: " + parts[0]
+                        + ". Known: " + RequestFactory.ENDPOINTS.keySet());
+            }
+            if (weight > 0) {
+                weights.put(parts[0], weight);
+            }
+        }
+        return weights;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int freePort() throws java.io.IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Builds the request bodies of each endpoint against the synthetic databases
+     */
+    private static final class RequestFactory {
+        static final Map<String, String> ENDPOINTS = Map.of(
+                "tables", "/api/compare/get-available-tables",
+                "compare", "/api/compare/compare-selected-tables",
+                "query", "/api/compare/execute-query");
+
+        private final String baseUrl;
+        private final Map<String, String> bodies = new HashMap<>();
+
+        RequestFactory(String baseUrl, int dbPort, List<String> keyColumns, String query) throws Exception {
+            this.baseUrl = baseUrl;
+            ObjectMapper mapper = new ObjectMapper();
+            Map<String, Object> connection = new LinkedHashMap<>();
+            connection.put("sourceDbType", DB_TYPE);
+            connection.put("targetDbType", DB_TYPE);
+            connection.put("sourceHost", "localhost");
+            connection.put("targetHost", "localhost");
+            connection.put("sourcePort", dbPort);
+            connection.put("targetPort", dbPort);
+            connection.put("sourceDbName", "./load_src");
+            connection.put("targetDbName", "./load_tgt");
+            connection.put("sourceUsername", USER);
+            connection.put("targetUsername", USER);
+            connection.put("sourcePassword", PASSWORD);
+            connection.put("targetPassword", PASSWORD);
+            bodies.put("tables", mapper.writeValueAsString(connection));
+
+            Map<String, Object> compare = new LinkedHashMap<>(connection);
+            Map<String, Object> mapping = new LinkedHashMap<>();
+            mapping.put("sourceTable", SyntheticTables.TABLE_NAME);
+            mapping.put("targetTable", SyntheticTables.TABLE_NAME);
+            mapping.put("keyColumns", keyColumns);
+            compare.put("tableMappings", List.of(mapping));
+            bodies.put("compare", mapper.writeValueAsString(compare));
+
+            Map<String, Object> execute = new LinkedHashMap<>(connection);
+            // execute-query reads the port as a string
+            execute.put("sourcePort", String.valueOf(dbPort));
+            execute.put("query", query);
+            bodies.put("query", mapper.writeValueAsString(execute));
+        }
+
+        HttpRequest create(String endpoint) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + ENDPOINTS.get(endpoint)))
+                    .timeout(Duration.ofMinutes(10))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(bodies.get(endpoint)))
+                    .build();
+        }
+    }
+
+    /**
+     * Latencies and errors of one endpoint
+     */
+    private static final class EndpointStats {
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger errors = new AtomicInteger();
+
+        void record(long nanos, boolean error) {
+            latencies.add(nanos);
+            if (error) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> summary(int seconds) {
+            long[] sorted;
+            synchronized (latencies) {
+                sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", sorted.length);
+            summary.put("errors", errors.get());
+            summary.put("errorRate", sorted.length == 0 ? 0.0 : errors.get() / (double) sorted.length);
+            summary.put("throughputPerSecond", sorted.length / (double) seconds);
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p95Ms", percentile(sorted, 0.95));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("maxMs", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Samples Tomcat's request thread pool and the heap of an in-process server
+     */
+    private static final class ServerSampler {
+        private final org.apache.tomcat.util.threads.ThreadPoolExecutor requestPool;
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private int samples;
+        private int saturatedSamples;
+        private int maxActiveThreads;
+        private int maxQueuedRequests;
+        private long activeThreadSum;
+        private long peakHeapBytes;
+
+        ServerSampler(ConfigurableApplicationContext context) {
+            org.apache.tomcat.util.threads.ThreadPoolExecutor pool = null;
+            if (context instanceof ServletWebServerApplicationContext
+                    && ((ServletWebServerApplicationContext) context).getWebServer() instanceof TomcatWebServer) {
+                TomcatWebServer webServer = (TomcatWebServer) ((ServletWebServerApplicationContext) context).getWebServer();
+                Connector connector = webServer.getTomcat().getConnector();
+                Executor executor = connector.getProtocolHandler().getExecutor();
+                if (executor instanceof org.apache.tomcat.util.threads.ThreadPoolExecutor) {
+                    pool = (org.apache.tomcat.util.threads.ThreadPoolExecutor) executor;
+                }
+            }
+            this.requestPool = pool;
+        }
+
+        synchronized void sample() {
+            if (requestPool == null) {
+                return;
+            }
+            int active = requestPool.getActiveCount();
+            samples++;
+            activeThreadSum += active;
+            maxActiveThreads = Math.max(maxActiveThreads, active);
+            maxQueuedRequests = Math.max(maxQueuedRequests, requestPool.getQueue().size());
+            if (active >= requestPool.getMaximumPoolSize()) {
+                saturatedSamples++;
+            }
+            peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+        }
+
+        synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            if (requestPool == null) {
+                summary.put("available", false);
+                return summary;
+            }
+            summary.put("available", true);
+            summary.put("maxThreads", requestPool.getMaximumPoolSize());
+            summary.put("maxActiveThreads", maxActiveThreads);
+            summary.put("meanActiveThreads", samples == 0 ? 0.0 : activeThreadSum / (double) samples);
+            summary.put("saturatedSampleRatio", samples == 0 ? 0.0 : saturatedSamples / (double) samples);
+            summary.put("maxQueuedRequests", maxQueuedRequests);
+            summary.put("peakHeapMb", peakHeapBytes / (1024 * 1024));
+            summary.put("samples", samples);
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NormalizationUtils.normalizeValue per value type; every compared field goes through it
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NormalizationBenchmark {
+
+    @Param({"plain_string", "phone_string", "date_string", "timestamp_string", "integer", "decimal",
+            "sql_date", "sql_timestamp", "local_date", "local_date_time", "null"})
+    public String valueType;
+
+    private Object value;
+
+    @Setup
+    public void setUp() {
+        switch (valueType) {
+            case "plain_string": value = "  Alice Example  "; break;
+            case "phone_string": value = "0612-34-56"; break;
+            case "date_string": value = "2021-03-04"; break;
+            case "timestamp_string": value = "2021-03-04 10:11:12.0"; break;
+            case "integer": value = 123456; break;
+            case "decimal": value = new BigDecimal("1234.5600"); break;
+            case "sql_date": value = Date.valueOf("2021-03-04"); break;
+            case "sql_timestamp": value = Timestamp.valueOf("2021-03-04 10:11:12.5"); break;
+            case "local_date": value = LocalDate.of(2021, 3, 4); break;
+            case "local_date_time": value = LocalDateTime.of(2021, 3, 4, 10, 11, 12); break;
+            default: value = null;
+        }
+    }
+
+    @Benchmark
+    public Object normalizeValue() {
+        return NormalizationUtils.normalizeValue(value);
+    }
+}
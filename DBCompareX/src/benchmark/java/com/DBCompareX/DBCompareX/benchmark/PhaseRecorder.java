@@ -0,0 +1,101 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records wall time, peak heap and GC activity of consecutive benchmark phases.
+ * Starting a phase ends the running one, so phases can be switched from inside the code under test.
+ */
+final class PhaseRecorder {
+
+    static final class Phase {
+        final String name;
+        final long rows;
+        final long millis;
+        final long peakHeapBytes;
+        final long gcCount;
+        final long gcMillis;
+
+        private Phase(String name, long rows, long millis, long peakHeapBytes, long gcCount, long gcMillis) {
+            this.name = name;
+            this.rows = rows;
+            this.millis = millis;
+            this.peakHeapBytes = peakHeapBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        double rowsPerSecond() {
+            return millis == 0 ? rows : rows * 1000.0 / millis;
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+    private String currentName;
+    private long currentRows;
+    private long startNanos;
+    private long startGcCount;
+    private long startGcMillis;
+
+    synchronized void begin(String name, long rows) {
+        end();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+        currentName = name;
+        currentRows = rows;
+        startGcCount = gcCount();
+        startGcMillis = gcMillis();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Row count of the running phase, for phases that only know it at the end
+     */
+    synchronized void setRows(long rows) {
+        currentRows = rows;
+    }
+
+    synchronized void end() {
+        if (currentName == null) {
+            return;
+        }
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        phases.add(new Phase(currentName, currentRows, millis, peakHeap,
+                gcCount() - startGcCount, gcMillis() - startGcMillis));
+        currentName = null;
+    }
+
+    synchronized List<Phase> getPhases() {
+        return new ArrayList<>(phases);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,52 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.service.RecordComparator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-record work of the comparison: building composite keys and field-by-field verdicts
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RecordComparisonBenchmark {
+
+    @Param({"single", "composite"})
+    public String keyShape;
+
+    @Param({"false", "true"})
+    public boolean drifted;
+
+    private final RecordComparator comparator = new RecordComparator();
+    private List<String> keyColumns;
+    private ColumnLayout layout;
+    private Map<String, Object> sourceRecord;
+    private Map<String, Object> targetRecord;
+
+    @Setup
+    public void setUp() {
+        keyColumns = "single".equals(keyShape) ? BenchmarkData.KEY_COLUMNS : BenchmarkData.COMPOSITE_KEY_COLUMNS;
+        sourceRecord = BenchmarkData.row(123_456);
+        targetRecord = drifted ? BenchmarkData.drift(sourceRecord) : BenchmarkData.row(123_456);
+        layout = comparator.createLayout(sourceRecord, targetRecord);
+    }
+
+    @Benchmark
+    public String buildCompositeKey() {
+        return comparator.buildCompositeKey(sourceRecord, keyColumns);
+    }
+
+    @Benchmark
+    public FieldVerdicts compareRecordFields() {
+        return comparator.compareRecordFields(layout, sourceRecord, targetRecord);
+    }
+}
@@ -0,0 +1,233 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates a source table and a drifted copy of it as the target.
+ * Everything is derived from the row number and a fixed seed, so runs are reproducible.
+ */
+final class SyntheticTables {
+    static final String TABLE_NAME = "bench_data";
+    private static final int BATCH_SIZE = 5000;
+
+    /**
+     * Key shapes: a numeric id, a string code, or a (region, id) pair
+     */
+    enum KeyShape {
+        INT, STRING, COMPOSITE
+    }
+
+    /**
+     * How drifted target rows differ: changed values, NULLed values, or trailing whitespace
+     * that normalization must ignore
+     */
+    enum Drift {
+        VALUES, NULLS, WHITESPACE
+    }
+
+    private final int rows;
+    private final KeyShape keyShape;
+    private final List<String> columnTypes;
+    private final double changedRatio;
+    private final double missingRatio;
+    private final double extraRatio;
+    private final Drift drift;
+    // Store date columns as TIMESTAMP(0), the type H2's Oracle mode gives a DATE, so both sides return the same values
+    private boolean datesWithTime;
+
+    private long expectedDifferences;
+    private long expectedSourceOnly;
+    private long expectedTargetOnly;
+
+    SyntheticTables(int rows, int width, List<String> types, KeyShape keyShape, double changedRatio,
+                    double missingRatio, double extraRatio, Drift drift) {
+        this.rows = rows;
+        this.keyShape = keyShape;
+        this.changedRatio = changedRatio;
+        this.missingRatio = missingRatio;
+        this.extraRatio = extraRatio;
+        this.drift = drift;
+        this.columnTypes = new ArrayList<>();
+        for (int i = 0; i < width; i++) {
+            columnTypes.add(types.get(i % types.size()).toLowerCase());
+        }
+    }
+
+    /**
+     * Declare date columns as TIMESTAMP(0) on both sides. Needed when either side runs in Oracle mode,
+     * where a DATE carries a time of day and renders as "yyyy-MM-dd 00:00:00"
+     */
+    void setDatesWithTime(boolean datesWithTime) {
+        this.datesWithTime = datesWithTime;
+    }
+
+    List<String> keyColumns() {
+        switch (keyShape) {
+            case STRING: return List.of("code");
+            case COMPOSITE: return List.of("region", "seq");
+            default: return List.of("row_num");
+        }
+    }
+
+    void createSource(Connection conn) throws SQLException {
+        createTable(conn);
+        try (PreparedStatement insert = conn.prepareStatement(insertSql())) {
+            for (int row = 0; row < rows; row++) {
+                bindRow(insert, row, -1);
+                addBatch(conn, insert, row);
+            }
+            insert.executeBatch();
+            conn.commit();
+        }
+    }
+
+    void createTarget(Connection conn) throws SQLException {
+        createTable(conn);
+        Random random = new Random(42);
+        expectedDifferences = 0;
+        expectedSourceOnly = 0;
+        int written = 0;
+        try (PreparedStatement insert = conn.prepareStatement(insertSql())) {
+            for (int row = 0; row < rows; row++) {
+                double draw = random.nextDouble();
+                if (draw < missingRatio) {
+                    expectedSourceOnly++;
+                    continue;
+                }
+                int driftedColumn = -1;
+                if (draw < missingRatio + changedRatio && !columnTypes.isEmpty()) {
+                    driftedColumn = row % columnTypes.size();
+                    if (drift == Drift.WHITESPACE) {
+                        driftedColumn = columnTypes.indexOf("varchar");
+                    }
+                    if (drift != Drift.WHITESPACE && driftedColumn >= 0) {
+                        expectedDifferences++;
+                    }
+                }
+                bindRow(insert, row, driftedColumn);
+                addBatch(conn, insert, written++);
+            }
+            expectedTargetOnly = (long) (rows * extraRatio);
+            for (int row = rows; row < rows + expectedTargetOnly; row++) {
+                bindRow(insert, row, -1);
+                addBatch(conn, insert, written++);
+            }
+            insert.executeBatch();
+            conn.commit();
+        }
+    }
+
+    long getExpectedDifferences() {
+        return expectedDifferences;
+    }
+
+    long getExpectedSourceOnly() {
+        return expectedSourceOnly;
+    }
+
+    long getExpectedTargetOnly() {
+        return expectedTargetOnly;
+    }
+
+    long targetRows() {
+        return rows - expectedSourceOnly + expectedTargetOnly;
+    }
+
+    private void createTable(Connection conn) throws SQLException {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(TABLE_NAME).append(" (");
+        switch (keyShape) {
+            case STRING:
+                ddl.append("code VARCHAR(40) NOT NULL");
+                break;
+            case COMPOSITE:
+                ddl.append("region VARCHAR(8) NOT NULL, seq BIGINT NOT NULL");
+                break;
+            default:
+                ddl.append("row_num BIGINT NOT NULL");
+        }
+        for (int i = 0; i < columnTypes.size(); i++) {
+            ddl.append(", ").append(columnName(i)).append(' ').append(sqlType(columnTypes.get(i)));
+        }
+        ddl.append(", PRIMARY KEY (").append(String.join(", ", keyColumns())).append("))");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + TABLE_NAME);
+            stmt.execute(ddl.toString());
+        }
+        conn.commit();
+    }
+
+    private String insertSql() {
+        int parameters = keyColumns().size() + columnTypes.size();
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(TABLE_NAME).append(" VALUES (");
+        for (int i = 0; i < parameters; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private void bindRow(PreparedStatement insert, int row, int driftedColumn) throws SQLException {
+        int parameter = 1;
+        switch (keyShape) {
+            case STRING:
+                insert.setString(parameter++, String.format("K%08X-%d", row * 2654435761L & 0xffffffffL, row));
+                break;
+            case COMPOSITE:
+                insert.setString(parameter++, "R" + (row % 16));
+                insert.setLong(parameter++, row / 16);
+                break;
+            default:
+                insert.setLong(parameter++, row);
+        }
+        for (int i = 0; i < columnTypes.size(); i++) {
+            insert.setObject(parameter++, value(columnTypes.get(i), row, i, i == driftedColumn));
+        }
+    }
+
+    private Object value(String type, int row, int column, boolean drifted) {
+        if (drifted && drift == Drift.NULLS) {
+            return null;
+        }
+        int shift = drifted && drift == Drift.VALUES ? 1 : 0;
+        switch (type) {
+            case "int":
+                return (row * 31 + column) % 100_000 + shift;
+            case "decimal":
+                return BigDecimal.valueOf((row * 17L + column) % 10_000_000, 2).add(BigDecimal.valueOf(shift, 2));
+            case "date":
+                return Date.valueOf(LocalDate.of(2000, 1, 1).plusDays((row + column) % 9000 + shift));
+            case "timestamp":
+                return Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 0, 0).plusMinutes(row + column).plusDays(shift));
+            default:
+                String text = "value-" + column + "-" + row + (shift > 0 ? "x" : "");
+                return drifted && drift == Drift.WHITESPACE ? text + "   " : text;
+        }
+    }
+
+    private void addBatch(Connection conn, PreparedStatement insert, int written) throws SQLException {
+        insert.addBatch();
+        if ((written + 1) % BATCH_SIZE == 0) {
+            insert.executeBatch();
+            conn.commit();
+        }
+    }
+
+    private String columnName(int index) {
+        return "col" + index + "_" + columnTypes.get(index);
+    }
+
+    private String sqlType(String type) {
+        switch (type) {
+            case "int": return "INTEGER";
+            case "decimal": return "DECIMAL(12, 2)";
+            case "date": return datesWithTime ? "TIMESTAMP(0)" : "DATE";
+            case "timestamp": return "TIMESTAMP";
+            default: return "VARCHAR(64)";
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.DBCompareX.DBCompareX.benchmark;
+
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.service.ComparisonMetrics;
+import com.DBCompareX.DBCompareX.service.ComparisonPipeline;
+import com.DBCompareX.DBCompareX.service.RecordComparator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole-table comparison of in-memory rows through the staged pipeline, as the JDBC engine runs it.
+ * The 10M row case needs a large heap: add -jvmArgsAppend -Xmx32g to jmh.args.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TableComparisonBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"0.0", "0.01", "0.1"})
+    public double diffRatio;
+
+    @Param({"0.001"})
+    public double orphanRatio;
+
+    private ComparisonPipeline pipeline;
+    private TableMapping mapping;
+    private List<Map<String, Object>> sourceData;
+    private List<Map<String, Object>> targetData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sourceData = BenchmarkData.source(rows);
+        targetData = BenchmarkData.target(sourceData, diffRatio, orphanRatio);
+        mapping = new TableMapping("customers", "customers");
+        mapping.setKeyColumns(BenchmarkData.KEY_COLUMNS);
+        pipeline = new ComparisonPipeline(new PipelineConfig(), new RecordComparator(),
+                new ComparisonMetrics(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public Map<String, Object> pipelineCompareTable() throws Exception {
+        return pipeline.compareTable(mapping,
+                sink -> {
+                    for (Map<String, Object> row : sourceData) {
+                        sink.accept(row);
+                    }
+                },
+                sink -> {
+                    for (Map<String, Object> row : targetData) {
+                        sink.accept(row);
+                    }
+                },
+                null);
+    }
+}
@@ -4,9 +4,11 @@ import com.DBCompareX.DBCompareX.config.DatabaseConfig;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = "com.DBCompareX.DBCompareX")
 @EnableConfigurationProperties(DatabaseConfig.class)
+@EnableScheduling
 public class DbCompareXApplication {
 
 	public static void main(String[] args) {
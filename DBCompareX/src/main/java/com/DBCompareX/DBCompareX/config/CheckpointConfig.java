@@ -0,0 +1,13 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "checkpoint")
+public class CheckpointConfig {
+    // Save a checkpoint after every finished table so a crashed job can be resumed
+    private boolean enabled = true;
+}
@@ -0,0 +1,19 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "coalescing")
+public class CoalescingConfig {
+    // Share one execution between identical concurrent comparison and discovery requests
+    private boolean enabled = true;
+
+    // How long a finished result serves identical requests; 0 only joins requests in flight
+    private long resultTtlSeconds = 300;
+
+    // Finished results kept at most; the ones closest to expiry are dropped first
+    private int maxCachedResults = 100;
+}
@@ -0,0 +1,16 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "delta")
+public class DeltaConfig {
+    // Result rows sorted in memory per run of the external merge sort that builds a job's key file
+    private int sortChunkSize = 100000;
+
+    // Upper bound on the sample keys returned per delta category
+    private int maxSamples = 1000;
+}
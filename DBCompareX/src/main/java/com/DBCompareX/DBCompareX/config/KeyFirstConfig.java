@@ -0,0 +1,22 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "key-first")
+public class KeyFirstConfig {
+    // (key, row hash) pairs requested per JDBC round trip in the first phase
+    private int fetchSize = 10000;
+
+    // Keys per lookup query when fetching full rows; Oracle allows at most 1000 values in an IN list
+    private int fetchBatchSize = 500;
+
+    // Bound parameters per lookup query, which caps the batch for composite keys; SQL Server allows 2100
+    private int maxParameters = 2000;
+
+    // Share of keys needing full rows above which the table is read with the regular full scan instead
+    private double maxFetchRatio = 0.3;
+}
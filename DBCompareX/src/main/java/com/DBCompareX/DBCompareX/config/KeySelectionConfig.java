@@ -0,0 +1,25 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "key-selection")
+public class KeySelectionConfig {
+    // Rows read to estimate distinct counts of candidate columns; 0 disables sampling
+    private int sampleRows = 100000;
+
+    // Widest composite key that is searched for
+    private int maxKeyColumns = 3;
+
+    // Columns with the most distinct values that are combined into composite candidates
+    private int maxCompositeCandidates = 8;
+
+    // Catalog distinct count relative to the row count from which a column counts as unique
+    private double distinctRatio = 0.999;
+
+    // Confirm a key chosen from statistics or samples with a GROUP BY over the whole table
+    private boolean verifyUniqueness = true;
+}
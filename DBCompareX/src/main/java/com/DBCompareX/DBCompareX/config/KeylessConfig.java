@@ -0,0 +1,23 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "keyless")
+public class KeylessConfig {
+    // Compare tables without a usable key as multisets of row hashes; false falls back to all columns as key,
+    // as do dialects that build row hashes differently, e.g. Oracle or SQL Server against another database
+    private boolean enabled = true;
+
+    // (hash, count) pairs requested per JDBC round trip
+    private int fetchSize = 10000;
+
+    // Row hashes per IN list when fetching the rows behind differing counts; Oracle allows at most 1000
+    private int fetchBatchSize = 500;
+
+    // Differing hashes whose rows are fetched for the report; further ones are only counted
+    private int maxFetchedHashes = 10000;
+}
@@ -0,0 +1,53 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "load-limit")
+public class LoadLimitConfig {
+    // Limit table scans per database endpoint; when off, scans run as soon as they are started
+    private boolean enabled = true;
+
+    // Concurrent scans an endpoint starts with before any latency has been measured
+    private int initialConcurrency = 4;
+
+    // Bounds of the adaptive concurrency of an endpoint; two lets both sides of a table on one server run together
+    private int minConcurrency = 2;
+    private int maxConcurrency = 16;
+
+    // A scan whose fetch time per byte exceeds its own best by this factor signals an overloaded endpoint
+    private double latencyTolerance = 2.0;
+
+    // Concurrency is multiplied by this factor on overload or errors
+    private double decreaseFactor = 0.5;
+
+    // Minimum time between two decreases, so one slow period is not punished several times
+    private long decreaseCooldownMs = 5000;
+
+    // Fetch chunks of a scan that set its latency baseline before it can signal overload
+    private int warmupChunks = 3;
+
+    // Rows and bytes per second read from one endpoint across all scans, 0 for no ceiling
+    private long maxRowsPerSecond = 0;
+    private long maxBytesPerSecond = 0;
+
+    // Times of day scans may start, e.g. 22:00-06:00,12:00-13:00 in server time; empty for any time
+    private String windows;
+
+    // Overrides per endpoint, keyed by host or host:port, e.g. load-limit.endpoints[db1:5432].max-concurrency=2
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Endpoint {
+        private Integer maxConcurrency;
+        private Long maxRowsPerSecond;
+        private Long maxBytesPerSecond;
+        private String windows;
+    }
+}
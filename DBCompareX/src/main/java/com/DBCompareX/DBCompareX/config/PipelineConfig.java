@@ -0,0 +1,31 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "pipeline")
+public class PipelineConfig {
+    // Rows requested per JDBC round trip by the extract stage
+    private int fetchSize = 5000;
+
+    // Rows buffered between extract and normalize, split across the normalizers; a full queue pauses extraction
+    private int extractQueueCapacity = 10000;
+
+    // Threads normalizing values and building fingerprints; rows are routed by key hash to keep each key's order
+    private int normalizeParallelism = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // Bounded queue feeding each match partition
+    private int matchQueueCapacity = 10000;
+
+    // Match partitions; rows are routed by key hash so each partition owns its keys
+    private int matchParallelism = 2;
+
+    // Bounded queue between match and write
+    private int writeQueueCapacity = 5000;
+
+    // Rows per second assumed by the explain endpoint until comparisons of a dialect have been measured
+    private double estimatedRowsPerSecond = 50000;
+}
@@ -0,0 +1,31 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "query")
+public class QueryConfig {
+    // Rows per page when a request continues a cursor without a page size; requests with neither get all rows
+    private int defaultPageSize = 1000;
+
+    // Upper bound on rows per response; larger results are paged through cursors
+    private int maxRows = 10000;
+
+    // Upper bound on the JSON bytes of one response; the page ends after the row that crosses it
+    private long maxBytes = 8L * 1024 * 1024;
+
+    // Statement timeout of a user query in seconds, 0 for none
+    private int timeoutSeconds = 30;
+
+    // Rows requested per JDBC round trip
+    private int fetchSize = 500;
+
+    // Open cursors are closed when their next page is not requested within this time
+    private long cursorIdleSeconds = 120;
+
+    // Open cursors across all clients; each holds a database connection
+    private int maxOpenCursors = 16;
+}
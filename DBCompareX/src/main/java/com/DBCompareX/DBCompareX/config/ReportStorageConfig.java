@@ -0,0 +1,21 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "report")
+public class ReportStorageConfig {
+    // Directory holding one sub-directory per comparison job
+    private String storageDir = System.getProperty("java.io.tmpdir") + "/dbcomparex-reports";
+
+    // How long a generated report stays downloadable
+    private long retentionMinutes = 1440;
+
+    // Extensions that are gzip-encoded on the fly when the client accepts it
+    private List<String> compressibleExtensions = List.of("csv", "json", "txt");
+}
@@ -0,0 +1,19 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "result-store")
+public class ResultStoreConfig {
+    // Rows written per batch insert and fetched per round trip when exporting
+    private int batchSize = 1000;
+
+    // Rows per page when a query gives no limit
+    private int defaultPageSize = 100;
+
+    // Upper bound on rows per page
+    private int maxPageSize = 1000;
+}
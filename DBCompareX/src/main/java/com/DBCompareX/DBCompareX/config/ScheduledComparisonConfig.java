@@ -0,0 +1,47 @@
+package com.DBCompareX.DBCompareX.config;
+
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduled-comparison")
+public class ScheduledComparisonConfig {
+    // Run the profiles below on their cron schedules
+    private boolean enabled = true;
+
+    // Profile runs that may execute at the same time; further due runs wait for a free thread
+    private int maxConcurrentRuns = 2;
+
+    // Rows per batched insert into the run history
+    private int historyBatchSize = 200;
+
+    // Earlier runs of a table whose median throughput is the baseline of the trend endpoint
+    private int trendBaselineRuns = 10;
+
+    // A run slower than this fraction of the baseline throughput is flagged as a regression
+    private double regressionThreshold = 0.7;
+
+    // Named comparison profiles, e.g. scheduled-comparison.profiles.nightly-orders.cron=0 0 2 * * *
+    private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+    @Data
+    public static class Profile {
+        // Spring cron expression with seconds, e.g. 0 30 1 * * MON-FRI
+        private String cron;
+
+        // Time zone of the cron expression; the server's zone when not set
+        private String zone;
+
+        // Scheduled runs of a disabled profile are skipped; it can still be run on demand
+        private boolean enabled = true;
+
+        // The comparison to run; put passwords in environment variables, e.g. ${ORDERS_DB_PASSWORD}
+        private ComparisonRequest request = new ComparisonRequest();
+    }
+}
@@ -0,0 +1,22 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "scheduler")
+public class SchedulerConfig {
+    // Share table comparisons fairly between jobs; when off, every table starts immediately
+    private boolean enabled = true;
+
+    // Tables compared at the same time across all jobs
+    private int maxConcurrentTables = 8;
+
+    // Tables reading from one database endpoint at the same time across all jobs
+    private int maxTablesPerEndpoint = 4;
+
+    // Weight of jobs that do not set a priority; a job with priority 10 gets twice the share of one with 5
+    private int defaultPriority = 5;
+}
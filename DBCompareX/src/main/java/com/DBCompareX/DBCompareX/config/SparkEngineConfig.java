@@ -0,0 +1,28 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "spark.engine")
+public class SparkEngineConfig {
+    // local[*] for single-node use, spark://host:7077 or yarn for a cluster
+    private String master = "local[*]";
+
+    // Optional Hadoop home, only needed on Windows hosts
+    private String hadoopHome;
+
+    private String driverMemory = "2g";
+    private String executorMemory = "2g";
+    private int shufflePartitions = 32;
+
+    // Parallel JDBC reads per table side
+    private int numPartitions = 8;
+    private int fetchSize = 10000;
+
+    // Where diff output is written; must be a shared filesystem when running on a cluster.
+    // Empty means the job's report directory.
+    private String outputDir;
+}
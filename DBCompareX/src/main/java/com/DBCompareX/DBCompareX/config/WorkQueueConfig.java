@@ -0,0 +1,34 @@
+package com.DBCompareX.DBCompareX.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "work-queue")
+public class WorkQueueConfig {
+    // Claim and run work units of distributed comparisons on this node
+    private boolean workerEnabled = false;
+
+    // Name of this node in the queue; process ID and host name when not set
+    private String nodeId;
+
+    // Comparisons this node runs at the same time
+    private int workerThreads = 2;
+
+    // A unit whose lease is not renewed within this time is handed to another node
+    private long leaseSeconds = 120;
+
+    // How often running units renew their lease; well below the lease time
+    private long heartbeatIntervalMs = 20000;
+
+    // Wait between queue polls of an idle worker
+    private long pollIntervalMs = 2000;
+
+    // Runs of a unit, including runs on nodes that died, before it is marked failed
+    private int maxAttempts = 3;
+
+    // Base64 AES key shared by all nodes that encrypts database passwords in queued units
+    private String credentialKey;
+}
@@ -0,0 +1,85 @@
+package com.DBCompareX.DBCompareX.controller;
+
+import com.DBCompareX.DBCompareX.service.FlightRecorderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/recording")
+public class AdminController {
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private final FlightRecorderService flightRecorderService;
+
+    @Autowired
+    public AdminController(FlightRecorderService flightRecorderService) {
+        this.flightRecorderService = flightRecorderService;
+    }
+
+    /**
+     * Start a flight recording of comparison and JVM events
+     */
+    @Operation(summary = "Start a flight recording",
+            description = "Starts a JFR recording with the given JDK settings (default or profile) that keeps "
+                    + "the last maxAgeMinutes of events, including the DBCompareX comparison events.")
+    @ApiResponse(responseCode = "200", description = "Recording started")
+    @ApiResponse(responseCode = "409", description = "A recording is already running")
+    @PostMapping("/start")
+    public ResponseEntity<?> start(@RequestParam(defaultValue = "profile") String settings,
+                                   @RequestParam(defaultValue = "30") long maxAgeMinutes) {
+        try {
+            return ResponseEntity.ok(flightRecorderService.start(settings, Duration.ofMinutes(maxAgeMinutes)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Dump the running recording; the file is downloadable like a report
+     */
+    @Operation(summary = "Dump the flight recording",
+            description = "Writes the recorded events to a .jfr file and returns the job ID to download it "
+                    + "from /api/compare/download/{jobId}. Pass stop=true to end the recording.")
+    @ApiResponse(responseCode = "200", description = "Recording dumped")
+    @ApiResponse(responseCode = "409", description = "No recording is running")
+    @PostMapping("/dump")
+    public ResponseEntity<?> dump(@RequestParam(defaultValue = "false") boolean stop) {
+        try {
+            Map<String, Object> result = flightRecorderService.dump(stop);
+            result.put("downloadUrl", "/api/compare/download/" + result.get("jobId"));
+            return ResponseEntity.ok(result);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error dumping flight recording: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error dumping recording: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Whether a recording is running
+     */
+    @Operation(summary = "Flight recording status")
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(flightRecorderService.status());
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
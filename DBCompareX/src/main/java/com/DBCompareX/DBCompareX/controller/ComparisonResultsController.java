@@ -0,0 +1,204 @@
+package com.DBCompareX.DBCompareX.controller;
+
+import com.DBCompareX.DBCompareX.dao.entities.ColumnDiffCount;
+import com.DBCompareX.DBCompareX.dao.entities.DiffPage;
+import com.DBCompareX.DBCompareX.dao.entities.DiffQuery;
+import com.DBCompareX.DBCompareX.service.DiffResultStore;
+import com.DBCompareX.DBCompareX.service.RunDeltaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/compare/results")
+public class ComparisonResultsController {
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonResultsController.class);
+    private final DiffResultStore diffResultStore;
+    private final RunDeltaService runDeltaService;
+
+    @Autowired
+    public ComparisonResultsController(DiffResultStore diffResultStore, RunDeltaService runDeltaService) {
+        this.diffResultStore = diffResultStore;
+        this.runDeltaService = runDeltaService;
+    }
+
+    /**
+     * Page through the persisted differences of a comparison job
+     */
+    @Operation(summary = "Page through differences",
+            description = "Returns one page of differences and orphan records of a job. Pass the returned "
+                    + "nextCursor to fetch the following page.")
+    @ApiResponse(responseCode = "200", description = "Page returned")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    @ApiResponse(responseCode = "404", description = "No results stored for the job")
+    @GetMapping("/{jobId}/differences")
+    public ResponseEntity<?> getDifferences(@PathVariable String jobId,
+                                            @RequestParam(required = false) String table,
+                                            @RequestParam(required = false) String keyPrefix,
+                                            @RequestParam(required = false) String column,
+                                            @RequestParam(required = false) String kind,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "0") int limit) {
+        if (!diffResultStore.exists(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            DiffQuery query = new DiffQuery();
+            query.setTable(table);
+            query.setKeyPrefix(keyPrefix);
+            query.setColumn(column);
+            query.setKind(kind);
+            query.setCursor(cursor);
+            query.setLimit(limit);
+            DiffPage page = diffResultStore.findDifferences(jobId, query);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error reading differences for job {}: ", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error reading differences: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Per-column difference counts of a comparison job
+     */
+    @Operation(summary = "Count differences per column",
+            description = "Returns the number of differing records per column, optionally for one table.")
+    @GetMapping("/{jobId}/column-counts")
+    public ResponseEntity<?> getColumnCounts(@PathVariable String jobId,
+                                             @RequestParam(required = false) String table) {
+        if (!diffResultStore.exists(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            List<ColumnDiffCount> counts = diffResultStore.countDifferencesByColumn(jobId, table);
+            return ResponseEntity.ok(counts);
+        } catch (Exception e) {
+            logger.error("Error reading column counts for job {}: ", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error reading column counts: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Per-table totals of a comparison job
+     */
+    @Operation(summary = "Summarize tables",
+            description = "Returns differences, orphan and exact-match totals per compared table.")
+    @GetMapping("/{jobId}/tables")
+    public ResponseEntity<?> getTableSummaries(@PathVariable String jobId) {
+        if (!diffResultStore.exists(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(diffResultStore.getTableSummaries(jobId));
+        } catch (Exception e) {
+            logger.error("Error reading table summaries for job {}: ", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error reading table summaries: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * What changed since an earlier comparison of the same tables
+     */
+    @Operation(summary = "Delta against an earlier run",
+            description = "Compares the result keys of a job with those of baseJobId, or of the previous run of "
+                    + "the job's scheduled profile when no base is given. Returns per-table counts of new, "
+                    + "resolved and persisting differences, persisting ones whose kind or values changed, and "
+                    + "the first entries of each.")
+    @ApiResponse(responseCode = "200", description = "Delta returned")
+    @ApiResponse(responseCode = "400", description = "No base job given and no previous run known")
+    @ApiResponse(responseCode = "404", description = "No results stored for the job or the base job")
+    @GetMapping("/{jobId}/delta")
+    public ResponseEntity<?> getDelta(@PathVariable String jobId,
+                                      @RequestParam(required = false) String baseJobId,
+                                      @RequestParam(required = false) String table,
+                                      @RequestParam(defaultValue = "100") int samples) {
+        if (!diffResultStore.exists(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        String base;
+        try {
+            base = runDeltaService.resolveBaseJobId(jobId, baseJobId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+        if (!diffResultStore.exists(base)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("No comparison results stored for base job: " + base));
+        }
+        try {
+            return ResponseEntity.ok(runDeltaService.delta(jobId, base, table, samples));
+        } catch (Exception e) {
+            logger.error("Error computing delta of job {} against {}: ", jobId, base, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error computing delta: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Every entry of the delta against an earlier run, as CSV
+     */
+    @Operation(summary = "Export a delta as CSV",
+            description = "Streams table, key, status (NEW, RESOLVED or PERSISTING), changed flag and kinds of "
+                    + "every key of the delta. Filter with a comma-separated status list.")
+    @GetMapping("/{jobId}/delta/export")
+    public ResponseEntity<?> exportDelta(@PathVariable String jobId,
+                                         @RequestParam(required = false) String baseJobId,
+                                         @RequestParam(required = false) String table,
+                                         @RequestParam(required = false) String status) {
+        if (!diffResultStore.exists(jobId)) {
+            return ResponseEntity.notFound().build();
+        }
+        String base;
+        try {
+            base = runDeltaService.resolveBaseJobId(jobId, baseJobId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        }
+        if (!diffResultStore.exists(base)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(createErrorResponse("No comparison results stored for base job: " + base));
+        }
+        Set<String> statuses = new HashSet<>();
+        if (status != null) {
+            for (String value : status.split(",")) {
+                if (!value.trim().isEmpty()) {
+                    statuses.add(value.trim().toUpperCase());
+                }
+            }
+        }
+        StreamingResponseBody body = out -> runDeltaService.export(jobId, base, table, statuses, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"delta_" + jobId + ".csv\"")
+                .contentType(new MediaType("text", "csv"))
+                .body(body);
+    }
+
+    /**
+     * Helper method to create an error response
+     */
+    private Map<String, Object> createErrorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "error");
+        response.put("message", message);
+        return response;
+    }
+}
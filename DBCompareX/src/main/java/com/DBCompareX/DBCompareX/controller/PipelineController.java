@@ -0,0 +1,67 @@
+package com.DBCompareX.DBCompareX.controller;
+
+import com.DBCompareX.DBCompareX.service.ComparisonPipeline;
+import com.DBCompareX.DBCompareX.service.FairScheduler;
+import com.DBCompareX.DBCompareX.service.LoadLimiter;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/compare/pipeline")
+public class PipelineController {
+    private final ComparisonPipeline comparisonPipeline;
+    private final LoadLimiter loadLimiter;
+    private final FairScheduler fairScheduler;
+
+    @Autowired
+    public PipelineController(ComparisonPipeline comparisonPipeline, LoadLimiter loadLimiter,
+                              FairScheduler fairScheduler) {
+        this.comparisonPipeline = comparisonPipeline;
+        this.loadLimiter = loadLimiter;
+        this.fairScheduler = fairScheduler;
+    }
+
+    /**
+     * Queue depths of the running comparison pipelines
+     */
+    @Operation(summary = "Pipeline queue depths",
+            description = "Returns the depth, capacity and rows received of every stage queue of the tables "
+                    + "being compared. A queue at capacity marks the stage after it as the bottleneck.")
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("bufferedRows", comparisonPipeline.getBufferedRows());
+        response.put("queues", comparisonPipeline.getQueueStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Adaptive load limits of the database endpoints scanned so far
+     */
+    @Operation(summary = "Endpoint load limits",
+            description = "Returns the current concurrency limit, scans in flight, rate ceilings and time window "
+                    + "state of every database endpoint comparisons have read from.")
+    @GetMapping("/load-limits")
+    public ResponseEntity<List<Map<String, Object>>> getLoadLimits() {
+        return ResponseEntity.ok(loadLimiter.snapshot());
+    }
+
+    /**
+     * Table slots of the fair scheduler and the jobs sharing them
+     */
+    @Operation(summary = "Scheduler state",
+            description = "Returns the running and waiting tables overall and per endpoint, and the priority, "
+                    + "virtual time and table counts of every job sharing the scheduler's slots.")
+    @GetMapping("/scheduler")
+    public ResponseEntity<Map<String, Object>> getScheduler() {
+        return ResponseEntity.ok(fairScheduler.snapshot());
+    }
+}
@@ -0,0 +1,112 @@
+package com.DBCompareX.DBCompareX.controller;
+
+import com.DBCompareX.DBCompareX.dao.entities.TableRunRecord;
+import com.DBCompareX.DBCompareX.service.RunHistoryStore;
+import com.DBCompareX.DBCompareX.service.ScheduledComparisonService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/compare/scheduled")
+public class ScheduledComparisonController {
+    private final ScheduledComparisonService scheduledComparisonService;
+    private final RunHistoryStore runHistoryStore;
+
+    @Autowired
+    public ScheduledComparisonController(ScheduledComparisonService scheduledComparisonService,
+                                         RunHistoryStore runHistoryStore) {
+        this.scheduledComparisonService = scheduledComparisonService;
+        this.runHistoryStore = runHistoryStore;
+    }
+
+    /**
+     * Configured comparison profiles and their schedules
+     */
+    @Operation(summary = "Scheduled comparison profiles",
+            description = "Returns every profile configured under scheduled-comparison.profiles with its cron "
+                    + "expression, databases, tables, next scheduled run and last recorded run. Passwords are "
+                    + "not returned.")
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getProfiles() {
+        return ResponseEntity.ok(scheduledComparisonService.profiles());
+    }
+
+    /**
+     * Run a profile now instead of waiting for its schedule
+     */
+    @Operation(summary = "Run a profile now",
+            description = "Starts a run of the profile in the background and returns its job ID. The report can "
+                    + "be downloaded under that job ID once the run appears in the profile's runs.")
+    @ApiResponse(responseCode = "202", description = "Run started")
+    @ApiResponse(responseCode = "404", description = "Unknown profile")
+    @ApiResponse(responseCode = "409", description = "The profile is already running")
+    @PostMapping("/{name}/run")
+    public ResponseEntity<?> runNow(@PathVariable String name) {
+        try {
+            String jobId = scheduledComparisonService.runNow(name);
+            Map<String, Object> response = new HashMap<>();
+            response.put("profile", name);
+            response.put("jobId", jobId);
+            response.put("runsUrl", "/api/compare/scheduled/" + name + "/runs");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    /**
+     * Latest runs of a profile with their totals
+     */
+    @Operation(summary = "Profile runs",
+            description = "Returns the latest runs of a profile, newest first, with their trigger, job ID, "
+                    + "table and failure counts, summed duration, rows and bytes read, and difference totals.")
+    @GetMapping("/{name}/runs")
+    public ResponseEntity<List<Map<String, Object>>> getRuns(@PathVariable String name,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(runHistoryStore.runs(name, limit));
+    }
+
+    /**
+     * Per-table history of a profile
+     */
+    @Operation(summary = "Profile table history",
+            description = "Returns the recorded table results of a profile, newest first: counts, diff rate, "
+                    + "duration, rows and bytes read, throughput and errors. Filter by table with the table "
+                    + "parameter.")
+    @GetMapping("/{name}/history")
+    public ResponseEntity<List<TableRunRecord>> getHistory(@PathVariable String name,
+                                                           @RequestParam(required = false) String table,
+                                                           @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(runHistoryStore.history(name, table, limit));
+    }
+
+    /**
+     * Drift and cost trends of a profile's tables
+     */
+    @Operation(summary = "Profile trends",
+            description = "Returns, per table, the diff rate and throughput of the latest runs, oldest first, "
+                    + "and compares the latest run with the median of the earlier ones. Tables whose throughput "
+                    + "fell below scheduled-comparison.regression-threshold of that baseline are flagged as "
+                    + "regressions.")
+    @GetMapping("/{name}/trends")
+    public ResponseEntity<List<Map<String, Object>>> getTrends(@PathVariable String name,
+                                                               @RequestParam(defaultValue = "30") int limit) {
+        return ResponseEntity.ok(runHistoryStore.trends(name, limit));
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
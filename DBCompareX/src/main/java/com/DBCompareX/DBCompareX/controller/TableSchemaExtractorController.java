@@ -1,41 +1,83 @@
 package com.DBCompareX.DBCompareX.controller;
 
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonCheckpoint;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonOutcome;
 import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
 import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.service.CheckpointStore;
+import com.DBCompareX.DBCompareX.service.ComparisonEstimator;
+import com.DBCompareX.DBCompareX.service.QueryExecutionService;
+import com.DBCompareX.DBCompareX.service.ReportStorageService;
+import com.DBCompareX.DBCompareX.service.RequestCoalescer;
+import com.DBCompareX.DBCompareX.service.SchemaComparisonService;
 import com.DBCompareX.DBCompareX.service.TableSchemaExtractor;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/compare")
 public class TableSchemaExtractorController {
     private static final Logger logger = LoggerFactory.getLogger(TableSchemaExtractorController.class);
     private final TableSchemaExtractor tableSchemaExtractor;
+    private final ReportStorageService reportStorageService;
+    private final ComparisonEstimator comparisonEstimator;
+    private final SchemaComparisonService schemaComparisonService;
+    private final QueryExecutionService queryExecutionService;
+    private final RequestCoalescer requestCoalescer;
+    private final CheckpointStore checkpointStore;
+    private final ObjectMapper objectMapper;
 
     // Constants for response messages
     private static final String STATUS_SUCCESS = "success";
     private static final String STATUS_ERROR = "error";
     private static final String DEFAULT_REPORT_NAME = "database_comparison_report.xlsx";
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    // parseRange result for a well-formed range that lies outside the report
+    private static final long[] UNSATISFIABLE_RANGE = new long[0];
 
     @Autowired
-    public TableSchemaExtractorController(TableSchemaExtractor tableSchemaExtractor) {
+    public TableSchemaExtractorController(TableSchemaExtractor tableSchemaExtractor,
+                                          ReportStorageService reportStorageService,
+                                          ComparisonEstimator comparisonEstimator,
+                                          SchemaComparisonService schemaComparisonService,
+                                          QueryExecutionService queryExecutionService,
+                                          RequestCoalescer requestCoalescer, CheckpointStore checkpointStore,
+                                          ObjectMapper objectMapper) {
         this.tableSchemaExtractor = tableSchemaExtractor;
+        this.reportStorageService = reportStorageService;
+        this.comparisonEstimator = comparisonEstimator;
+        this.schemaComparisonService = schemaComparisonService;
+        this.queryExecutionService = queryExecutionService;
+        this.requestCoalescer = requestCoalescer;
+        this.checkpointStore = checkpointStore;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -47,65 +89,174 @@ public class TableSchemaExtractorController {
      * Download the generated report
      */
     @Operation(summary = "Download the generated report",
-            description = "Downloads the Excel report generated from database comparison.")
+            description = "Streams the report generated for a comparison job. Supports single byte ranges "
+                    + "and gzip encoding for text formats. Malformed and multiple ranges are ignored and the "
+                    + "whole report is sent.")
     @ApiResponse(responseCode = "200", description = "File downloaded successfully")
-    @ApiResponse(responseCode = "404", description = "File not found")
-    @ApiResponse(responseCode = "500", description = "Internal server error during download")
-    @GetMapping("/download")
-    public ResponseEntity<Resource> downloadReport(@RequestParam String filePath) {
-        File file = null;
-        FileSystemResource resource = null;
-        
-        try {
-            file = new File(filePath);
-            if (!file.exists() || !file.isFile()) {
-                logger.warn("File not found or invalid: {}", filePath);
-                return ResponseEntity.notFound().build();
-            }
+    @ApiResponse(responseCode = "206", description = "Requested byte range downloaded")
+    @ApiResponse(responseCode = "404", description = "Report not found or expired")
+    @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
+    @GetMapping("/download/{jobId}")
+    public ResponseEntity<StreamingResponseBody> downloadReport(
+            @PathVariable String jobId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<File> report = reportStorageService.findReport(jobId);
+        if (report.isEmpty()) {
+            logger.warn("No report available for job: {}", jobId);
+            return ResponseEntity.notFound().build();
+        }
+        File file = report.get();
+        long fileLength = file.length();
+        String contentDisposition = "attachment; filename=\"" + file.getName() + "\"";
 
-            // Try to get exclusive access to the file
-            if (!file.renameTo(file)) {
-                logger.warn("File is locked by another process: {}", filePath);
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(null);
-            }
+        long[] range = rangeHeader == null ? null : parseRange(rangeHeader.trim(), fileLength);
+        if (range == UNSATISFIABLE_RANGE) {
+            logger.warn("Unsatisfiable range '{}' for report of job {}", rangeHeader, jobId);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength)
+                    .build();
+        }
 
-            resource = new FileSystemResource(file);
+        // Text formats are compressed on the fly; ranges are only honoured on the identity encoding
+        boolean gzip = range == null && acceptsGzip(acceptEncoding) && reportStorageService.isCompressible(file);
+        if (gzip) {
             return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                           "attachment; filename=\"" + file.getName() + "\"")
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(file.length())
-                    .body(resource);
-        } catch (Exception e) {
-            logger.error("Error downloading report: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        } finally {
-            // Clean up the file after serving
-            if (file != null) {
-                try {
-                    boolean deleted = file.delete();
-                    if (!deleted) {
-                        // Schedule deletion for when the JVM exits
-                        file.deleteOnExit();
-                        logger.warn("Could not delete file immediately, scheduled for deletion on JVM exit: {}", filePath);
+                    .body(out -> {
+                        GZIPOutputStream gzipOut = new GZIPOutputStream(out, STREAM_BUFFER_SIZE);
+                        transferFile(file, 0, fileLength, gzipOut);
+                        gzipOut.finish();
+                    });
+        }
+
+        long start = 0;
+        long end = fileLength - 1;
+        HttpStatus status = HttpStatus.OK;
+        if (range != null) {
+            start = range[0];
+            end = range[1];
+            status = HttpStatus.PARTIAL_CONTENT;
+        }
+
+        long position = start;
+        long count = end - start + 1;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(count);
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            builder.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength);
+        }
+        return builder.body(out -> transferFile(file, position, count, out));
+    }
+
+    /**
+     * Helper method to copy a file region to the response through FileChannel.transferTo
+     */
+    private void transferFile(File file, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long transferred = 0;
+            while (transferred < count) {
+                long written = channel.transferTo(position + transferred, count - transferred, target);
+                if (written <= 0) {
+                    break;
+                }
+                transferred += written;
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Helper method to parse a single "bytes=start-end" range. Returns null for a header to ignore
+     * (malformed, another unit or several ranges) and UNSATISFIABLE_RANGE when no byte of it is in the report
+     */
+    private long[] parseRange(String rangeHeader, long fileLength) {
+        Matcher matcher = BYTE_RANGE.matcher(rangeHeader);
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        try {
+            String startPart = matcher.group(1);
+            String endPart = matcher.group(2);
+            long start;
+            long end;
+            if (startPart.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffixLength = Long.parseLong(endPart);
+                if (suffixLength == 0 || fileLength == 0) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                start = Math.max(0, fileLength - suffixLength);
+                end = fileLength - 1;
+            } else {
+                start = Long.parseLong(startPart);
+                end = endPart.isEmpty() ? Long.MAX_VALUE : Long.parseLong(endPart);
+                if (end < start) {
+                    return null;
+                }
+                if (start >= fileLength) {
+                    return UNSATISFIABLE_RANGE;
+                }
+                end = Math.min(end, fileLength - 1);
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            // Positions beyond a long are not worth honouring
+            return null;
+        }
+    }
+
+    /**
+     * Helper method to check Accept-Encoding for gzip, or a wildcard, with a q-value above zero
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.toLowerCase(Locale.ROOT).startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
                     }
-                } catch (Exception e) {
-                    logger.error("Error deleting file: {}", e.getMessage());
-                    // Schedule deletion for when the JVM exits
-                    file.deleteOnExit();
                 }
             }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
         }
+        // An explicit gzip entry overrides the wildcard
+        double quality = gzipQuality != null ? gzipQuality : wildcardQuality != null ? wildcardQuality : 0;
+        return quality > 0;
     }
 
     /**
      * Compare selected tables between two databases and generate a report
      */
     @Operation(summary = "Compare selected tables",
-            description = "Compares selected tables between two databases and generates a report.")
+            description = "Compares selected tables between two databases and generates a report. A table "
+                    + "mapping's sourceFilter and targetFilter limit the rows read from each side: where is a "
+                    + "predicate on the table's columns with ? placeholders, parameters holds their values.")
     @ApiResponse(responseCode = "200", description = "Comparison successful, report generated")
-    @ApiResponse(responseCode = "400", description = "Invalid input or no tables selected")
+    @ApiResponse(responseCode = "400", description = "Invalid input, invalid row filter or no tables selected")
+    @ApiResponse(responseCode = "409", description = "Schema gate enabled and the selected tables differ in structure")
     @ApiResponse(responseCode = "500", description = "Internal server error during comparison")
     @PostMapping("/compare-selected-tables")
     public ResponseEntity<?> compareSelectedTables(@Valid @RequestBody ComparisonRequest request) {
@@ -114,16 +265,40 @@ public class TableSchemaExtractorController {
             if (selectedTables == null || selectedTables.isEmpty()) {
                 return ResponseEntity.badRequest().body(createErrorResponse("No tables selected for comparison"));
             }
-            String outputPath = generateOutputPath(DEFAULT_REPORT_NAME);
-            File reportFile = tableSchemaExtractor.compareAndGenerateReport(
-                    request.getSourceDbType(), request.getTargetDbType(),
-                    request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
-                    request.getSourceUsername(), request.getSourcePassword(),
-                    request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
-                    request.getTargetUsername(), request.getTargetPassword(),
-                    outputPath, selectedTables, 
-                    request.getSourceSchemaFilter(), request.getTargetSchemaFilter(), request.getMaxTables());
-            return handleFileResponse(reportFile, "Selected tables comparison completed successfully");
+            try {
+                TableSchemaExtractor.validateRowFilters(selectedTables);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+            }
+            if (request.isSchemaGate()) {
+                Map<String, Object> schemaReport = schemaComparisonService.compareSchemas(request,
+                        selectedTables.stream().map(TableMapping::getSourceTable).collect(Collectors.toList()));
+                if (!(Boolean) schemaReport.get("identical")) {
+                    Map<String, Object> response = createErrorResponse(
+                            "Selected tables differ in structure; data comparison skipped");
+                    response.put("schema", schemaReport);
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+                }
+            }
+            // Identical comparisons running at the same time or shortly before share one report
+            ComparisonOutcome outcome = requestCoalescer.execute("compare",
+                    requestCoalescer.requestKey("compare", request), () -> {
+                        String jobId = reportStorageService.newJobId();
+                        String outputPath = reportStorageService.getOutputPath(jobId, DEFAULT_REPORT_NAME);
+                        ExecutionProfile profile = new ExecutionProfile();
+                        File reportFile = tableSchemaExtractor.compareAndGenerateReport(
+                                request.getSourceDbType(), request.getTargetDbType(),
+                                request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
+                                request.getSourceUsername(), request.getSourcePassword(),
+                                request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
+                                request.getTargetUsername(), request.getTargetPassword(),
+                                jobId, outputPath, selectedTables,
+                                request.getSourceSchemaFilter(), request.getTargetSchemaFilter(),
+                                request.getMaxTables(), request.getEngineMode(), profile, request.getPriority());
+                        return new ComparisonOutcome(jobId, reportFile, profile);
+                    });
+            return handleFileResponse(outcome.getJobId(), outcome.getReportFile(), outcome.getProfile(),
+                    "Selected tables comparison completed successfully");
         } catch (Exception e) {
             logger.error("Error comparing selected tables: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -132,27 +307,126 @@ public class TableSchemaExtractorController {
     }
 
     /**
-     * Helper method to generate dynamic output path with unique name
+     * Estimate a comparison without running it
      */
-    private String generateOutputPath(String fileName) {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String baseName = fileName;
-        if (baseName.contains(".")) {
-            int dotIndex = baseName.lastIndexOf('.');
-            baseName = baseName.substring(0, dotIndex) + "_" + timestamp + baseName.substring(dotIndex);
-        } else {
-            baseName = baseName + "_" + timestamp;
+    @Operation(summary = "Explain a comparison",
+            description = "Takes the same request as compare-selected-tables and returns catalog row counts and "
+                    + "sizes per table, the key strategy that would be used, and projected memory and runtime "
+                    + "of the selected engine. No table data is read.")
+    @ApiResponse(responseCode = "200", description = "Estimate returned")
+    @ApiResponse(responseCode = "500", description = "Internal server error while reading the catalogs")
+    @PostMapping("/explain")
+    public ResponseEntity<?> explain(@Valid @RequestBody ComparisonRequest request) {
+        try {
+            return ResponseEntity.ok(comparisonEstimator.explain(request));
+        } catch (Exception e) {
+            logger.error("Error explaining comparison: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error explaining comparison: " + e.getMessage()));
         }
-        return System.getProperty("java.io.tmpdir") + File.separator + baseName;
     }
 
     /**
-     * Helper method to handle file response
+     * Compare the structure of two schemas
      */
-    private ResponseEntity<?> handleFileResponse(File file, String successMessage) {
+    @Operation(summary = "Compare schemas",
+            description = "Compares tables, columns (type, precision, nullability, default), primary and unique "
+                    + "keys, indexes and foreign keys of the source and target schemas with bulk catalog queries. "
+                    + "Table mappings, when given, limit the report to those tables.")
+    @ApiResponse(responseCode = "200", description = "Schema report returned")
+    @ApiResponse(responseCode = "500", description = "Internal server error while reading the catalogs")
+    @PostMapping("/schema")
+    public ResponseEntity<?> compareSchemas(@Valid @RequestBody ComparisonRequest request) {
+        try {
+            List<String> tables = request.getTableMappings() == null || request.getTableMappings().isEmpty() ? null
+                    : request.getTableMappings().stream().map(TableMapping::getSourceTable).collect(Collectors.toList());
+            return ResponseEntity.ok(schemaComparisonService.compareSchemas(request, tables));
+        } catch (Exception e) {
+            logger.error("Error comparing schemas: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error comparing schemas: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Resume an interrupted comparison from its checkpoint
+     */
+    @Operation(summary = "Resume a comparison",
+            description = "Continues a comparison job that failed or was interrupted. Tables completed by earlier "
+                    + "runs are kept, the remaining tables are compared again and the job's report is rewritten. "
+                    + "Passwords are not checkpointed and must be sent again as sourcePassword and targetPassword.")
+    @ApiResponse(responseCode = "200", description = "Comparison resumed and report regenerated")
+    @ApiResponse(responseCode = "404", description = "No checkpoint for the job")
+    @ApiResponse(responseCode = "409", description = "Job already completed or running")
+    @ApiResponse(responseCode = "500", description = "Internal server error during comparison")
+    @PostMapping("/resume/{jobId}")
+    public ResponseEntity<?> resumeComparison(@PathVariable String jobId,
+                                              @RequestBody Map<String, String> credentials) {
+        try {
+            ExecutionProfile profile = new ExecutionProfile();
+            File reportFile = tableSchemaExtractor.resumeComparison(jobId, credentials.get("sourcePassword"),
+                    credentials.get("targetPassword"), profile);
+            if (reportFile == null || !reportFile.exists()) {
+                return ResponseEntity.badRequest().body(createErrorResponse("Failed to generate comparison report"));
+            }
+            Map<String, Object> response = createSuccessResponse("Comparison resumed successfully");
+            response.put("jobId", jobId);
+            response.put("downloadUrl", "/api/compare/download/" + jobId);
+            response.put("profile", profile);
+            response.put("checkpoint", checkpointStatus(checkpointStore.load(jobId)));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error resuming comparison {}: ", jobId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error resuming comparison: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Checkpointed progress of a comparison job
+     */
+    @Operation(summary = "Comparison checkpoint",
+            description = "Returns the status of a comparison job with its completed and failed tables.")
+    @ApiResponse(responseCode = "200", description = "Checkpoint returned")
+    @ApiResponse(responseCode = "404", description = "No checkpoint for the job")
+    @GetMapping("/checkpoint/{jobId}")
+    public ResponseEntity<?> getCheckpoint(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(checkpointStatus(checkpointStore.load(jobId)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Map<String, Object> checkpointStatus(ComparisonCheckpoint checkpoint) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", checkpoint.getJobId());
+        status.put("status", checkpoint.getStatus());
+        status.put("tables", checkpoint.getTableMappings().size());
+        status.put("completedTables", checkpoint.getCompletedTables());
+        status.put("failedTables", checkpoint.getFailedTables());
+        status.put("runs", checkpoint.getRuns());
+        status.put("updatedAt", new Date(checkpoint.getUpdatedAt()));
+        if (checkpoint.getLastError() != null) {
+            status.put("lastError", checkpoint.getLastError());
+        }
+        return status;
+    }
+
+    /**
+     * Helper method to handle file response, including the measured phase timings of the run
+     */
+    private ResponseEntity<?> handleFileResponse(String jobId, File file, ExecutionProfile profile,
+                                                 String successMessage) {
         if (file != null && file.exists()) {
             Map<String, Object> response = createSuccessResponse(successMessage);
-            response.put("filePath", file.getAbsolutePath());
+            response.put("jobId", jobId);
+            response.put("downloadUrl", "/api/compare/download/" + jobId);
+            response.put("profile", profile);
             return ResponseEntity.ok(response);
         } else {
             return ResponseEntity.badRequest().body(createErrorResponse("Failed to generate comparison report"));
@@ -182,18 +456,23 @@ public class TableSchemaExtractorController {
     @PostMapping("/get-available-tables")
     public ResponseEntity<?> getAvailableTables(@Valid @RequestBody ComparisonRequest request) {
         try {
-            List<TableMapping> tableMappings = tableSchemaExtractor.findCommonTables(
-                    request.getSourceDbType(), request.getTargetDbType(),
-                    request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
-                    request.getSourceUsername(), request.getSourcePassword(),
-                    request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
-                    request.getTargetUsername(), request.getTargetPassword(),
-                    request.getSourceSchemaFilter(), request.getTargetSchemaFilter(), request.getMaxTables());
+            List<String> commonTables = requestCoalescer.execute("tables",
+                    requestCoalescer.requestKey("tables", request), () -> {
+                        List<TableMapping> tableMappings = tableSchemaExtractor.findCommonTables(
+                                request.getSourceDbType(), request.getTargetDbType(),
+                                request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
+                                request.getSourceUsername(), request.getSourcePassword(),
+                                request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
+                                request.getTargetUsername(), request.getTargetPassword(),
+                                request.getSourceSchemaFilter(), request.getTargetSchemaFilter(),
+                                request.getMaxTables());
+                        return tableMappings.stream()
+                                .map(mapping -> mapping.getSourceTable() + " -> " + mapping.getTargetTable())
+                                .collect(Collectors.toUnmodifiableList());
+                    });
             // Transform TableMapping list into Map
             Map<String, List<String>> availableTables = new HashMap<>();
-            availableTables.put("commonTables", tableMappings.stream()
-                    .map(mapping -> mapping.getSourceTable() + " -> " + mapping.getTargetTable())
-                    .collect(Collectors.toList()));
+            availableTables.put("commonTables", commonTables);
             return ResponseEntity.ok(availableTables);
         } catch (Exception e) {
             logger.error("Error retrieving available tables: ", e);
@@ -202,25 +481,72 @@ public class TableSchemaExtractorController {
         }
     }
 
+    /**
+     * Run an ad-hoc query, streaming all rows or, with a pageSize, one page whose nextCursor continues
+     * with the following page
+     */
+    @Operation(summary = "Execute a query",
+            description = "Streams the rows of the query as JSON. Without pageSize or cursor, every row is "
+                    + "returned up to the configured byte limit. With pageSize, at most that many rows are "
+                    + "returned, capped by the configured row and byte limits; when rows remain, the response "
+                    + "has a nextCursor; post {\"cursor\": ...} to read the next page from the same open result.")
+    @ApiResponse(responseCode = "200", description = "Rows streamed")
+    @ApiResponse(responseCode = "400", description = "Invalid page size, or unknown or expired cursor")
     @PostMapping("/execute-query")
-    public ResponseEntity<?> executeQuery(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<StreamingResponseBody> executeQuery(@RequestBody Map<String, Object> request) {
+        QueryExecutionService.QueryCursor cursor;
+        Integer pageSize;
+        boolean paged;
         try {
-            String dbType = (String) request.get("sourceDbType");
-            String host = (String) request.get("sourceHost");
-            String port = (String) request.get("sourcePort");
-            String dbName = (String) request.get("sourceDbName");
-            String username = (String) request.get("sourceUsername");
-            String password = (String) request.get("sourcePassword");
-            String query = (String) request.get("query");
-
-            List<Map<String, Object>> results = tableSchemaExtractor.executeCustomQuery(
-                    dbType, host, Integer.parseInt(port), dbName, username, password, query);
-
-            return ResponseEntity.ok(Map.of("results", results));
+            pageSize = request.get("pageSize") != null
+                    ? Integer.valueOf(String.valueOf(request.get("pageSize"))) : null;
+            String token = (String) request.get("cursor");
+            paged = pageSize != null || token != null;
+            if (token != null) {
+                cursor = queryExecutionService.resume(token);
+            } else {
+                String dbType = (String) request.get("sourceDbType");
+                String host = (String) request.get("sourceHost");
+                String port = String.valueOf(request.get("sourcePort"));
+                String dbName = (String) request.get("sourceDbName");
+                String username = (String) request.get("sourceUsername");
+                String password = (String) request.get("sourcePassword");
+                String query = (String) request.get("query");
+                cursor = queryExecutionService.execute(dbType, host, Integer.parseInt(port), dbName, username,
+                        password, query);
+            }
+        } catch (IllegalArgumentException e) {
+            return errorBody(HttpStatus.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             logger.error("Error executing query: ", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", e.getMessage()));
+            return errorBody(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage());
         }
+        if (!paged) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> queryExecutionService.writeAll(cursor, out));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> queryExecutionService.writePage(cursor, pageSize, out));
+    }
+
+    /**
+     * Close the open result of a query before its last page was read
+     */
+    @Operation(summary = "Release a query cursor",
+            description = "Closes the server-side cursor of a nextCursor token and its database connection.")
+    @DeleteMapping("/execute-query/{cursor}")
+    public ResponseEntity<Void> releaseQueryCursor(@PathVariable String cursor) {
+        return queryExecutionService.release(cursor) ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    private ResponseEntity<StreamingResponseBody> errorBody(HttpStatus status, String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", message);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.DBCompareX.DBCompareX.controller;
+
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.service.WorkQueue;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/compare/distributed")
+public class WorkQueueController {
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueueController.class);
+    private final WorkQueue workQueue;
+
+    @Autowired
+    public WorkQueueController(WorkQueue workQueue) {
+        this.workQueue = workQueue;
+    }
+
+    /**
+     * Queue a comparison of the selected tables for the worker nodes
+     */
+    @Operation(summary = "Submit a distributed comparison",
+            description = "Takes the same request as compare-selected-tables and queues one work unit per table "
+                    + "in the shared work queue. Nodes with work-queue.worker-enabled=true claim and compare "
+                    + "the units; poll /api/compare/distributed/{jobId} for the merged progress.")
+    @ApiResponse(responseCode = "202", description = "Job queued")
+    @ApiResponse(responseCode = "400", description = "No tables selected or invalid row filter")
+    @ApiResponse(responseCode = "409", description = "No credential key configured for the work queue")
+    @PostMapping
+    public ResponseEntity<?> submit(@Valid @RequestBody ComparisonRequest request) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            String jobId = workQueue.submit(request);
+            response.put("jobId", jobId);
+            response.put("units", request.getTableMappings().size());
+            response.put("progressUrl", "/api/compare/distributed/" + jobId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(createErrorResponse(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(createErrorResponse(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Error queueing distributed comparison: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(createErrorResponse("Error queueing comparison: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Merged progress and table summaries of a distributed comparison
+     */
+    @Operation(summary = "Distributed comparison progress",
+            description = "Returns the job status, the state, node and attempts of every table unit, and the "
+                    + "table summaries of finished units with their totals. Each unit's report stays on the "
+                    + "node that ran it under reportJobId.")
+    @ApiResponse(responseCode = "200", description = "Progress returned")
+    @ApiResponse(responseCode = "404", description = "Unknown job")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> progress(@PathVariable String jobId) {
+        try {
+            return ResponseEntity.ok(workQueue.progress(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(createErrorResponse(e.getMessage()));
+        }
+    }
+
+    private Map<String, String> createErrorResponse(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        return error;
+    }
+}
@@ -0,0 +1,15 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Number of differing records per table column
+ */
+@Data
+@AllArgsConstructor
+public class ColumnDiffCount {
+    private String table;
+    private String column;
+    private long differences;
+}
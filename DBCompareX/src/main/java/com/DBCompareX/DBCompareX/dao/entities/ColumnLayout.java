@@ -0,0 +1,48 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import com.DBCompareX.DBCompareX.util.ColumnSemantics;
+
+import java.util.*;
+
+/**
+ * Ordered columns of a compared table with their semantics, built once per table
+ */
+public final class ColumnLayout {
+    private final List<String> columns;
+    private final ColumnSemantics[] semantics;
+    private final Map<String, Integer> indexes;
+
+    public ColumnLayout(Collection<String> columnNames) {
+        this.columns = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(columnNames)));
+        this.semantics = new ColumnSemantics[columns.size()];
+        this.indexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            semantics[i] = ColumnSemantics.classify(columns.get(i));
+            indexes.put(columns.get(i), i);
+        }
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    public String getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public ColumnSemantics getSemantics(int index) {
+        return semantics[index];
+    }
+
+    /**
+     * Position of a column, or -1 when the table does not have it
+     */
+    public int indexOf(String column) {
+        Integer index = indexes.get(column);
+        return index != null ? index : -1;
+    }
+}
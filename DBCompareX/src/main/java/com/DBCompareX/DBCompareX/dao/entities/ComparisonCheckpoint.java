@@ -0,0 +1,35 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of a comparison job saved next to its outputs, so an interrupted job can be resumed.
+ * Connection details and resolved table mappings are kept without passwords.
+ */
+@Data
+public class ComparisonCheckpoint {
+    public static final String RUNNING = "RUNNING";
+    public static final String INCOMPLETE = "INCOMPLETE";
+    public static final String COMPLETED = "COMPLETED";
+
+    private String jobId;
+    private String outputPath;
+    private String status;
+    // Connection details, filters and engine of the original request
+    private ComparisonRequest request;
+    // Tables in comparison order, with the key columns and strategy chosen for them
+    private List<TableMapping> tableMappings = new ArrayList<>();
+    // Source tables whose results are committed to the job's result store
+    private List<String> completedTables = new ArrayList<>();
+    // Source tables whose last attempt failed, with the error
+    private Map<String, String> failedTables = new LinkedHashMap<>();
+    private int runs;
+    private long createdAt;
+    private long updatedAt;
+    private String lastError;
+}
@@ -0,0 +1,17 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.File;
+
+/**
+ * Report and profile of a finished comparison job, shared by requests coalesced into it
+ */
+@Data
+@AllArgsConstructor
+public class ComparisonOutcome {
+    private String jobId;
+    private File reportFile;
+    private ExecutionProfile profile;
+}
@@ -48,4 +48,10 @@ public class ComparisonRequest {
     
     private Integer maxTables; // Maximum number of tables to compare (optional)
 
+    private EngineMode engineMode; // Comparison engine: JDBC (default), SPARK or KEY_FIRST (optional)
+
+    private boolean schemaGate; // Skip the data comparison when the selected tables differ in structure (optional)
+
+    private Integer priority; // Share of table slots from 1 to 10 while other jobs run, default from the scheduler (optional)
+
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of persisted comparison results; nextCursor is null on the last page
+ */
+@Data
+@AllArgsConstructor
+public class DiffPage {
+    private List<DiffRow> items;
+    private String nextCursor;
+    private int limit;
+}
@@ -0,0 +1,16 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+/**
+ * Filters and seek position for paging through persisted comparison results
+ */
+@Data
+public class DiffQuery {
+    private String table;
+    private String keyPrefix;
+    private String column;
+    private String kind;
+    private String cursor;
+    private int limit;
+}
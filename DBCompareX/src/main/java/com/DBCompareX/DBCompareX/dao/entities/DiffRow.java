@@ -0,0 +1,24 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single persisted comparison result row: a field-level difference or an orphan record
+ */
+@Data
+public class DiffRow {
+    public static final String KIND_DIFFERENCE = "DIFFERENCE";
+    public static final String KIND_SOURCE_ONLY = "SOURCE_ONLY";
+    public static final String KIND_TARGET_ONLY = "TARGET_ONLY";
+
+    private long id;
+    private String table;
+    private String key;
+    private String kind;
+    private Map<String, String> sourceRecord;
+    private Map<String, String> targetRecord;
+    private List<String> differingColumns;
+}
@@ -0,0 +1,23 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Comparison engine selectable per request
+ */
+public enum EngineMode {
+    // Rows are fetched over JDBC and compared in this JVM
+    JDBC,
+    // Partitioned JDBC reads and a distributed full outer join on Spark
+    SPARK,
+    // Keys and database row hashes first, then full rows only for missing keys and differing hashes
+    KEY_FIRST;
+
+    @JsonCreator
+    public static EngineMode fromValue(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return JDBC;
+        }
+        return EngineMode.valueOf(value.trim().toUpperCase());
+    }
+}
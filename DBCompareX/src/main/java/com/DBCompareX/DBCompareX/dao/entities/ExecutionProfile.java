@@ -0,0 +1,42 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measured phase timings of one comparison run, per table and in total
+ */
+@Data
+public class ExecutionProfile {
+    private long totalMillis;
+    private Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private Map<String, Map<String, Long>> tables = new LinkedHashMap<>();
+    private Map<String, String> failedTables = new LinkedHashMap<>();
+
+    /**
+     * Add time spent in a phase of a table; null table records a run-wide phase such as the report
+     */
+    public void addPhase(String table, String phase, long nanos) {
+        long millis = nanos / 1_000_000;
+        phaseMillis.merge(phase, millis, Long::sum);
+        if (table != null) {
+            tables.computeIfAbsent(table, t -> new LinkedHashMap<>()).merge(phase + "Millis", millis, Long::sum);
+        }
+    }
+
+    /**
+     * Record a measured quantity of a table, such as rows extracted
+     */
+    public void putTableValue(String table, String name, long value) {
+        tables.computeIfAbsent(table, t -> new LinkedHashMap<>()).put(name, value);
+    }
+
+    /**
+     * Record a table whose comparison failed and is missing from the report
+     */
+    public void tableFailed(String table, String error) {
+        failedTables.put(table, error != null ? error : "unknown error");
+    }
+}
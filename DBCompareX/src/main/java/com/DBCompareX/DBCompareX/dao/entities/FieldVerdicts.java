@@ -0,0 +1,59 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Per-field outcome of comparing one source record with one target record.
+ * Bit i of the verdict bitmap is set when column i of the layout differs; display values
+ * are already normalized so reports can copy them as they are.
+ */
+public final class FieldVerdicts {
+    private final ColumnLayout layout;
+    private final BitSet differences;
+    private final Object[] sourceValues;
+    private final Object[] targetValues;
+
+    public FieldVerdicts(ColumnLayout layout, BitSet differences, Object[] sourceValues, Object[] targetValues) {
+        this.layout = layout;
+        this.differences = differences;
+        this.sourceValues = sourceValues;
+        this.targetValues = targetValues;
+    }
+
+    public ColumnLayout getLayout() {
+        return layout;
+    }
+
+    public boolean hasDifferences() {
+        return !differences.isEmpty();
+    }
+
+    public int differenceCount() {
+        return differences.cardinality();
+    }
+
+    public boolean isDifferent(int index) {
+        return differences.get(index);
+    }
+
+    public Object getSourceValue(int index) {
+        return sourceValues[index];
+    }
+
+    public Object getTargetValue(int index) {
+        return targetValues[index];
+    }
+
+    /**
+     * Names of the differing columns in layout order
+     */
+    public List<String> getDifferingColumns() {
+        List<String> columns = new ArrayList<>(differences.cardinality());
+        for (int i = differences.nextSetBit(0); i >= 0; i = differences.nextSetBit(i + 1)) {
+            columns.add(layout.getColumn(i));
+        }
+        return columns;
+    }
+}
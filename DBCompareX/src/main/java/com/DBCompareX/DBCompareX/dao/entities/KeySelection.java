@@ -0,0 +1,17 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Key columns chosen for a table and the evidence they are unique
+ */
+@Data
+@AllArgsConstructor
+public class KeySelection {
+    private List<String> columns;
+    private KeyStrategy strategy;
+    private String evidence;
+}
@@ -0,0 +1,23 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+/**
+ * How the key columns of a table mapping were chosen
+ */
+public enum KeyStrategy {
+    // Key columns were given in the request
+    PROVIDED,
+    // Primary key common to both tables
+    PRIMARY_KEY,
+    // Narrowest unique index over NOT NULL columns
+    UNIQUE_INDEX,
+    // Columns whose catalog distinct count matches the row count
+    DISTINCT_STATISTICS,
+    // Columns that were unique in a HyperLogLog estimate over a sample of rows
+    SAMPLED,
+    // No key; every common column is hashed by the database and rows are compared as a multiset
+    ROW_HASH,
+    // Every common column; keys get long and duplicate rows are paired in the order they are read
+    ALL_COLUMNS,
+    // No key could be identified
+    NONE
+}
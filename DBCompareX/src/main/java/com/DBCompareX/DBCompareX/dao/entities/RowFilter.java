@@ -0,0 +1,24 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WHERE predicate limiting the rows of one side of a table mapping, e.g. {@code created_at >= ?}.
+ * Values are given as parameters bound to the predicate's placeholders in order, never as text
+ * in the predicate itself.
+ */
+@Data
+@NoArgsConstructor
+public class RowFilter {
+    private String where;
+    private List<Object> parameters = new ArrayList<>();
+
+    public RowFilter(String where, List<Object> parameters) {
+        this.where = where;
+        this.parameters = parameters != null ? new ArrayList<>(parameters) : new ArrayList<>();
+    }
+}
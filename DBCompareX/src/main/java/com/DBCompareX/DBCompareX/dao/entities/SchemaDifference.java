@@ -0,0 +1,28 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One structural difference between two schemas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchemaDifference {
+    public static final String MISSING_IN_SOURCE = "MISSING_IN_SOURCE";
+    public static final String MISSING_IN_TARGET = "MISSING_IN_TARGET";
+    public static final String CHANGED = "CHANGED";
+
+    // TABLE, COLUMN, PRIMARY_KEY, UNIQUE_KEY, INDEX or FOREIGN_KEY
+    private String objectType;
+    private String table;
+    // Column name or key signature; null for tables
+    private String object;
+    private String change;
+    // Changed property of a column or key, e.g. type or nullable
+    private String attribute;
+    private String sourceValue;
+    private String targetValue;
+}
@@ -0,0 +1,45 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+import java.util.*;
+
+/**
+ * Structure of one schema as read from the catalog. Names are lower case; keys, indexes and
+ * foreign keys are kept as column signatures so that generated constraint names do not matter.
+ */
+@Data
+public class SchemaSnapshot {
+    private String dbType;
+    private String schema;
+    private Map<String, TableDefinition> tables = new TreeMap<>();
+
+    public TableDefinition table(String name) {
+        return tables.computeIfAbsent(name.toLowerCase(), TableDefinition::new);
+    }
+
+    @Data
+    public static class TableDefinition {
+        private final String name;
+        private Map<String, ColumnDefinition> columns = new LinkedHashMap<>();
+        private List<String> primaryKey = new ArrayList<>();
+        // "(a, b)"
+        private Set<String> uniqueKeys = new TreeSet<>();
+        // "UNIQUE (a, b)" or "(a, b)"
+        private Set<String> indexes = new TreeSet<>();
+        // "(a, b) -> parent (x, y)"
+        private Set<String> foreignKeys = new TreeSet<>();
+    }
+
+    @Data
+    public static class ColumnDefinition {
+        private String name;
+        private String typeName;
+        // java.sql.Types code, compared instead of the type name across dialects
+        private int sqlType;
+        private Integer size;
+        private Integer scale;
+        private boolean nullable;
+        private String defaultValue;
+    }
+}
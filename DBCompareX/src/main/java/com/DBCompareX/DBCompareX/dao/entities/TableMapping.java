@@ -18,6 +18,11 @@ public class TableMapping {
     private String sourceTable;
     private String targetTable;
     private List<String> keyColumns;
+    private KeyStrategy keyStrategy;
+
+    // Optional predicates limiting the rows compared on each side
+    private RowFilter sourceFilter;
+    private RowFilter targetFilter;
 
     // Add database connection details
     private String sourceDbType;
@@ -70,6 +75,30 @@ public class TableMapping {
         this.keyColumns = keyColumns;
     }
 
+    public KeyStrategy getKeyStrategy() {
+        return keyStrategy;
+    }
+
+    public void setKeyStrategy(KeyStrategy keyStrategy) {
+        this.keyStrategy = keyStrategy;
+    }
+
+    public RowFilter getSourceFilter() {
+        return sourceFilter;
+    }
+
+    public void setSourceFilter(RowFilter sourceFilter) {
+        this.sourceFilter = sourceFilter;
+    }
+
+    public RowFilter getTargetFilter() {
+        return targetFilter;
+    }
+
+    public void setTargetFilter(RowFilter targetFilter) {
+        this.targetFilter = targetFilter;
+    }
+
     public void addKeyColumn(String column) {
         if (!this.keyColumns.contains(column)) {
             this.keyColumns.add(column);
@@ -179,6 +208,9 @@ public class TableMapping {
                 "sourceTable='" + sourceTable + '\'' +
                 ", targetTable='" + targetTable + '\'' +
                 ", keyColumns=" + keyColumns +
+                ", keyStrategy=" + keyStrategy +
+                ", sourceFilter=" + (sourceFilter != null ? "'" + sourceFilter.getWhere() + "'" : null) +
+                ", targetFilter=" + (targetFilter != null ? "'" + targetFilter.getWhere() + "'" : null) +
                 ", sourceDbType='" + sourceDbType + '\'' +
                 ", sourceHost='" + sourceHost + '\'' +
                 ", sourcePort=" + sourcePort +
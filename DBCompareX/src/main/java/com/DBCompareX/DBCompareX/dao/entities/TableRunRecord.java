@@ -0,0 +1,31 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+/**
+ * Result and cost of one table in one run of a scheduled comparison profile
+ */
+@Data
+public class TableRunRecord {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private String runId;
+    private String profileName;
+    private String jobId;
+    private String trigger;
+    private String tableName;
+    private String status;
+    private long startedAt;
+    private long durationMillis;
+    private long rowsExtracted;
+    private long bytesExtracted;
+    private long bytesSpilled;
+    private long exactMatches;
+    private long differences;
+    private long unmatchedSource;
+    private long unmatchedTarget;
+    private double diffRate;
+    private double rowsPerSecond;
+    private String error;
+}
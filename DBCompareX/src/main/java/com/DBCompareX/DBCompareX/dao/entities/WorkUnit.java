@@ -0,0 +1,32 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import lombok.Data;
+
+/**
+ * One table of a distributed comparison job as stored in the shared work queue
+ */
+@Data
+public class WorkUnit {
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+    public static final String FAILED = "FAILED";
+
+    private String id;
+    private String jobId;
+    private int unitNo;
+    private String sourceTable;
+    private String targetTable;
+    // Comparison request of this table with encrypted passwords, as JSON
+    private String payload;
+    private String status;
+    private String claimedBy;
+    private Long leaseUntil;
+    private Long heartbeatAt;
+    private int attempts;
+    // Table summaries and the report job of the finished unit, as JSON
+    private String result;
+    private String error;
+    private long createdAt;
+    private Long finishedAt;
+}
@@ -0,0 +1,44 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A vendor catalog query and its string parameters
+ */
+public final class CatalogQuery {
+    private final String sql;
+    private final List<String> parameters;
+
+    public CatalogQuery(String sql, String... parameters) {
+        this.sql = sql;
+        this.parameters = Arrays.asList(parameters);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Prepare the query with its parameters bound; the caller closes the statement
+     */
+    public PreparedStatement prepare(Connection conn) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setString(i + 1, parameters.get(i));
+            }
+            return stmt;
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+}
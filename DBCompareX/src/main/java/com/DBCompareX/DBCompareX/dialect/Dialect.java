@@ -0,0 +1,204 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * SQL that differs between database types: identifier quoting, schema resolution, paging, row
+ * hashing, streaming settings and catalog queries. Defaults follow ANSI SQL; implementations are
+ * Spring components looked up through {@link DialectRegistry}.
+ */
+public interface Dialect {
+    Pattern PLAIN_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+    /**
+     * Database type as used in requests, e.g. mysql
+     */
+    String name();
+
+    default String quoteIdentifier(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Identifier as written in generated SQL: plain names stay unquoted so that they keep matching
+     * case-insensitively, anything else is quoted
+     */
+    default String identifier(String name) {
+        return PLAIN_IDENTIFIER.matcher(name).matches() ? name : quoteIdentifier(name);
+    }
+
+    /**
+     * Schema used when the request names none; null means the connection's default schema
+     */
+    default String defaultSchema(String username) {
+        return null;
+    }
+
+    /**
+     * Schema to read for a request's schema filter. Called once per connection target and user,
+     * the registry caches the result.
+     */
+    default String resolveSchema(Connection conn, String username, String schemaFilter) throws SQLException {
+        return defaultSchema(username);
+    }
+
+    /**
+     * Table name as used in a FROM clause
+     */
+    default String qualify(String schema, String table) {
+        return schema != null ? schema + "." + table : table;
+    }
+
+    /**
+     * Prepare a statement to stream a large result instead of buffering it in the driver
+     */
+    default void configureStreaming(Connection conn, Statement stmt, int fetchSize) throws SQLException {
+        stmt.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Boolean value written into SQL, for predicates whose parameters cannot be bound
+     */
+    default String booleanLiteral(boolean value) {
+        return value ? "TRUE" : "FALSE";
+    }
+
+    /**
+     * Limit a query to its first rows
+     */
+    default String limit(String query, int rows) {
+        return query + " FETCH FIRST " + rows + " ROWS ONLY";
+    }
+
+    /**
+     * Page of a table ordered by its key. The first page has no parameters; later pages bind the key
+     * of the previous page's last row through expandKeysetParameters, because not every database
+     * supports row value comparisons.
+     */
+    default String keysetPageQuery(String table, List<String> columns, List<String> keyColumns, boolean firstPage,
+                                   int pageSize) {
+        String select = "SELECT " + columns.stream().map(this::identifier).collect(Collectors.joining(", "))
+                + " FROM " + table;
+        if (!firstPage) {
+            StringBuilder after = new StringBuilder();
+            for (int i = 0; i < keyColumns.size(); i++) {
+                after.append(i == 0 ? "(" : " OR (");
+                for (int j = 0; j < i; j++) {
+                    after.append(identifier(keyColumns.get(j))).append(" = ? AND ");
+                }
+                after.append(identifier(keyColumns.get(i))).append(" > ?)");
+            }
+            select += " WHERE " + after;
+        }
+        return limit(select + " ORDER BY " + keyColumns.stream().map(this::identifier)
+                .collect(Collectors.joining(", ")), pageSize);
+    }
+
+    /**
+     * Parameters of a keyset page after the given key, in the order of keysetPageQuery's placeholders
+     */
+    static Object[] expandKeysetParameters(List<Object> lastKey) {
+        int size = lastKey.size();
+        Object[] parameters = new Object[size * (size + 1) / 2];
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j <= i; j++) {
+                parameters[index++] = lastKey.get(j);
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Lower-case hex MD5 of a row's values as text, separated by CHR(31) with CHR(30) standing for NULL.
+     * Values are rendered per type without loss: every digit, fractional second and time zone offset
+     * counts, whatever the session's formatting defaults are. Lower-case hex sorts the same under every
+     * collation.
+     *
+     * @throws IllegalArgumentException if the database type cannot hash rows
+     */
+    default String rowHashExpression(List<TypedColumn> columns) {
+        throw new IllegalArgumentException("Keyless comparison is not supported for database type " + name());
+    }
+
+    /**
+     * How {@link #rowHashExpression} turns the value texts into a hash: byte encoding and grouping. Row
+     * hashes of two dialects can only match when this is the same; the default is the MD5 of all values
+     * joined into one UTF-8 string.
+     */
+    default String rowHashConstruction() {
+        return "md5-utf8-joined";
+    }
+
+    /**
+     * Table names of a schema; null to use JDBC metadata
+     */
+    default CatalogQuery tableNamesQuery(String schema) {
+        return null;
+    }
+
+    /**
+     * Column names of a table, used when JDBC metadata returns none; null if there is no such query
+     */
+    default CatalogQuery columnNamesQuery(String schema, String table) {
+        return null;
+    }
+
+    /**
+     * Primary key columns of a table, used when JDBC metadata returns none; null if there is no such query
+     */
+    default CatalogQuery primaryKeyQuery(String schema, String table) {
+        return null;
+    }
+
+    /**
+     * Row count and size in bytes of a table from optimizer statistics; null if unavailable
+     */
+    default CatalogQuery tableStatisticsQuery(String schema, String table) {
+        return null;
+    }
+
+    /**
+     * Column name and distinct count per column from optimizer statistics; null if unavailable
+     */
+    default CatalogQuery distinctCountsQuery(String schema, String table) {
+        return null;
+    }
+
+    /**
+     * Primary, unique and foreign key columns of a whole schema as (table, constraint, type, column,
+     * position, referenced table, referenced column); null to read keys table by table
+     */
+    default CatalogQuery constraintsQuery(String schema) {
+        return null;
+    }
+
+    /**
+     * Index columns of a whole schema as (table, index, unique, column, position); null to read
+     * indexes table by table
+     */
+    default CatalogQuery indexesQuery(String schema) {
+        return null;
+    }
+
+    /**
+     * Standard information_schema key query shared by PostgreSQL, SQL Server and H2
+     */
+    static CatalogQuery standardConstraintsQuery(String schema) {
+        return new CatalogQuery("SELECT tc.table_name, tc.constraint_name, tc.constraint_type, "
+                + "k.column_name, k.ordinal_position, rk.table_name, rk.column_name "
+                + "FROM information_schema.table_constraints tc "
+                + "JOIN information_schema.key_column_usage k ON k.constraint_schema = tc.constraint_schema "
+                + "AND k.constraint_name = tc.constraint_name AND k.table_name = tc.table_name "
+                + "LEFT JOIN information_schema.referential_constraints rc ON rc.constraint_schema = tc.constraint_schema "
+                + "AND rc.constraint_name = tc.constraint_name "
+                + "LEFT JOIN information_schema.key_column_usage rk ON rk.constraint_schema = rc.unique_constraint_schema "
+                + "AND rk.constraint_name = rc.unique_constraint_name AND rk.ordinal_position = k.position_in_unique_constraint "
+                + "WHERE tc.table_schema = ? AND tc.constraint_type IN ('PRIMARY KEY', 'UNIQUE', 'FOREIGN KEY')", schema);
+    }
+}
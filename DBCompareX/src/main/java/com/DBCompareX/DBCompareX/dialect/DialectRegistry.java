@@ -0,0 +1,71 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up the dialect of a database type and caches resolved schemas, so that schema checks run
+ * once per database, user and filter instead of on every metadata call.
+ */
+@Component
+public class DialectRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(DialectRegistry.class);
+    // ConcurrentHashMap cannot hold null, the connection default schema
+    private static final String DEFAULT_SCHEMA = "";
+
+    private final Map<String, Dialect> dialects = new HashMap<>();
+    private final Map<String, String> resolvedSchemas = new ConcurrentHashMap<>();
+
+    @Autowired
+    public DialectRegistry(List<Dialect> dialects) {
+        for (Dialect dialect : dialects) {
+            this.dialects.put(dialect.name().toLowerCase(), dialect);
+        }
+        logger.info("Registered SQL dialects: {}", new TreeSet<>(this.dialects.keySet()));
+    }
+
+    /**
+     * Registry of the built-in dialects, for use outside the Spring context
+     */
+    public static DialectRegistry builtIn() {
+        return new DialectRegistry(Arrays.asList(new MySqlDialect(), new PostgreSqlDialect(), new OracleDialect(),
+                new SqlServerDialect(), new H2Dialect()));
+    }
+
+    /**
+     * Dialect of a database type; unknown types get ANSI defaults
+     */
+    public Dialect forType(String dbType) {
+        String name = dbType != null ? dbType.toLowerCase() : "";
+        Dialect dialect = dialects.get(name);
+        return dialect != null ? dialect : new GenericDialect(name);
+    }
+
+    /**
+     * Resolved schema of a database and user, looked up once per connection target
+     *
+     * @param target JDBC URL or other string identifying the database
+     */
+    public String resolveSchema(String dbType, String target, Connection conn, String username, String schemaFilter)
+            throws SQLException {
+        Dialect dialect = forType(dbType);
+        if (schemaFilter == null) {
+            return dialect.defaultSchema(username);
+        }
+        String cacheKey = dialect.name() + "|" + target + "|" + username + "|" + schemaFilter;
+        String schema = resolvedSchemas.get(cacheKey);
+        if (schema == null) {
+            String resolved = dialect.resolveSchema(conn, username, schemaFilter);
+            schema = resolved != null ? resolved : DEFAULT_SCHEMA;
+            resolvedSchemas.put(cacheKey, schema);
+        }
+        return schema.equals(DEFAULT_SCHEMA) ? null : schema;
+    }
+}
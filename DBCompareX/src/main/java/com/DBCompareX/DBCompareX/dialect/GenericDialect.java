@@ -0,0 +1,17 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+/**
+ * ANSI defaults for database types without a dialect of their own
+ */
+public class GenericDialect implements Dialect {
+    private final String name;
+
+    public GenericDialect(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
@@ -0,0 +1,39 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * H2, used for the result store, benchmarks and tests
+ */
+@Component
+public class H2Dialect implements Dialect {
+
+    @Override
+    public String name() {
+        return "h2";
+    }
+
+    @Override
+    public String rowHashExpression(List<TypedColumn> columns) {
+        return "LOWER(RAWTOHEX(HASH('MD5', CONCAT_WS(CHAR(31), " + columns.stream()
+                .map(column -> "COALESCE(CAST(" + identifier(column.getName()) + " AS VARCHAR), CHAR(30))")
+                .collect(Collectors.joining(", ")) + "))))";
+    }
+
+    @Override
+    public CatalogQuery constraintsQuery(String schema) {
+        return Dialect.standardConstraintsQuery(schema);
+    }
+
+    @Override
+    public CatalogQuery indexesQuery(String schema) {
+        return new CatalogQuery("SELECT ic.table_name, ic.index_name, "
+                + "i.index_type_name IN ('PRIMARY KEY', 'UNIQUE INDEX'), ic.column_name, ic.ordinal_position "
+                + "FROM information_schema.index_columns ic "
+                + "JOIN information_schema.indexes i ON i.index_schema = ic.index_schema "
+                + "AND i.index_name = ic.index_name WHERE ic.table_schema = ?", schema);
+    }
+}
@@ -0,0 +1,74 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * MySQL: the database is the schema, so catalog queries use DATABASE()
+ */
+@Component
+public class MySqlDialect implements Dialect {
+
+    @Override
+    public String name() {
+        return "mysql";
+    }
+
+    @Override
+    public String quoteIdentifier(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    @Override
+    public void configureStreaming(Connection conn, Statement stmt, int fetchSize) throws SQLException {
+        // Connector/J only streams row by row with this fetch size; any other value buffers the whole result
+        stmt.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    @Override
+    public String limit(String query, int rows) {
+        return query + " LIMIT " + rows;
+    }
+
+    @Override
+    public String rowHashExpression(List<TypedColumn> columns) {
+        return "MD5(CONCAT_WS(CHAR(31), " + columns.stream()
+                .map(column -> "COALESCE(CAST(" + identifier(column.getName()) + " AS CHAR), CHAR(30))")
+                .collect(Collectors.joining(", ")) + "))";
+    }
+
+    @Override
+    public CatalogQuery tableStatisticsQuery(String schema, String table) {
+        return new CatalogQuery("SELECT table_rows, data_length + index_length FROM information_schema.tables "
+                + "WHERE table_schema = DATABASE() AND table_name = ?", table);
+    }
+
+    @Override
+    public CatalogQuery distinctCountsQuery(String schema, String table) {
+        return new CatalogQuery("SELECT column_name, MAX(cardinality) FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = ? AND seq_in_index = 1 GROUP BY column_name", table);
+    }
+
+    @Override
+    public CatalogQuery constraintsQuery(String schema) {
+        // Referenced columns are on the key column usage itself
+        return new CatalogQuery("SELECT tc.table_name, tc.constraint_name, tc.constraint_type, k.column_name, "
+                + "k.ordinal_position, k.referenced_table_name, k.referenced_column_name "
+                + "FROM information_schema.table_constraints tc "
+                + "JOIN information_schema.key_column_usage k ON k.constraint_schema = tc.constraint_schema "
+                + "AND k.constraint_name = tc.constraint_name AND k.table_name = tc.table_name "
+                + "WHERE tc.table_schema = ? AND tc.constraint_type IN ('PRIMARY KEY', 'UNIQUE', 'FOREIGN KEY')",
+                schema);
+    }
+
+    @Override
+    public CatalogQuery indexesQuery(String schema) {
+        return new CatalogQuery("SELECT table_name, index_name, non_unique = 0, column_name, seq_in_index "
+                + "FROM information_schema.statistics WHERE table_schema = ?", schema);
+    }
+}
@@ -0,0 +1,198 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Oracle: tables live in the user's schema unless a schema filter names another one; catalog
+ * names are stored in upper case
+ */
+@Component
+public class OracleDialect implements Dialect {
+    private static final Logger logger = LoggerFactory.getLogger(OracleDialect.class);
+    private static final String SCHEMA_QUERY = "SELECT username FROM all_users WHERE username = ?";
+    // Column hashes per intermediate hash: 100 hashes of 33 characters stay below 4000 bytes
+    private static final int HASH_GROUP = 100;
+    // Type codes of the Oracle driver outside java.sql.Types
+    private static final int BINARY_FLOAT = 100;
+    private static final int BINARY_DOUBLE = 101;
+    private static final int TIMESTAMP_TZ = -101;
+    private static final int TIMESTAMP_LTZ = -102;
+
+    @Override
+    public String name() {
+        return "oracle";
+    }
+
+    @Override
+    public String defaultSchema(String username) {
+        return username.toUpperCase();
+    }
+
+    /**
+     * The filter's schema if it exists, also as a quoted name for special characters, else the user's schema
+     */
+    @Override
+    public String resolveSchema(Connection conn, String username, String schemaFilter) throws SQLException {
+        if (schemaFilter == null) {
+            return defaultSchema(username);
+        }
+        String schema = schemaFilter.toUpperCase();
+        if (userExists(conn, schema)) {
+            logger.info("Schema '{}' exists, filtering Oracle tables by this schema", schema);
+            return schema;
+        }
+        try {
+            if (userExists(conn, "\"" + schema + "\"")) {
+                logger.info("Schema '\"{}\"' (with quotes) exists, filtering Oracle tables", schema);
+                return "\"" + schema + "\"";
+            }
+        } catch (SQLException e) {
+            logger.warn("Error checking quoted schema: {}", e.getMessage());
+        }
+        logger.warn("Schema '{}' does not exist, falling back to user's schema", schema);
+        return defaultSchema(username);
+    }
+
+    private static boolean userExists(Connection conn, String username) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SCHEMA_QUERY)) {
+            stmt.setString(1, username);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public String rowHashExpression(List<TypedColumn> columns) {
+        // Each value is hashed on its own and the row hash is taken over at most HASH_GROUP column hashes
+        // at a time, so no concatenation reaches the 4000 byte VARCHAR2 limit (ORA-01489) on wide rows
+        List<String> hashes = columns.stream().map(column -> md5("NVL(" + hashText(column) + ", CHR(30))"))
+                .collect(Collectors.toList());
+        do {
+            List<String> groups = new ArrayList<>();
+            for (int from = 0; from < hashes.size(); from += HASH_GROUP) {
+                groups.add(md5(String.join(" || CHR(31) || ",
+                        hashes.subList(from, Math.min(hashes.size(), from + HASH_GROUP)))));
+            }
+            hashes = groups;
+        } while (hashes.size() > 1);
+        return hashes.get(0);
+    }
+
+    @Override
+    public String rowHashConstruction() {
+        return "md5-oracle-grouped";
+    }
+
+    @Override
+    public String booleanLiteral(boolean value) {
+        // Oracle SQL has no BOOLEAN type before 23ai; flags are NUMBER(1) columns
+        return value ? "1" : "0";
+    }
+
+    private static String md5(String text) {
+        return "LOWER(RAWTOHEX(STANDARD_HASH(" + text + ", 'MD5')))";
+    }
+
+    /**
+     * Value as text with explicit formats; TO_CHAR without one follows the session's NLS settings,
+     * whose usual date format drops the time of day and the century
+     */
+    String hashText(TypedColumn column) {
+        String name = identifier(column.getName());
+        String type = column.getTypeName().toUpperCase();
+        if (column.getJdbcType() == TIMESTAMP_LTZ || type.contains("LOCAL TIME ZONE")) {
+            return "TO_CHAR(SYS_EXTRACT_UTC(" + name + "), 'YYYY-MM-DD\"T\"HH24:MI:SS.FF9')";
+        }
+        if (column.getJdbcType() == TIMESTAMP_TZ || column.isTemporalWithTimeZone() || type.contains("TIME ZONE")) {
+            return "TO_CHAR(" + name + ", 'YYYY-MM-DD\"T\"HH24:MI:SS.FF9TZH:TZM')";
+        }
+        if (column.getJdbcType() == Types.DATE || type.equals("DATE")) {
+            return "TO_CHAR(" + name + ", 'YYYY-MM-DD\"T\"HH24:MI:SS')";
+        }
+        if (column.isTemporal()) {
+            return "TO_CHAR(" + name + ", 'YYYY-MM-DD\"T\"HH24:MI:SS.FF9')";
+        }
+        if (column.isNumeric() || column.getJdbcType() == BINARY_FLOAT || column.getJdbcType() == BINARY_DOUBLE) {
+            // Shortest exact decimal notation with a period, whatever NLS_NUMERIC_CHARACTERS says
+            return "TO_CHAR(" + name + ", 'TM9', 'NLS_NUMERIC_CHARACTERS=''.,''')";
+        }
+        if (column.isCharacter()) {
+            return name;
+        }
+        if (column.isBinary()) {
+            return "RAWTOHEX(" + name + ")";
+        }
+        return "TO_CHAR(" + name + ")";
+    }
+
+    @Override
+    public CatalogQuery tableNamesQuery(String schema) {
+        return new CatalogQuery("SELECT table_name FROM all_tables WHERE owner = ?", owner(schema));
+    }
+
+    @Override
+    public CatalogQuery columnNamesQuery(String schema, String table) {
+        return new CatalogQuery("SELECT column_name FROM all_tab_columns WHERE owner = ? AND table_name = ?",
+                owner(schema), table.toUpperCase());
+    }
+
+    @Override
+    public CatalogQuery primaryKeyQuery(String schema, String table) {
+        return new CatalogQuery("SELECT cols.column_name FROM all_constraints cons, all_cons_columns cols "
+                + "WHERE cons.constraint_type = 'P' AND cons.constraint_name = cols.constraint_name "
+                + "AND cons.owner = ? AND cols.table_name = ?", owner(schema), table.toUpperCase());
+    }
+
+    @Override
+    public CatalogQuery tableStatisticsQuery(String schema, String table) {
+        return new CatalogQuery("SELECT num_rows, num_rows * avg_row_len FROM all_tables "
+                + "WHERE owner = ? AND table_name = ?", owner(schema), table.toUpperCase());
+    }
+
+    @Override
+    public CatalogQuery distinctCountsQuery(String schema, String table) {
+        return new CatalogQuery("SELECT column_name, num_distinct FROM all_tab_col_statistics "
+                + "WHERE owner = ? AND table_name = ?", owner(schema), table.toUpperCase());
+    }
+
+    @Override
+    public CatalogQuery constraintsQuery(String schema) {
+        return new CatalogQuery("SELECT c.table_name, c.constraint_name, "
+                + "DECODE(c.constraint_type, 'P', 'PRIMARY KEY', 'U', 'UNIQUE', 'FOREIGN KEY'), "
+                + "cc.column_name, cc.position, r.table_name, rc.column_name "
+                + "FROM all_constraints c "
+                + "JOIN all_cons_columns cc ON cc.owner = c.owner AND cc.constraint_name = c.constraint_name "
+                + "LEFT JOIN all_constraints r ON r.owner = c.r_owner AND r.constraint_name = c.r_constraint_name "
+                + "LEFT JOIN all_cons_columns rc ON rc.owner = r.owner AND rc.constraint_name = r.constraint_name "
+                + "AND rc.position = cc.position "
+                + "WHERE c.owner = ? AND c.constraint_type IN ('P', 'U', 'R')", owner(schema));
+    }
+
+    @Override
+    public CatalogQuery indexesQuery(String schema) {
+        return new CatalogQuery("SELECT ic.table_name, ic.index_name, "
+                + "CASE WHEN i.uniqueness = 'UNIQUE' THEN 1 ELSE 0 END, ic.column_name, ic.column_position "
+                + "FROM all_ind_columns ic "
+                + "JOIN all_indexes i ON i.owner = ic.index_owner AND i.index_name = ic.index_name "
+                + "WHERE ic.table_owner = ?", owner(schema));
+    }
+
+    /**
+     * Owner as bound to catalog queries, without the quotes of a quoted schema name
+     */
+    private static String owner(String schema) {
+        return schema.replace("\"", "");
+    }
+}
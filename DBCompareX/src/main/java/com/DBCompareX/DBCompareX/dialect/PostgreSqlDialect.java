@@ -0,0 +1,71 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * PostgreSQL: statistics come from pg_class and pg_stats of the current schema
+ */
+@Component
+public class PostgreSqlDialect implements Dialect {
+
+    @Override
+    public String name() {
+        return "postgresql";
+    }
+
+    @Override
+    public void configureStreaming(Connection conn, Statement stmt, int fetchSize) throws SQLException {
+        // The driver only honours the fetch size inside a transaction
+        conn.setAutoCommit(false);
+        stmt.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public String limit(String query, int rows) {
+        return query + " LIMIT " + rows;
+    }
+
+    @Override
+    public String rowHashExpression(List<TypedColumn> columns) {
+        return "md5(concat_ws(chr(31), " + columns.stream()
+                .map(column -> "coalesce(" + identifier(column.getName()) + "::text, chr(30))")
+                .collect(Collectors.joining(", ")) + "))";
+    }
+
+    @Override
+    public CatalogQuery tableStatisticsQuery(String schema, String table) {
+        return new CatalogQuery("SELECT c.reltuples, pg_total_relation_size(c.oid) FROM pg_class c "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                + "WHERE n.nspname = current_schema() AND c.relname = ?", table.toLowerCase());
+    }
+
+    @Override
+    public CatalogQuery distinctCountsQuery(String schema, String table) {
+        // Negative n_distinct is a fraction of the row count, -1 meaning unique
+        return new CatalogQuery("SELECT s.attname, CASE WHEN s.n_distinct < 0 THEN -s.n_distinct * c.reltuples "
+                + "ELSE s.n_distinct END FROM pg_stats s JOIN pg_class c ON c.relname = s.tablename "
+                + "JOIN pg_namespace n ON n.oid = c.relnamespace AND n.nspname = s.schemaname "
+                + "WHERE s.schemaname = current_schema() AND s.tablename = ?", table.toLowerCase());
+    }
+
+    @Override
+    public CatalogQuery constraintsQuery(String schema) {
+        return Dialect.standardConstraintsQuery(schema);
+    }
+
+    @Override
+    public CatalogQuery indexesQuery(String schema) {
+        return new CatalogQuery("SELECT t.relname, i.relname, ix.indisunique, a.attname, k.n "
+                + "FROM pg_index ix JOIN pg_class i ON i.oid = ix.indexrelid "
+                + "JOIN pg_class t ON t.oid = ix.indrelid JOIN pg_namespace ns ON ns.oid = t.relnamespace "
+                + "CROSS JOIN LATERAL unnest(ix.indkey) WITH ORDINALITY AS k(attnum, n) "
+                + "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = k.attnum "
+                + "WHERE ns.nspname = ?", schema);
+    }
+}
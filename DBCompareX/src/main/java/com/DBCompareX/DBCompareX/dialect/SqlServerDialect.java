@@ -0,0 +1,94 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * SQL Server: bracket quoting, TOP for limits and sys catalog views
+ */
+@Component
+public class SqlServerDialect implements Dialect {
+
+    @Override
+    public String name() {
+        return "sqlserver";
+    }
+
+    @Override
+    public String quoteIdentifier(String identifier) {
+        return "[" + identifier.replace("]", "]]") + "]";
+    }
+
+    @Override
+    public String limit(String query, int rows) {
+        // OFFSET ... FETCH would need an ORDER BY, TOP works on any query
+        return query.replaceFirst("(?i)^\\s*SELECT\\s+", "SELECT TOP (" + rows + ") ");
+    }
+
+    @Override
+    public String rowHashExpression(List<TypedColumn> columns) {
+        return "LOWER(CONVERT(VARCHAR(32), HASHBYTES('MD5', CONCAT(" + columns.stream()
+                .map(column -> "COALESCE(" + hashText(column) + ", CHAR(30))")
+                .collect(Collectors.joining(", CHAR(31), ")) + ")), 2))";
+    }
+
+    @Override
+    public String rowHashConstruction() {
+        // HASHBYTES over NVARCHAR hashes UTF-16 bytes
+        return "md5-utf16-joined";
+    }
+
+    @Override
+    public String booleanLiteral(boolean value) {
+        // T-SQL has no TRUE and FALSE literals; flags are BIT columns
+        return value ? "1" : "0";
+    }
+
+    /**
+     * Value as NVARCHAR with an explicit style where the default one loses precision: style 0 drops the
+     * seconds of datetimes, all but six digits of floats and two of the four decimals of money
+     */
+    String hashText(TypedColumn column) {
+        String name = identifier(column.getName());
+        String type = column.getTypeName().toLowerCase();
+        if (column.isTemporal() || column.isTemporalWithTimeZone() || type.startsWith("date")
+                || type.equals("time") || type.equals("smalldatetime")) {
+            // ISO 8601 with all fractional digits, and the offset of datetimeoffset
+            return "CONVERT(NVARCHAR(40), " + name + ", 126)";
+        }
+        if (column.isApproximate()) {
+            // 17 significant digits, enough to round-trip any float
+            return "CONVERT(NVARCHAR(40), " + name + ", 3)";
+        }
+        if (type.contains("money")) {
+            return "CONVERT(NVARCHAR(40), " + name + ", 2)";
+        }
+        if (column.isBinary()) {
+            return "CONVERT(NVARCHAR(MAX), " + name + ", 1)";
+        }
+        return "CAST(" + name + " AS NVARCHAR(MAX))";
+    }
+
+    @Override
+    public CatalogQuery tableStatisticsQuery(String schema, String table) {
+        return new CatalogQuery("SELECT SUM(p.rows), SUM(a.used_pages) * 8192 FROM sys.partitions p "
+                + "JOIN sys.allocation_units a ON a.container_id = p.partition_id "
+                + "WHERE p.object_id = OBJECT_ID(?) AND p.index_id IN (0, 1)", table);
+    }
+
+    @Override
+    public CatalogQuery constraintsQuery(String schema) {
+        return Dialect.standardConstraintsQuery(schema);
+    }
+
+    @Override
+    public CatalogQuery indexesQuery(String schema) {
+        return new CatalogQuery("SELECT t.name, i.name, i.is_unique, c.name, ic.key_ordinal FROM sys.indexes i "
+                + "JOIN sys.tables t ON t.object_id = i.object_id "
+                + "JOIN sys.index_columns ic ON ic.object_id = i.object_id AND ic.index_id = i.index_id "
+                + "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id "
+                + "WHERE SCHEMA_NAME(t.schema_id) = ? AND i.name IS NOT NULL AND ic.key_ordinal > 0", schema);
+    }
+}
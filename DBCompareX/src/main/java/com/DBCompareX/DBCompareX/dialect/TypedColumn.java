@@ -0,0 +1,116 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A column with the JDBC type its driver reports, so that generated SQL can render values per type
+ */
+public final class TypedColumn {
+    private final String name;
+    private final int jdbcType;
+    private final String typeName;
+
+    public TypedColumn(String name, int jdbcType, String typeName) {
+        this.name = name;
+        this.jdbcType = jdbcType;
+        this.typeName = typeName != null ? typeName : "";
+    }
+
+    /**
+     * Column of unknown type, rendered with the database's default conversion to text
+     */
+    public static TypedColumn untyped(String name) {
+        return new TypedColumn(name, Types.OTHER, null);
+    }
+
+    /**
+     * Types of the given columns of a table, read from the metadata of a query that returns no rows
+     */
+    public static List<TypedColumn> read(Connection conn, Dialect dialect, String table, List<String> columns)
+            throws SQLException {
+        List<TypedColumn> typed = new ArrayList<>(columns.size());
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT " + columns.stream().map(dialect::identifier)
+                     .collect(Collectors.joining(", ")) + " FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 0; i < columns.size(); i++) {
+                typed.add(new TypedColumn(columns.get(i), metaData.getColumnType(i + 1),
+                        metaData.getColumnTypeName(i + 1)));
+            }
+        }
+        return typed;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getJdbcType() {
+        return jdbcType;
+    }
+
+    /**
+     * Database-specific type name, e.g. DATE or money; empty if unknown
+     */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public boolean isNumeric() {
+        switch (jdbcType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isApproximate() {
+        return jdbcType == Types.REAL || jdbcType == Types.FLOAT || jdbcType == Types.DOUBLE;
+    }
+
+    /**
+     * Date, time or timestamp without a time zone
+     */
+    public boolean isTemporal() {
+        return jdbcType == Types.DATE || jdbcType == Types.TIME || jdbcType == Types.TIMESTAMP;
+    }
+
+    public boolean isTemporalWithTimeZone() {
+        return jdbcType == Types.TIMESTAMP_WITH_TIMEZONE || jdbcType == Types.TIME_WITH_TIMEZONE;
+    }
+
+    public boolean isBinary() {
+        return jdbcType == Types.BINARY || jdbcType == Types.VARBINARY || jdbcType == Types.LONGVARBINARY;
+    }
+
+    public boolean isCharacter() {
+        switch (jdbcType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
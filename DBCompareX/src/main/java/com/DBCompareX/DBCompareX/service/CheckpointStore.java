@@ -0,0 +1,154 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.CheckpointConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonCheckpoint;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable checkpoints of comparison jobs, one JSON file in a subdirectory of each job directory so it is
+ * never taken for the job's report. A checkpoint is replaced atomically after every finished table, so
+ * after a crash it names exactly the tables whose results are committed to the job's result store.
+ */
+@Service
+public class CheckpointStore {
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointStore.class);
+
+    private static final String CHECKPOINT_DIRECTORY = "checkpoint";
+    private static final String CHECKPOINT_FILE = "checkpoint.json";
+
+    private final CheckpointConfig config;
+    private final ReportStorageService reportStorageService;
+    private final ObjectMapper objectMapper;
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public CheckpointStore(CheckpointConfig config, ReportStorageService reportStorageService,
+                           ObjectMapper objectMapper) {
+        this.config = config;
+        this.reportStorageService = reportStorageService;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * New checkpoint of a job about to compare the given tables
+     */
+    public ComparisonCheckpoint create(String jobId, String outputPath, ComparisonRequest request,
+                                       List<TableMapping> tableMappings) {
+        ComparisonCheckpoint checkpoint = new ComparisonCheckpoint();
+        checkpoint.setJobId(jobId);
+        checkpoint.setOutputPath(outputPath);
+        checkpoint.setStatus(ComparisonCheckpoint.RUNNING);
+        checkpoint.setCreatedAt(System.currentTimeMillis());
+        ComparisonRequest saved = objectMapper.convertValue(request, ComparisonRequest.class);
+        saved.setSourcePassword(null);
+        saved.setTargetPassword(null);
+        saved.setTableMappings(null);
+        checkpoint.setRequest(saved);
+        List<TableMapping> mappings = new ArrayList<>();
+        for (TableMapping mapping : tableMappings) {
+            TableMapping copy = objectMapper.convertValue(mapping, TableMapping.class);
+            copy.setSourcePassword(null);
+            copy.setTargetPassword(null);
+            mappings.add(copy);
+        }
+        checkpoint.setTableMappings(mappings);
+        return checkpoint;
+    }
+
+    /**
+     * Record a table whose results are committed, with the key chosen for it, and save the checkpoint
+     */
+    public void tableFinished(ComparisonCheckpoint checkpoint, TableMapping mapping) {
+        for (TableMapping saved : checkpoint.getTableMappings()) {
+            if (saved.getSourceTable().equals(mapping.getSourceTable())) {
+                saved.setKeyColumns(mapping.getKeyColumns());
+                saved.setKeyStrategy(mapping.getKeyStrategy());
+            }
+        }
+        if (!checkpoint.getCompletedTables().contains(mapping.getSourceTable())) {
+            checkpoint.getCompletedTables().add(mapping.getSourceTable());
+        }
+        checkpoint.getFailedTables().remove(mapping.getSourceTable());
+        save(checkpoint);
+    }
+
+    /**
+     * Record a table whose attempt failed and save the checkpoint
+     */
+    public void tableFailed(ComparisonCheckpoint checkpoint, TableMapping mapping, String error) {
+        checkpoint.getFailedTables().put(mapping.getSourceTable(), String.valueOf(error));
+        save(checkpoint);
+    }
+
+    /**
+     * Replace the job's checkpoint file; the previous one stays intact until the new one is on disk
+     */
+    public void save(ComparisonCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(System.currentTimeMillis());
+        Path file = checkpointFile(checkpoint.getJobId());
+        Path temp = file.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(temp, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(checkpoint));
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // A missing checkpoint only costs the ability to resume, so the comparison carries on
+            logger.warn("Could not save checkpoint of job {}: {}", checkpoint.getJobId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Checkpoint of a job, with passwords to be supplied again by the caller
+     */
+    public ComparisonCheckpoint load(String jobId) {
+        Path file = checkpointFile(jobId);
+        if (!Files.exists(file)) {
+            throw new IllegalArgumentException("No checkpoint found for job: " + jobId);
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), ComparisonCheckpoint.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable checkpoint of job " + jobId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Mark a job as running in this process; false when it already is
+     */
+    public boolean acquire(String jobId) {
+        return activeJobs.add(jobId);
+    }
+
+    public void release(String jobId) {
+        activeJobs.remove(jobId);
+    }
+
+    private Path checkpointFile(String jobId) {
+        return reportStorageService.getJobDirectory(jobId).resolve(CHECKPOINT_DIRECTORY).resolve(CHECKPOINT_FILE);
+    }
+}
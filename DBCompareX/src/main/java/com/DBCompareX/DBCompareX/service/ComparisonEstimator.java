@@ -0,0 +1,194 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeyFirstConfig;
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.config.SparkEngineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
+import com.DBCompareX.DBCompareX.dao.entities.KeyStrategy;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dry run of a comparison: catalog row counts and sizes per table, the key strategy that would be
+ * used, and projected memory and runtime of the selected engine. Nothing is read from the tables.
+ */
+@Service
+public class ComparisonEstimator {
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonEstimator.class);
+
+    // Assumed average row size when the catalog has no size figure
+    private static final long DEFAULT_ROW_BYTES = 256;
+    // A row held as a HashMap of boxed values takes several times its raw size on the heap
+    private static final int HEAP_OVERHEAD_FACTOR = 4;
+    // Key, row hash and map entry of one source row held by the first phase of a key-first comparison
+    private static final long KEY_FIRST_ENTRY_BYTES = 160;
+
+    private final TableCatalog tableCatalog;
+    private final PipelineConfig pipelineConfig;
+    private final SparkEngineConfig sparkEngineConfig;
+    private final KeyFirstConfig keyFirstConfig;
+    private final ComparisonMetrics metrics;
+
+    @Autowired
+    public ComparisonEstimator(TableCatalog tableCatalog, PipelineConfig pipelineConfig,
+                               SparkEngineConfig sparkEngineConfig, KeyFirstConfig keyFirstConfig,
+                               ComparisonMetrics metrics) {
+        this.tableCatalog = tableCatalog;
+        this.pipelineConfig = pipelineConfig;
+        this.sparkEngineConfig = sparkEngineConfig;
+        this.keyFirstConfig = keyFirstConfig;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Estimate a comparison request without running it
+     */
+    public Map<String, Object> explain(ComparisonRequest request) {
+        EngineMode engineMode = request.getEngineMode() != null ? request.getEngineMode() : EngineMode.JDBC;
+        List<TableMapping> tableMappings = tableCatalog.resolveTableMappings(
+                request.getSourceDbType(), request.getTargetDbType(),
+                request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
+                request.getSourceUsername(), request.getSourcePassword(),
+                request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
+                request.getTargetUsername(), request.getTargetPassword(),
+                request.getTableMappings(), request.getSourceSchemaFilter(), request.getTargetSchemaFilter(),
+                request.getMaxTables());
+
+        List<Map<String, Object>> tables = new ArrayList<>();
+        long totalRows = 0;
+        double totalSeconds = 0;
+        long peakMemory = 0;
+        for (TableMapping mapping : tableMappings) {
+            Map<String, Object> estimate = estimateTable(mapping, engineMode);
+            tables.add(estimate);
+            totalRows += (Long) estimate.get("estimatedRows");
+            totalSeconds += (Double) estimate.get("projectedSeconds");
+            // Tables are compared one after another, so the largest table bounds the memory
+            peakMemory = Math.max(peakMemory, (Long) estimate.get("projectedMemoryBytes"));
+        }
+
+        Map<String, Object> explanation = new LinkedHashMap<>();
+        explanation.put("engineMode", engineMode);
+        explanation.put("tables", tables);
+        explanation.put("estimatedRows", totalRows);
+        explanation.put("projectedSeconds", Math.round(totalSeconds));
+        explanation.put("projectedMemoryBytes", peakMemory);
+        logger.info("Explained comparison of {} tables: {} rows, about {} s", tables.size(), totalRows,
+                Math.round(totalSeconds));
+        return explanation;
+    }
+
+    private Map<String, Object> estimateTable(TableMapping mapping, EngineMode engineMode) {
+        tableCatalog.ensureKeyColumns(mapping);
+        Map<String, Object> source = tableCatalog.fetchTableStatistics(mapping.getSourceDbType(),
+                mapping.getSourceHost(), mapping.getSourcePort(), mapping.getSourceDbName(),
+                mapping.getSourceUsername(), mapping.getSourcePassword(), mapping.getSourceTable());
+        Map<String, Object> target = tableCatalog.fetchTableStatistics(mapping.getTargetDbType(),
+                mapping.getTargetHost(), mapping.getTargetPort(), mapping.getTargetDbName(),
+                mapping.getTargetUsername(), mapping.getTargetPassword(), mapping.getTargetTable());
+
+        long sourceRows = rows(source);
+        long targetRows = rows(target);
+        long rowBytes = Math.max(averageRowBytes(source), averageRowBytes(target));
+        String dialect = ComparisonMetrics.dialect(mapping.getSourceDbType(), mapping.getTargetDbType());
+        Double observed = metrics.observedThroughput(dialect);
+        double rowsPerSecond = observed != null ? observed : pipelineConfig.getEstimatedRowsPerSecond();
+
+        long memoryBytes;
+        if (engineMode == EngineMode.SPARK) {
+            // Spark spills to disk; the driver only collects per-status counts
+            rowsPerSecond *= Math.max(1, sparkEngineConfig.getNumPartitions());
+            memoryBytes = parseMemory(sparkEngineConfig.getDriverMemory());
+        } else if (engineMode == EngineMode.KEY_FIRST && mapping.getKeyStrategy() != KeyStrategy.ROW_HASH) {
+            // Keys and hashes of the source side, plus one batch of full rows per side in the second phase
+            memoryBytes = sourceRows * KEY_FIRST_ENTRY_BYTES
+                    + 2L * keyFirstConfig.getFetchBatchSize() * rowBytes * HEAP_OVERHEAD_FACTOR;
+        } else {
+            // Rows in flight between stages plus keys waiting for their counterpart. The pending maps
+            // stay small when both sides return rows in the same order and hold one side at worst.
+            long bufferedRows = pipelineConfig.getExtractQueueCapacity()
+                    + (long) pipelineConfig.getMatchQueueCapacity() * pipelineConfig.getMatchParallelism()
+                    + pipelineConfig.getWriteQueueCapacity();
+            memoryBytes = (Math.min(bufferedRows, sourceRows + targetRows) + Math.max(sourceRows, targetRows))
+                    * rowBytes * HEAP_OVERHEAD_FACTOR;
+        }
+
+        List<String> warnings = new ArrayList<>();
+        if (mapping.getKeyStrategy() == KeyStrategy.ALL_COLUMNS) {
+            warnings.add("All common columns are used as key: keys are long and duplicate rows are paired "
+                    + "in the order they are read");
+        } else if (mapping.getKeyStrategy() == KeyStrategy.ROW_HASH
+                && !mapping.getSourceDbType().equalsIgnoreCase(mapping.getTargetDbType())) {
+            warnings.add("Keyless comparison across dialects: row hashes only match if both databases "
+                    + "render values as the same text");
+        } else if (mapping.getKeyStrategy() == KeyStrategy.NONE) {
+            warnings.add("No key columns found; rows cannot be matched");
+        }
+        if (engineMode == EngineMode.KEY_FIRST && mapping.getKeyStrategy() != KeyStrategy.ROW_HASH
+                && !mapping.getSourceDbType().equalsIgnoreCase(mapping.getTargetDbType())) {
+            warnings.add("Key-first comparison across dialects: rows whose values render as different text "
+                    + "are fetched in full, and above key-first.max-fetch-ratio the table is scanned instead");
+        }
+        if (!"catalog".equals(source.get("statistics")) || !"catalog".equals(target.get("statistics"))) {
+            warnings.add("Catalog statistics unavailable for one side; row counts are incomplete");
+        }
+
+        Map<String, Object> estimate = new LinkedHashMap<>();
+        estimate.put("sourceTable", mapping.getSourceTable());
+        estimate.put("targetTable", mapping.getTargetTable());
+        estimate.put("source", source);
+        estimate.put("target", target);
+        estimate.put("keyStrategy", mapping.getKeyStrategy());
+        estimate.put("keyColumns", mapping.getKeyColumns());
+        estimate.put("estimatedRows", sourceRows + targetRows);
+        estimate.put("rowsPerSecond", Math.round(rowsPerSecond));
+        estimate.put("throughputSource", observed != null ? "measured" : "configured");
+        estimate.put("projectedSeconds", (sourceRows + targetRows) / rowsPerSecond);
+        estimate.put("projectedMemoryBytes", memoryBytes);
+        estimate.put("warnings", warnings);
+        return estimate;
+    }
+
+    private static long rows(Map<String, Object> statistics) {
+        Object rows = statistics.get("rows");
+        return rows != null ? (Long) rows : 0L;
+    }
+
+    private static long averageRowBytes(Map<String, Object> statistics) {
+        Object rows = statistics.get("rows");
+        Object bytes = statistics.get("bytes");
+        if (rows == null || bytes == null || (Long) rows == 0) {
+            return DEFAULT_ROW_BYTES;
+        }
+        return Math.max(1, (Long) bytes / (Long) rows);
+    }
+
+    /**
+     * Parse JVM-style memory sizes such as 512m or 2g
+     */
+    static long parseMemory(String size) {
+        if (size == null || size.trim().isEmpty()) {
+            return 0;
+        }
+        String value = size.trim().toLowerCase();
+        char unit = value.charAt(value.length() - 1);
+        long multiplier;
+        switch (unit) {
+            case 'k': multiplier = 1L << 10; break;
+            case 'm': multiplier = 1L << 20; break;
+            case 'g': multiplier = 1L << 30; break;
+            case 't': multiplier = 1L << 40; break;
+            default: return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * multiplier;
+    }
+}
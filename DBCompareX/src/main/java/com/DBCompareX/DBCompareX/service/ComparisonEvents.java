@@ -0,0 +1,102 @@
+package com.DBCompareX.DBCompareX.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of a comparison. They cost next to nothing unless a recording
+ * that enables them is running, see {@link FlightRecorderService}.
+ */
+public final class ComparisonEvents {
+    private static final String CATEGORY = "DBCompareX";
+
+    private ComparisonEvents() {
+    }
+
+    @Name("dbcomparex.TableComparison")
+    @Label("Table Comparison")
+    @Description("Comparison of one table pair through the pipeline, from first fetch to last write")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class TableComparison extends Event {
+        @Label("Table")
+        public String table;
+
+        @Label("Dialect")
+        public String dialect;
+
+        @Label("Rows Extracted")
+        public long rows;
+
+        @Label("Differences")
+        public long differences;
+
+        @Label("Source Only")
+        public long sourceOnly;
+
+        @Label("Target Only")
+        public long targetOnly;
+
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("dbcomparex.ExtractionChunk")
+    @Label("Extraction Chunk")
+    @Description("One fetch-size chunk of rows read from a table side, including time blocked on a full queue")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ExtractionChunk extends Event {
+        @Label("Table")
+        public String table;
+
+        @Label("Side")
+        public String side;
+
+        @Label("Rows")
+        public long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+
+    @Name("dbcomparex.ResultFlush")
+    @Label("Result Flush")
+    @Description("Batch of differences spilled to the job's result store")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ResultFlush extends Event {
+        @Label("Rows")
+        public long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Final")
+        public boolean last;
+    }
+
+    @Name("dbcomparex.ReportWrite")
+    @Label("Report Write")
+    @Description("Generation of the Excel report of a comparison")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class ReportWrite extends Event {
+        @Label("Tables")
+        public int tables;
+
+        @Label("Rows")
+        public long rows;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+    }
+}
@@ -0,0 +1,149 @@
+package com.DBCompareX.DBCompareX.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters of the comparison phases. Every meter is tagged with the dialect and table;
+ * table-wide meters of a cross-database comparison use "source/target" as dialect.
+ */
+@Component
+public class ComparisonMetrics {
+    public static final String PHASE_CONNECTION = "connection";
+    public static final String PHASE_METADATA = "metadata";
+    public static final String PHASE_KEYS = "keys";
+    public static final String PHASE_COMPARE = "compare";
+    public static final String PHASE_REPORT = "report";
+    public static final String SIDE_SOURCE = "source";
+    public static final String SIDE_TARGET = "target";
+    /** Table tag of phases that are not about a single table */
+    public static final String ALL_TABLES = "all";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ComparisonMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Time spent in one phase: connection, metadata, keys, compare or report
+     */
+    public void recordPhase(String phase, String dialect, String table, long nanos) {
+        Timer.builder("dbcomparex.phase")
+                .description("Time spent per comparison phase")
+                .tags("phase", phase, "dialect", tag(dialect), "table", tag(table))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Rows and estimated bytes read from one side of a table
+     */
+    public void recordExtraction(String dialect, String table, String side, long rows, long bytes, long nanos) {
+        String[] tags = {"dialect", tag(dialect), "table", tag(table), "side", side};
+        Timer.builder("dbcomparex.extract")
+                .description("Time spent reading one side of a table")
+                .tags(tags)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("dbcomparex.extract.rows").tags(tags).register(registry).increment(rows);
+        Counter.builder("dbcomparex.extract.bytes").baseUnit("bytes")
+                .description("Estimated size of the fetched values")
+                .tags(tags).register(registry).increment(bytes);
+    }
+
+    /**
+     * Differences and orphans found in a table
+     */
+    public void recordDifferences(String dialect, String table, long differences, long sourceOnly, long targetOnly) {
+        differenceCounter(dialect, table, "difference").increment(differences);
+        differenceCounter(dialect, table, "source_only").increment(sourceOnly);
+        differenceCounter(dialect, table, "target_only").increment(targetOnly);
+    }
+
+    /**
+     * Rows per second of a finished table comparison; alert on drops of this summary
+     */
+    public void recordThroughput(String dialect, String table, long rows, long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        DistributionSummary.builder("dbcomparex.table.throughput")
+                .description("Rows compared per second and table")
+                .baseUnit("rows_per_second")
+                .tags("dialect", tag(dialect), "table", tag(table))
+                .register(registry)
+                .record(rows * 1_000_000_000d / nanos);
+    }
+
+    /**
+     * Bytes of comparison results spilled to the job's result store
+     */
+    public void recordSpill(String dialect, String table, long bytes) {
+        Counter.builder("dbcomparex.spill.bytes").baseUnit("bytes")
+                .description("Bytes of differences written to the result store")
+                .tags("dialect", tag(dialect), "table", tag(table))
+                .register(registry)
+                .increment(bytes);
+    }
+
+    /**
+     * Mean rows per second of the comparisons measured so far for a dialect, or null if there were none
+     */
+    public Double observedThroughput(String dialect) {
+        long count = 0;
+        double total = 0;
+        for (DistributionSummary summary : registry.find("dbcomparex.table.throughput")
+                .tag("dialect", tag(dialect)).summaries()) {
+            count += summary.count();
+            total += summary.totalAmount();
+        }
+        return count > 0 ? total / count : null;
+    }
+
+    /**
+     * Register a gauge sampled on every scrape
+     */
+    public <T> void gauge(String name, String description, T target, ToDoubleFunction<T> value) {
+        Gauge.builder(name, target, value).description(description).register(registry);
+    }
+
+    /**
+     * Dialect tag of a comparison between two database types
+     */
+    public static String dialect(String sourceDbType, String targetDbType) {
+        String source = tag(sourceDbType).toLowerCase();
+        String target = tag(targetDbType).toLowerCase();
+        return source.equals(target) ? source : source + "/" + target;
+    }
+
+    /**
+     * Dialect tag of a JDBC URL, e.g. "mysql" for jdbc:mysql://host/db
+     */
+    public static String dialectOf(String jdbcUrl) {
+        String[] parts = jdbcUrl != null ? jdbcUrl.split(":") : new String[0];
+        return parts.length > 1 ? parts[1].toLowerCase() : UNKNOWN;
+    }
+
+    private Counter differenceCounter(String dialect, String table, String kind) {
+        return Counter.builder("dbcomparex.differences")
+                .description("Differences found per table and kind")
+                .tags("dialect", tag(dialect), "table", tag(table), "kind", kind)
+                .register(registry);
+    }
+
+    private static String tag(String value) {
+        return value != null && !value.isEmpty() ? value : UNKNOWN;
+    }
+}
@@ -0,0 +1,508 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares one table as a pipeline of stages connected by bounded queues:
+ * extract and key (one thread per side) -> normalize and fingerprint -> match (partitioned by key) -> write.
+ * A full queue blocks its producer, so network, CPU and disk work overlap without unbounded buffering.
+ * <p>
+ * Every stage after extraction is routed by key hash, so the rows of one key reach their match partition
+ * in extraction order. Rows sharing a key pair up in that order: the n-th source row of a key is compared
+ * with the n-th target row, and rows beyond the other side's count are reported as unmatched. The result
+ * of duplicate keys therefore does not depend on thread timing.
+ */
+@Component
+public class ComparisonPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonPipeline.class);
+
+    private final PipelineConfig config;
+    private final RecordComparator recordComparator;
+    private final ComparisonMetrics metrics;
+    private final Map<String, PipelineRun> activeRuns = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ComparisonPipeline(PipelineConfig config, RecordComparator recordComparator, ComparisonMetrics metrics) {
+        this.config = config;
+        this.recordComparator = recordComparator;
+        this.metrics = metrics;
+        metrics.gauge("dbcomparex.pipeline.buffered.rows", "Rows buffered between pipeline stages",
+                this, ComparisonPipeline::getBufferedRows);
+        metrics.gauge("dbcomparex.pipeline.active.tables", "Tables being compared by the pipeline",
+                activeRuns, Map::size);
+    }
+
+    /**
+     * Streams the rows of one table side into the pipeline
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        void stream(RowSink sink) throws Exception;
+    }
+
+    /**
+     * Receives extracted rows; blocks while the extract queue is full
+     */
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(Map<String, Object> record) throws InterruptedException;
+    }
+
+    /**
+     * Compare one table pair; results hold its differences, unmatched_source, unmatched_target and exact_matches
+     */
+    public Map<String, Object> compareTable(TableMapping mapping, RowSource source, RowSource target,
+                                            DiffResultStore.Writer writer) throws Exception {
+        PipelineRun run = new PipelineRun(mapping);
+        long started = System.nanoTime();
+        String dialect = ComparisonMetrics.dialect(mapping.getSourceDbType(), mapping.getTargetDbType());
+        ComparisonEvents.TableComparison event = new ComparisonEvents.TableComparison();
+        event.begin();
+        String runId = mapping.getSourceTable() + "#" + System.identityHashCode(run);
+        activeRuns.put(runId, run);
+        boolean completed = false;
+
+        int normalizers = run.normalizeQueues.size();
+        int matchers = Math.max(1, config.getMatchParallelism());
+        ExecutorService executor = Executors.newFixedThreadPool(2 + normalizers + matchers + 1,
+                new StageThreadFactory(mapping.getSourceTable()));
+        ExecutorCompletionService<Void> stages = new ExecutorCompletionService<>(executor);
+        try {
+            stages.submit(() -> extract(run, source, true));
+            stages.submit(() -> extract(run, target, false));
+            for (int i = 0; i < normalizers; i++) {
+                int queue = i;
+                stages.submit(() -> normalize(run, queue));
+            }
+            for (int i = 0; i < matchers; i++) {
+                int partition = i;
+                stages.submit(() -> match(run, partition));
+            }
+            stages.submit(() -> write(run, writer, mapping.getSourceTable()));
+
+            int pending = 2 + normalizers + matchers + 1;
+            for (int i = 0; i < pending; i++) {
+                try {
+                    stages.take().get();
+                } catch (ExecutionException e) {
+                    // One failed stage cancels the others, which may be blocked on a queue
+                    executor.shutdownNow();
+                    Throwable cause = e.getCause();
+                    throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                }
+            }
+            completed = true;
+        } finally {
+            executor.shutdownNow();
+            activeRuns.remove(runId);
+            if (event.shouldCommit()) {
+                event.table = mapping.getSourceTable();
+                event.dialect = dialect;
+                event.rows = run.extracted.get();
+                event.differences = run.differences.size();
+                event.sourceOnly = run.unmatchedSource.size();
+                event.targetOnly = run.unmatchedTarget.size();
+                event.failed = !completed;
+                event.commit();
+            }
+        }
+
+        if (writer != null) {
+            writer.addExactMatches(mapping.getSourceTable(), run.exactMatches.get());
+        }
+        String table = mapping.getSourceTable();
+        metrics.recordPhase(ComparisonMetrics.PHASE_KEYS, dialect, table, run.keyNanos.get());
+        metrics.recordPhase(ComparisonMetrics.PHASE_COMPARE, dialect, table, run.compareNanos.get());
+        metrics.recordThroughput(dialect, table, run.extracted.get(), System.nanoTime() - started);
+        metrics.recordDifferences(dialect, table, run.differences.size(), run.unmatchedSource.size(),
+                run.unmatchedTarget.size());
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("differences", run.differences);
+        results.put("unmatched_source", run.unmatchedSource);
+        results.put("unmatched_target", run.unmatchedTarget);
+        results.put("exact_matches", (int) run.exactMatches.get());
+        results.put("rows_extracted", run.extracted.get());
+        Map<String, Long> phaseNanos = new LinkedHashMap<>();
+        phaseNanos.put("extractSource", run.sourceExtractNanos);
+        phaseNanos.put("extractTarget", run.targetExtractNanos);
+        phaseNanos.put(ComparisonMetrics.PHASE_KEYS, run.keyNanos.get());
+        phaseNanos.put(ComparisonMetrics.PHASE_COMPARE, run.compareNanos.get());
+        results.put("phase_nanos", phaseNanos);
+
+        logger.info("Pipeline results for table {}: {} rows extracted, {} differences, {} unmatched in source, "
+                        + "{} unmatched in target, {} exact matches",
+                mapping.getSourceTable(), run.extracted.get(), run.differences.size(), run.unmatchedSource.size(),
+                run.unmatchedTarget.size(), run.exactMatches.get());
+        return results;
+    }
+
+    /**
+     * Current depth and throughput of every stage queue of the running comparisons
+     */
+    public List<Map<String, Object>> getQueueStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (PipelineRun run : activeRuns.values()) {
+            int extractDepth = 0;
+            for (BlockingQueue<ExtractedRow> queue : run.normalizeQueues) {
+                extractDepth += queue.size();
+            }
+            stats.add(queueStats(run, "extract", extractDepth, config.getExtractQueueCapacity(), run.extracted.get()));
+            for (int i = 0; i < run.matchQueues.size(); i++) {
+                stats.add(queueStats(run, "match-" + i, run.matchQueues.get(i).size(), config.getMatchQueueCapacity(),
+                        run.normalized.get()));
+            }
+            stats.add(queueStats(run, "write", run.writeQueue.size(), config.getWriteQueueCapacity(), run.written.get()));
+        }
+        return stats;
+    }
+
+    /**
+     * Total number of rows currently buffered between stages
+     */
+    public int getBufferedRows() {
+        int buffered = 0;
+        for (PipelineRun run : activeRuns.values()) {
+            buffered += run.writeQueue.size();
+            for (BlockingQueue<ExtractedRow> queue : run.normalizeQueues) {
+                buffered += queue.size();
+            }
+            for (BlockingQueue<KeyedRow> queue : run.matchQueues) {
+                buffered += queue.size();
+            }
+        }
+        return buffered;
+    }
+
+    private Map<String, Object> queueStats(PipelineRun run, String stage, int depth, int capacity, long processed) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("table", run.mapping.getSourceTable());
+        stats.put("stage", stage);
+        stats.put("depth", depth);
+        stats.put("capacity", capacity);
+        stats.put("rowsIn", processed);
+        return stats;
+    }
+
+    private Void extract(PipelineRun run, RowSource rowSource, boolean sourceSide) throws Exception {
+        List<String> keyColumns = run.mapping.getKeyColumns();
+        int normalizers = run.normalizeQueues.size();
+        long started = System.nanoTime();
+        long[] keyNanos = new long[1];
+        rowSource.stream(record -> {
+            run.extracted.incrementAndGet();
+            long keyStarted = System.nanoTime();
+            String key = recordComparator.buildCompositeKey(record, keyColumns);
+            keyNanos[0] += System.nanoTime() - keyStarted;
+            if (key == null) {
+                logger.warn("Could not build composite key for {} record: {}", sourceSide ? "source" : "target", record);
+                return;
+            }
+            // One normalizer per key keeps the rows of a key in extraction order
+            run.normalizeQueues.get(Math.floorMod(key.hashCode(), normalizers))
+                    .put(new ExtractedRow(sourceSide, key, record));
+        });
+        run.keyNanos.addAndGet(keyNanos[0]);
+        if (sourceSide) {
+            run.sourceExtractNanos = System.nanoTime() - started;
+        } else {
+            run.targetExtractNanos = System.nanoTime() - started;
+        }
+        if (run.extractorsRemaining.decrementAndGet() == 0) {
+            for (BlockingQueue<ExtractedRow> queue : run.normalizeQueues) {
+                queue.put(ExtractedRow.END);
+            }
+        }
+        return null;
+    }
+
+    private Void normalize(PipelineRun run, int index) throws InterruptedException {
+        BlockingQueue<ExtractedRow> input = run.normalizeQueues.get(index);
+        int partitions = run.matchQueues.size();
+        long busyNanos = 0L;
+        while (true) {
+            ExtractedRow row = input.take();
+            if (row == ExtractedRow.END) {
+                break;
+            }
+            long started = System.nanoTime();
+            String key = row.key;
+            Map<String, Object> normalized = new HashMap<>(row.record.size() * 2);
+            long fingerprint = 0L;
+            for (Map.Entry<String, Object> entry : row.record.entrySet()) {
+                Object value = NormalizationUtils.normalizeValue(entry.getValue());
+                normalized.put(entry.getKey(), value);
+                // Order-independent combination so column order does not matter
+                fingerprint += fingerprint(entry.getKey(), value);
+            }
+            busyNanos += System.nanoTime() - started;
+            run.matchQueues.get(Math.floorMod(key.hashCode(), partitions))
+                    .put(new KeyedRow(row.source, key, normalized, fingerprint));
+            run.normalized.incrementAndGet();
+        }
+        run.keyNanos.addAndGet(busyNanos);
+        if (run.normalizersRemaining.decrementAndGet() == 0) {
+            for (BlockingQueue<KeyedRow> queue : run.matchQueues) {
+                queue.put(KeyedRow.END);
+            }
+        }
+        return null;
+    }
+
+    private Void match(PipelineRun run, int partition) throws InterruptedException {
+        BlockingQueue<KeyedRow> queue = run.matchQueues.get(partition);
+        Map<String, KeyedRow> pendingSource = new HashMap<>();
+        Map<String, KeyedRow> pendingTarget = new HashMap<>();
+        long busyNanos = 0L;
+        while (true) {
+            KeyedRow row = queue.take();
+            if (row == KeyedRow.END) {
+                break;
+            }
+            long started = System.nanoTime();
+            KeyedRow counterpart = takeFirst(row.source ? pendingTarget : pendingSource, row.key);
+            if (counterpart == null) {
+                // A duplicate of a key waits behind the earlier rows of that key
+                append(row.source ? pendingSource : pendingTarget, row);
+                busyNanos += System.nanoTime() - started;
+                continue;
+            }
+            KeyedRow sourceRow = row.source ? row : counterpart;
+            KeyedRow targetRow = row.source ? counterpart : row;
+            if (sourceRow.fingerprint == targetRow.fingerprint) {
+                run.exactMatches.incrementAndGet();
+                busyNanos += System.nanoTime() - started;
+                continue;
+            }
+            ColumnLayout layout = run.layoutFor(sourceRow.record, targetRow.record, recordComparator);
+            FieldVerdicts verdicts = recordComparator.compareNormalizedFields(layout, sourceRow.record, targetRow.record);
+            if (verdicts.hasDifferences()) {
+                Map<String, Object> difference = recordComparator.createDifferenceRecord(
+                        run.mapping.getSourceTable(), row.key, sourceRow.record, targetRow.record, verdicts);
+                busyNanos += System.nanoTime() - started;
+                run.writeQueue.put(new MatchResult(DiffRow.KIND_DIFFERENCE, row.key, difference));
+            } else {
+                run.exactMatches.incrementAndGet();
+                busyNanos += System.nanoTime() - started;
+            }
+        }
+        run.compareNanos.addAndGet(busyNanos);
+        for (KeyedRow orphan : pendingSource.values()) {
+            for (; orphan != null; orphan = orphan.next) {
+                run.writeQueue.put(new MatchResult(DiffRow.KIND_SOURCE_ONLY, orphan.key, orphan.record));
+            }
+        }
+        for (KeyedRow orphan : pendingTarget.values()) {
+            for (; orphan != null; orphan = orphan.next) {
+                run.writeQueue.put(new MatchResult(DiffRow.KIND_TARGET_ONLY, orphan.key, orphan.record));
+            }
+        }
+        if (run.matchersRemaining.decrementAndGet() == 0) {
+            run.writeQueue.put(MatchResult.END);
+        }
+        return null;
+    }
+
+    /**
+     * Remove and return the earliest pending row of a key
+     */
+    private static KeyedRow takeFirst(Map<String, KeyedRow> pending, String key) {
+        KeyedRow first = pending.remove(key);
+        if (first != null && first.next != null) {
+            pending.put(key, first.next);
+        }
+        return first;
+    }
+
+    /**
+     * Queue a row behind the pending rows of its key; duplicates are rare, so the chain is walked
+     */
+    private static void append(Map<String, KeyedRow> pending, KeyedRow row) {
+        KeyedRow last = pending.putIfAbsent(row.key, row);
+        if (last != null) {
+            while (last.next != null) {
+                last = last.next;
+            }
+            last.next = row;
+        }
+    }
+
+    private Void write(PipelineRun run, DiffResultStore.Writer writer, String table) throws InterruptedException {
+        while (true) {
+            MatchResult result = run.writeQueue.take();
+            if (result == MatchResult.END) {
+                break;
+            }
+            if (DiffRow.KIND_DIFFERENCE.equals(result.kind)) {
+                run.differences.add(result.payload);
+                if (writer != null) {
+                    writer.writeDifference(table, result.key, (FieldVerdicts) result.payload.get("verdicts"));
+                }
+            } else {
+                (DiffRow.KIND_SOURCE_ONLY.equals(result.kind) ? run.unmatchedSource : run.unmatchedTarget).add(result.payload);
+                if (writer != null) {
+                    writer.writeUnmatched(table, result.key, result.kind, result.payload);
+                }
+            }
+            run.written.incrementAndGet();
+        }
+        return null;
+    }
+
+    /**
+     * 64-bit FNV-1a over column name, value type and value text
+     */
+    private static long fingerprint(String column, Object value) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, column);
+        if (value != null) {
+            hash = fnv(hash, value.getClass().getName());
+            hash = fnv(hash, value.toString());
+        }
+        // Final avalanche so that summing entries does not cancel out low-entropy hashes
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long fnv(long hash, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        // Separator so that ("ab", "c") and ("a", "bc") differ
+        hash ^= 0xff;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    /**
+     * Queues, counters and collected results of one table comparison
+     */
+    private final class PipelineRun {
+        private final TableMapping mapping;
+        // One queue per normalizer, sharing the extract queue capacity
+        private final List<BlockingQueue<ExtractedRow>> normalizeQueues = new ArrayList<>();
+        private final List<BlockingQueue<KeyedRow>> matchQueues = new ArrayList<>();
+        private final BlockingQueue<MatchResult> writeQueue = new ArrayBlockingQueue<>(config.getWriteQueueCapacity());
+        private final AtomicInteger extractorsRemaining = new AtomicInteger(2);
+        private final AtomicInteger normalizersRemaining = new AtomicInteger(Math.max(1, config.getNormalizeParallelism()));
+        private final AtomicInteger matchersRemaining = new AtomicInteger(Math.max(1, config.getMatchParallelism()));
+        private final AtomicLong extracted = new AtomicLong();
+        private final AtomicLong normalized = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong exactMatches = new AtomicLong();
+        // Busy time summed over the normalize and match threads, excluding queue waits
+        private final AtomicLong keyNanos = new AtomicLong();
+        private final AtomicLong compareNanos = new AtomicLong();
+        // Wall time of each extract stage, including time blocked on a full queue
+        private volatile long sourceExtractNanos;
+        private volatile long targetExtractNanos;
+        private final AtomicReference<ColumnLayout> layout = new AtomicReference<>();
+        // Only touched by the single write stage thread
+        private final List<Map<String, Object>> differences = new ArrayList<>();
+        private final List<Map<String, Object>> unmatchedSource = new ArrayList<>();
+        private final List<Map<String, Object>> unmatchedTarget = new ArrayList<>();
+
+        private PipelineRun(TableMapping mapping) {
+            this.mapping = mapping;
+            int normalizers = Math.max(1, config.getNormalizeParallelism());
+            for (int i = 0; i < normalizers; i++) {
+                normalizeQueues.add(new ArrayBlockingQueue<>(Math.max(1, config.getExtractQueueCapacity() / normalizers)));
+            }
+            for (int i = 0; i < Math.max(1, config.getMatchParallelism()); i++) {
+                matchQueues.add(new ArrayBlockingQueue<>(config.getMatchQueueCapacity()));
+            }
+        }
+
+        /**
+         * All match partitions share one layout so the report resolves headers once per table
+         */
+        private ColumnLayout layoutFor(Map<String, Object> sourceRecord, Map<String, Object> targetRecord,
+                                       RecordComparator comparator) {
+            ColumnLayout current = layout.get();
+            if (current == null) {
+                layout.compareAndSet(null, comparator.createLayout(sourceRecord, targetRecord));
+                current = layout.get();
+            }
+            return current;
+        }
+    }
+
+    private static final class ExtractedRow {
+        private static final ExtractedRow END = new ExtractedRow(false, null, null);
+        private final boolean source;
+        private final String key;
+        private final Map<String, Object> record;
+
+        private ExtractedRow(boolean source, String key, Map<String, Object> record) {
+            this.source = source;
+            this.key = key;
+            this.record = record;
+        }
+    }
+
+    private static final class KeyedRow {
+        private static final KeyedRow END = new KeyedRow(false, null, null, 0L);
+        private final boolean source;
+        private final String key;
+        private final Map<String, Object> record;
+        private final long fingerprint;
+        // Next pending row with the same key, only touched by the row's match partition
+        private KeyedRow next;
+
+        private KeyedRow(boolean source, String key, Map<String, Object> record, long fingerprint) {
+            this.source = source;
+            this.key = key;
+            this.record = record;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class MatchResult {
+        private static final MatchResult END = new MatchResult(null, null, null);
+        private final String kind;
+        private final String key;
+        private final Map<String, Object> payload;
+
+        private MatchResult(String kind, String key, Map<String, Object> payload) {
+            this.kind = kind;
+            this.key = key;
+            this.payload = payload;
+        }
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+        private final String table;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        private StageThreadFactory(String table) {
+            this.table = table;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "pipeline-" + table + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Runs a whole comparison and writes its report. Services that only start comparisons, such as the
+ * distributed worker and scheduled runs, depend on this rather than on {@link TableSchemaExtractor}.
+ */
+public interface ComparisonRunner {
+
+    /**
+     * Compare the tables of two databases with a scheduling priority from 1 to 10 and return the report.
+     * Tables that fail are left out of the report and recorded in the profile, when one is given.
+     */
+    File compareAndGenerateReport(
+            String srcDbType, String tgtDbType,
+            String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+            String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+            String jobId, String outputPath, List<TableMapping> selectedTables,
+            String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables, EngineMode engineMode,
+            ExecutionProfile profile, Integer priority);
+}
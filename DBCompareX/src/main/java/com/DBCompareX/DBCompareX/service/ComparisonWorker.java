@@ -0,0 +1,187 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.WorkQueueConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
+import com.DBCompareX.DBCompareX.dao.entities.WorkUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker side of distributed comparisons. When enabled, this node claims table units from the
+ * {@link WorkQueue}, compares them like compare-selected-tables would, renews the leases of the units
+ * it is running, and writes their table summaries back. The Excel report and stored differences of a
+ * unit stay on this node under the report job ID recorded with the result. A unit whose table could
+ * not be compared is failed, so that it is retried and finally dead-lettered by the queue.
+ */
+@Service
+public class ComparisonWorker {
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonWorker.class);
+    private static final String UNIT_REPORT_NAME = "database_comparison_report.xlsx";
+
+    private final WorkQueueConfig config;
+    private final WorkQueue workQueue;
+    private final ComparisonRunner comparisonRunner;
+    private final ReportStorageService reportStorageService;
+    private final DiffResultStore diffResultStore;
+    private final String nodeId;
+    private final Map<String, WorkUnit> running = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+    private ExecutorService pollers;
+    private ScheduledExecutorService heartbeats;
+
+    @Autowired
+    public ComparisonWorker(WorkQueueConfig config, WorkQueue workQueue, ComparisonRunner comparisonRunner,
+                            ReportStorageService reportStorageService, DiffResultStore diffResultStore) {
+        this.config = config;
+        this.workQueue = workQueue;
+        this.comparisonRunner = comparisonRunner;
+        this.reportStorageService = reportStorageService;
+        this.diffResultStore = diffResultStore;
+        this.nodeId = config.getNodeId() != null && !config.getNodeId().trim().isEmpty()
+                ? config.getNodeId().trim() : ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!config.isWorkerEnabled() || pollers != null) {
+            return;
+        }
+        int threads = Math.max(1, config.getWorkerThreads());
+        pollers = Executors.newFixedThreadPool(threads, daemon("work-unit-"));
+        heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("work-heartbeat-"));
+        heartbeats.scheduleWithFixedDelay(this::renewLeases, config.getHeartbeatIntervalMs(),
+                config.getHeartbeatIntervalMs(), TimeUnit.MILLISECONDS);
+        for (int i = 0; i < threads; i++) {
+            pollers.submit(this::pollLoop);
+        }
+        logger.info("Comparison worker {} started with {} threads", nodeId, threads);
+    }
+
+    private void pollLoop() {
+        while (!stopped) {
+            try {
+                if (!runOnce()) {
+                    Thread.sleep(config.getPollIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // The queue database may be unreachable for a while; keep polling
+                logger.warn("Worker {} could not poll the work queue: {}", nodeId, e.getMessage());
+                try {
+                    Thread.sleep(config.getPollIntervalMs());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim and run one unit; false when no unit was available
+     */
+    boolean runOnce() {
+        Optional<WorkUnit> claimed = workQueue.claim(nodeId);
+        if (!claimed.isPresent()) {
+            return false;
+        }
+        WorkUnit unit = claimed.get();
+        running.put(unit.getId(), unit);
+        logger.info("Worker {} running unit {} ({} -> {}) of job {}, attempt {}", nodeId, unit.getUnitNo(),
+                unit.getSourceTable(), unit.getTargetTable(), unit.getJobId(), unit.getAttempts());
+        try {
+            Map<String, Object> result = compare(workQueue.unitRequest(unit));
+            if (!workQueue.complete(unit.getId(), nodeId, result)) {
+                logger.warn("Unit {} of job {} was taken over by another node; discarding result of {}",
+                        unit.getUnitNo(), unit.getJobId(), nodeId);
+            }
+        } catch (Exception e) {
+            logger.error("Unit {} of job {} failed on {}: ", unit.getUnitNo(), unit.getJobId(), nodeId, e);
+            workQueue.fail(unit.getId(), nodeId, e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            running.remove(unit.getId());
+        }
+        return true;
+    }
+
+    private Map<String, Object> compare(ComparisonRequest request) {
+        String reportJobId = reportStorageService.newJobId();
+        ExecutionProfile profile = new ExecutionProfile();
+        comparisonRunner.compareAndGenerateReport(
+                request.getSourceDbType(), request.getTargetDbType(),
+                request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
+                request.getSourceUsername(), request.getSourcePassword(),
+                request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
+                request.getTargetUsername(), request.getTargetPassword(),
+                reportJobId, reportStorageService.getOutputPath(reportJobId, UNIT_REPORT_NAME),
+                request.getTableMappings(), request.getSourceSchemaFilter(), request.getTargetSchemaFilter(),
+                request.getMaxTables(), request.getEngineMode(), profile, request.getPriority());
+        if (!profile.getFailedTables().isEmpty()) {
+            // A partial result would mark the unit done; failing it lets another attempt compare the table
+            throw new IllegalStateException("Table comparison failed: " + profile.getFailedTables());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("node", nodeId);
+        result.put("reportJobId", reportJobId);
+        result.put("totalMillis", profile.getTotalMillis());
+        result.put("tables", diffResultStore.exists(reportJobId)
+                ? diffResultStore.getTableSummaries(reportJobId) : List.of());
+        return result;
+    }
+
+    private void renewLeases() {
+        for (WorkUnit unit : running.values()) {
+            try {
+                if (!workQueue.heartbeat(unit.getId(), nodeId)) {
+                    logger.warn("Lost the lease of unit {} of job {} on {}", unit.getUnitNo(), unit.getJobId(), nodeId);
+                }
+            } catch (Exception e) {
+                logger.warn("Could not renew the lease of unit {} on {}: {}", unit.getId(), nodeId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Name of this node in the work queue
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (pollers != null) {
+            pollers.shutdownNow();
+            heartbeats.shutdownNow();
+            logger.info("Comparison worker {} stopped; {} running units will be reclaimed after their lease",
+                    nodeId, running.size());
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
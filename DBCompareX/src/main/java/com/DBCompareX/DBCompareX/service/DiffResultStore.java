@@ -0,0 +1,627 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ResultStoreConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnDiffCount;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.DiffPage;
+import com.DBCompareX.DBCompareX.dao.entities.DiffQuery;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.util.HyperLogLog;
+import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Indexed on-disk store for comparison results, one embedded H2 database per job.
+ * Pages are read with seek predicates on the row ID, so reading any page costs the same.
+ */
+@Service
+public class DiffResultStore {
+    private static final Logger logger = LoggerFactory.getLogger(DiffResultStore.class);
+
+    private static final String STORE_DIRECTORY = "store";
+    private static final String STORE_NAME = "results";
+    private static final TypeReference<Map<String, String>> RECORD_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<String>> COLUMNS_TYPE = new TypeReference<>() {};
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS diff_row (id BIGINT PRIMARY KEY, table_name VARCHAR NOT NULL, "
+                + "record_key VARCHAR NOT NULL, kind VARCHAR(16) NOT NULL, source_json VARCHAR, "
+                + "target_json VARCHAR, diff_columns VARCHAR)",
+        "CREATE INDEX IF NOT EXISTS idx_diff_row_table ON diff_row(table_name, id)",
+        "CREATE INDEX IF NOT EXISTS idx_diff_row_key ON diff_row(table_name, record_key)",
+        "CREATE TABLE IF NOT EXISTS diff_field (row_id BIGINT NOT NULL, table_name VARCHAR NOT NULL, "
+                + "column_name VARCHAR NOT NULL)",
+        "CREATE INDEX IF NOT EXISTS idx_diff_field_table ON diff_field(table_name, column_name, row_id)",
+        "CREATE INDEX IF NOT EXISTS idx_diff_field_column ON diff_field(column_name, row_id)",
+        "CREATE TABLE IF NOT EXISTS column_count (table_name VARCHAR NOT NULL, column_name VARCHAR NOT NULL, "
+                + "differences BIGINT NOT NULL, PRIMARY KEY (table_name, column_name))",
+        "CREATE TABLE IF NOT EXISTS table_summary (table_name VARCHAR PRIMARY KEY, differences BIGINT NOT NULL, "
+                + "source_only BIGINT NOT NULL, target_only BIGINT NOT NULL, exact_matches BIGINT NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS store_meta (name VARCHAR PRIMARY KEY, meta_value BIGINT NOT NULL)"
+    };
+
+    private final ResultStoreConfig config;
+    private final ReportStorageService reportStorageService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public DiffResultStore(ResultStoreConfig config, ReportStorageService reportStorageService,
+                           ObjectMapper objectMapper) {
+        this.config = config;
+        this.reportStorageService = reportStorageService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Open a writer that appends results of the given job to its store
+     */
+    public Writer openWriter(String jobId) {
+        try {
+            Path storeDir = reportStorageService.getJobDirectory(jobId).resolve(STORE_DIRECTORY);
+            Files.createDirectories(storeDir);
+            Connection conn = DriverManager.getConnection(storeUrl(storeDir, false));
+            try (Statement stmt = conn.createStatement()) {
+                for (String ddl : SCHEMA) {
+                    stmt.execute(ddl);
+                }
+            }
+            conn.setAutoCommit(false);
+            return new Writer(conn);
+        } catch (Exception e) {
+            logger.error("Error opening result store for job {}: {}", jobId, e.getMessage());
+            throw new RuntimeException("Failed to open result store: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether results were persisted for the given job
+     */
+    public boolean exists(String jobId) {
+        try {
+            Path storeDir = reportStorageService.getJobDirectory(jobId).resolve(STORE_DIRECTORY);
+            return Files.exists(storeDir.resolve(STORE_NAME + ".mv.db"));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Read one page of results matching the query, starting after the query cursor
+     */
+    public DiffPage findDifferences(String jobId, DiffQuery query) {
+        int limit = query.getLimit() <= 0 ? config.getDefaultPageSize()
+                : Math.min(query.getLimit(), config.getMaxPageSize());
+        long afterId = decodeCursor(query.getCursor());
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder();
+        String idColumn;
+        if (query.getColumn() != null && !query.getColumn().isEmpty()) {
+            // Drive the seek from the per-column index and join back to the rows
+            idColumn = "f.row_id";
+            sql.append("SELECT r.id, r.table_name, r.record_key, r.kind, r.source_json, r.target_json, r.diff_columns ")
+                    .append("FROM diff_field f JOIN diff_row r ON r.id = f.row_id WHERE f.column_name = ?");
+            params.add(query.getColumn().toLowerCase());
+            if (query.getTable() != null && !query.getTable().isEmpty()) {
+                sql.append(" AND f.table_name = ?");
+                params.add(query.getTable());
+            }
+        } else {
+            idColumn = "r.id";
+            sql.append("SELECT r.id, r.table_name, r.record_key, r.kind, r.source_json, r.target_json, r.diff_columns ")
+                    .append("FROM diff_row r WHERE 1 = 1");
+            if (query.getTable() != null && !query.getTable().isEmpty()) {
+                sql.append(" AND r.table_name = ?");
+                params.add(query.getTable());
+            }
+        }
+        if (query.getKeyPrefix() != null && !query.getKeyPrefix().isEmpty()) {
+            sql.append(" AND r.record_key LIKE ? ESCAPE '\\'");
+            params.add(escapeLike(query.getKeyPrefix()) + "%");
+        }
+        if (query.getKind() != null && !query.getKind().isEmpty()) {
+            sql.append(" AND r.kind = ?");
+            params.add(query.getKind().toUpperCase());
+        }
+        sql.append(" AND ").append(idColumn).append(" > ? ORDER BY ").append(idColumn).append(" LIMIT ?");
+        params.add(afterId);
+        // Fetch one extra row to know whether another page follows
+        params.add(limit + 1);
+
+        List<DiffRow> rows = new ArrayList<>();
+        try (Connection conn = openReadConnection(jobId);
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading results for job {}: {}", jobId, e.getMessage());
+            throw new RuntimeException("Failed to read comparison results: " + e.getMessage(), e);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = Long.toString(rows.get(limit - 1).getId());
+        }
+        return new DiffPage(rows, nextCursor, limit);
+    }
+
+    /**
+     * Number of differing records per column, optionally restricted to one table
+     */
+    public List<ColumnDiffCount> countDifferencesByColumn(String jobId, String table) {
+        String sql = "SELECT table_name, column_name, differences FROM column_count"
+                + (table != null && !table.isEmpty() ? " WHERE table_name = ?" : "")
+                + " ORDER BY table_name, differences DESC, column_name";
+        List<ColumnDiffCount> counts = new ArrayList<>();
+        try (Connection conn = openReadConnection(jobId);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (table != null && !table.isEmpty()) {
+                stmt.setString(1, table);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.add(new ColumnDiffCount(rs.getString(1), rs.getString(2), rs.getLong(3)));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading column counts for job {}: {}", jobId, e.getMessage());
+            throw new RuntimeException("Failed to read column counts: " + e.getMessage(), e);
+        }
+        return counts;
+    }
+
+    /**
+     * Per-table totals of the given job
+     */
+    public List<Map<String, Object>> getTableSummaries(String jobId) {
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        try (Connection conn = openReadConnection(jobId);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT table_name, differences, source_only, target_only, exact_matches "
+                     + "FROM table_summary ORDER BY table_name")) {
+            while (rs.next()) {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("table", rs.getString(1));
+                summary.put("differences", rs.getLong(2));
+                summary.put("unmatched_source", rs.getLong(3));
+                summary.put("unmatched_target", rs.getLong(4));
+                summary.put("exact_matches", rs.getLong(5));
+                summaries.add(summary);
+            }
+        } catch (SQLException e) {
+            logger.error("Error reading table summaries for job {}: {}", jobId, e.getMessage());
+            throw new RuntimeException("Failed to read table summaries: " + e.getMessage(), e);
+        }
+        return summaries;
+    }
+
+    /**
+     * Visit the table, key, kind and a 64-bit fingerprint of the stored values of every result row of a
+     * job, in no particular order. Rows with the same fingerprint describe the same drift.
+     */
+    public void scanFingerprints(String jobId, FingerprintVisitor visitor) {
+        try (Connection conn = openReadConnection(jobId);
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(config.getBatchSize());
+            try (ResultSet rs = stmt.executeQuery("SELECT table_name, record_key, kind, source_json, target_json, "
+                    + "diff_columns FROM diff_row")) {
+                while (rs.next()) {
+                    String kind = rs.getString(3);
+                    long fingerprint = HyperLogLog.hash(kind + '\u0000' + rs.getString(6) + '\u0000'
+                            + rs.getString(4) + '\u0000' + rs.getString(5));
+                    visitor.visit(rs.getString(1), rs.getString(2), kind, fingerprint);
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error scanning results of job {}: {}", jobId, e.getMessage());
+            throw new RuntimeException("Failed to scan comparison results: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Number of times results were written to the job's store; changes whenever its contents may have
+     */
+    public long getGeneration(String jobId) {
+        try (Connection conn = openReadConnection(jobId);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT meta_value FROM store_meta WHERE name = 'generation'")) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (SQLException e) {
+            // Stores written before the generation was kept
+            return 0L;
+        }
+    }
+
+    /**
+     * Receives the rows of {@link #scanFingerprints}
+     */
+    @FunctionalInterface
+    public interface FingerprintVisitor {
+        void visit(String table, String key, String kind, long fingerprint);
+    }
+
+    private Connection openReadConnection(String jobId) throws SQLException {
+        if (!exists(jobId)) {
+            throw new IllegalArgumentException("No comparison results stored for job: " + jobId);
+        }
+        Path storeDir = reportStorageService.getJobDirectory(jobId).resolve(STORE_DIRECTORY);
+        return DriverManager.getConnection(storeUrl(storeDir, true));
+    }
+
+    private String storeUrl(Path storeDir, boolean mustExist) {
+        return "jdbc:h2:file:" + storeDir.toAbsolutePath().resolve(STORE_NAME) + (mustExist ? ";IFEXISTS=TRUE" : "");
+    }
+
+    private DiffRow mapRow(ResultSet rs) throws SQLException {
+        DiffRow row = new DiffRow();
+        row.setId(rs.getLong(1));
+        row.setTable(rs.getString(2));
+        row.setKey(rs.getString(3));
+        row.setKind(rs.getString(4));
+        row.setSourceRecord(readJson(rs.getString(5), RECORD_TYPE));
+        row.setTargetRecord(readJson(rs.getString(6), RECORD_TYPE));
+        row.setDifferingColumns(readJson(rs.getString(7), COLUMNS_TYPE));
+        return row;
+    }
+
+    private <T> T readJson(String json, TypeReference<T> type) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt result store entry: " + e.getMessage(), e);
+        }
+    }
+
+    private long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Appends result rows in batches; column counts and table totals are written on close
+     */
+    public class Writer implements AutoCloseable {
+        private final Connection conn;
+        private final PreparedStatement rowStmt;
+        private final PreparedStatement fieldStmt;
+        private final Map<String, Map<String, Long>> columnCounts = new LinkedHashMap<>();
+        private final Map<String, long[]> tableTotals = new LinkedHashMap<>();
+        private long nextId;
+        private int pending;
+        private long bytesWritten;
+        private long bytesFlushed;
+
+        private Writer(Connection conn) throws SQLException {
+            this.conn = conn;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM diff_row")) {
+                rs.next();
+                this.nextId = rs.getLong(1) + 1;
+            }
+            this.rowStmt = conn.prepareStatement("INSERT INTO diff_row (id, table_name, record_key, kind, "
+                    + "source_json, target_json, diff_columns) VALUES (?, ?, ?, ?, ?, ?, ?)");
+            this.fieldStmt = conn.prepareStatement("INSERT INTO diff_field (row_id, table_name, column_name) "
+                    + "VALUES (?, ?, ?)");
+        }
+
+        /**
+         * Record a matched key whose fields differ, using the comparator's display values
+         */
+        public void writeDifference(String table, String key, FieldVerdicts verdicts) {
+            ColumnLayout layout = verdicts.getLayout();
+            Map<String, Object> sourceValues = new LinkedHashMap<>();
+            Map<String, Object> targetValues = new LinkedHashMap<>();
+            for (int i = 0; i < layout.size(); i++) {
+                sourceValues.put(layout.getColumn(i), verdicts.getSourceValue(i));
+                targetValues.put(layout.getColumn(i), verdicts.getTargetValue(i));
+            }
+            List<String> differingColumns = verdicts.getDifferingColumns();
+            long id = insertRow(table, key, DiffRow.KIND_DIFFERENCE, sourceValues, targetValues, differingColumns, false);
+            try {
+                Map<String, Long> counts = columnCounts.computeIfAbsent(table, t -> new HashMap<>());
+                for (String column : differingColumns) {
+                    fieldStmt.setLong(1, id);
+                    fieldStmt.setString(2, table);
+                    fieldStmt.setString(3, column);
+                    fieldStmt.addBatch();
+                    counts.merge(column, 1L, Long::sum);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to write comparison result: " + e.getMessage(), e);
+            }
+            totals(table)[0]++;
+            flushIfNeeded();
+        }
+
+        /**
+         * Record a key found on one side only
+         */
+        public void writeUnmatched(String table, String key, String kind, Map<String, Object> record) {
+            boolean sourceOnly = DiffRow.KIND_SOURCE_ONLY.equals(kind);
+            insertRow(table, key, kind, sourceOnly ? record : null, sourceOnly ? null : record, null, true);
+            totals(table)[sourceOnly ? 1 : 2]++;
+            flushIfNeeded();
+        }
+
+        /**
+         * Characters of serialized values and keys appended so far, used as the spill size
+         */
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        /**
+         * Record the number of identical records of a table
+         */
+        public void addExactMatches(String table, long exactMatches) {
+            totals(table)[3] += exactMatches;
+        }
+
+        private long insertRow(String table, String key, String kind, Map<String, Object> sourceRecord,
+                               Map<String, Object> targetRecord, List<String> differingColumns, boolean normalize) {
+            long id = nextId++;
+            try {
+                String sourceJson = toJson(sourceRecord, normalize);
+                String targetJson = toJson(targetRecord, normalize);
+                String columnsJson = differingColumns != null ? objectMapper.writeValueAsString(differingColumns) : null;
+                rowStmt.setLong(1, id);
+                rowStmt.setString(2, table);
+                rowStmt.setString(3, key != null ? key : "");
+                rowStmt.setString(4, kind);
+                rowStmt.setString(5, sourceJson);
+                rowStmt.setString(6, targetJson);
+                rowStmt.setString(7, columnsJson);
+                rowStmt.addBatch();
+                bytesWritten += length(key) + length(sourceJson) + length(targetJson) + length(columnsJson);
+                pending++;
+            } catch (SQLException | JsonProcessingException e) {
+                throw new RuntimeException("Failed to write comparison result: " + e.getMessage(), e);
+            }
+            return id;
+        }
+
+        private String toJson(Map<String, Object> record, boolean normalize) throws JsonProcessingException {
+            if (record == null) {
+                return null;
+            }
+            Map<String, String> display = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : record.entrySet()) {
+                Object value = normalize ? NormalizationUtils.normalizeValue(entry.getValue()) : entry.getValue();
+                display.put(entry.getKey(), value != null ? value.toString() : null);
+            }
+            return objectMapper.writeValueAsString(display);
+        }
+
+        private int length(String value) {
+            return value != null ? value.length() : 0;
+        }
+
+        private long[] totals(String table) {
+            return tableTotals.computeIfAbsent(table, t -> new long[4]);
+        }
+
+        private void flushIfNeeded() {
+            if (pending >= config.getBatchSize()) {
+                flush(false);
+            }
+        }
+
+        private void flush(boolean last) {
+            ComparisonEvents.ResultFlush event = new ComparisonEvents.ResultFlush();
+            event.begin();
+            try {
+                rowStmt.executeBatch();
+                fieldStmt.executeBatch();
+                conn.commit();
+                if (event.shouldCommit()) {
+                    event.rows = pending;
+                    event.bytes = bytesWritten - bytesFlushed;
+                    event.last = last;
+                    event.commit();
+                }
+                bytesFlushed = bytesWritten;
+                pending = 0;
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to flush comparison results: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Make a finished table durable: its rows, column counts and totals are committed now rather than on close
+         */
+        public void finishTable(String table) {
+            flush(false);
+            try {
+                writeTotals(Collections.singleton(table));
+                conn.commit();
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to finish table " + table + ": " + e.getMessage(), e);
+            }
+            columnCounts.remove(table);
+            tableTotals.remove(table);
+        }
+
+        /**
+         * Remove everything written for a table, e.g. the partial output of a failed or interrupted attempt
+         */
+        public void discardTable(String table) {
+            flush(false);
+            try {
+                for (String sql : new String[] {"DELETE FROM diff_field WHERE table_name = ?",
+                        "DELETE FROM diff_row WHERE table_name = ?", "DELETE FROM column_count WHERE table_name = ?",
+                        "DELETE FROM table_summary WHERE table_name = ?"}) {
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        stmt.setString(1, table);
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to discard results of table " + table + ": " + e.getMessage(), e);
+            }
+            columnCounts.remove(table);
+            tableTotals.remove(table);
+        }
+
+        /**
+         * Results of a table finished earlier, in the shape the comparison returns them for the Excel report.
+         * Values are the display strings that were stored.
+         */
+        public Map<String, Object> readTable(String table) {
+            List<Map<String, Object>> differences = new ArrayList<>();
+            List<Map<String, Object>> unmatchedSource = new ArrayList<>();
+            List<Map<String, Object>> unmatchedTarget = new ArrayList<>();
+            long exactMatches = 0;
+            Map<List<String>, ColumnLayout> layouts = new HashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT record_key, kind, source_json, target_json, "
+                    + "diff_columns FROM diff_row WHERE table_name = ? ORDER BY id")) {
+                stmt.setString(1, table);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String kind = rs.getString(2);
+                        Map<String, Object> source = readRecord(rs.getString(3));
+                        Map<String, Object> target = readRecord(rs.getString(4));
+                        if (DiffRow.KIND_DIFFERENCE.equals(kind)) {
+                            ColumnLayout layout = layouts.computeIfAbsent(new ArrayList<>(source.keySet()),
+                                    ColumnLayout::new);
+                            Set<String> differing = new HashSet<>(objectMapper.readValue(rs.getString(5), COLUMNS_TYPE));
+                            BitSet bits = new BitSet(layout.size());
+                            Object[] sourceValues = new Object[layout.size()];
+                            Object[] targetValues = new Object[layout.size()];
+                            for (int i = 0; i < layout.size(); i++) {
+                                String column = layout.getColumn(i);
+                                bits.set(i, differing.contains(column));
+                                sourceValues[i] = source.get(column);
+                                targetValues[i] = target.get(column);
+                            }
+                            Map<String, Object> difference = new HashMap<>();
+                            difference.put("table", table);
+                            difference.put("key", rs.getString(1));
+                            difference.put("source_record", source);
+                            difference.put("target_record", target);
+                            difference.put("verdicts", new FieldVerdicts(layout, bits, sourceValues, targetValues));
+                            differences.add(difference);
+                        } else if (DiffRow.KIND_SOURCE_ONLY.equals(kind)) {
+                            unmatchedSource.add(source);
+                        } else {
+                            unmatchedTarget.add(target);
+                        }
+                    }
+                }
+                try (PreparedStatement summaryStmt = conn.prepareStatement(
+                        "SELECT exact_matches FROM table_summary WHERE table_name = ?")) {
+                    summaryStmt.setString(1, table);
+                    try (ResultSet rs = summaryStmt.executeQuery()) {
+                        if (rs.next()) {
+                            exactMatches = rs.getLong(1);
+                        }
+                    }
+                }
+            } catch (SQLException | JsonProcessingException e) {
+                throw new RuntimeException("Failed to read results of table " + table + ": " + e.getMessage(), e);
+            }
+            Map<String, Object> results = new HashMap<>();
+            results.put("differences", differences);
+            results.put("unmatched_source", unmatchedSource);
+            results.put("unmatched_target", unmatchedTarget);
+            results.put("exact_matches", (int) exactMatches);
+            return results;
+        }
+
+        private Map<String, Object> readRecord(String json) throws JsonProcessingException {
+            return json != null ? new LinkedHashMap<>(objectMapper.readValue(json, RECORD_TYPE)) : new LinkedHashMap<>();
+        }
+
+        private void writeTotals(Collection<String> tables) throws SQLException {
+            try (PreparedStatement countStmt = conn.prepareStatement("MERGE INTO column_count "
+                    + "(table_name, column_name, differences) KEY (table_name, column_name) VALUES (?, ?, "
+                    + "COALESCE((SELECT differences FROM column_count WHERE table_name = ? AND column_name = ?), 0) + ?)")) {
+                for (String table : tables) {
+                    for (Map.Entry<String, Long> column : columnCounts.getOrDefault(table, Collections.emptyMap()).entrySet()) {
+                        countStmt.setString(1, table);
+                        countStmt.setString(2, column.getKey());
+                        countStmt.setString(3, table);
+                        countStmt.setString(4, column.getKey());
+                        countStmt.setLong(5, column.getValue());
+                        countStmt.addBatch();
+                    }
+                }
+                countStmt.executeBatch();
+            }
+            try (PreparedStatement summaryStmt = conn.prepareStatement("MERGE INTO table_summary "
+                    + "(table_name, differences, source_only, target_only, exact_matches) KEY (table_name) "
+                    + "VALUES (?, ?, ?, ?, ?)")) {
+                for (String table : tables) {
+                    long[] totals = tableTotals.get(table);
+                    if (totals == null) {
+                        continue;
+                    }
+                    summaryStmt.setString(1, table);
+                    for (int i = 0; i < totals.length; i++) {
+                        summaryStmt.setLong(i + 2, totals[i]);
+                    }
+                    summaryStmt.addBatch();
+                }
+                summaryStmt.executeBatch();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                flush(true);
+                Set<String> tables = new LinkedHashSet<>(columnCounts.keySet());
+                tables.addAll(tableTotals.keySet());
+                writeTotals(tables);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.executeUpdate("MERGE INTO store_meta (name, meta_value) KEY (name) SELECT 'generation', "
+                            + "COALESCE(MAX(meta_value), 0) + 1 FROM store_meta WHERE name = 'generation'");
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                logger.error("Error finalizing result store: {}", e.getMessage());
+                throw new RuntimeException("Failed to finalize result store: " + e.getMessage(), e);
+            } finally {
+                try {
+                    rowStmt.close();
+                    fieldStmt.close();
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.warn("Error closing result store: {}", e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.SchedulerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits table comparisons of all running jobs under a global and a per-endpoint concurrency cap,
+ * sharing the slots fairly between jobs. A job compares its tables one after another, so it has at most
+ * one table waiting or running here; what is scheduled is whose next table gets a free slot.
+ * Every job has a virtual time that advances by the wall time of its finished tables divided by its
+ * priority; a free slot goes to the waiting table of the job with the lowest virtual time whose endpoints
+ * have room. Jobs join at the current virtual time, so when slots are contended a newly started job's
+ * table goes ahead of the next table of a long-running job that has already had its share.
+ */
+@Service
+public class FairScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(FairScheduler.class);
+
+    private final SchedulerConfig config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Ticket> waiting = new ArrayList<>();
+    private final Map<String, Integer> runningPerEndpoint = new HashMap<>();
+    private final Set<Job> jobs = new LinkedHashSet<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int running;
+    private double virtualClock;
+
+    @Autowired
+    public FairScheduler(SchedulerConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Register a job for the duration of its comparison; a null priority uses the default
+     */
+    public Job register(String jobId, Integer priority) {
+        int weight = priority != null ? Math.max(1, Math.min(10, priority)) : Math.max(1, config.getDefaultPriority());
+        lock.lock();
+        try {
+            Job job = new Job(jobId, weight, virtualClock);
+            jobs.add(job);
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run one table of a job once the job's turn has come and the table's endpoints have room
+     */
+    public <T> T run(Job job, Collection<String> endpoints, Callable<T> work) throws Exception {
+        if (!config.isEnabled()) {
+            return work.call();
+        }
+        Ticket ticket = new Ticket(job, new TreeSet<>(endpoints), sequence.getAndIncrement());
+        lock.lock();
+        try {
+            waiting.add(ticket);
+            while (next() != ticket) {
+                changed.await();
+            }
+            waiting.remove(ticket);
+            running++;
+            job.running++;
+            for (String endpoint : ticket.endpoints) {
+                runningPerEndpoint.merge(endpoint, 1, Integer::sum);
+            }
+            virtualClock = Math.max(virtualClock, job.virtualTime);
+            // Others may be admissible too, e.g. tables on other endpoints
+            changed.signalAll();
+        } catch (InterruptedException e) {
+            waiting.remove(ticket);
+            changed.signalAll();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+
+        long started = System.nanoTime();
+        try {
+            return work.call();
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            lock.lock();
+            try {
+                running--;
+                job.running--;
+                job.finished++;
+                job.virtualTime += elapsed / 1e6 / job.weight;
+                for (String endpoint : ticket.endpoints) {
+                    runningPerEndpoint.merge(endpoint, -1, Integer::sum);
+                    runningPerEndpoint.remove(endpoint, 0);
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The admissible waiting table of the job that is furthest behind; ties go to the earliest request
+     */
+    private Ticket next() {
+        if (running >= Math.max(1, config.getMaxConcurrentTables())) {
+            return null;
+        }
+        Ticket best = null;
+        for (Ticket ticket : waiting) {
+            if (!hasRoom(ticket)) {
+                continue;
+            }
+            if (best == null || ticket.job.virtualTime < best.job.virtualTime
+                    || (ticket.job.virtualTime == best.job.virtualTime && ticket.sequence < best.sequence)) {
+                best = ticket;
+            }
+        }
+        return best;
+    }
+
+    private boolean hasRoom(Ticket ticket) {
+        for (String endpoint : ticket.endpoints) {
+            if (runningPerEndpoint.getOrDefault(endpoint, 0) >= Math.max(1, config.getMaxTablesPerEndpoint())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Running and waiting tables overall, per endpoint and per job
+     */
+    public Map<String, Object> snapshot() {
+        lock.lock();
+        try {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("running", running);
+            snapshot.put("waiting", waiting.size());
+            snapshot.put("maxConcurrentTables", config.getMaxConcurrentTables());
+            snapshot.put("maxTablesPerEndpoint", config.getMaxTablesPerEndpoint());
+            snapshot.put("runningPerEndpoint", new TreeMap<>(runningPerEndpoint));
+            List<Map<String, Object>> jobStates = new ArrayList<>();
+            for (Job job : jobs) {
+                Map<String, Object> state = new LinkedHashMap<>();
+                state.put("jobId", job.jobId);
+                state.put("priority", job.weight);
+                state.put("running", job.running);
+                state.put("waiting", waiting.stream().filter(t -> t.job == job).count());
+                state.put("finishedTables", job.finished);
+                state.put("virtualTime", Math.round(job.virtualTime));
+                jobStates.add(state);
+            }
+            snapshot.put("jobs", jobStates);
+            return snapshot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A job known to the scheduler; close it when the job's comparison ends
+     */
+    public final class Job implements AutoCloseable {
+        private final String jobId;
+        private final int weight;
+        private double virtualTime;
+        private int running;
+        private int finished;
+
+        private Job(String jobId, int weight, double virtualTime) {
+            this.jobId = jobId;
+            this.weight = weight;
+            this.virtualTime = virtualTime;
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                jobs.remove(this);
+                logger.debug("Job {} left the scheduler after {} tables", jobId, finished);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Ticket {
+        private final Job job;
+        private final Set<String> endpoints;
+        private final long sequence;
+
+        private Ticket(Job job, Set<String> endpoints, long sequence) {
+            this.job = job;
+            this.endpoints = endpoints;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.DBCompareX.DBCompareX.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts and dumps an on-demand flight recording holding the comparison events together with
+ * the JVM's own GC, socket read and CPU sampling events. Dumps are stored like reports, as a job
+ * whose file can be fetched through the report download endpoint.
+ */
+@Service
+public class FlightRecorderService {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+    private static final String RECORDING_NAME = "dbcomparex";
+
+    private final ReportStorageService reportStorageService;
+    private Recording recording;
+
+    @Autowired
+    public FlightRecorderService(ReportStorageService reportStorageService) {
+        this.reportStorageService = reportStorageService;
+    }
+
+    /**
+     * Start a recording with a JDK settings file ("default" or "profile") that keeps the last maxAge of events
+     */
+    public synchronized Map<String, Object> start(String settings, Duration maxAge) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running since " + recording.getStartTime());
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown recording settings: " + settings, e);
+        }
+        Recording newRecording = new Recording(configuration);
+        newRecording.setName(RECORDING_NAME);
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(maxAge);
+        newRecording.enable(ComparisonEvents.TableComparison.class);
+        newRecording.enable(ComparisonEvents.ExtractionChunk.class);
+        newRecording.enable(ComparisonEvents.ResultFlush.class);
+        newRecording.enable(ComparisonEvents.ReportWrite.class);
+        newRecording.start();
+        if (recording != null) {
+            recording.close();
+        }
+        recording = newRecording;
+        logger.info("Started flight recording with '{}' settings, keeping {} of events", settings, maxAge);
+        return status();
+    }
+
+    /**
+     * Write the events recorded so far to a new job directory, optionally stopping the recording
+     */
+    public synchronized Map<String, Object> dump(boolean stop) {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No recording is running");
+        }
+        String jobId = reportStorageService.newJobId();
+        Path file = Paths.get(reportStorageService.getOutputPath(jobId, "recording.jfr"));
+        try {
+            recording.dump(file);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("jobId", jobId);
+            result.put("file", file.getFileName().toString());
+            result.put("bytes", Files.size(file));
+            if (stop) {
+                recording.close();
+                recording = null;
+                logger.info("Stopped flight recording");
+            }
+            logger.info("Dumped flight recording to {}", file);
+            return result;
+        } catch (IOException e) {
+            logger.error("Error dumping flight recording: {}", e.getMessage());
+            throw new RuntimeException("Failed to dump recording: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * State of the current recording
+     */
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        boolean running = recording != null && recording.getState() == RecordingState.RUNNING;
+        status.put("running", running);
+        if (running) {
+            status.put("startTime", recording.getStartTime().toString());
+            status.put("maxAge", String.valueOf(recording.getMaxAge()));
+        }
+        return status;
+    }
+}
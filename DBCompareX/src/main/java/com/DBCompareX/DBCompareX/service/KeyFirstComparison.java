@@ -0,0 +1,439 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeyFirstConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dialect.TypedColumn;
+import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import com.DBCompareX.DBCompareX.util.SqlPredicates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compares a keyed table in two phases. Phase 1 streams only the key columns and a row hash computed
+ * by each database; the source side is held in memory and the target side is matched against it.
+ * Phase 2 fetches full rows, in batches of keys, only for keys missing on one side or whose hashes
+ * differ, and compares them field by field like the pipeline does. Rows with equal hashes are exact
+ * matches without being transferred.
+ */
+@Service
+public class KeyFirstComparison {
+    private static final Logger logger = LoggerFactory.getLogger(KeyFirstComparison.class);
+
+    private final KeyFirstConfig config;
+    private final RecordComparator recordComparator;
+    private final ComparisonMetrics metrics;
+
+    @Autowired
+    public KeyFirstComparison(KeyFirstConfig config, RecordComparator recordComparator, ComparisonMetrics metrics) {
+        this.config = config;
+        this.recordComparator = recordComparator;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Compare one keyed table pair. Results have the same shape as {@link ComparisonPipeline#compareTable}.
+     * Returns null, before anything is written, when the table is better read with a full scan: the two
+     * sides have different columns, the databases build row hashes differently or one cannot compute
+     * them, or more than key-first.max-fetch-ratio of the keys need full rows.
+     */
+    public Map<String, Object> compareTable(TableMapping mapping, RowHashComparison.Side source,
+                                            RowHashComparison.Side target, DiffResultStore.Writer writer)
+            throws SQLException {
+        List<String> keyColumns = mapping.getKeyColumns().stream().map(String::toLowerCase).collect(Collectors.toList());
+        String table = mapping.getSourceTable();
+        String dialect = ComparisonMetrics.dialect(mapping.getSourceDbType(), mapping.getTargetDbType());
+        ComparisonEvents.TableComparison event = new ComparisonEvents.TableComparison();
+        event.begin();
+        long started = System.nanoTime();
+
+        // Column names and types as the databases report them, by lower-cased name
+        Map<String, TypedColumn> sourceColumns = readColumns(source);
+        Map<String, TypedColumn> targetColumns = readColumns(target);
+        if (!sourceColumns.keySet().equals(targetColumns.keySet())) {
+            logger.info("Columns of table {} differ between source and target, every row hash would differ; "
+                    + "reading full rows instead", table);
+            return null;
+        }
+        if (!sourceColumns.keySet().containsAll(keyColumns)) {
+            logger.info("Key columns {} of table {} are not all present, reading full rows instead", keyColumns, table);
+            return null;
+        }
+        if (!source.dialect.rowHashConstruction().equals(target.dialect.rowHashConstruction())) {
+            logger.info("{} and {} build row hashes differently, every row hash of table {} would differ; "
+                    + "reading full rows instead", source.dialect.name(), target.dialect.name(), table);
+            return null;
+        }
+        if (!source.dialect.name().equalsIgnoreCase(target.dialect.name())) {
+            logger.warn("Key-first comparison of {} across {}: row hashes only match if both databases render "
+                    + "their values as the same text; other rows are fetched and compared in full", table, dialect);
+        }
+        List<String> hashColumns = new ArrayList<>(sourceColumns.keySet());
+        Collections.sort(hashColumns);
+
+        // Phase 1: keys and row hashes
+        Map<String, KeyHash> sourceKeys = new HashMap<>();
+        List<PendingKey> differing = new ArrayList<>();
+        List<PendingKey> targetOnly = new ArrayList<>();
+        long[] exactMatches = new long[1];
+        long sourceRows;
+        long targetRows;
+        try {
+            sourceRows = scanKeys(source, sourceColumns, keyColumns, hashColumns,
+                    (key, hash, values) -> sourceKeys.put(key, new KeyHash(hash, values)));
+            targetRows = scanKeys(target, targetColumns, keyColumns, hashColumns, (key, hash, values) -> {
+                KeyHash counterpart = sourceKeys.remove(key);
+                if (counterpart == null) {
+                    targetOnly.add(new PendingKey(key, null, values));
+                } else if (Objects.equals(counterpart.hash, hash)) {
+                    exactMatches[0]++;
+                } else {
+                    differing.add(new PendingKey(key, counterpart.values, values));
+                }
+            });
+        } catch (SQLException e) {
+            // E.g. a column type the dialect's hash expression cannot convert to text
+            logger.warn("Row hashes of table {} could not be computed, reading full rows instead: {}",
+                    table, e.getMessage());
+            return null;
+        }
+        List<PendingKey> sourceOnly = new ArrayList<>(sourceKeys.size());
+        sourceKeys.forEach((key, keyHash) -> sourceOnly.add(new PendingKey(key, keyHash.values, null)));
+        sourceKeys.clear();
+        long keysNanos = System.nanoTime() - started;
+
+        long rowsToFetch = 2L * differing.size() + sourceOnly.size() + targetOnly.size();
+        if (rowsToFetch > config.getMaxFetchRatio() * (sourceRows + targetRows)) {
+            logger.info("{} of {} rows of table {} need full rows, above key-first.max-fetch-ratio {}; "
+                    + "reading full rows instead", rowsToFetch, sourceRows + targetRows, table, config.getMaxFetchRatio());
+            return null;
+        }
+
+        // Phase 2: full rows behind differing and missing keys
+        long fetchStarted = System.nanoTime();
+        Outcome outcome = new Outcome(mapping, writer);
+        outcome.exactMatches = exactMatches[0];
+        try (Connection sourceConn = source.connections.open();
+             Connection targetConn = target.connections.open()) {
+            for (List<PendingKey> batch : batches(differing, keyColumns.size(), source, target)) {
+                Map<String, Map<String, Object>> sourceRecords = fetchRows(sourceConn, source, sourceColumns,
+                        keyColumns, batch.stream().map(pending -> pending.sourceValues).collect(Collectors.toList()));
+                Map<String, Map<String, Object>> targetRecords = fetchRows(targetConn, target, targetColumns,
+                        keyColumns, batch.stream().map(pending -> pending.targetValues).collect(Collectors.toList()));
+                for (PendingKey pending : batch) {
+                    outcome.compare(pending.key, sourceRecords.get(pending.key), targetRecords.get(pending.key));
+                }
+                outcome.fetched += sourceRecords.size() + targetRecords.size();
+            }
+            for (List<PendingKey> batch : batches(sourceOnly, keyColumns.size(), source, source)) {
+                Map<String, Map<String, Object>> records = fetchRows(sourceConn, source, sourceColumns, keyColumns,
+                        batch.stream().map(pending -> pending.sourceValues).collect(Collectors.toList()));
+                for (PendingKey pending : batch) {
+                    outcome.compare(pending.key, records.get(pending.key), null);
+                }
+                outcome.fetched += records.size();
+            }
+            for (List<PendingKey> batch : batches(targetOnly, keyColumns.size(), target, target)) {
+                Map<String, Map<String, Object>> records = fetchRows(targetConn, target, targetColumns, keyColumns,
+                        batch.stream().map(pending -> pending.targetValues).collect(Collectors.toList()));
+                for (PendingKey pending : batch) {
+                    outcome.compare(pending.key, null, records.get(pending.key));
+                }
+                outcome.fetched += records.size();
+            }
+        }
+        long fetchNanos = System.nanoTime() - fetchStarted;
+        if (writer != null) {
+            writer.addExactMatches(table, outcome.exactMatches);
+        }
+
+        metrics.recordPhase(ComparisonMetrics.PHASE_KEYS, dialect, table, keysNanos);
+        metrics.recordPhase(ComparisonMetrics.PHASE_COMPARE, dialect, table, fetchNanos);
+        metrics.recordThroughput(dialect, table, sourceRows + targetRows, System.nanoTime() - started);
+        metrics.recordDifferences(dialect, table, outcome.differences.size(), outcome.unmatchedSource.size(),
+                outcome.unmatchedTarget.size());
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.dialect = dialect;
+            event.rows = sourceRows + targetRows + outcome.fetched;
+            event.differences = outcome.differences.size();
+            event.sourceOnly = outcome.unmatchedSource.size();
+            event.targetOnly = outcome.unmatchedTarget.size();
+            event.commit();
+        }
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("differences", outcome.differences);
+        results.put("unmatched_source", outcome.unmatchedSource);
+        results.put("unmatched_target", outcome.unmatchedTarget);
+        results.put("exact_matches", (int) outcome.exactMatches);
+        results.put("rows_extracted", sourceRows + targetRows);
+        results.put("rows_fetched", outcome.fetched);
+        Map<String, Long> phaseNanos = new LinkedHashMap<>();
+        phaseNanos.put("keysAndHashes", keysNanos);
+        phaseNanos.put("fetchRows", fetchNanos);
+        results.put("phase_nanos", phaseNanos);
+
+        logger.info("Key-first results for table {}: {} keys read, {} full rows fetched, {} differences, "
+                        + "{} unmatched in source, {} unmatched in target, {} exact matches",
+                table, sourceRows + targetRows, outcome.fetched, outcome.differences.size(),
+                outcome.unmatchedSource.size(), outcome.unmatchedTarget.size(), outcome.exactMatches);
+        return results;
+    }
+
+    /**
+     * Receives the key, row hash and raw key values of one row
+     */
+    @FunctionalInterface
+    private interface KeyConsumer {
+        void accept(String key, String hash, Object[] values);
+    }
+
+    private Map<String, TypedColumn> readColumns(RowHashComparison.Side side) throws SQLException {
+        Map<String, TypedColumn> columns = new LinkedHashMap<>();
+        try (Connection conn = side.connections.open();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM " + side.table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.put(metaData.getColumnName(i).toLowerCase(), new TypedColumn(metaData.getColumnName(i),
+                        metaData.getColumnType(i), metaData.getColumnTypeName(i)));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Stream the key columns and the hash of all columns of one side; returns the number of rows read
+     */
+    private long scanKeys(RowHashComparison.Side side, Map<String, TypedColumn> columns, List<String> keyColumns,
+                          List<String> hashColumns, KeyConsumer consumer) throws SQLException {
+        String query = "SELECT " + keyColumns.stream()
+                .map(column -> side.dialect.identifier(columns.get(column).getName()))
+                .collect(Collectors.joining(", ")) + ", "
+                + side.dialect.rowHashExpression(hashColumns.stream().map(columns::get).collect(Collectors.toList()))
+                + " AS " + RowHashComparison.ROW_HASH + " FROM " + side.table + SqlPredicates.where(side.filter);
+        long rows = 0;
+        try (Connection conn = side.connections.open();
+             PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            side.dialect.configureStreaming(conn, stmt, config.getFetchSize());
+            SqlPredicates.bind(stmt, side.filter, 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Map<String, Object> keyRecord = new HashMap<>();
+                while (rs.next()) {
+                    Object[] values = new Object[keyColumns.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                        keyRecord.put(keyColumns.get(i), values[i]);
+                    }
+                    rows++;
+                    String key = recordComparator.buildCompositeKey(keyRecord, keyColumns);
+                    if (key == null) {
+                        logger.warn("Could not build composite key for a row of {}", side.table);
+                        continue;
+                    }
+                    consumer.accept(key, rs.getString(values.length + 1), values);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Full rows of one side for the given key values, by composite key; later duplicates replace earlier ones
+     */
+    private Map<String, Map<String, Object>> fetchRows(Connection conn, RowHashComparison.Side side,
+                                                       Map<String, TypedColumn> columns, List<String> keyColumns,
+                                                       List<Object[]> keys) throws SQLException {
+        Map<String, Map<String, Object>> records = new HashMap<>(keys.size() * 2);
+        List<Object> parameters = new ArrayList<>();
+        String condition = keyCondition(side, columns, keyColumns, keys, parameters);
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM " + side.table + " WHERE (" + condition
+                + ")" + SqlPredicates.and(side.filter))) {
+            int index = 1;
+            for (Object parameter : parameters) {
+                stmt.setObject(index++, parameter);
+            }
+            SqlPredicates.bind(stmt, side.filter, index);
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                String[] names = new String[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    names[i - 1] = metaData.getColumnName(i).toLowerCase();
+                }
+                while (rs.next()) {
+                    Map<String, Object> record = new HashMap<>(columnCount * 2);
+                    for (int i = 1; i <= columnCount; i++) {
+                        record.put(names[i - 1], rs.getObject(i));
+                    }
+                    String key = recordComparator.buildCompositeKey(record, keyColumns);
+                    if (key != null) {
+                        records.put(key, record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * k IN (?, ...) for single-column keys, (k1 = ? AND k2 = ?) OR ... for composite ones; NULL parts
+     * become IS NULL
+     */
+    private static String keyCondition(RowHashComparison.Side side, Map<String, TypedColumn> columns,
+                                       List<String> keyColumns, List<Object[]> keys, List<Object> parameters) {
+        if (keyColumns.size() == 1) {
+            String column = side.dialect.identifier(columns.get(keyColumns.get(0)).getName());
+            boolean anyNull = false;
+            for (Object[] key : keys) {
+                if (key[0] == null) {
+                    anyNull = true;
+                } else {
+                    parameters.add(key[0]);
+                }
+            }
+            String in = parameters.isEmpty() ? "1 = 0"
+                    : column + " IN (" + parameters.stream().map(p -> "?").collect(Collectors.joining(", ")) + ")";
+            return anyNull ? in + " OR " + column + " IS NULL" : in;
+        }
+        List<String> tuples = new ArrayList<>(keys.size());
+        for (Object[] key : keys) {
+            List<String> parts = new ArrayList<>(keyColumns.size());
+            for (int i = 0; i < keyColumns.size(); i++) {
+                String column = side.dialect.identifier(columns.get(keyColumns.get(i)).getName());
+                if (key[i] == null) {
+                    parts.add(column + " IS NULL");
+                } else {
+                    parts.add(column + " = ?");
+                    parameters.add(key[i]);
+                }
+            }
+            tuples.add("(" + String.join(" AND ", parts) + ")");
+        }
+        return String.join(" OR ", tuples);
+    }
+
+    /**
+     * Split keys into lookup batches that stay under the IN list and bound parameter limits of both sides
+     */
+    private List<List<PendingKey>> batches(List<PendingKey> keys, int keyColumnCount, RowHashComparison.Side first,
+                                           RowHashComparison.Side second) {
+        int filterParameters = Math.max(parameterCount(first), parameterCount(second));
+        int size = Math.max(1, Math.min(config.getFetchBatchSize(),
+                (config.getMaxParameters() - filterParameters) / keyColumnCount));
+        List<List<PendingKey>> batches = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += size) {
+            batches.add(keys.subList(from, Math.min(keys.size(), from + size)));
+        }
+        return batches;
+    }
+
+    private static int parameterCount(RowHashComparison.Side side) {
+        return SqlPredicates.isEmpty(side.filter) || side.filter.getParameters() == null ? 0
+                : side.filter.getParameters().size();
+    }
+
+    /**
+     * Row hash and raw key values of a source row waiting for its target counterpart
+     */
+    private static final class KeyHash {
+        private final String hash;
+        private final Object[] values;
+
+        private KeyHash(String hash, Object[] values) {
+            this.hash = hash;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Key whose full rows are fetched in phase 2, with its raw values on each side that has it
+     */
+    private static final class PendingKey {
+        private final String key;
+        private final Object[] sourceValues;
+        private final Object[] targetValues;
+
+        private PendingKey(String key, Object[] sourceValues, Object[] targetValues) {
+            this.key = key;
+            this.sourceValues = sourceValues;
+            this.targetValues = targetValues;
+        }
+    }
+
+    /**
+     * Results of phase 2, classified and written the same way as by the pipeline
+     */
+    private final class Outcome {
+        private final TableMapping mapping;
+        private final DiffResultStore.Writer writer;
+        private final List<Map<String, Object>> differences = new ArrayList<>();
+        private final List<Map<String, Object>> unmatchedSource = new ArrayList<>();
+        private final List<Map<String, Object>> unmatchedTarget = new ArrayList<>();
+        private ColumnLayout layout;
+        private long exactMatches;
+        private long fetched;
+
+        private Outcome(TableMapping mapping, DiffResultStore.Writer writer) {
+            this.mapping = mapping;
+            this.writer = writer;
+        }
+
+        /**
+         * Classify the rows of one key; a row deleted between the phases counts as missing
+         */
+        private void compare(String key, Map<String, Object> sourceRecord, Map<String, Object> targetRecord) {
+            String table = mapping.getSourceTable();
+            if (sourceRecord == null && targetRecord == null) {
+                return;
+            }
+            if (targetRecord == null) {
+                Map<String, Object> record = normalize(sourceRecord);
+                unmatchedSource.add(record);
+                if (writer != null) {
+                    writer.writeUnmatched(table, key, DiffRow.KIND_SOURCE_ONLY, record);
+                }
+                return;
+            }
+            if (sourceRecord == null) {
+                Map<String, Object> record = normalize(targetRecord);
+                unmatchedTarget.add(record);
+                if (writer != null) {
+                    writer.writeUnmatched(table, key, DiffRow.KIND_TARGET_ONLY, record);
+                }
+                return;
+            }
+            Map<String, Object> normalizedSource = normalize(sourceRecord);
+            Map<String, Object> normalizedTarget = normalize(targetRecord);
+            if (layout == null) {
+                layout = recordComparator.createLayout(normalizedSource, normalizedTarget);
+            }
+            FieldVerdicts verdicts = recordComparator.compareNormalizedFields(layout, normalizedSource, normalizedTarget);
+            if (!verdicts.hasDifferences()) {
+                exactMatches++;
+                return;
+            }
+            differences.add(recordComparator.createDifferenceRecord(table, key, normalizedSource, normalizedTarget,
+                    verdicts));
+            if (writer != null) {
+                writer.writeDifference(table, key, verdicts);
+            }
+        }
+
+        private Map<String, Object> normalize(Map<String, Object> record) {
+            Map<String, Object> normalized = new HashMap<>(record.size() * 2);
+            record.forEach((column, value) -> normalized.put(column, NormalizationUtils.normalizeValue(value)));
+            return normalized;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeySelectionConfig;
+import com.DBCompareX.DBCompareX.dao.entities.KeySelection;
+import com.DBCompareX.DBCompareX.dao.entities.KeyStrategy;
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dialect.CatalogQuery;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+import com.DBCompareX.DBCompareX.util.HyperLogLog;
+import com.DBCompareX.DBCompareX.util.SqlPredicates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Chooses the narrowest set of columns that is unique in a table, for tables without a primary key.
+ * Evidence is taken in order of cost: unique indexes, catalog distinct counts, then HyperLogLog
+ * estimates over a sample of rows. Keys that are not backed by an index can be confirmed with a
+ * GROUP BY over the whole table.
+ */
+@Service
+public class KeySelector {
+    private static final Logger logger = LoggerFactory.getLogger(KeySelector.class);
+    private static final int HLL_PRECISION = 14;
+    private static final char VALUE_SEPARATOR = '\u0001';
+
+    private final KeySelectionConfig config;
+
+    @Autowired
+    public KeySelector(KeySelectionConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Select key columns among the columns both tables have; returns null if no unique column set was found.
+     *
+     * @param queryTable table name as used in a FROM clause, schema-qualified where needed
+     * @param rowCount   catalog row count, or null when unknown
+     */
+    public KeySelection selectKey(Connection conn, Dialect dialect, String schema, String tableName, String queryTable,
+                                  Collection<String> commonColumns, Long rowCount) throws SQLException {
+        return selectKey(conn, dialect, schema, tableName, queryTable, commonColumns, rowCount, null);
+    }
+
+    /**
+     * Select key columns for the rows a filter leaves; the key only needs to be unique among those rows,
+     * so the sample and the uniqueness check read the filtered rows only
+     */
+    public KeySelection selectKey(Connection conn, Dialect dialect, String schema, String tableName, String queryTable,
+                                  Collection<String> commonColumns, Long rowCount, RowFilter filter)
+            throws SQLException {
+        Set<String> common = commonColumns.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        Map<String, ColumnInfo> columns = readColumns(conn.getMetaData(), schema, tableName);
+        List<ColumnInfo> candidates = columns.values().stream()
+                .filter(column -> common.contains(column.name) && column.notNull && column.keyable)
+                .sorted(Comparator.comparingInt(column -> column.width))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            logger.info("Table {} has no NOT NULL columns that could serve as key", tableName);
+            return null;
+        }
+
+        KeySelection index = narrowestUniqueIndex(conn.getMetaData(), schema, tableName, columns, common);
+        if (index != null) {
+            return index;
+        }
+
+        Map<String, Long> distinctCounts = readDistinctCounts(conn, dialect, schema, tableName);
+        Set<String> statisticallyUnique = new HashSet<>();
+        if (rowCount != null && rowCount > 0) {
+            for (ColumnInfo column : candidates) {
+                Long distinct = distinctCounts.get(column.name);
+                if (distinct != null && distinct >= rowCount * config.getDistinctRatio()) {
+                    statisticallyUnique.add(column.name);
+                }
+            }
+        }
+
+        List<List<ColumnInfo>> ranked;
+        if (config.getSampleRows() > 0) {
+            ranked = sampleUniqueSets(conn, dialect, queryTable, filter, candidates, distinctCounts);
+        } else {
+            ranked = candidates.stream()
+                    .filter(column -> statisticallyUnique.contains(column.name))
+                    .map(Collections::singletonList)
+                    .collect(Collectors.toList());
+        }
+
+        for (List<ColumnInfo> keySet : ranked) {
+            List<String> names = keySet.stream().map(column -> column.name).collect(Collectors.toList());
+            if (config.isVerifyUniqueness() && !isUnique(conn, dialect, queryTable, filter, names)) {
+                logger.info("Candidate key {} of table {} has duplicates, trying the next one", names, tableName);
+                continue;
+            }
+            boolean fromStatistics = names.size() == 1 && statisticallyUnique.contains(names.get(0));
+            KeyStrategy strategy = fromStatistics ? KeyStrategy.DISTINCT_STATISTICS : KeyStrategy.SAMPLED;
+            String evidence = fromStatistics
+                    ? "catalog distinct count " + distinctCounts.get(names.get(0)) + " of " + rowCount + " rows"
+                    : "unique in a sample of up to " + config.getSampleRows() + " rows";
+            if (config.isVerifyUniqueness()) {
+                evidence += ", verified over the whole table";
+            }
+            logger.info("Selected key {} for table {} ({})", names, tableName, evidence);
+            return new KeySelection(names, strategy, evidence);
+        }
+        logger.info("No unique column set of up to {} columns found for table {}", config.getMaxKeyColumns(), tableName);
+        return null;
+    }
+
+    private Map<String, ColumnInfo> readColumns(DatabaseMetaData metaData, String schema, String tableName)
+            throws SQLException {
+        Map<String, ColumnInfo> columns = new LinkedHashMap<>();
+        // Oracle stores unquoted names in upper case
+        for (String name : new String[]{tableName, tableName.toUpperCase()}) {
+            try (ResultSet rs = metaData.getColumns(null, schema, name, "%")) {
+                while (rs.next()) {
+                    ColumnInfo column = new ColumnInfo(rs.getString("COLUMN_NAME").toLowerCase(),
+                            rs.getInt("NULLABLE") == DatabaseMetaData.columnNoNulls,
+                            rs.getInt("DATA_TYPE"), rs.getInt("COLUMN_SIZE"));
+                    columns.put(column.name, column);
+                }
+            }
+            if (!columns.isEmpty()) {
+                break;
+            }
+        }
+        return columns;
+    }
+
+    private KeySelection narrowestUniqueIndex(DatabaseMetaData metaData, String schema, String tableName,
+                                              Map<String, ColumnInfo> columns, Set<String> common) throws SQLException {
+        Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+        for (String name : new String[]{tableName, tableName.toUpperCase()}) {
+            try (ResultSet rs = metaData.getIndexInfo(null, schema, name, true, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String columnName = rs.getString("COLUMN_NAME");
+                    if (indexName == null || columnName == null) {
+                        continue;
+                    }
+                    indexes.computeIfAbsent(indexName, i -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), columnName.toLowerCase());
+                }
+            }
+            if (!indexes.isEmpty()) {
+                break;
+            }
+        }
+
+        List<String> best = null;
+        int bestWidth = Integer.MAX_VALUE;
+        for (TreeMap<Short, String> index : indexes.values()) {
+            List<String> indexColumns = new ArrayList<>(index.values());
+            boolean usable = indexColumns.stream().allMatch(column -> common.contains(column)
+                    && columns.containsKey(column) && columns.get(column).notNull);
+            if (!usable) {
+                continue;
+            }
+            int width = indexColumns.stream().mapToInt(column -> columns.get(column).width).sum();
+            if (best == null || indexColumns.size() < best.size()
+                    || (indexColumns.size() == best.size() && width < bestWidth)) {
+                best = indexColumns;
+                bestWidth = width;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        logger.info("Selected unique index columns {} as key for table {}", best, tableName);
+        return new KeySelection(best, KeyStrategy.UNIQUE_INDEX, "unique index over NOT NULL columns");
+    }
+
+    /**
+     * Distinct counts the optimizer keeps per column; empty when the dialect has none
+     */
+    private Map<String, Long> readDistinctCounts(Connection conn, Dialect dialect, String schema, String tableName) {
+        Map<String, Long> distinctCounts = new HashMap<>();
+        CatalogQuery query = dialect.distinctCountsQuery(schema, tableName);
+        if (query == null) {
+            return distinctCounts;
+        }
+        try (PreparedStatement stmt = query.prepare(conn)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getObject(2) != null) {
+                        distinctCounts.put(rs.getString(1).toLowerCase(), rs.getBigDecimal(2).longValue());
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not read distinct counts of table {}: {}", tableName, e.getMessage());
+        }
+        return distinctCounts;
+    }
+
+    /**
+     * One pass over a sample of rows, estimating distinct counts of every candidate column and of
+     * combinations of the most selective ones. Returns the unique sets, narrowest first.
+     */
+    private List<List<ColumnInfo>> sampleUniqueSets(Connection conn, Dialect dialect, String queryTable,
+                                                    RowFilter filter, List<ColumnInfo> candidates,
+                                                    Map<String, Long> distinctCounts) throws SQLException {
+        List<List<ColumnInfo>> sets = new ArrayList<>();
+        for (ColumnInfo column : candidates) {
+            sets.add(Collections.singletonList(column));
+        }
+        // Columns with many distinct values are the most promising parts of a composite key
+        List<ColumnInfo> selective = candidates.stream()
+                .sorted(Comparator.comparingLong((ColumnInfo column) -> -distinctCounts.getOrDefault(column.name, 0L))
+                        .thenComparingInt(column -> column.width))
+                .limit(config.getMaxCompositeCandidates())
+                .collect(Collectors.toList());
+        for (int size = 2; size <= Math.min(config.getMaxKeyColumns(), selective.size()); size++) {
+            addCombinations(selective, size, 0, new ArrayList<>(), sets);
+        }
+
+        List<HyperLogLog> sketches = new ArrayList<>(sets.size());
+        for (int i = 0; i < sets.size(); i++) {
+            sketches.add(new HyperLogLog(HLL_PRECISION));
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            positions.put(candidates.get(i).name, i);
+        }
+
+        String select = candidates.stream().map(column -> dialect.identifier(column.name))
+                .collect(Collectors.joining(", "));
+        long sampled = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(dialect.limit("SELECT " + select + " FROM " + queryTable
+                + SqlPredicates.where(filter), config.getSampleRows()), ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Math.min(config.getSampleRows(), 5000));
+            SqlPredicates.bind(stmt, filter, 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                String[] values = new String[candidates.size()];
+                StringBuilder composite = new StringBuilder();
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        Object value = rs.getObject(i + 1);
+                        values[i] = value != null ? value.toString() : null;
+                    }
+                    for (int s = 0; s < sets.size(); s++) {
+                        List<ColumnInfo> set = sets.get(s);
+                        if (set.size() == 1) {
+                            sketches.get(s).add(values[positions.get(set.get(0).name)]);
+                            continue;
+                        }
+                        composite.setLength(0);
+                        for (ColumnInfo column : set) {
+                            composite.append(values[positions.get(column.name)]).append(VALUE_SEPARATOR);
+                        }
+                        sketches.get(s).add(composite.toString());
+                    }
+                    sampled++;
+                }
+            }
+        }
+        if (sampled == 0) {
+            return Collections.emptyList();
+        }
+
+        List<List<ColumnInfo>> unique = new ArrayList<>();
+        for (int s = 0; s < sets.size(); s++) {
+            HyperLogLog sketch = sketches.get(s);
+            if (sketch.cardinality() >= sampled * (1 - 3 * sketch.standardError())) {
+                unique.add(sets.get(s));
+            }
+        }
+        unique.sort(Comparator.comparingInt((List<ColumnInfo> set) -> set.size())
+                .thenComparingInt(set -> set.stream().mapToInt(column -> column.width).sum()));
+        logger.info("{} of {} candidate column sets were unique in a sample of {} rows from {}",
+                unique.size(), sets.size(), sampled, queryTable);
+        return unique;
+    }
+
+    private static void addCombinations(List<ColumnInfo> columns, int size, int start, List<ColumnInfo> current,
+                                        List<List<ColumnInfo>> combinations) {
+        if (current.size() == size) {
+            combinations.add(new ArrayList<>(current));
+            return;
+        }
+        for (int i = start; i < columns.size(); i++) {
+            current.add(columns.get(i));
+            addCombinations(columns, size, i + 1, current, combinations);
+            current.remove(current.size() - 1);
+        }
+    }
+
+    /**
+     * Exact check: no value combination occurs twice in the table
+     */
+    private boolean isUnique(Connection conn, Dialect dialect, String queryTable, RowFilter filter,
+                             List<String> columns) throws SQLException {
+        String list = columns.stream().map(dialect::identifier).collect(Collectors.joining(", "));
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT " + list + " FROM " + queryTable
+                + SqlPredicates.where(filter) + " GROUP BY " + list + " HAVING COUNT(*) > 1")) {
+            stmt.setMaxRows(1);
+            SqlPredicates.bind(stmt, filter, 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return !rs.next();
+            }
+        }
+    }
+
+    /**
+     * Name, nullability and approximate stored width of a column
+     */
+    private static final class ColumnInfo {
+        private final String name;
+        private final boolean notNull;
+        private final int width;
+        private final boolean keyable;
+
+        private ColumnInfo(String name, boolean notNull, int sqlType, int columnSize) {
+            this.name = name;
+            this.notNull = notNull;
+            this.width = width(sqlType, columnSize);
+            this.keyable = !isLargeObject(sqlType);
+        }
+
+        private static int width(int sqlType, int columnSize) {
+            switch (sqlType) {
+                case Types.TINYINT:
+                case Types.SMALLINT:
+                case Types.INTEGER:
+                    return 4;
+                case Types.BIGINT:
+                case Types.DATE:
+                case Types.TIMESTAMP:
+                case Types.TIME:
+                case Types.DOUBLE:
+                case Types.FLOAT:
+                case Types.REAL:
+                    return 8;
+                case Types.NUMERIC:
+                case Types.DECIMAL:
+                    return Math.max(4, columnSize / 2 + 1);
+                default:
+                    return columnSize > 0 ? Math.min(columnSize, 4000) : 64;
+            }
+        }
+
+        private static boolean isLargeObject(int sqlType) {
+            return sqlType == Types.BLOB || sqlType == Types.CLOB || sqlType == Types.NCLOB
+                    || sqlType == Types.LONGVARBINARY || sqlType == Types.LONGVARCHAR
+                    || sqlType == Types.LONGNVARCHAR || sqlType == Types.SQLXML;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.LoadLimitConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive limits on the load comparisons put on each database endpoint. Every table scan holds a
+ * permit of its endpoint; the number of permits follows AIMD: it grows by about one per round of
+ * healthy fetches and is cut by the decrease factor when a scan's fetch time per byte rises well above
+ * the best it has seen, or when a query fails. Optional rows/sec and bytes/sec ceilings are enforced
+ * with token buckets shared by the scans of an endpoint, and scans only start inside the configured
+ * time-of-day windows.
+ */
+@Service
+public class LoadLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(LoadLimiter.class);
+    private static final long WINDOW_POLL_MS = 30_000;
+
+    private final LoadLimitConfig config;
+    private final Supplier<LocalTime> clock;
+    private final long windowPollMs;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoadLimiter(LoadLimitConfig config) {
+        this(config, LocalTime::now, WINDOW_POLL_MS);
+    }
+
+    LoadLimiter(LoadLimitConfig config, Supplier<LocalTime> clock, long windowPollMs) {
+        this.config = config;
+        this.clock = clock;
+        this.windowPollMs = windowPollMs;
+    }
+
+    /**
+     * Key of a database endpoint, e.g. postgresql://db1:5432
+     */
+    public static String endpoint(String dbType, String host, int port) {
+        return String.valueOf(dbType).toLowerCase() + "://" + String.valueOf(host).toLowerCase() + ":" + port;
+    }
+
+    /**
+     * Wait until the time windows of all given endpoints are open, then for a free slot of each. No slot
+     * is held while waiting for a window, and endpoints are taken in a fixed order, and once each, so
+     * scans that need two endpoints cannot deadlock each other. If a window closes while waiting for a
+     * slot, the slots are given back and the scan waits for the windows again.
+     */
+    public Permit acquire(String... endpointKeys) throws InterruptedException {
+        if (!config.isEnabled()) {
+            return new Permit(Collections.emptyList());
+        }
+        List<Endpoint> needed = new ArrayList<>();
+        for (String key : new TreeSet<>(Arrays.asList(endpointKeys))) {
+            needed.add(endpoints.computeIfAbsent(key, this::newEndpoint));
+        }
+        while (true) {
+            awaitWindows(needed);
+            List<Endpoint> held = new ArrayList<>();
+            try {
+                for (Endpoint endpoint : needed) {
+                    endpoint.acquire();
+                    held.add(endpoint);
+                }
+            } catch (InterruptedException | RuntimeException e) {
+                held.forEach(Endpoint::release);
+                throw e;
+            }
+            if (needed.stream().allMatch(Endpoint::inWindow)) {
+                return new Permit(held);
+            }
+            held.forEach(Endpoint::release);
+        }
+    }
+
+    /**
+     * Current limit, scans in flight and ceilings of every endpoint seen so far
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        for (Endpoint endpoint : endpoints.values()) {
+            snapshot.add(endpoint.snapshot());
+        }
+        snapshot.sort(Comparator.comparing(entry -> (String) entry.get("endpoint")));
+        return snapshot;
+    }
+
+    private void awaitWindows(List<Endpoint> needed) throws InterruptedException {
+        boolean logged = false;
+        while (true) {
+            Optional<Endpoint> closed = needed.stream().filter(endpoint -> !endpoint.inWindow()).findFirst();
+            if (!closed.isPresent()) {
+                return;
+            }
+            if (!logged) {
+                logger.info("Scan of {} waits for its load window", closed.get().key);
+                logged = true;
+            }
+            Thread.sleep(windowPollMs);
+        }
+    }
+
+    private Endpoint newEndpoint(String key) {
+        LoadLimitConfig.Endpoint override = findOverride(key);
+        int max = override != null && override.getMaxConcurrency() != null
+                ? override.getMaxConcurrency() : config.getMaxConcurrency();
+        long rows = override != null && override.getMaxRowsPerSecond() != null
+                ? override.getMaxRowsPerSecond() : config.getMaxRowsPerSecond();
+        long bytes = override != null && override.getMaxBytesPerSecond() != null
+                ? override.getMaxBytesPerSecond() : config.getMaxBytesPerSecond();
+        String windows = override != null && override.getWindows() != null ? override.getWindows() : config.getWindows();
+        return new Endpoint(key, Math.max(1, max), rows, bytes, parseWindows(windows));
+    }
+
+    private LoadLimitConfig.Endpoint findOverride(String key) {
+        String hostAndPort = key.substring(key.indexOf("://") + 3);
+        String host = hostAndPort.substring(0, hostAndPort.lastIndexOf(':'));
+        for (Map.Entry<String, LoadLimitConfig.Endpoint> entry : config.getEndpoints().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(hostAndPort)) {
+                return entry.getValue();
+            }
+        }
+        for (Map.Entry<String, LoadLimitConfig.Endpoint> entry : config.getEndpoints().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(host)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parse windows like 22:00-06:00,12:00-13:00; a window may wrap past midnight
+     */
+    static List<LocalTime[]> parseWindows(String windows) {
+        List<LocalTime[]> parsed = new ArrayList<>();
+        if (windows == null || windows.trim().isEmpty()) {
+            return parsed;
+        }
+        for (String window : windows.split(",")) {
+            String[] bounds = window.trim().split("-");
+            try {
+                if (bounds.length != 2) {
+                    throw new DateTimeParseException("expected start-end", window, 0);
+                }
+                parsed.add(new LocalTime[] {LocalTime.parse(bounds[0].trim()), LocalTime.parse(bounds[1].trim())});
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid load-limit window '" + window.trim()
+                        + "', expected HH:mm-HH:mm", e);
+            }
+        }
+        return parsed;
+    }
+
+    static boolean inWindow(List<LocalTime[]> windows, LocalTime time) {
+        if (windows.isEmpty()) {
+            return true;
+        }
+        for (LocalTime[] window : windows) {
+            boolean open = window[0].isBefore(window[1])
+                    ? !time.isBefore(window[0]) && time.isBefore(window[1])
+                    : !time.isBefore(window[0]) || time.isBefore(window[1]);
+            if (open) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Slot of one or more endpoints held by a scan. Scans report each fetched chunk so the endpoint can
+     * adapt, and are paced by the endpoint's rate ceilings.
+     */
+    public final class Permit implements AutoCloseable {
+        private final List<Endpoint> held;
+        private double bestNanosPerByte = Double.MAX_VALUE;
+        private double smoothedNanosPerByte;
+        private int chunks;
+        private boolean failed;
+        private boolean closed;
+
+        private Permit(List<Endpoint> held) {
+            this.held = held;
+        }
+
+        /**
+         * Record a chunk of rows read in fetchNanos of database time, then wait as the rate ceilings require
+         */
+        public void chunk(long rows, long bytes, long fetchNanos) throws InterruptedException {
+            if (held.isEmpty()) {
+                return;
+            }
+            double sample = (double) fetchNanos / Math.max(1, bytes);
+            chunks++;
+            smoothedNanosPerByte = chunks == 1 ? sample : 0.7 * smoothedNanosPerByte + 0.3 * sample;
+            bestNanosPerByte = Math.min(bestNanosPerByte, smoothedNanosPerByte);
+            boolean overloaded = chunks > config.getWarmupChunks()
+                    && smoothedNanosPerByte > bestNanosPerByte * config.getLatencyTolerance();
+            for (Endpoint endpoint : held) {
+                if (overloaded) {
+                    endpoint.decrease(String.format("fetch time per byte %.1fx its best",
+                            smoothedNanosPerByte / bestNanosPerByte));
+                } else if (chunks > config.getWarmupChunks()) {
+                    endpoint.increase();
+                }
+                endpoint.pace(rows, bytes);
+            }
+        }
+
+        /**
+         * Report a failed query; the endpoint backs off
+         */
+        public void failed(String reason) {
+            if (!failed) {
+                failed = true;
+                held.forEach(endpoint -> endpoint.decrease(reason));
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Endpoint endpoint : held) {
+                // Short queries report no chunks; finishing without error counts as a healthy round
+                if (!failed && chunks == 0) {
+                    endpoint.increase();
+                }
+                endpoint.release();
+            }
+        }
+    }
+
+    private final class Endpoint {
+        private final String key;
+        private final int maxConcurrency;
+        private final RateBucket rows;
+        private final RateBucket bytes;
+        private final List<LocalTime[]> windows;
+        private double limit;
+        private int inFlight;
+        private long lastDecrease;
+
+        private Endpoint(String key, int maxConcurrency, long rowsPerSecond, long bytesPerSecond,
+                         List<LocalTime[]> windows) {
+            this.key = key;
+            this.maxConcurrency = maxConcurrency;
+            this.rows = rowsPerSecond > 0 ? new RateBucket(rowsPerSecond) : null;
+            this.bytes = bytesPerSecond > 0 ? new RateBucket(bytesPerSecond) : null;
+            this.windows = windows;
+            this.limit = Math.max(minConcurrency(), Math.min(maxConcurrency, config.getInitialConcurrency()));
+        }
+
+        private int minConcurrency() {
+            return Math.max(1, Math.min(config.getMinConcurrency(), maxConcurrency));
+        }
+
+        private boolean inWindow() {
+            return LoadLimiter.inWindow(windows, clock.get());
+        }
+
+        private synchronized void acquire() throws InterruptedException {
+            while (inFlight >= (int) limit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        private synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        private synchronized void increase() {
+            if (limit < maxConcurrency) {
+                int before = (int) limit;
+                limit = Math.min(maxConcurrency, limit + 1.0 / limit);
+                if ((int) limit > before) {
+                    logger.debug("Concurrency of {} raised to {}", key, (int) limit);
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void decrease(String reason) {
+            long now = System.nanoTime();
+            if (lastDecrease != 0 && now - lastDecrease < TimeUnit.MILLISECONDS.toNanos(config.getDecreaseCooldownMs())) {
+                return;
+            }
+            lastDecrease = now;
+            double before = limit;
+            limit = Math.max(minConcurrency(), limit * config.getDecreaseFactor());
+            logger.info("Concurrency of {} lowered from {} to {}: {}", key, (int) before, (int) limit, reason);
+        }
+
+        private void pace(long rowCount, long byteCount) throws InterruptedException {
+            if (rows != null) {
+                rows.take(rowCount);
+            }
+            if (bytes != null) {
+                bytes.take(byteCount);
+            }
+        }
+
+        private synchronized Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("endpoint", key);
+            snapshot.put("limit", (int) limit);
+            snapshot.put("inFlight", inFlight);
+            snapshot.put("maxConcurrency", maxConcurrency);
+            snapshot.put("maxRowsPerSecond", rows != null ? rows.rate : 0);
+            snapshot.put("maxBytesPerSecond", bytes != null ? bytes.rate : 0);
+            snapshot.put("inWindow", inWindow());
+            return snapshot;
+        }
+    }
+
+    /**
+     * Token bucket holding up to one second of its rate; takers go into debt and sleep it off
+     */
+    private static final class RateBucket {
+        private final long rate;
+        private double tokens;
+        private long last;
+
+        private RateBucket(long rate) {
+            this.rate = rate;
+            this.tokens = rate;
+            this.last = System.nanoTime();
+        }
+
+        private void take(long amount) throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                tokens = Math.min(rate, tokens + (now - last) / 1e9 * rate);
+                last = now;
+                tokens -= amount;
+                waitNanos = tokens < 0 ? (long) (-tokens / rate * 1e9) : 0;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
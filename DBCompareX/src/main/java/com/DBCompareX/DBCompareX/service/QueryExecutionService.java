@@ -0,0 +1,365 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.QueryConfig;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs ad-hoc queries of the execute-query endpoint. Rows are written to the response as they are
+ * read. A paged request gets one page, which ends at the row or byte cap, and the rest of the result
+ * stays on an open server-side cursor that the next request continues with its token. An unpaged
+ * request gets every row up to the byte cap and holds no cursor.
+ */
+@Service
+public class QueryExecutionService {
+    private static final Logger logger = LoggerFactory.getLogger(QueryExecutionService.class);
+    private static final String ORACLE_USER_TABLES = "SELECT table_name FROM user_tables";
+
+    private final QueryConfig config;
+    private final TableSchemaExtractor tableSchemaExtractor;
+    private final DialectRegistry dialectRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, QueryCursor> cursors = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QueryExecutionService(QueryConfig config, TableSchemaExtractor tableSchemaExtractor,
+                                 DialectRegistry dialectRegistry, ObjectMapper objectMapper) {
+        this.config = config;
+        this.tableSchemaExtractor = tableSchemaExtractor;
+        this.dialectRegistry = dialectRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Open result of a query, positioned before the next row to return
+     */
+    public static final class QueryCursor {
+        private final Connection conn;
+        private final Statement stmt;
+        private final ResultSet rs;
+        private final String[] columns;
+        private String token;
+        // The result set is on a row that has not been returned yet
+        private boolean pending;
+        private long rowsReturned;
+        private volatile long lastUsed = System.nanoTime();
+
+        private QueryCursor(Connection conn, Statement stmt, ResultSet rs, boolean pending) throws SQLException {
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.pending = pending;
+            ResultSetMetaData metaData = rs.getMetaData();
+            this.columns = new String[metaData.getColumnCount()];
+            for (int i = 1; i <= columns.length; i++) {
+                columns[i - 1] = metaData.getColumnLabel(i);
+            }
+        }
+
+        private void close() {
+            try {
+                rs.close();
+                stmt.close();
+            } catch (SQLException e) {
+                logger.warn("Error closing query cursor: {}", e.getMessage());
+            } finally {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    logger.warn("Error closing database connection: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a query against a database and return its open cursor
+     */
+    public QueryCursor execute(String dbType, String host, int port, String dbName, String username, String password,
+                               String query) throws SQLException {
+        Connection conn = tableSchemaExtractor.getConnection(dbType, host, port, dbName, username, password);
+        try {
+            return open(dialectRegistry.forType(dbType), conn, alternatives(dbType, query));
+        } catch (SQLException e) {
+            // Users without access to the dictionary views can still list their own tables
+            if (dbType.equalsIgnoreCase("oracle") && (e.getMessage().contains("table or view does not exist")
+                    || e.getMessage().contains("insufficient privileges"))) {
+                logger.info("Oracle access issue detected, trying fallback to user_tables");
+                try {
+                    return open(dialectRegistry.forType(dbType), conn, List.of(ORACLE_USER_TABLES));
+                } catch (SQLException fallback) {
+                    logger.error("Fallback query also failed: {}", fallback.getMessage());
+                }
+            }
+            closeQuietly(conn);
+            throw e;
+        } catch (RuntimeException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Run the first of the queries that returns rows, or the last one, on a connection the cursor takes over
+     */
+    QueryCursor open(Dialect dialect, Connection conn, List<String> queries) throws SQLException {
+        for (int i = 0; i < queries.size(); i++) {
+            Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            try {
+                stmt.setQueryTimeout(config.getTimeoutSeconds());
+                dialect.configureStreaming(conn, stmt, config.getFetchSize());
+                ResultSet rs = stmt.executeQuery(queries.get(i));
+                boolean hasRow = rs.next();
+                if (hasRow || i == queries.size() - 1) {
+                    return new QueryCursor(conn, stmt, rs, hasRow);
+                }
+                rs.close();
+                stmt.close();
+                logger.info("Query returned no rows, trying: {}", queries.get(i + 1));
+            } catch (SQLException e) {
+                stmt.close();
+                if (i == queries.size() - 1) {
+                    throw e;
+                }
+                logger.warn("Query execution failed: {}", e.getMessage());
+            }
+        }
+        throw new IllegalArgumentException("No query to execute");
+    }
+
+    /**
+     * Oracle dictionary queries of the UI name a schema in quotes that may need quoting or upper case;
+     * if none of the variants finds tables, the user's own tables are listed
+     */
+    private static List<String> alternatives(String dbType, String query) {
+        List<String> queries = new ArrayList<>();
+        queries.add(query);
+        if (dbType.equalsIgnoreCase("oracle") && query.contains("all_tables") && query.contains("owner")
+                && query.contains("'")) {
+            String schemaName = query.substring(query.indexOf("'") + 1, query.lastIndexOf("'"));
+            logger.info("Oracle schema tables query detected for schema {}", schemaName);
+            if (!schemaName.startsWith("\"")) {
+                queries.add(query.replace("'" + schemaName + "'", "'\"" + schemaName + "\"'"));
+            }
+            queries.add(query.replace("'" + schemaName + "'", "'" + schemaName.toUpperCase() + "'"));
+            queries.add(ORACLE_USER_TABLES);
+        }
+        return queries;
+    }
+
+    /**
+     * Take the open cursor of a continuation token; it is unavailable to other requests until written
+     */
+    public QueryCursor resume(String token) {
+        QueryCursor cursor = cursors.remove(token);
+        if (cursor == null) {
+            throw new IllegalArgumentException("Unknown or expired cursor: " + token);
+        }
+        return cursor;
+    }
+
+    /**
+     * Close the cursor of a token the client no longer needs; returns false if it was not open
+     */
+    public boolean release(String token) {
+        QueryCursor cursor = cursors.remove(token);
+        if (cursor == null) {
+            return false;
+        }
+        cursor.close();
+        return true;
+    }
+
+    /**
+     * Write the next page of a cursor as {"columns", "results", "rowCount", "limitedBy", "nextCursor"}.
+     * Rows are flushed every fetch-size rows so the response goes out in chunks. When rows remain,
+     * the cursor is kept open under nextCursor; otherwise it is closed.
+     *
+     * @param pageSize rows requested, null for the default; capped at the configured maximum
+     */
+    public void writePage(QueryCursor cursor, Integer pageSize, OutputStream out) throws IOException {
+        int limit = Math.min(pageSize != null && pageSize > 0 ? pageSize : config.getDefaultPageSize(),
+                config.getMaxRows());
+        write(cursor, limit, true, out);
+    }
+
+    /**
+     * Write every row of a cursor in the page format and close it. Only the byte cap ends the result
+     * early, with limitedBy "bytes" and no nextCursor.
+     */
+    public void writeAll(QueryCursor cursor, OutputStream out) throws IOException {
+        write(cursor, Integer.MAX_VALUE, false, out);
+    }
+
+    private void write(QueryCursor cursor, int limit, boolean paged, OutputStream out) throws IOException {
+        int flushEvery = Math.max(1, config.getFetchSize());
+        CountingOutputStream counter = new CountingOutputStream(out);
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(counter);
+        gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        boolean keepOpen = false;
+        try {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("columns");
+            for (String column : cursor.columns) {
+                gen.writeString(column);
+            }
+            gen.writeEndArray();
+
+            gen.writeArrayFieldStart("results");
+            long rows = 0;
+            String error = null;
+            boolean more = cursor.pending;
+            try {
+                while (more && rows < limit && counter.count + gen.getOutputBuffered() < config.getMaxBytes()) {
+                    writeRow(gen, cursor);
+                    rows++;
+                    if (rows % flushEvery == 0) {
+                        gen.flush();
+                    }
+                    more = cursor.rs.next();
+                }
+            } catch (SQLException e) {
+                logger.error("Error reading query results: {}", e.getMessage());
+                error = e.getMessage();
+                more = false;
+            }
+            gen.writeEndArray();
+            cursor.pending = more;
+            cursor.rowsReturned += rows;
+
+            gen.writeNumberField("rowCount", rows);
+            gen.writeNumberField("totalRows", cursor.rowsReturned);
+            gen.writeStringField("limitedBy", !more ? null : rows >= limit ? "rows" : "bytes");
+            if (more && paged) {
+                keepOpen = park(cursor);
+                gen.writeStringField("nextCursor", keepOpen ? cursor.token : null);
+            } else {
+                gen.writeNullField("nextCursor");
+            }
+            if (error != null) {
+                gen.writeStringField("error", error);
+            }
+            gen.writeEndObject();
+            gen.flush();
+        } finally {
+            if (!keepOpen) {
+                cursor.close();
+            }
+        }
+    }
+
+    private void writeRow(JsonGenerator gen, QueryCursor cursor) throws IOException, SQLException {
+        gen.writeStartObject();
+        for (int i = 0; i < cursor.columns.length; i++) {
+            gen.writeFieldName(cursor.columns[i]);
+            Object value = cursor.rs.getObject(i + 1);
+            if (value instanceof Clob) {
+                Clob clob = (Clob) value;
+                value = clob.getSubString(1, (int) Math.min(clob.length(), config.getMaxBytes()));
+            } else if (value instanceof Blob) {
+                Blob blob = (Blob) value;
+                value = blob.getBytes(1, (int) Math.min(blob.length(), config.getMaxBytes()));
+            } else if (value != null && !value.getClass().getName().startsWith("java.")) {
+                // Vendor types such as Oracle's TIMESTAMP are not serializable as they are
+                value = value.toString();
+            }
+            gen.writeObject(value);
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Keep a cursor open for its next page, closing the least recently used one when all slots are taken
+     */
+    private boolean park(QueryCursor cursor) {
+        if (config.getMaxOpenCursors() <= 0) {
+            return false;
+        }
+        while (cursors.size() >= config.getMaxOpenCursors()) {
+            Optional<Map.Entry<String, QueryCursor>> oldest = cursors.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+            if (oldest.isEmpty()) {
+                break;
+            }
+            if (cursors.remove(oldest.get().getKey(), oldest.get().getValue())) {
+                logger.info("Closing query cursor {} to make room for a new one", oldest.get().getKey());
+                oldest.get().getValue().close();
+            }
+        }
+        if (cursor.token == null) {
+            cursor.token = UUID.randomUUID().toString();
+        }
+        cursor.lastUsed = System.nanoTime();
+        cursors.put(cursor.token, cursor);
+        return true;
+    }
+
+    /**
+     * Close cursors whose next page was not requested within the idle time
+     */
+    @Scheduled(fixedDelayString = "${query.cursor-sweep-interval-ms:30000}")
+    public void closeIdleCursors() {
+        long cutoff = System.nanoTime() - config.getCursorIdleSeconds() * 1_000_000_000L;
+        cursors.forEach((token, cursor) -> {
+            if (cursor.lastUsed - cutoff < 0 && cursors.remove(token, cursor)) {
+                logger.info("Closing idle query cursor {} after {} rows", token, cursor.rowsReturned);
+                cursor.close();
+            }
+        });
+    }
+
+    int openCursors() {
+        return cursors.size();
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        cursors.keySet().forEach(this::release);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.warn("Error closing database connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Bytes written so far, to enforce the byte cap on the serialized response
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
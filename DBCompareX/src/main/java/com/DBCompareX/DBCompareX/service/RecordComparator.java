@@ -0,0 +1,126 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.util.ColumnSemantics;
+import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Builds record keys and decides, field by field, whether matched records differ.
+ * This is the only place where "same" and "different" are decided; reports render its verdicts.
+ */
+@Component
+public class RecordComparator {
+
+    /**
+     * Builds the column layout of a table from one source and one target record
+     */
+    public ColumnLayout createLayout(Map<String, Object> sourceRecord, Map<String, Object> targetRecord) {
+        List<String> columns = new ArrayList<>(sourceRecord.keySet());
+        columns.addAll(targetRecord.keySet());
+        return new ColumnLayout(columns);
+    }
+
+    /**
+     * Builds the difference entry handed to the report and the result store
+     */
+    public Map<String, Object> createDifferenceRecord(String table, String key, Map<String, Object> sourceRecord,
+                                                      Map<String, Object> targetRecord, FieldVerdicts verdicts) {
+        Map<String, Object> diffRecord = new HashMap<>();
+        diffRecord.put("table", table);
+        diffRecord.put("key", key);
+        diffRecord.put("source_record", sourceRecord);
+        diffRecord.put("target_record", targetRecord);
+        diffRecord.put("verdicts", verdicts);
+        return diffRecord;
+    }
+
+    /**
+     * Compares individual fields between two records, normalizing each value exactly once
+     */
+    public FieldVerdicts compareRecordFields(ColumnLayout layout, Map<String, Object> sourceRecord,
+                                             Map<String, Object> targetRecord) {
+        return compareFields(layout, sourceRecord, targetRecord, true);
+    }
+
+    /**
+     * Compares individual fields of two records whose values are already normalized
+     */
+    public FieldVerdicts compareNormalizedFields(ColumnLayout layout, Map<String, Object> sourceRecord,
+                                                 Map<String, Object> targetRecord) {
+        return compareFields(layout, sourceRecord, targetRecord, false);
+    }
+
+    private FieldVerdicts compareFields(ColumnLayout layout, Map<String, Object> sourceRecord,
+                                        Map<String, Object> targetRecord, boolean normalize) {
+        int size = layout.size();
+        BitSet differences = new BitSet(size);
+        Object[] sourceValues = new Object[size];
+        Object[] targetValues = new Object[size];
+
+        for (int i = 0; i < size; i++) {
+            String field = layout.getColumn(i);
+            ColumnSemantics semantics = layout.getSemantics(i);
+            Object sourceValue = sourceRecord.get(field);
+            Object targetValue = targetRecord.get(field);
+            if (normalize) {
+                sourceValue = NormalizationUtils.normalizeValue(sourceValue);
+                targetValue = NormalizationUtils.normalizeValue(targetValue);
+            }
+
+            // Semantics only shape the display values; the verdict is strict equality of normalized values
+            if (!sameValue(sourceValue, targetValue)) {
+                differences.set(i);
+            }
+            sourceValues[i] = semantics.toDisplay(sourceValue);
+            targetValues[i] = semantics.toDisplay(targetValue);
+        }
+
+        return new FieldVerdicts(layout, differences, sourceValues, targetValues);
+    }
+
+    /**
+     * Normalized values are equal, with numbers compared by value so that 42 and 42.0 from different
+     * drivers' types match. The Spark engine applies the same rule to its joined rows
+     */
+    static boolean sameValue(Object sourceValue, Object targetValue) {
+        if (Objects.equals(sourceValue, targetValue)) {
+            return true;
+        }
+        if (sourceValue instanceof Number && targetValue instanceof Number) {
+            try {
+                return new BigDecimal(sourceValue.toString()).compareTo(new BigDecimal(targetValue.toString())) == 0;
+            } catch (NumberFormatException e) {
+                // NaN and infinities are only equal to themselves
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds a composite key from multiple columns
+     */
+    public String buildCompositeKey(Map<String, Object> record, List<String> keyColumns) {
+        if (keyColumns == null || keyColumns.isEmpty() || record == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder();
+        for (String column : keyColumns) {
+            Object value = record.get(column);
+            if (value != null) {
+                if (key.length() > 0) {
+                    key.append(":");
+                }
+                // Normalize the value before building the composite key
+                value = NormalizationUtils.normalizeValue(value);
+                key.append(value.toString());
+            }
+        }
+        return key.length() > 0 ? key.toString() : null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Stores generated reports per comparison job and removes them once their retention expires.
+ */
+@Service
+public class ReportStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportStorageService.class);
+
+    private final ReportStorageConfig config;
+    private final Path storageRoot;
+
+    @Autowired
+    public ReportStorageService(ReportStorageConfig config) {
+        this.config = config;
+        this.storageRoot = Paths.get(config.getStorageDir()).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(storageRoot);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create report storage directory: " + storageRoot, e);
+        }
+        logger.info("Reports stored in {} with a retention of {} minutes", storageRoot, config.getRetentionMinutes());
+    }
+
+    /**
+     * Allocate a new job ID together with its storage directory
+     */
+    public String newJobId() {
+        String jobId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(storageRoot.resolve(jobId));
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create report directory for job " + jobId, e);
+        }
+        return jobId;
+    }
+
+    /**
+     * Output path for a report file belonging to the given job
+     */
+    public String getOutputPath(String jobId, String fileName) {
+        return resolveJobDirectory(jobId).resolve(fileName).toString();
+    }
+
+    /**
+     * Directory holding all outputs of the given job
+     */
+    public Path getJobDirectory(String jobId) {
+        return resolveJobDirectory(jobId);
+    }
+
+    /**
+     * Find the most recently written report of a job, if it is still retained; subdirectories such as the
+     * result store and the checkpoint hold no reports
+     */
+    public Optional<File> findReport(String jobId) {
+        Path jobDir;
+        try {
+            jobDir = resolveJobDirectory(jobId);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected report lookup for invalid job ID: {}", jobId);
+            return Optional.empty();
+        }
+        if (!Files.isDirectory(jobDir)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.list(jobDir)) {
+            return files.filter(Files::isRegularFile)
+                    .max(Comparator.comparing(this::lastModified))
+                    .map(Path::toFile);
+        } catch (IOException e) {
+            logger.error("Error listing reports for job {}: {}", jobId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Whether the file is a text format that benefits from on-the-fly compression
+     */
+    public boolean isCompressible(File file) {
+        String name = file.getName();
+        int dotIndex = name.lastIndexOf('.');
+        if (dotIndex < 0) {
+            return false;
+        }
+        String extension = name.substring(dotIndex + 1).toLowerCase();
+        return config.getCompressibleExtensions().contains(extension);
+    }
+
+    /**
+     * Delete job directories whose newest file is older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${report.cleanup-interval-ms:600000}")
+    public void purgeExpiredReports() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(config.getRetentionMinutes()));
+        try (Stream<Path> jobDirs = Files.list(storageRoot)) {
+            jobDirs.filter(Files::isDirectory)
+                    .filter(dir -> newestModification(dir).toInstant().isBefore(cutoff))
+                    .forEach(this::deleteRecursively);
+        } catch (IOException e) {
+            logger.error("Error purging expired reports: {}", e.getMessage());
+        }
+    }
+
+    private Path resolveJobDirectory(String jobId) {
+        try {
+            // Job IDs are UUIDs; parsing them rules out path traversal through the ID
+            UUID.fromString(jobId);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid job ID: " + jobId);
+        }
+        return storageRoot.resolve(jobId);
+    }
+
+    private FileTime newestModification(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.map(this::lastModified).max(Comparator.naturalOrder()).orElse(lastModified(dir));
+        } catch (IOException e) {
+            return lastModified(dir);
+        }
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    logger.warn("Could not delete expired report file {}: {}", path, e.getMessage());
+                }
+            });
+            logger.info("Purged expired reports in {}", dir.getFileName());
+        } catch (IOException e) {
+            logger.warn("Could not purge report directory {}: {}", dir, e.getMessage());
+        }
+    }
+}
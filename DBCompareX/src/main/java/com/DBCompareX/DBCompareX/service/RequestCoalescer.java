@@ -0,0 +1,242 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.CoalescingConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Single-flight execution of comparison and discovery requests. Identical requests that arrive while
+ * one is running wait for its result instead of querying the databases again, and finished results
+ * serve repeats for a short time.
+ * <p>
+ * Requests are identified by a SHA-256 of their canonical form: endpoints, schema filters, options and
+ * mappings with their own connections in a fixed order, with names lower-cased. Passwords are not part
+ * of it in clear text; an HMAC of each password under a secret generated at startup is, so only callers
+ * that authenticate the same way share a result, and the key cannot be tested against guessed passwords
+ * outside this process.
+ */
+@Service
+public class RequestCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private final CoalescingConfig config;
+    private final MeterRegistry registry;
+    private final SecretKeySpec secret;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> results = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestCoalescer(CoalescingConfig config, MeterRegistry registry) {
+        this.config = config;
+        this.registry = registry;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.secret = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    private static final class CachedResult {
+        private final Object value;
+        private final long expiresAt;
+
+        private CachedResult(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Canonical key of an operation on a request, e.g. compare or tables
+     */
+    public String requestKey(String operation, ComparisonRequest request) {
+        List<String> parts = new ArrayList<>();
+        parts.add(operation);
+        addEndpoint(parts, request.getSourceDbType(), request.getSourceHost(), request.getSourcePort(),
+                request.getSourceDbName(), request.getSourceUsername(), request.getSourcePassword(),
+                request.getSourceSchemaFilter());
+        addEndpoint(parts, request.getTargetDbType(), request.getTargetHost(), request.getTargetPort(),
+                request.getTargetDbName(), request.getTargetUsername(), request.getTargetPassword(),
+                request.getTargetSchemaFilter());
+        parts.add(String.valueOf(request.getMaxTables()));
+        parts.add(String.valueOf(request.getEngineMode()));
+        parts.add(String.valueOf(request.isSchemaGate()));
+        if (request.getTableMappings() != null) {
+            List<String> mappings = new ArrayList<>();
+            for (TableMapping mapping : request.getTableMappings()) {
+                // Quoted identifiers are case-sensitive, so table and column names are kept as given
+                mappings.add(mapping.getSourceTable() + "->" + mapping.getTargetTable() + " key "
+                        + (mapping.getKeyColumns() != null ? String.join(",", mapping.getKeyColumns()) : "")
+                        + " " + mapping.getKeyStrategy()
+                        + " where " + filterKey(mapping.getSourceFilter()) + " / " + filterKey(mapping.getTargetFilter())
+                        + " on " + connectionKey(mapping));
+            }
+            // The order of the selected tables does not change the report
+            Collections.sort(mappings);
+            parts.addAll(mappings);
+        }
+        return sha256(parts);
+    }
+
+    private static String filterKey(RowFilter filter) {
+        return filter == null || filter.getWhere() == null ? ""
+                : filter.getWhere().trim() + " " + filter.getParameters();
+    }
+
+    /**
+     * Connection of a mapping that overrides the request's; a mapping without a source type uses the
+     * request's connections for both sides, which are already part of the key
+     */
+    private String connectionKey(TableMapping mapping) {
+        if (mapping.getSourceDbType() == null) {
+            return "";
+        }
+        List<String> parts = new ArrayList<>();
+        addEndpoint(parts, mapping.getSourceDbType(), mapping.getSourceHost(), mapping.getSourcePort(),
+                mapping.getSourceDbName(), mapping.getSourceUsername(), mapping.getSourcePassword(), null);
+        addEndpoint(parts, mapping.getTargetDbType(), mapping.getTargetHost(), mapping.getTargetPort(),
+                mapping.getTargetDbName(), mapping.getTargetUsername(), mapping.getTargetPassword(), null);
+        return sha256(parts);
+    }
+
+    private void addEndpoint(List<String> parts, String dbType, String host, int port, String dbName,
+                             String username, String password, String schemaFilter) {
+        parts.add(lower(dbType));
+        parts.add(lower(host));
+        parts.add(String.valueOf(port));
+        parts.add(dbName);
+        parts.add(String.valueOf(username));
+        parts.add(passwordHmac(password));
+        parts.add(schemaFilter != null && !schemaFilter.trim().isEmpty() ? schemaFilter.trim() : "");
+    }
+
+    private String passwordHmac(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(secret);
+            return hex(mac.doFinal(String.valueOf(password).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static String sha256(List<String> parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                // Length prefixes keep ("ab", "c") and ("a", "bc") apart
+                byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+            return hex(digest.digest());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase() : "";
+    }
+
+    /**
+     * Run the call unless an identical request is in flight or finished recently, in which case its
+     * result is returned. Failures are passed to every waiting caller but never cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Callable<T> call) throws Exception {
+        if (!config.isEnabled()) {
+            return call.call();
+        }
+        CachedResult cached = results.get(key);
+        if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+            count(operation, "cached");
+            logger.info("Serving {} request {} from the result cache", operation, shortKey(key));
+            return (T) cached.value;
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            count(operation, "joined");
+            logger.info("Joining {} request {} already in flight", operation, shortKey(key));
+            try {
+                return (T) running.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            // An identical request may have finished between the cache lookup and taking the flight
+            cached = results.get(key);
+            if (cached != null && cached.expiresAt - System.nanoTime() > 0) {
+                count(operation, "cached");
+                flight.complete(cached.value);
+                return (T) cached.value;
+            }
+            count(operation, "executed");
+            T value = call.call();
+            if (config.getResultTtlSeconds() > 0) {
+                cache(key, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private void cache(String key, Object value) {
+        long now = System.nanoTime();
+        results.entrySet().removeIf(entry -> entry.getValue().expiresAt - now <= 0);
+        while (results.size() >= config.getMaxCachedResults() && !results.isEmpty()) {
+            results.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().expiresAt))
+                    .ifPresent(entry -> results.remove(entry.getKey(), entry.getValue()));
+        }
+        if (config.getMaxCachedResults() > 0) {
+            results.put(key, new CachedResult(value, now + config.getResultTtlSeconds() * 1_000_000_000L));
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("dbcomparex.requests")
+                .description("Comparison and discovery requests by how they were served")
+                .tags("operation", operation, "outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    private static String shortKey(String key) {
+        return key.substring(0, Math.min(12, key.length()));
+    }
+}
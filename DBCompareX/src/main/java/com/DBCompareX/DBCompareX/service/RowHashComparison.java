@@ -0,0 +1,289 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeylessConfig;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+import com.DBCompareX.DBCompareX.dialect.TypedColumn;
+import com.DBCompareX.DBCompareX.util.SqlPredicates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Compares a table without a usable key as a multiset of rows. Each database computes
+ * GROUP BY row_hash, COUNT(*) over its rows; the sorted (hash, count) streams are merged here,
+ * and full rows are fetched only for hashes whose counts differ. Duplicate rows are counted
+ * instead of overwriting each other.
+ */
+@Service
+public class RowHashComparison {
+    private static final Logger logger = LoggerFactory.getLogger(RowHashComparison.class);
+    // Column holding the row hash in fetched rows; also the record key of unmatched rows
+    static final String ROW_HASH = "row_hash";
+
+    private final KeylessConfig config;
+    private final ComparisonMetrics metrics;
+
+    @Autowired
+    public RowHashComparison(KeylessConfig config, ComparisonMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Opens a connection to one side of the comparison
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * One side of a keyless or key-first comparison: dialect, table as used in a FROM clause, its
+     * connections and an optional row filter applied by the database to every query of the side
+     */
+    public static final class Side {
+        final Dialect dialect;
+        final String table;
+        final ConnectionSource connections;
+        final RowFilter filter;
+
+        public Side(Dialect dialect, String table, ConnectionSource connections) {
+            this(dialect, table, connections, null);
+        }
+
+        public Side(Dialect dialect, String table, ConnectionSource connections, RowFilter filter) {
+            this.dialect = dialect;
+            this.table = table;
+            this.connections = connections;
+            this.filter = filter;
+        }
+    }
+
+    /**
+     * Compare the mapping's key columns, which are all common columns for keyless tables.
+     * Results have the same shape as {@link ComparisonPipeline#compareTable}; differences is always
+     * empty because rows without a key cannot be paired.
+     */
+    public Map<String, Object> compareTable(TableMapping mapping, Side source, Side target,
+                                            DiffResultStore.Writer writer) throws SQLException {
+        List<String> columns = mapping.getKeyColumns();
+        String table = mapping.getSourceTable();
+        String dialect = ComparisonMetrics.dialect(mapping.getSourceDbType(), mapping.getTargetDbType());
+        if (!source.dialect.rowHashConstruction().equals(target.dialect.rowHashConstruction())) {
+            throw new IllegalArgumentException("Row hashes of " + source.dialect.name() + " and "
+                    + target.dialect.name() + " are built differently and never match; compare table " + table
+                    + " on a key or on all common columns");
+        }
+        if (!source.dialect.name().equalsIgnoreCase(target.dialect.name())) {
+            logger.warn("Keyless comparison of {} across {}: rows only match if both databases render "
+                    + "their values as the same text", table, dialect);
+        }
+        ComparisonEvents.TableComparison event = new ComparisonEvents.TableComparison();
+        event.begin();
+        long started = System.nanoTime();
+
+        // hash -> {source count, target count} of the hashes that differ
+        Map<String, long[]> differing = new LinkedHashMap<>();
+        long exactMatches = 0;
+        long pairs = 0;
+        long sourceOnlyRows = 0;
+        long targetOnlyRows = 0;
+        long unfetched = 0;
+        String sourceHash;
+        String targetHash;
+        try (Connection sourceConn = source.connections.open();
+             Connection targetConn = target.connections.open()) {
+            // Each side renders its values for the hash by the types its own driver reports
+            sourceHash = source.dialect.rowHashExpression(TypedColumn.read(sourceConn, source.dialect, source.table,
+                    columns));
+            targetHash = target.dialect.rowHashExpression(TypedColumn.read(targetConn, target.dialect, target.table,
+                    columns));
+            try (HashCounts sourceCounts = new HashCounts(sourceConn, source, sourceHash);
+                 HashCounts targetCounts = new HashCounts(targetConn, target, targetHash)) {
+                sourceCounts.next();
+                targetCounts.next();
+                while (sourceCounts.hash != null || targetCounts.hash != null) {
+                    int order = sourceCounts.hash == null ? 1
+                            : targetCounts.hash == null ? -1 : sourceCounts.hash.compareTo(targetCounts.hash);
+                    String hash = order <= 0 ? sourceCounts.hash : targetCounts.hash;
+                    long sourceCount = order <= 0 ? sourceCounts.count : 0;
+                    long targetCount = order >= 0 ? targetCounts.count : 0;
+                    exactMatches += Math.min(sourceCount, targetCount);
+                    if (sourceCount != targetCount) {
+                        sourceOnlyRows += Math.max(0, sourceCount - targetCount);
+                        targetOnlyRows += Math.max(0, targetCount - sourceCount);
+                        if (differing.size() < config.getMaxFetchedHashes()) {
+                            differing.put(hash, new long[]{sourceCount, targetCount});
+                        } else {
+                            unfetched++;
+                        }
+                    }
+                    if (order <= 0) {
+                        sourceCounts.next();
+                        pairs++;
+                    }
+                    if (order >= 0) {
+                        targetCounts.next();
+                        pairs++;
+                    }
+                }
+            }
+        }
+        long countNanos = System.nanoTime() - started;
+        if (unfetched > 0) {
+            logger.warn("{} further differing row hashes of table {} are counted but not fetched", unfetched, table);
+        }
+
+        long fetchStarted = System.nanoTime();
+        List<Map<String, Object>> unmatchedSource = fetchExcessRows(source, columns, sourceHash, differing, 0);
+        List<Map<String, Object>> unmatchedTarget = fetchExcessRows(target, columns, targetHash, differing, 1);
+        long fetchNanos = System.nanoTime() - fetchStarted;
+        if (writer != null) {
+            for (Map<String, Object> row : unmatchedSource) {
+                writer.writeUnmatched(table, (String) row.get(ROW_HASH), DiffRow.KIND_SOURCE_ONLY, row);
+            }
+            for (Map<String, Object> row : unmatchedTarget) {
+                writer.writeUnmatched(table, (String) row.get(ROW_HASH), DiffRow.KIND_TARGET_ONLY, row);
+            }
+            writer.addExactMatches(table, exactMatches);
+        }
+
+        long rowsExtracted = pairs + unmatchedSource.size() + unmatchedTarget.size();
+        metrics.recordPhase(ComparisonMetrics.PHASE_COMPARE, dialect, table, countNanos + fetchNanos);
+        metrics.recordThroughput(dialect, table, 2 * exactMatches + sourceOnlyRows + targetOnlyRows,
+                System.nanoTime() - started);
+        metrics.recordDifferences(dialect, table, 0, sourceOnlyRows, targetOnlyRows);
+        if (event.shouldCommit()) {
+            event.table = table;
+            event.dialect = dialect;
+            event.rows = rowsExtracted;
+            event.sourceOnly = sourceOnlyRows;
+            event.targetOnly = targetOnlyRows;
+            event.commit();
+        }
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("differences", new ArrayList<Map<String, Object>>());
+        results.put("unmatched_source", unmatchedSource);
+        results.put("unmatched_target", unmatchedTarget);
+        results.put("exact_matches", (int) exactMatches);
+        results.put("rows_extracted", rowsExtracted);
+        results.put("source_only_rows", sourceOnlyRows);
+        results.put("target_only_rows", targetOnlyRows);
+        results.put("unfetched_hashes", unfetched);
+        Map<String, Long> phaseNanos = new LinkedHashMap<>();
+        phaseNanos.put("hashCounts", countNanos);
+        phaseNanos.put("fetchRows", fetchNanos);
+        results.put("phase_nanos", phaseNanos);
+
+        logger.info("Keyless results for table {}: {} hash counts read, {} rows in both, {} only in source, "
+                + "{} only in target", table, pairs, exactMatches, sourceOnlyRows, targetOnlyRows);
+        return results;
+    }
+
+    /**
+     * Fetch rows for the hashes this side has more of, returning each row as often as it is in excess
+     */
+    private List<Map<String, Object>> fetchExcessRows(Side side, List<String> columns, String hashExpression,
+                                                      Map<String, long[]> differing, int sideIndex)
+            throws SQLException {
+        Map<String, Long> excess = new HashMap<>();
+        differing.forEach((hash, counts) -> {
+            long surplus = counts[sideIndex] - counts[1 - sideIndex];
+            if (surplus > 0) {
+                excess.put(hash, surplus);
+            }
+        });
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (excess.isEmpty()) {
+            return rows;
+        }
+
+        List<String> hashes = new ArrayList<>(excess.keySet());
+        try (Connection conn = side.connections.open()) {
+            for (int from = 0; from < hashes.size(); from += config.getFetchBatchSize()) {
+                List<String> batch = hashes.subList(from, Math.min(hashes.size(), from + config.getFetchBatchSize()));
+                String query = "SELECT " + columns.stream().map(side.dialect::identifier)
+                        .collect(Collectors.joining(", ")) + ", " + hashExpression + " AS " + ROW_HASH
+                        + " FROM " + side.table + " WHERE " + hashExpression + " IN ("
+                        + batch.stream().map(hash -> "?").collect(Collectors.joining(", ")) + ")"
+                        + SqlPredicates.and(side.filter);
+                try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                    for (int i = 0; i < batch.size(); i++) {
+                        stmt.setString(i + 1, batch.get(i));
+                    }
+                    SqlPredicates.bind(stmt, side.filter, batch.size() + 1);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            String hash = rs.getString(columns.size() + 1);
+                            Long remaining = excess.get(hash);
+                            if (remaining == null || remaining == 0) {
+                                continue;
+                            }
+                            excess.put(hash, remaining - 1);
+                            Map<String, Object> row = new LinkedHashMap<>();
+                            for (int i = 0; i < columns.size(); i++) {
+                                row.put(columns.get(i), rs.getObject(i + 1));
+                            }
+                            row.put(ROW_HASH, hash);
+                            rows.add(row);
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Sorted (hash, count) stream of one side
+     */
+    private final class HashCounts implements AutoCloseable {
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final String table;
+        private String hash;
+        private long count;
+
+        private HashCounts(Connection conn, Side side, String hashExpression) throws SQLException {
+            this.table = side.table;
+            this.stmt = conn.prepareStatement("SELECT " + ROW_HASH + ", COUNT(*) FROM (SELECT "
+                    + hashExpression + " AS " + ROW_HASH + " FROM " + side.table
+                    + SqlPredicates.where(side.filter) + ") h GROUP BY " + ROW_HASH + " ORDER BY " + ROW_HASH,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            stmt.setFetchSize(config.getFetchSize());
+            SqlPredicates.bind(stmt, side.filter, 1);
+            this.rs = stmt.executeQuery();
+        }
+
+        private void next() throws SQLException {
+            String previous = hash;
+            if (!rs.next()) {
+                hash = null;
+                return;
+            }
+            hash = rs.getString(1);
+            count = rs.getLong(2);
+            if (previous != null && previous.compareTo(hash) >= 0) {
+                throw new IllegalStateException("Row hashes of " + table + " are not returned in ascending order");
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                rs.close();
+            } finally {
+                stmt.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.DeltaConfig;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Run-to-run delta of comparison results. The result rows of a job are reduced to a compressed file of
+ * (table, key, kind, fingerprint) entries sorted by table and key, built with an external merge sort.
+ * Two jobs are then compared in one streaming merge of their files: keys only in the newer job are new,
+ * keys only in the older job are resolved, and keys in both persist, changed when their kind or values
+ * differ. Neither side is held in memory, so deltas scale to millions of differences.
+ */
+@Service
+public class RunDeltaService {
+    private static final Logger logger = LoggerFactory.getLogger(RunDeltaService.class);
+
+    private static final String DELTA_DIRECTORY = "delta";
+    private static final String FINGERPRINT_FILE = "fingerprints.bin";
+    private static final int MAGIC = 0x44435846;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] KINDS = {DiffRow.KIND_DIFFERENCE, DiffRow.KIND_SOURCE_ONLY, DiffRow.KIND_TARGET_ONLY};
+
+    public static final String NEW = "NEW";
+    public static final String RESOLVED = "RESOLVED";
+    public static final String PERSISTING = "PERSISTING";
+
+    private static final Comparator<Entry> KEY_ORDER = Comparator.<Entry, String>comparing(entry -> entry.table)
+            .thenComparing(entry -> entry.key);
+    private static final Comparator<Entry> FILE_ORDER = KEY_ORDER.thenComparingLong(entry -> entry.fingerprint)
+            .thenComparingInt(entry -> entry.kind);
+
+    private final DeltaConfig config;
+    private final ReportStorageService reportStorageService;
+    private final DiffResultStore diffResultStore;
+    private final RunHistoryStore runHistoryStore;
+
+    @Autowired
+    public RunDeltaService(DeltaConfig config, ReportStorageService reportStorageService,
+                           DiffResultStore diffResultStore, RunHistoryStore runHistoryStore) {
+        this.config = config;
+        this.reportStorageService = reportStorageService;
+        this.diffResultStore = diffResultStore;
+        this.runHistoryStore = runHistoryStore;
+    }
+
+    /**
+     * The given base job, or else the previous run of the job's scheduled profile
+     */
+    public String resolveBaseJobId(String jobId, String baseJobId) {
+        if (baseJobId != null && !baseJobId.trim().isEmpty()) {
+            return baseJobId.trim();
+        }
+        return runHistoryStore.previousJobId(jobId).orElseThrow(() -> new IllegalArgumentException(
+                "No previous run is known for job " + jobId + "; pass the job to compare with as baseJobId"));
+    }
+
+    /**
+     * New, resolved, persisting and changed counts per table, with the first entries of each status
+     */
+    public Map<String, Object> delta(String jobId, String baseJobId, String table, int samples) {
+        int limit = Math.max(0, Math.min(samples, config.getMaxSamples()));
+        Map<String, long[]> counts = new TreeMap<>();
+        Map<String, List<Map<String, Object>>> sampled = new LinkedHashMap<>();
+        sampled.put("new", new ArrayList<>());
+        sampled.put("resolved", new ArrayList<>());
+        sampled.put("changed", new ArrayList<>());
+
+        merge(jobId, baseJobId, table, (status, current, base) -> {
+            Entry entry = current != null ? current : base;
+            long[] tableCounts = counts.computeIfAbsent(entry.table, t -> new long[4]);
+            boolean changed = isChanged(current, base);
+            List<Map<String, Object>> samplesOfStatus;
+            if (NEW.equals(status)) {
+                tableCounts[0]++;
+                samplesOfStatus = sampled.get("new");
+            } else if (RESOLVED.equals(status)) {
+                tableCounts[1]++;
+                samplesOfStatus = sampled.get("resolved");
+            } else {
+                tableCounts[2]++;
+                if (changed) {
+                    tableCounts[3]++;
+                }
+                samplesOfStatus = changed ? sampled.get("changed") : null;
+            }
+            if (samplesOfStatus != null && samplesOfStatus.size() < limit) {
+                samplesOfStatus.add(describe(status, current, base));
+            }
+        });
+
+        long[] totals = new long[4];
+        List<Map<String, Object>> tables = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            long[] tableCounts = entry.getValue();
+            Map<String, Object> tableDelta = new LinkedHashMap<>();
+            tableDelta.put("table", entry.getKey());
+            putCounts(tableDelta, tableCounts);
+            tables.add(tableDelta);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += tableCounts[i];
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", jobId);
+        result.put("baseJobId", baseJobId);
+        putCounts(result, totals);
+        result.put("tables", tables);
+        result.put("samples", sampled);
+        return result;
+    }
+
+    /**
+     * Write every delta entry of the given statuses as CSV; all statuses when none are given
+     */
+    public void export(String jobId, String baseJobId, String table, Set<String> statuses, OutputStream out)
+            throws IOException {
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("table,key,status,changed,kind,base_kind\n");
+        try {
+            merge(jobId, baseJobId, table, (status, current, base) -> {
+                if (statuses != null && !statuses.isEmpty() && !statuses.contains(status)) {
+                    return;
+                }
+                Entry entry = current != null ? current : base;
+                try {
+                    writer.write(csv(entry.table) + "," + csv(entry.key) + "," + status + ","
+                            + isChanged(current, base) + "," + (current != null ? KINDS[current.kind] : "") + ","
+                            + (base != null ? KINDS[base.kind] : "") + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Build the job's fingerprint file now so later deltas do not pay for it; failures are only logged
+     */
+    public void capture(String jobId) {
+        try {
+            fingerprints(jobId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not capture result fingerprints of job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Sorted fingerprint file of a job, built from its stored results when missing or out of date
+     */
+    Path fingerprints(String jobId) {
+        if (!diffResultStore.exists(jobId)) {
+            throw new IllegalArgumentException("No comparison results stored for job: " + jobId);
+        }
+        Path file = reportStorageService.getJobDirectory(jobId).resolve(DELTA_DIRECTORY).resolve(FINGERPRINT_FILE);
+        long generation = diffResultStore.getGeneration(jobId);
+        if (Files.exists(file)) {
+            try (EntryReader reader = new EntryReader(file)) {
+                if (reader.generation == generation) {
+                    return file;
+                }
+            } catch (IOException e) {
+                logger.warn("Rebuilding unreadable fingerprints of job {}: {}", jobId, e.getMessage());
+            }
+        }
+        try {
+            build(jobId, file, generation);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to build result fingerprints: " + e.getMessage(), e);
+        }
+        return file;
+    }
+
+    /**
+     * Sort the job's result rows in chunks, spill each sorted chunk, and merge the chunks into the file
+     */
+    private void build(String jobId, Path file, long generation) throws IOException {
+        long started = System.nanoTime();
+        Path directory = file.getParent();
+        Files.createDirectories(directory);
+        List<Path> runs = new ArrayList<>();
+        List<Entry> chunk = new ArrayList<>();
+        int chunkSize = Math.max(1, config.getSortChunkSize());
+        Path temp = Files.createTempFile(directory, FINGERPRINT_FILE, ".tmp");
+        try {
+            try {
+                diffResultStore.scanFingerprints(jobId, (table, key, kind, fingerprint) -> {
+                    chunk.add(new Entry(table, key, kindCode(kind), fingerprint));
+                    if (chunk.size() >= chunkSize) {
+                        try {
+                            runs.add(writeRun(directory, chunk));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        chunk.clear();
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            long entries;
+            if (runs.isEmpty()) {
+                chunk.sort(FILE_ORDER);
+                entries = write(temp, generation, chunk.iterator());
+            } else {
+                if (!chunk.isEmpty()) {
+                    runs.add(writeRun(directory, chunk));
+                    chunk.clear();
+                }
+                entries = mergeRuns(runs, temp, generation);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.info("Built fingerprints of job {}: {} entries from {} sorted runs in {} ms", jobId, entries,
+                    Math.max(1, runs.size()), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            Files.deleteIfExists(temp);
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private Path writeRun(Path directory, List<Entry> chunk) throws IOException {
+        chunk.sort(FILE_ORDER);
+        Path run = Files.createTempFile(directory, "run", ".tmp");
+        write(run, -1, chunk.iterator());
+        return run;
+    }
+
+    private long mergeRuns(List<Path> runs, Path target, long generation) throws IOException {
+        List<EntryReader> readers = new ArrayList<>();
+        try {
+            PriorityQueue<EntryReader> heads = new PriorityQueue<>(
+                    (a, b) -> FILE_ORDER.compare(a.current, b.current));
+            for (Path run : runs) {
+                EntryReader reader = new EntryReader(run);
+                readers.add(reader);
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+            Iterator<Entry> merged = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return !heads.isEmpty();
+                }
+
+                @Override
+                public Entry next() {
+                    EntryReader reader = heads.poll();
+                    Entry entry = reader.current;
+                    try {
+                        if (reader.advance()) {
+                            heads.add(reader);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return entry;
+                }
+            };
+            try {
+                return write(target, generation, merged);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } finally {
+            for (EntryReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Stream both jobs' files in key order and classify every key; duplicates of a key pair up in order
+     */
+    private void merge(String jobId, String baseJobId, String table, DeltaVisitor visitor) {
+        Path currentFile = fingerprints(jobId);
+        Path baseFile = fingerprints(baseJobId);
+        try (EntryReader current = new EntryReader(currentFile); EntryReader base = new EntryReader(baseFile)) {
+            boolean hasCurrent = advance(current, table);
+            boolean hasBase = advance(base, table);
+            while (hasCurrent || hasBase) {
+                int order = !hasCurrent ? 1 : !hasBase ? -1 : KEY_ORDER.compare(current.current, base.current);
+                if (order < 0) {
+                    visitor.visit(NEW, current.current, null);
+                    hasCurrent = advance(current, table);
+                } else if (order > 0) {
+                    visitor.visit(RESOLVED, null, base.current);
+                    hasBase = advance(base, table);
+                } else {
+                    visitor.visit(PERSISTING, current.current, base.current);
+                    hasCurrent = advance(current, table);
+                    hasBase = advance(base, table);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read result fingerprints: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean advance(EntryReader reader, String table) throws IOException {
+        while (reader.advance()) {
+            if (table == null || table.equals(reader.current.table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isChanged(Entry current, Entry base) {
+        return current != null && base != null
+                && (current.kind != base.kind || current.fingerprint != base.fingerprint);
+    }
+
+    private static Map<String, Object> describe(String status, Entry current, Entry base) {
+        Entry entry = current != null ? current : base;
+        Map<String, Object> described = new LinkedHashMap<>();
+        described.put("table", entry.table);
+        described.put("key", entry.key);
+        described.put("status", status);
+        if (current != null) {
+            described.put("kind", KINDS[current.kind]);
+        }
+        if (base != null) {
+            described.put("baseKind", KINDS[base.kind]);
+        }
+        return described;
+    }
+
+    private static void putCounts(Map<String, Object> target, long[] counts) {
+        target.put("new", counts[0]);
+        target.put("resolved", counts[1]);
+        target.put("persisting", counts[2]);
+        target.put("changed", counts[3]);
+    }
+
+    private static byte kindCode(String kind) {
+        for (byte i = 0; i < KINDS.length; i++) {
+            if (KINDS[i].equals(kind)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unknown result kind: " + kind);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Write sorted entries; the table name is only written when it changes
+     */
+    private static long write(Path file, long generation, Iterator<Entry> entries) throws IOException {
+        long count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeLong(generation);
+            String table = null;
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                if (entry.table.equals(table)) {
+                    out.writeByte(0);
+                } else {
+                    out.writeByte(1);
+                    writeString(out, entry.table);
+                    table = entry.table;
+                }
+                writeString(out, entry.key);
+                out.writeByte(entry.kind);
+                out.writeLong(entry.fingerprint);
+                count++;
+            }
+            out.writeByte(2);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface DeltaVisitor {
+        void visit(String status, Entry current, Entry base);
+    }
+
+    private static final class Entry {
+        private final String table;
+        private final String key;
+        private final byte kind;
+        private final long fingerprint;
+
+        private Entry(String table, String key, byte kind, long fingerprint) {
+            this.table = table;
+            this.key = key;
+            this.kind = kind;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static final class EntryReader implements Closeable {
+        private final DataInputStream in;
+        private final long generation;
+        private String table;
+        private Entry current;
+        private boolean done;
+
+        private EntryReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a fingerprint file: " + file);
+                }
+                this.generation = in.readLong();
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        private boolean advance() throws IOException {
+            if (done) {
+                return false;
+            }
+            int tag = in.readByte();
+            if (tag == 2) {
+                done = true;
+                current = null;
+                return false;
+            }
+            if (tag == 1) {
+                table = readString(in);
+            }
+            String key = readString(in);
+            byte kind = in.readByte();
+            current = new Entry(table, key, kind, in.readLong());
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ScheduledComparisonConfig;
+import com.DBCompareX.DBCompareX.dao.entities.TableRunRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Per-table history of scheduled comparison runs in the application datasource. Every run adds one row
+ * per table with its counts, diff rate, duration and bytes read, inserted in batches; the trends compare
+ * each table's latest run with the median of its earlier runs so drift and throughput regressions stand out.
+ */
+@Service
+public class RunHistoryStore {
+    private static final Logger logger = LoggerFactory.getLogger(RunHistoryStore.class);
+
+    static final String TABLE = "dbcx_run_history";
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private static final String COLUMNS = "run_id, profile_name, job_id, run_trigger, table_name, status, started_at, "
+            + "duration_ms, rows_extracted, bytes_extracted, bytes_spilled, exact_matches, differences, "
+            + "unmatched_source, unmatched_target, diff_rate, rows_per_second, error_message";
+
+    private final ScheduledComparisonConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean schemaReady;
+
+    @Autowired
+    public RunHistoryStore(ScheduledComparisonConfig config, JdbcTemplate jdbcTemplate) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static final RowMapper<TableRunRecord> RECORD_MAPPER = (rs, rowNum) -> {
+        TableRunRecord record = new TableRunRecord();
+        record.setRunId(rs.getString("run_id"));
+        record.setProfileName(rs.getString("profile_name"));
+        record.setJobId(rs.getString("job_id"));
+        record.setTrigger(rs.getString("run_trigger"));
+        record.setTableName(rs.getString("table_name"));
+        record.setStatus(rs.getString("status"));
+        record.setStartedAt(rs.getLong("started_at"));
+        record.setDurationMillis(rs.getLong("duration_ms"));
+        record.setRowsExtracted(rs.getLong("rows_extracted"));
+        record.setBytesExtracted(rs.getLong("bytes_extracted"));
+        record.setBytesSpilled(rs.getLong("bytes_spilled"));
+        record.setExactMatches(rs.getLong("exact_matches"));
+        record.setDifferences(rs.getLong("differences"));
+        record.setUnmatchedSource(rs.getLong("unmatched_source"));
+        record.setUnmatchedTarget(rs.getLong("unmatched_target"));
+        record.setDiffRate(rs.getDouble("diff_rate"));
+        record.setRowsPerSecond(rs.getDouble("rows_per_second"));
+        record.setError(rs.getString("error_message"));
+        return record;
+    };
+
+    /**
+     * Insert the table records of a run in batches
+     */
+    public void record(List<TableRunRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        ensureSchema();
+        jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (" + COLUMNS + ") "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                records, Math.max(1, config.getHistoryBatchSize()), (ps, record) -> {
+                    ps.setString(1, record.getRunId());
+                    ps.setString(2, record.getProfileName());
+                    ps.setString(3, record.getJobId());
+                    ps.setString(4, record.getTrigger());
+                    ps.setString(5, record.getTableName());
+                    ps.setString(6, record.getStatus());
+                    ps.setLong(7, record.getStartedAt());
+                    ps.setLong(8, record.getDurationMillis());
+                    ps.setLong(9, record.getRowsExtracted());
+                    ps.setLong(10, record.getBytesExtracted());
+                    ps.setLong(11, record.getBytesSpilled());
+                    ps.setLong(12, record.getExactMatches());
+                    ps.setLong(13, record.getDifferences());
+                    ps.setLong(14, record.getUnmatchedSource());
+                    ps.setLong(15, record.getUnmatchedTarget());
+                    ps.setDouble(16, record.getDiffRate());
+                    ps.setDouble(17, record.getRowsPerSecond());
+                    String error = record.getError();
+                    ps.setString(18, error != null && error.length() > MAX_ERROR_LENGTH
+                            ? error.substring(0, MAX_ERROR_LENGTH) : error);
+                });
+        logger.debug("Recorded {} tables of run {} of profile {}", records.size(), records.get(0).getRunId(),
+                records.get(0).getProfileName());
+    }
+
+    /**
+     * Latest table records of a profile, newest first; a null table returns all tables
+     */
+    public List<TableRunRecord> history(String profileName, String tableName, int limit) {
+        ensureSchema();
+        return jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT " + COLUMNS + " FROM " + TABLE
+                    + " WHERE profile_name = ?" + (tableName != null ? " AND table_name = ?" : "")
+                    + " ORDER BY started_at DESC, table_name");
+            ps.setString(1, profileName);
+            if (tableName != null) {
+                ps.setString(2, tableName);
+            }
+            ps.setMaxRows(Math.max(1, limit));
+            return ps;
+        }, RECORD_MAPPER);
+    }
+
+    /**
+     * Latest runs of a profile, newest first, with their table counts and totals
+     */
+    public List<Map<String, Object>> runs(String profileName, int limit) {
+        ensureSchema();
+        return jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT run_id, job_id, run_trigger, started_at, "
+                    + "COUNT(*) AS table_count, SUM(CASE WHEN status = ? THEN 1 ELSE 0 END) AS failed_tables, "
+                    + "SUM(duration_ms) AS duration_ms, SUM(rows_extracted) AS rows_extracted, "
+                    + "SUM(bytes_extracted) AS bytes_extracted, SUM(differences) AS differences, "
+                    + "SUM(unmatched_source) AS unmatched_source, SUM(unmatched_target) AS unmatched_target "
+                    + "FROM " + TABLE + " WHERE profile_name = ? "
+                    + "GROUP BY run_id, job_id, run_trigger, started_at ORDER BY started_at DESC");
+            ps.setString(1, TableRunRecord.FAILED);
+            ps.setString(2, profileName);
+            ps.setMaxRows(Math.max(1, limit));
+            return ps;
+        }, (rs, rowNum) -> {
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("runId", rs.getString("run_id"));
+            run.put("jobId", rs.getString("job_id"));
+            run.put("trigger", rs.getString("run_trigger"));
+            run.put("startedAt", new Date(rs.getLong("started_at")));
+            run.put("tables", rs.getInt("table_count"));
+            run.put("failedTables", rs.getInt("failed_tables"));
+            run.put("durationMillis", rs.getLong("duration_ms"));
+            run.put("rowsExtracted", rs.getLong("rows_extracted"));
+            run.put("bytesExtracted", rs.getLong("bytes_extracted"));
+            run.put("differences", rs.getLong("differences"));
+            run.put("unmatchedSource", rs.getLong("unmatched_source"));
+            run.put("unmatchedTarget", rs.getLong("unmatched_target"));
+            return run;
+        });
+    }
+
+    /**
+     * Job of the run of the same profile before the given job's run, if the job ran from a profile
+     */
+    public Optional<String> previousJobId(String jobId) {
+        ensureSchema();
+        List<String> previous = jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT h.job_id FROM " + TABLE + " h JOIN "
+                    + "(SELECT DISTINCT profile_name, started_at FROM " + TABLE + " WHERE job_id = ?) r "
+                    + "ON h.profile_name = r.profile_name AND h.started_at < r.started_at "
+                    + "ORDER BY h.started_at DESC");
+            ps.setString(1, jobId);
+            ps.setMaxRows(1);
+            return ps;
+        }, (rs, rowNum) -> rs.getString(1));
+        return previous.stream().findFirst();
+    }
+
+    /**
+     * Per table of a profile: the completed runs of the latest {@code limit} runs, oldest first, and how the
+     * latest run's throughput and diff rate compare with the median of the earlier ones
+     */
+    public List<Map<String, Object>> trends(String profileName, int limit) {
+        ensureSchema();
+        int baselineRuns = Math.max(1, config.getTrendBaselineRuns());
+        // Start of the oldest run needed, so the first points shown still have a baseline
+        List<Long> starts = jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT DISTINCT started_at FROM " + TABLE
+                    + " WHERE profile_name = ? ORDER BY started_at DESC");
+            ps.setString(1, profileName);
+            ps.setMaxRows(Math.max(1, limit) + baselineRuns);
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+        if (starts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        long shownFrom = starts.get(Math.min(starts.size(), Math.max(1, limit)) - 1);
+        List<TableRunRecord> records = jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE
+                        + " WHERE profile_name = ? AND status = ? AND started_at >= ? ORDER BY table_name, started_at",
+                RECORD_MAPPER, profileName, TableRunRecord.COMPLETED, starts.get(starts.size() - 1));
+
+        Map<String, List<TableRunRecord>> byTable = new LinkedHashMap<>();
+        for (TableRunRecord record : records) {
+            byTable.computeIfAbsent(record.getTableName(), t -> new ArrayList<>()).add(record);
+        }
+        List<Map<String, Object>> trends = new ArrayList<>();
+        for (Map.Entry<String, List<TableRunRecord>> entry : byTable.entrySet()) {
+            List<TableRunRecord> runs = entry.getValue();
+            TableRunRecord latest = runs.get(runs.size() - 1);
+            List<TableRunRecord> earlier = runs.subList(Math.max(0, runs.size() - 1 - baselineRuns), runs.size() - 1);
+
+            Map<String, Object> trend = new LinkedHashMap<>();
+            trend.put("table", entry.getKey());
+            List<Map<String, Object>> points = new ArrayList<>();
+            for (TableRunRecord run : runs) {
+                if (run.getStartedAt() >= shownFrom) {
+                    points.add(point(run));
+                }
+            }
+            trend.put("runs", points);
+            trend.put("latestRowsPerSecond", latest.getRowsPerSecond());
+            trend.put("latestDiffRate", latest.getDiffRate());
+            if (earlier.isEmpty()) {
+                trend.put("regression", false);
+            } else {
+                double baseline = median(earlier, TableRunRecord::getRowsPerSecond);
+                double ratio = baseline > 0 ? latest.getRowsPerSecond() / baseline : 1.0;
+                trend.put("baselineRowsPerSecond", baseline);
+                trend.put("baselineDiffRate", median(earlier, TableRunRecord::getDiffRate));
+                trend.put("throughputRatio", ratio);
+                trend.put("diffRateChange", latest.getDiffRate() - earlier.get(earlier.size() - 1).getDiffRate());
+                trend.put("regression", ratio < config.getRegressionThreshold());
+            }
+            trends.add(trend);
+        }
+        return trends;
+    }
+
+    private static Map<String, Object> point(TableRunRecord run) {
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("runId", run.getRunId());
+        point.put("startedAt", new Date(run.getStartedAt()));
+        point.put("durationMillis", run.getDurationMillis());
+        point.put("rowsExtracted", run.getRowsExtracted());
+        point.put("bytesExtracted", run.getBytesExtracted());
+        point.put("rowsPerSecond", run.getRowsPerSecond());
+        point.put("differences", run.getDifferences());
+        point.put("diffRate", run.getDiffRate());
+        return point;
+    }
+
+    private static double median(List<TableRunRecord> runs, ToDoubleFunction<TableRunRecord> value) {
+        double[] values = runs.stream().mapToDouble(value).sorted().toArray();
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    /**
+     * Create the history table on first use
+     */
+    void ensureSchema() {
+        if (schemaReady) {
+            return;
+        }
+        synchronized (this) {
+            if (schemaReady) {
+                return;
+            }
+            String product = jdbcTemplate.execute((Connection conn) -> {
+                if (!tableExists(conn.getMetaData())) {
+                    return conn.getMetaData().getDatabaseProductName();
+                }
+                return null;
+            });
+            if (product != null) {
+                String bigint = product.toLowerCase().contains("oracle") ? "NUMBER(19)" : "BIGINT";
+                try {
+                    jdbcTemplate.execute("CREATE TABLE " + TABLE + " (run_id VARCHAR(36) NOT NULL, "
+                            + "profile_name VARCHAR(255) NOT NULL, job_id VARCHAR(64), run_trigger VARCHAR(16), "
+                            + "table_name VARCHAR(512) NOT NULL, status VARCHAR(16) NOT NULL, "
+                            + "started_at " + bigint + " NOT NULL, duration_ms " + bigint + ", "
+                            + "rows_extracted " + bigint + ", bytes_extracted " + bigint + ", "
+                            + "bytes_spilled " + bigint + ", exact_matches " + bigint + ", differences " + bigint + ", "
+                            + "unmatched_source " + bigint + ", unmatched_target " + bigint + ", "
+                            + "diff_rate DOUBLE PRECISION, rows_per_second DOUBLE PRECISION, "
+                            + "error_message VARCHAR(2000))");
+                    jdbcTemplate.execute("CREATE INDEX idx_" + TABLE + "_profile ON " + TABLE
+                            + " (profile_name, started_at)");
+                    logger.info("Created run history table {} on {}", TABLE, product);
+                } catch (DataAccessException e) {
+                    Boolean exists = jdbcTemplate.execute((Connection conn) -> tableExists(conn.getMetaData()));
+                    if (!Boolean.TRUE.equals(exists)) {
+                        throw e;
+                    }
+                }
+            }
+            schemaReady = true;
+        }
+    }
+
+    private static boolean tableExists(DatabaseMetaData metaData) throws SQLException {
+        for (String name : new String[] {TABLE, TABLE.toUpperCase()}) {
+            try (ResultSet rs = metaData.getTables(null, null, name, new String[] {"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,307 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ScheduledComparisonConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dao.entities.TableRunRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the named comparison profiles of {@link ScheduledComparisonConfig} on their cron schedules, or on
+ * demand, and writes each table's counts, diff rate and cost to the {@link RunHistoryStore}. A profile
+ * never runs twice at the same time; a due run is skipped while the previous one is still going.
+ */
+@Service
+public class ScheduledComparisonService {
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledComparisonService.class);
+    private static final String REPORT_NAME = "database_comparison_report.xlsx";
+
+    public static final String TRIGGER_SCHEDULE = "SCHEDULE";
+    public static final String TRIGGER_MANUAL = "MANUAL";
+
+    private final ScheduledComparisonConfig config;
+    private final ComparisonRunner comparisonRunner;
+    private final ReportStorageService reportStorageService;
+    private final DiffResultStore diffResultStore;
+    private final RunHistoryStore runHistoryStore;
+    private final RunDeltaService runDeltaService;
+    private final ObjectMapper objectMapper;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private ThreadPoolTaskScheduler taskScheduler;
+    private boolean started;
+
+    @Autowired
+    public ScheduledComparisonService(ScheduledComparisonConfig config, ComparisonRunner comparisonRunner,
+                                      ReportStorageService reportStorageService, DiffResultStore diffResultStore,
+                                      RunHistoryStore runHistoryStore, RunDeltaService runDeltaService,
+                                      ObjectMapper objectMapper) {
+        this.config = config;
+        this.comparisonRunner = comparisonRunner;
+        this.reportStorageService = reportStorageService;
+        this.diffResultStore = diffResultStore;
+        this.runHistoryStore = runHistoryStore;
+        this.runDeltaService = runDeltaService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Schedule the enabled profiles; an invalid cron expression or zone stops the startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!config.isEnabled() || started) {
+            return;
+        }
+        started = true;
+        config.getProfiles().forEach(this::validate);
+        int scheduled = 0;
+        for (Map.Entry<String, ScheduledComparisonConfig.Profile> entry : config.getProfiles().entrySet()) {
+            ScheduledComparisonConfig.Profile profile = entry.getValue();
+            if (profile.isEnabled()) {
+                String name = entry.getKey();
+                scheduler().schedule(() -> run(name, TRIGGER_SCHEDULE),
+                        new CronTrigger(profile.getCron(), zone(profile)));
+                scheduled++;
+            }
+        }
+        if (scheduled > 0) {
+            logger.info("Scheduled {} comparison profiles", scheduled);
+        }
+    }
+
+    /**
+     * Start a run of a profile now and return its job ID; the profile is claimed before the job ID is handed
+     * out, so of two concurrent calls one is rejected instead of silently skipped
+     */
+    public String runNow(String name) {
+        profile(name);
+        if (!running.add(name)) {
+            throw new IllegalStateException("Profile " + name + " is already running");
+        }
+        String jobId = reportStorageService.newJobId();
+        try {
+            scheduler().execute(() -> runClaimed(name, jobId, TRIGGER_MANUAL));
+        } catch (RuntimeException e) {
+            running.remove(name);
+            throw e;
+        }
+        return jobId;
+    }
+
+    /**
+     * Run a profile on the calling thread and record its tables; skipped while the profile is running.
+     * The job ID, and with it the job directory, is only allocated once the profile is claimed
+     */
+    void run(String name, String trigger) {
+        if (!running.add(name)) {
+            logger.warn("Skipping {} run of profile {}: the previous run has not finished", trigger, name);
+            return;
+        }
+        String jobId;
+        try {
+            jobId = reportStorageService.newJobId();
+        } catch (RuntimeException e) {
+            running.remove(name);
+            logger.error("Could not start {} run of profile {}: ", trigger, name, e);
+            return;
+        }
+        runClaimed(name, jobId, trigger);
+    }
+
+    /**
+     * Run a profile already claimed in {@link #running} and release it when done
+     */
+    private void runClaimed(String name, String jobId, String trigger) {
+        try {
+            ComparisonRequest request = profile(name).getRequest();
+            long startedAt = System.currentTimeMillis();
+            ExecutionProfile executionProfile = new ExecutionProfile();
+            String error = null;
+            logger.info("Running comparison profile {} as job {} ({})", name, jobId, trigger);
+            try {
+                comparisonRunner.compareAndGenerateReport(
+                        request.getSourceDbType(), request.getTargetDbType(),
+                        request.getSourceHost(), request.getSourcePort(), request.getSourceDbName(),
+                        request.getSourceUsername(), request.getSourcePassword(),
+                        request.getTargetHost(), request.getTargetPort(), request.getTargetDbName(),
+                        request.getTargetUsername(), request.getTargetPassword(),
+                        jobId, reportStorageService.getOutputPath(jobId, REPORT_NAME), copyMappings(request),
+                        request.getSourceSchemaFilter(), request.getTargetSchemaFilter(),
+                        request.getMaxTables(), request.getEngineMode(), executionProfile, request.getPriority());
+            } catch (RuntimeException e) {
+                logger.error("Comparison profile {} failed: ", name, e);
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+            runHistoryStore.record(records(name, jobId, trigger, startedAt, executionProfile, error));
+            if (diffResultStore.exists(jobId)) {
+                // Keys of this run are kept sorted so the next run's delta only reads two files
+                runDeltaService.capture(jobId);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Could not record run {} of profile {}: ", jobId, name, e);
+        } finally {
+            running.remove(name);
+        }
+    }
+
+    /**
+     * One history record per table the run reached; tables without stored results count as failed
+     */
+    List<TableRunRecord> records(String name, String jobId, String trigger, long startedAt,
+                                 ExecutionProfile executionProfile, String error) {
+        Map<String, Map<String, Object>> summaries = new LinkedHashMap<>();
+        if (diffResultStore.exists(jobId)) {
+            for (Map<String, Object> summary : diffResultStore.getTableSummaries(jobId)) {
+                summaries.put((String) summary.get("table"), summary);
+            }
+        }
+        Set<String> tables = new LinkedHashSet<>(executionProfile.getTables().keySet());
+        tables.addAll(summaries.keySet());
+        if (tables.isEmpty() && error != null) {
+            tables.add(ComparisonMetrics.ALL_TABLES);
+        }
+
+        String runId = UUID.randomUUID().toString();
+        List<TableRunRecord> records = new ArrayList<>();
+        for (String table : tables) {
+            TableRunRecord record = new TableRunRecord();
+            record.setRunId(runId);
+            record.setProfileName(name);
+            record.setJobId(jobId);
+            record.setTrigger(trigger);
+            record.setTableName(table);
+            record.setStartedAt(startedAt);
+
+            Map<String, Long> values = executionProfile.getTables().getOrDefault(table, Collections.emptyMap());
+            long duration = values.getOrDefault("metadataMillis", 0L) + values.getOrDefault("pipelineMillis", 0L);
+            long rows = values.getOrDefault("rowsExtracted", 0L);
+            record.setDurationMillis(duration);
+            record.setRowsExtracted(rows);
+            record.setBytesExtracted(values.getOrDefault("bytesExtracted", 0L));
+            record.setBytesSpilled(values.getOrDefault("bytesSpilled", 0L));
+            record.setRowsPerSecond(duration > 0 ? rows * 1000.0 / duration : 0);
+
+            Map<String, Object> summary = summaries.get(table);
+            if (summary != null) {
+                record.setStatus(TableRunRecord.COMPLETED);
+                record.setExactMatches(((Number) summary.get("exact_matches")).longValue());
+                record.setDifferences(((Number) summary.get("differences")).longValue());
+                record.setUnmatchedSource(((Number) summary.get("unmatched_source")).longValue());
+                record.setUnmatchedTarget(((Number) summary.get("unmatched_target")).longValue());
+                long drifted = record.getDifferences() + record.getUnmatchedSource() + record.getUnmatchedTarget();
+                long compared = drifted + record.getExactMatches();
+                record.setDiffRate(compared > 0 ? (double) drifted / compared : 0);
+            } else {
+                record.setStatus(TableRunRecord.FAILED);
+                record.setError(error != null ? error : "Table comparison failed; see the service log");
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * The configured profiles with their schedule, next and last run; passwords are left out
+     */
+    public List<Map<String, Object>> profiles() {
+        List<Map<String, Object>> profiles = new ArrayList<>();
+        for (Map.Entry<String, ScheduledComparisonConfig.Profile> entry : config.getProfiles().entrySet()) {
+            ScheduledComparisonConfig.Profile profile = entry.getValue();
+            ComparisonRequest request = profile.getRequest();
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("name", entry.getKey());
+            details.put("cron", profile.getCron());
+            details.put("zone", zone(profile).getId());
+            details.put("enabled", config.isEnabled() && profile.isEnabled());
+            details.put("source", LoadLimiter.endpoint(request.getSourceDbType(), request.getSourceHost(),
+                    request.getSourcePort()) + "/" + request.getSourceDbName());
+            details.put("target", LoadLimiter.endpoint(request.getTargetDbType(), request.getTargetHost(),
+                    request.getTargetPort()) + "/" + request.getTargetDbName());
+            details.put("tables", request.getTableMappings() != null
+                    ? request.getTableMappings().stream().map(TableMapping::getSourceTable).collect(Collectors.toList())
+                    : "all");
+            details.put("running", running.contains(entry.getKey()));
+            if (config.isEnabled() && profile.isEnabled() && profile.getCron() != null) {
+                ZonedDateTime next = CronExpression.parse(profile.getCron()).next(ZonedDateTime.now(zone(profile)));
+                details.put("nextRun", next != null ? Date.from(next.toInstant()) : null);
+            }
+            List<Map<String, Object>> last = runHistoryStore.runs(entry.getKey(), 1);
+            details.put("lastRun", last.isEmpty() ? null : last.get(0));
+            profiles.add(details);
+        }
+        return profiles;
+    }
+
+    private ScheduledComparisonConfig.Profile profile(String name) {
+        ScheduledComparisonConfig.Profile profile = config.getProfiles().get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown comparison profile: " + name);
+        }
+        return profile;
+    }
+
+    private void validate(String name, ScheduledComparisonConfig.Profile profile) {
+        if (!profile.isEnabled()) {
+            return;
+        }
+        if (profile.getCron() == null || !CronExpression.isValidExpression(profile.getCron())) {
+            throw new IllegalArgumentException("Comparison profile " + name + " has an invalid cron expression '"
+                    + profile.getCron() + "'");
+        }
+        zone(profile);
+    }
+
+    private static ZoneId zone(ScheduledComparisonConfig.Profile profile) {
+        return profile.getZone() != null && !profile.getZone().trim().isEmpty()
+                ? ZoneId.of(profile.getZone().trim()) : ZoneId.systemDefault();
+    }
+
+    /**
+     * Mappings are filled in with connection details and keys during a run, so each run gets fresh copies
+     */
+    private List<TableMapping> copyMappings(ComparisonRequest request) {
+        if (request.getTableMappings() == null) {
+            return null;
+        }
+        List<TableMapping> copies = new ArrayList<>();
+        for (TableMapping mapping : request.getTableMappings()) {
+            copies.add(objectMapper.convertValue(mapping, TableMapping.class));
+        }
+        return copies;
+    }
+
+    private synchronized ThreadPoolTaskScheduler scheduler() {
+        if (taskScheduler == null) {
+            taskScheduler = new ThreadPoolTaskScheduler();
+            taskScheduler.setPoolSize(Math.max(1, config.getMaxConcurrentRuns()));
+            taskScheduler.setThreadNamePrefix("scheduled-comparison-");
+            taskScheduler.setDaemon(true);
+            taskScheduler.initialize();
+        }
+        return taskScheduler;
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (taskScheduler != null) {
+            taskScheduler.shutdown();
+        }
+    }
+}
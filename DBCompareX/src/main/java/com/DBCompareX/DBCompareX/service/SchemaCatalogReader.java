@@ -0,0 +1,257 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.SchemaSnapshot;
+import com.DBCompareX.DBCompareX.dialect.CatalogQuery;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the structure of a whole schema with a fixed number of catalog queries: one each for tables,
+ * columns, key constraints and indexes, whatever the number of objects. Databases without a bulk
+ * constraint query fall back to per-table JDBC metadata calls.
+ */
+@Service
+public class SchemaCatalogReader {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCatalogReader.class);
+
+    private final DialectRegistry dialectRegistry;
+
+    @Autowired
+    public SchemaCatalogReader(DialectRegistry dialectRegistry) {
+        this.dialectRegistry = dialectRegistry;
+    }
+
+    /**
+     * Read tables, columns, keys, indexes and foreign keys of a schema.
+     *
+     * @param schema schema to read; null uses the connection's current schema (the database for MySQL)
+     */
+    public SchemaSnapshot read(Connection conn, String dbType, String schema) throws SQLException {
+        long started = System.nanoTime();
+        String type = dbType.toLowerCase();
+        boolean mysql = type.equals("mysql");
+        if (schema == null) {
+            schema = mysql ? conn.getCatalog() : conn.getSchema();
+        }
+        String catalog = mysql ? schema : null;
+        String metaSchema = mysql ? null : schema;
+
+        SchemaSnapshot snapshot = new SchemaSnapshot();
+        snapshot.setDbType(type);
+        snapshot.setSchema(schema);
+        DatabaseMetaData metaData = conn.getMetaData();
+        try (ResultSet rs = metaData.getTables(catalog, metaSchema, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                snapshot.table(rs.getString("TABLE_NAME"));
+            }
+        }
+        try (ResultSet rs = metaData.getColumns(catalog, metaSchema, "%", "%")) {
+            while (rs.next()) {
+                SchemaSnapshot.TableDefinition table = snapshot.getTables().get(rs.getString("TABLE_NAME").toLowerCase());
+                if (table == null) {
+                    // Columns of views
+                    continue;
+                }
+                SchemaSnapshot.ColumnDefinition column = new SchemaSnapshot.ColumnDefinition();
+                column.setName(rs.getString("COLUMN_NAME").toLowerCase());
+                column.setTypeName(rs.getString("TYPE_NAME").toUpperCase());
+                column.setSqlType(rs.getInt("DATA_TYPE"));
+                int size = rs.getInt("COLUMN_SIZE");
+                column.setSize(rs.wasNull() ? null : size);
+                int scale = rs.getInt("DECIMAL_DIGITS");
+                column.setScale(rs.wasNull() ? null : scale);
+                column.setNullable(rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+                column.setDefaultValue(normalizeDefault(rs.getString("COLUMN_DEF")));
+                table.getColumns().put(column.getName(), column);
+            }
+        }
+
+        Dialect dialect = dialectRegistry.forType(type);
+        CatalogQuery constraintsQuery = dialect.constraintsQuery(schema);
+        if (constraintsQuery != null) {
+            readConstraints(conn, constraintsQuery, snapshot);
+        } else {
+            readConstraintsPerTable(metaData, catalog, metaSchema, snapshot);
+        }
+        CatalogQuery indexesQuery = dialect.indexesQuery(schema);
+        if (indexesQuery != null) {
+            readIndexes(conn, indexesQuery, snapshot);
+        } else {
+            readIndexesPerTable(metaData, catalog, metaSchema, snapshot);
+        }
+
+        logger.info("Read {} tables of {} schema {} in {} ms", snapshot.getTables().size(), type, schema,
+                (System.nanoTime() - started) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * One pass over all key constraint columns of the schema, grouped by table and constraint
+     */
+    private void readConstraints(Connection conn, CatalogQuery query, SchemaSnapshot snapshot) throws SQLException {
+        // table/constraint -> position -> {column, referenced table, referenced column}
+        Map<String, TreeMap<Integer, String[]>> constraints = new LinkedHashMap<>();
+        Map<String, String> constraintTypes = new HashMap<>();
+        try (PreparedStatement stmt = query.prepare(conn)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString(1).toLowerCase() + "/" + rs.getString(2);
+                    constraintTypes.put(id, rs.getString(3));
+                    constraints.computeIfAbsent(id, c -> new TreeMap<>()).put(rs.getInt(5),
+                            new String[]{rs.getString(4), rs.getString(6), rs.getString(7)});
+                }
+            }
+        }
+        constraints.forEach((id, columns) -> {
+            SchemaSnapshot.TableDefinition table = snapshot.getTables().get(id.substring(0, id.indexOf('/')));
+            if (table == null) {
+                return;
+            }
+            List<String[]> parts = new ArrayList<>(columns.values());
+            addConstraint(table, constraintTypes.get(id),
+                    parts.stream().map(part -> part[0]).collect(Collectors.toList()),
+                    parts.get(0)[1], parts.stream().map(part -> part[2]).collect(Collectors.toList()));
+        });
+    }
+
+    private void readConstraintsPerTable(DatabaseMetaData metaData, String catalog, String schema,
+                                         SchemaSnapshot snapshot) throws SQLException {
+        logger.info("No bulk constraint query for {}; reading keys table by table", snapshot.getDbType());
+        for (SchemaSnapshot.TableDefinition table : snapshot.getTables().values()) {
+            TreeMap<Short, String> primaryKey = new TreeMap<>();
+            try (ResultSet rs = metaData.getPrimaryKeys(catalog, schema, table.getName())) {
+                while (rs.next()) {
+                    primaryKey.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+                }
+            }
+            if (!primaryKey.isEmpty()) {
+                addConstraint(table, "PRIMARY KEY", new ArrayList<>(primaryKey.values()), null, null);
+            }
+            Map<String, TreeMap<Short, String[]>> foreignKeys = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getImportedKeys(catalog, schema, table.getName())) {
+                while (rs.next()) {
+                    foreignKeys.computeIfAbsent(rs.getString("FK_NAME"), k -> new TreeMap<>()).put(rs.getShort("KEY_SEQ"),
+                            new String[]{rs.getString("FKCOLUMN_NAME"), rs.getString("PKTABLE_NAME"),
+                                    rs.getString("PKCOLUMN_NAME")});
+                }
+            }
+            for (TreeMap<Short, String[]> key : foreignKeys.values()) {
+                List<String[]> parts = new ArrayList<>(key.values());
+                addConstraint(table, "FOREIGN KEY", parts.stream().map(part -> part[0]).collect(Collectors.toList()),
+                        parts.get(0)[1], parts.stream().map(part -> part[2]).collect(Collectors.toList()));
+            }
+        }
+    }
+
+    private static void addConstraint(SchemaSnapshot.TableDefinition table, String type, List<String> columns,
+                                      String referencedTable, List<String> referencedColumns) {
+        switch (type) {
+            case "PRIMARY KEY":
+                table.setPrimaryKey(columns.stream().map(String::toLowerCase).collect(Collectors.toList()));
+                break;
+            case "UNIQUE":
+                table.getUniqueKeys().add(signature(columns));
+                break;
+            default:
+                table.getForeignKeys().add(signature(columns) + " -> "
+                        + (referencedTable != null ? referencedTable.toLowerCase() : "?") + " "
+                        + signature(referencedColumns));
+        }
+    }
+
+    private void readIndexes(Connection conn, CatalogQuery query, SchemaSnapshot snapshot) throws SQLException {
+        Map<String, TreeMap<Integer, String>> indexes = new LinkedHashMap<>();
+        Map<String, Boolean> unique = new HashMap<>();
+        try (PreparedStatement stmt = query.prepare(conn)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (rs.getString(4) == null) {
+                        // Function-based index entries without a plain column
+                        continue;
+                    }
+                    String id = rs.getString(1).toLowerCase() + "/" + rs.getString(2);
+                    unique.put(id, rs.getBoolean(3));
+                    indexes.computeIfAbsent(id, i -> new TreeMap<>()).put(rs.getInt(5), rs.getString(4));
+                }
+            }
+        }
+        indexes.forEach((id, columns) -> addIndex(snapshot, id.substring(0, id.indexOf('/')), unique.get(id),
+                new ArrayList<>(columns.values())));
+    }
+
+    private void readIndexesPerTable(DatabaseMetaData metaData, String catalog, String schema,
+                                     SchemaSnapshot snapshot) throws SQLException {
+        for (SchemaSnapshot.TableDefinition table : snapshot.getTables().values()) {
+            Map<String, TreeMap<Short, String>> indexes = new LinkedHashMap<>();
+            Map<String, Boolean> unique = new HashMap<>();
+            try (ResultSet rs = metaData.getIndexInfo(catalog, schema, table.getName(), false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String columnName = rs.getString("COLUMN_NAME");
+                    if (indexName == null || columnName == null) {
+                        continue;
+                    }
+                    unique.put(indexName, !rs.getBoolean("NON_UNIQUE"));
+                    indexes.computeIfAbsent(indexName, i -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), columnName);
+                }
+            }
+            indexes.forEach((name, columns) -> addIndex(snapshot, table.getName(), unique.get(name),
+                    new ArrayList<>(columns.values())));
+        }
+    }
+
+    private static void addIndex(SchemaSnapshot snapshot, String tableName, boolean unique, List<String> columns) {
+        SchemaSnapshot.TableDefinition table = snapshot.getTables().get(tableName);
+        if (table != null) {
+            table.getIndexes().add((unique ? "UNIQUE " : "") + signature(columns));
+        }
+    }
+
+    private static String signature(List<String> columns) {
+        return "(" + columns.stream().map(column -> column != null ? column.toLowerCase() : "?")
+                .collect(Collectors.joining(", ")) + ")";
+    }
+
+    /**
+     * Defaults as text without the wrapping parentheses of SQL Server and the casts of PostgreSQL
+     */
+    static String normalizeDefault(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim();
+        while (isWrapped(normalized)) {
+            normalized = normalized.substring(1, normalized.length() - 1).trim();
+        }
+        normalized = normalized.replaceAll("::[a-zA-Z ]+(\\[\\])?$", "");
+        return normalized.isEmpty() || normalized.equalsIgnoreCase("NULL") ? null : normalized;
+    }
+
+    /**
+     * Whether the whole expression is enclosed in one pair of parentheses, unlike "(a) + (b)"
+     */
+    private static boolean isWrapped(String expression) {
+        if (!expression.startsWith("(") || !expression.endsWith(")")) {
+            return false;
+        }
+        int depth = 0;
+        for (int i = 0; i < expression.length() - 1; i++) {
+            char c = expression.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.SchemaDifference;
+import com.DBCompareX.DBCompareX.dao.entities.SchemaSnapshot;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Structural (DDL) comparison of two whole schemas: tables, columns with type, precision,
+ * nullability and default, primary and unique keys, indexes and foreign keys.
+ */
+@Service
+public class SchemaComparisonService {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaComparisonService.class);
+
+    private final TableSchemaExtractor tableSchemaExtractor;
+    private final SchemaCatalogReader schemaCatalogReader;
+    private final DialectRegistry dialectRegistry;
+
+    @Autowired
+    public SchemaComparisonService(TableSchemaExtractor tableSchemaExtractor, SchemaCatalogReader schemaCatalogReader,
+                                   DialectRegistry dialectRegistry) {
+        this.tableSchemaExtractor = tableSchemaExtractor;
+        this.schemaCatalogReader = schemaCatalogReader;
+        this.dialectRegistry = dialectRegistry;
+    }
+
+    /**
+     * Compare the schemas of a request; tables limits the report to these source tables when not null
+     */
+    public Map<String, Object> compareSchemas(ComparisonRequest request, Collection<String> tables) throws SQLException {
+        long started = System.nanoTime();
+        SchemaSnapshot source = readSnapshot(request.getSourceDbType(), request.getSourceHost(),
+                request.getSourcePort(), request.getSourceDbName(), request.getSourceUsername(),
+                request.getSourcePassword(), request.getSourceSchemaFilter());
+        SchemaSnapshot target = readSnapshot(request.getTargetDbType(), request.getTargetHost(),
+                request.getTargetPort(), request.getTargetDbName(), request.getTargetUsername(),
+                request.getTargetPassword(), request.getTargetSchemaFilter());
+
+        List<SchemaDifference> differences = compare(source, target);
+        if (tables != null) {
+            Set<String> selected = tables.stream().map(String::toLowerCase).collect(Collectors.toSet());
+            differences.removeIf(difference -> !selected.contains(difference.getTable()));
+        }
+
+        Map<String, Long> byType = differences.stream()
+                .collect(Collectors.groupingBy(SchemaDifference::getObjectType, TreeMap::new, Collectors.counting()));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sourceSchema", source.getSchema());
+        report.put("targetSchema", target.getSchema());
+        report.put("sourceTables", source.getTables().size());
+        report.put("targetTables", target.getTables().size());
+        report.put("identical", differences.isEmpty());
+        report.put("differenceCounts", byType);
+        report.put("differences", differences);
+        report.put("elapsedMillis", (System.nanoTime() - started) / 1_000_000);
+        logger.info("Schema comparison of {} and {}: {} differences", source.getSchema(), target.getSchema(),
+                differences.size());
+        return report;
+    }
+
+    private SchemaSnapshot readSnapshot(String dbType, String host, int port, String dbName, String username,
+                                        String password, String schemaFilter) throws SQLException {
+        String filter = schemaFilter != null && !schemaFilter.trim().isEmpty() ? schemaFilter.trim() : null;
+        try (Connection conn = tableSchemaExtractor.getConnection(dbType, host, port, dbName, username, password)) {
+            String schema = dialectRegistry.resolveSchema(dbType, host + ":" + port + "/" + dbName, conn, username,
+                    filter);
+            // Dialects without schema resolution read the named schema as given
+            return schemaCatalogReader.read(conn, dbType, schema != null ? schema : filter);
+        }
+    }
+
+    /**
+     * Differences between two snapshots. Type names, sizes and defaults are only comparable within
+     * a dialect; across dialects columns are compared by JDBC type family and character length.
+     */
+    public List<SchemaDifference> compare(SchemaSnapshot source, SchemaSnapshot target) {
+        boolean sameDialect = Objects.equals(source.getDbType(), target.getDbType());
+        List<SchemaDifference> differences = new ArrayList<>();
+        Set<String> tableNames = new TreeSet<>(source.getTables().keySet());
+        tableNames.addAll(target.getTables().keySet());
+        for (String name : tableNames) {
+            SchemaSnapshot.TableDefinition sourceTable = source.getTables().get(name);
+            SchemaSnapshot.TableDefinition targetTable = target.getTables().get(name);
+            if (sourceTable == null || targetTable == null) {
+                differences.add(new SchemaDifference("TABLE", name, null,
+                        sourceTable == null ? SchemaDifference.MISSING_IN_SOURCE : SchemaDifference.MISSING_IN_TARGET,
+                        null, null, null));
+                continue;
+            }
+            compareColumns(name, sourceTable, targetTable, sameDialect, differences);
+            if (!sourceTable.getPrimaryKey().equals(targetTable.getPrimaryKey())) {
+                differences.add(new SchemaDifference("PRIMARY_KEY", name, null, SchemaDifference.CHANGED, "columns",
+                        String.valueOf(sourceTable.getPrimaryKey()), String.valueOf(targetTable.getPrimaryKey())));
+            }
+            compareSignatures("UNIQUE_KEY", name, sourceTable.getUniqueKeys(), targetTable.getUniqueKeys(), differences);
+            compareSignatures("INDEX", name, sourceTable.getIndexes(), targetTable.getIndexes(), differences);
+            compareSignatures("FOREIGN_KEY", name, sourceTable.getForeignKeys(), targetTable.getForeignKeys(),
+                    differences);
+        }
+        return differences;
+    }
+
+    private void compareColumns(String table, SchemaSnapshot.TableDefinition sourceTable,
+                                SchemaSnapshot.TableDefinition targetTable, boolean sameDialect,
+                                List<SchemaDifference> differences) {
+        Set<String> columnNames = new LinkedHashSet<>(sourceTable.getColumns().keySet());
+        columnNames.addAll(targetTable.getColumns().keySet());
+        for (String name : columnNames) {
+            SchemaSnapshot.ColumnDefinition sourceColumn = sourceTable.getColumns().get(name);
+            SchemaSnapshot.ColumnDefinition targetColumn = targetTable.getColumns().get(name);
+            if (sourceColumn == null || targetColumn == null) {
+                differences.add(new SchemaDifference("COLUMN", table, name,
+                        sourceColumn == null ? SchemaDifference.MISSING_IN_SOURCE : SchemaDifference.MISSING_IN_TARGET,
+                        null, null, null));
+                continue;
+            }
+            if (sameDialect) {
+                addIfChanged(table, name, "type", sourceColumn.getTypeName(), targetColumn.getTypeName(), differences);
+                addIfChanged(table, name, "size", sourceColumn.getSize(), targetColumn.getSize(), differences);
+                addIfChanged(table, name, "scale", sourceColumn.getScale(), targetColumn.getScale(), differences);
+                addIfChanged(table, name, "default", sourceColumn.getDefaultValue(), targetColumn.getDefaultValue(),
+                        differences);
+            } else {
+                String sourceFamily = typeFamily(sourceColumn.getSqlType());
+                String targetFamily = typeFamily(targetColumn.getSqlType());
+                addIfChanged(table, name, "type", sourceFamily, targetFamily, differences);
+                if (sourceFamily.equals("CHARACTER") && targetFamily.equals("CHARACTER")) {
+                    addIfChanged(table, name, "size", sourceColumn.getSize(), targetColumn.getSize(), differences);
+                }
+            }
+            addIfChanged(table, name, "nullable", sourceColumn.isNullable(), targetColumn.isNullable(), differences);
+        }
+    }
+
+    private static void addIfChanged(String table, String column, String attribute, Object sourceValue,
+                                     Object targetValue, List<SchemaDifference> differences) {
+        if (!Objects.equals(sourceValue, targetValue)) {
+            differences.add(new SchemaDifference("COLUMN", table, column, SchemaDifference.CHANGED, attribute,
+                    String.valueOf(sourceValue), String.valueOf(targetValue)));
+        }
+    }
+
+    private static void compareSignatures(String objectType, String table, Set<String> source, Set<String> target,
+                                          List<SchemaDifference> differences) {
+        for (String signature : source) {
+            if (!target.contains(signature)) {
+                differences.add(new SchemaDifference(objectType, table, signature, SchemaDifference.MISSING_IN_TARGET,
+                        null, null, null));
+            }
+        }
+        for (String signature : target) {
+            if (!source.contains(signature)) {
+                differences.add(new SchemaDifference(objectType, table, signature, SchemaDifference.MISSING_IN_SOURCE,
+                        null, null, null));
+            }
+        }
+    }
+
+    /**
+     * Coarse type class that is comparable between dialects, e.g. VARCHAR2 and VARCHAR are both CHARACTER
+     */
+    static String typeFamily(int sqlType) {
+        switch (sqlType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return "CHARACTER";
+            case Types.CLOB:
+            case Types.NCLOB:
+                return "CLOB";
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return "NUMERIC";
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+            case Types.TIME_WITH_TIMEZONE:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                return "DATETIME";
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return "BINARY";
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return "BOOLEAN";
+            default:
+                return "OTHER";
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.SparkEngineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import org.apache.spark.sql.Column;
+import org.apache.spark.sql.DataFrameReader;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.api.java.UDF2;
+import org.apache.spark.sql.expressions.UserDefinedFunction;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.NumericType;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.storage.StorageLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.apache.spark.sql.functions.*;
+
+/**
+ * Comparison engine that reads both tables with partitioned JDBC reads and classifies
+ * rows with a distributed full outer join on the key columns. Differences are written
+ * straight to CSV; only per-status counts come back to the driver.
+ */
+@Service
+public class SparkComparisonEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SparkComparisonEngine.class);
+
+    private static final String SOURCE_PREFIX = "s_";
+    private static final String TARGET_PREFIX = "t_";
+    private static final String STATUS_COLUMN = "status";
+    // Set on every row of its side, so an orphan is told apart from a row whose key parts are NULL
+    private static final String PRESENT_COLUMN = "row_present";
+    private static final String STATUS_MATCH = "MATCH";
+    private static final String TABLE_COMPLETED = "COMPLETED";
+    private static final String TABLE_FAILED = "FAILED";
+    private static final UserDefinedFunction SAME_VALUE = udf((UDF2<Object, Object, Boolean>) (source, target) ->
+            RecordComparator.sameValue(NormalizationUtils.normalizeValue(source),
+                    NormalizationUtils.normalizeValue(target)), DataTypes.BooleanType);
+
+    private final ObjectProvider<SparkSession> sparkSessionProvider;
+    private final SparkEngineConfig config;
+
+    @Autowired
+    public SparkComparisonEngine(ObjectProvider<SparkSession> sparkSessionProvider, SparkEngineConfig config) {
+        this.sparkSessionProvider = sparkSessionProvider;
+        this.config = config;
+    }
+
+    /**
+     * Connection details of one side of a table comparison, with an optional predicate whose values
+     * are already written as literals
+     */
+    public static class JdbcSource {
+        private final String jdbcUrl;
+        private final String driverClass;
+        private final String table;
+        private final String username;
+        private final String password;
+        private final String filter;
+
+        public JdbcSource(String jdbcUrl, String driverClass, String table, String username, String password) {
+            this(jdbcUrl, driverClass, table, username, password, null);
+        }
+
+        public JdbcSource(String jdbcUrl, String driverClass, String table, String username, String password,
+                          String filter) {
+            this.jdbcUrl = jdbcUrl;
+            this.driverClass = driverClass;
+            this.table = table;
+            this.username = username;
+            this.password = password;
+            this.filter = filter;
+        }
+
+        /**
+         * Table as read by Spark; a filtered table is read through a derived table so that every
+         * partition query carries the predicate
+         */
+        private String relation() {
+            return filter == null ? table : "(SELECT * FROM " + table + " WHERE " + filter + ") f";
+        }
+    }
+
+    /**
+     * Compare one table pair and write its differences below the output directory
+     */
+    public Map<String, Object> compareTable(TableMapping mapping, JdbcSource source, JdbcSource target, Path jobDirectory) {
+        SparkSession spark = sparkSessionProvider.getObject();
+        List<String> keyColumns = mapping.getKeyColumns().stream().map(String::toLowerCase).collect(Collectors.toList());
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("Spark engine needs key columns for table " + mapping.getSourceTable());
+        }
+
+        Dataset<Row> sourceData = lowerCaseColumns(readTable(spark, source, keyColumns.get(0)));
+        Dataset<Row> targetData = lowerCaseColumns(readTable(spark, target, keyColumns.get(0)));
+
+        Set<String> targetColumns = new HashSet<>(Arrays.asList(targetData.columns()));
+        List<String> commonColumns = Arrays.stream(sourceData.columns())
+                .filter(targetColumns::contains)
+                .collect(Collectors.toList());
+        List<String> valueColumns = commonColumns.stream()
+                .filter(column -> !keyColumns.contains(column))
+                .collect(Collectors.toList());
+
+        Dataset<Row> joined = prefixColumns(sourceData, commonColumns, SOURCE_PREFIX)
+                .join(prefixColumns(targetData, commonColumns, TARGET_PREFIX), joinCondition(keyColumns), "full_outer");
+
+        // Classify every joined row: orphan on either side, differing values, or exact match
+        Column sourceMissing = col(SOURCE_PREFIX + PRESENT_COLUMN).isNull();
+        Column targetMissing = col(TARGET_PREFIX + PRESENT_COLUMN).isNull();
+        List<Column> differenceFlags = valueColumns.stream()
+                .map(column -> when(valuesDiffer(column), lit(column)))
+                .collect(Collectors.toList());
+        Column differingColumns = differenceFlags.isEmpty() ? lit("")
+                : concat_ws(",", differenceFlags.toArray(new Column[0]));
+
+        Dataset<Row> classified = joined
+                .withColumn("differing_columns", differingColumns)
+                .withColumn(STATUS_COLUMN,
+                        when(sourceMissing, lit(DiffRow.KIND_TARGET_ONLY))
+                                .when(targetMissing, lit(DiffRow.KIND_SOURCE_ONLY))
+                                .when(col("differing_columns").notEqual(lit("")), lit(DiffRow.KIND_DIFFERENCE))
+                                .otherwise(lit(STATUS_MATCH)))
+                .persist(StorageLevel.MEMORY_AND_DISK());
+
+        try {
+            Map<String, Long> counts = new HashMap<>();
+            for (Row row : classified.groupBy(STATUS_COLUMN).count().collectAsList()) {
+                counts.put(row.getString(0), row.getLong(1));
+            }
+
+            Path outputPath = resolveOutputDirectory(jobDirectory).resolve(mapping.getSourceTable());
+            classified.filter(col(STATUS_COLUMN).notEqual(lit(STATUS_MATCH)))
+                    .select(outputColumns(keyColumns, valueColumns))
+                    .write()
+                    .mode(SaveMode.Overwrite)
+                    .option("header", "true")
+                    .csv(outputPath.toString());
+
+            Map<String, Object> results = new LinkedHashMap<>();
+            results.put("table", mapping.getSourceTable());
+            results.put("status", TABLE_COMPLETED);
+            results.put("differences", counts.getOrDefault(DiffRow.KIND_DIFFERENCE, 0L));
+            results.put("unmatched_source", counts.getOrDefault(DiffRow.KIND_SOURCE_ONLY, 0L));
+            results.put("unmatched_target", counts.getOrDefault(DiffRow.KIND_TARGET_ONLY, 0L));
+            results.put("exact_matches", counts.getOrDefault(STATUS_MATCH, 0L));
+            results.put("output", outputPath.toString());
+            logger.info("Spark comparison results for table {}: {}", mapping.getSourceTable(), results);
+            return results;
+        } finally {
+            classified.unpersist();
+        }
+    }
+
+    /**
+     * Result of a table whose comparison failed; it is listed in the summary with its error
+     */
+    static Map<String, Object> failedTable(String table, String error) {
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("table", table);
+        results.put("status", TABLE_FAILED);
+        results.put("error", error != null ? error : "unknown error");
+        return results;
+    }
+
+    /**
+     * Write one line per table with its counts and output directory, or with its error if it failed
+     */
+    static void writeSummary(Path summaryFile, List<Map<String, Object>> tableResults) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("table,differences,unmatched_source,unmatched_target,exact_matches,output,status,error");
+        for (Map<String, Object> result : tableResults) {
+            lines.add(Stream.of("table", "differences", "unmatched_source", "unmatched_target", "exact_matches",
+                            "output", "status", "error")
+                    .map(name -> csv(result.get(name)))
+                    .collect(Collectors.joining(",")));
+        }
+        Files.write(summaryFile, lines, StandardCharsets.UTF_8);
+    }
+
+    private static String csv(Object value) {
+        String text = value != null ? value.toString() : "";
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Read a table, splitting the read on a numeric key column when one is available
+     */
+    private Dataset<Row> readTable(SparkSession spark, JdbcSource source, String partitionColumn) {
+        DataFrameReader reader = spark.read().format("jdbc")
+                .option("url", source.jdbcUrl)
+                .option("dbtable", source.relation())
+                .option("user", source.username)
+                .option("password", source.password)
+                .option("fetchsize", String.valueOf(config.getFetchSize()));
+        if (source.driverClass != null) {
+            reader = reader.option("driver", source.driverClass);
+        }
+
+        Dataset<Row> probe = reader.load();
+        Optional<StructField> field = Arrays.stream(probe.schema().fields())
+                .filter(f -> f.name().equalsIgnoreCase(partitionColumn))
+                .findFirst();
+        if (field.isEmpty() || !(field.get().dataType() instanceof NumericType) || config.getNumPartitions() <= 1) {
+            logger.info("Reading {} in a single partition (no numeric key column to split on)", source.table);
+            return probe;
+        }
+
+        long[] bounds = fetchBounds(source, field.get().name());
+        if (bounds == null) {
+            return probe;
+        }
+        logger.info("Reading {} in {} partitions on {} between {} and {}",
+                source.table, config.getNumPartitions(), field.get().name(), bounds[0], bounds[1]);
+        return reader
+                .option("partitionColumn", field.get().name())
+                .option("lowerBound", String.valueOf(bounds[0]))
+                .option("upperBound", String.valueOf(bounds[1]))
+                .option("numPartitions", String.valueOf(config.getNumPartitions()))
+                .load();
+    }
+
+    /**
+     * Minimum and maximum of the partition column, or null for an empty table
+     */
+    private long[] fetchBounds(JdbcSource source, String column) {
+        String query = "SELECT MIN(" + column + "), MAX(" + column + ") FROM " + source.table
+                + (source.filter != null ? " WHERE " + source.filter : "");
+        try (Connection conn = DriverManager.getConnection(source.jdbcUrl, source.username, source.password);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            if (rs.next() && rs.getObject(1) != null) {
+                return new long[]{rs.getBigDecimal(1).longValue(), rs.getBigDecimal(2).longValue()};
+            }
+            return null;
+        } catch (SQLException e) {
+            logger.warn("Could not read partition bounds of {}: {}", source.table, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path resolveOutputDirectory(Path jobDirectory) {
+        if (config.getOutputDir() == null || config.getOutputDir().isEmpty()) {
+            return jobDirectory.resolve("spark");
+        }
+        return Paths.get(config.getOutputDir()).resolve(jobDirectory.getFileName());
+    }
+
+    private static Dataset<Row> lowerCaseColumns(Dataset<Row> data) {
+        Column[] columns = Arrays.stream(data.columns())
+                .map(name -> col(name).as(name.toLowerCase()))
+                .toArray(Column[]::new);
+        return data.select(columns);
+    }
+
+    private static Dataset<Row> prefixColumns(Dataset<Row> data, List<String> columns, String prefix) {
+        List<Column> prefixed = columns.stream().map(name -> col(name).as(prefix + name)).collect(Collectors.toList());
+        prefixed.add(lit(true).as(prefix + PRESENT_COLUMN));
+        return data.select(prefixed.toArray(new Column[0]));
+    }
+
+    /**
+     * Key parts match null-safely, so a NULL part pairs with a NULL part as it does in the JDBC engine
+     */
+    private static Column joinCondition(List<String> keyColumns) {
+        Column condition = null;
+        for (String key : keyColumns) {
+            Column equal = col(SOURCE_PREFIX + key).eqNullSafe(col(TARGET_PREFIX + key));
+            condition = condition == null ? equal : condition.and(equal);
+        }
+        return condition;
+    }
+
+    /**
+     * Values differ by the rules of the JDBC engine: normalized, then compared as RecordComparator does
+     */
+    private static Column valuesDiffer(String column) {
+        return not(SAME_VALUE.apply(col(SOURCE_PREFIX + column), col(TARGET_PREFIX + column)));
+    }
+
+    private static Column[] outputColumns(List<String> keyColumns, List<String> valueColumns) {
+        List<Column> columns = new ArrayList<>();
+        columns.add(col(STATUS_COLUMN));
+        for (String key : keyColumns) {
+            columns.add(coalesce(col(SOURCE_PREFIX + key), col(TARGET_PREFIX + key)).cast(DataTypes.StringType).as(key));
+        }
+        columns.add(col("differing_columns"));
+        for (String column : valueColumns) {
+            columns.add(col(SOURCE_PREFIX + column).cast(DataTypes.StringType).as("source_" + column));
+            columns.add(col(TARGET_PREFIX + column).cast(DataTypes.StringType).as("target_" + column));
+        }
+        return columns.toArray(new Column[0]);
+    }
+}
@@ -0,0 +1,36 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table metadata a comparison is planned from, without reading any rows. The estimator depends on this
+ * rather than on {@link TableSchemaExtractor}.
+ */
+public interface TableCatalog {
+
+    /**
+     * Tables to compare: the selected mappings completed with the request's connection details,
+     * or all common tables when none were selected
+     */
+    List<TableMapping> resolveTableMappings(
+            String srcDbType, String tgtDbType,
+            String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+            String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+            List<TableMapping> selectedTables,
+            String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables);
+
+    /**
+     * Set the key columns and key strategy of a mapping that has none
+     */
+    void ensureKeyColumns(TableMapping mapping);
+
+    /**
+     * Row count and size of a table from the database catalog: rows and bytes (null when unknown)
+     * and the statistics source
+     */
+    Map<String, Object> fetchTableStatistics(String dbType, String host, int port, String dbName,
+                                             String username, String password, String tableName);
+}
@@ -1,36 +1,83 @@
 package com.DBCompareX.DBCompareX.service;
 
 import com.DBCompareX.DBCompareX.config.DatabaseConfig;
-import com.DBCompareX.DBCompareX.util.NormalizationUtils;
+import com.DBCompareX.DBCompareX.config.KeylessConfig;
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonCheckpoint;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
 import com.DBCompareX.DBCompareX.dao.entities.ExcelGenerator;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
+import com.DBCompareX.DBCompareX.dao.entities.KeySelection;
+import com.DBCompareX.DBCompareX.dao.entities.KeyStrategy;
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
 import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
-import org.apache.spark.sql.*;
+import com.DBCompareX.DBCompareX.dialect.CatalogQuery;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import com.DBCompareX.DBCompareX.dialect.TypedColumn;
+import com.DBCompareX.DBCompareX.util.SqlPredicates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
-public class TableSchemaExtractor {
+public class TableSchemaExtractor implements ComparisonRunner, TableCatalog {
     private static final Logger logger = LoggerFactory.getLogger(TableSchemaExtractor.class);
 
     private final DatabaseConfig databaseConfig;
-//    private final SparkSession sparkSession;
     private final ExcelGenerator excelGenerator;
+    private final DiffResultStore diffResultStore;
+    private final ComparisonPipeline comparisonPipeline;
+    private final PipelineConfig pipelineConfig;
+    private final SparkComparisonEngine sparkComparisonEngine;
+    private final ComparisonMetrics metrics;
+    private final KeySelector keySelector;
+    private final RowHashComparison rowHashComparison;
+    private final KeylessConfig keylessConfig;
+    private final DialectRegistry dialectRegistry;
+    private final CheckpointStore checkpointStore;
+    private final LoadLimiter loadLimiter;
+    private final FairScheduler fairScheduler;
+    private final KeyFirstComparison keyFirstComparison;
 
     @Autowired
-    public TableSchemaExtractor(DatabaseConfig databaseConfig, ExcelGenerator excelGenerator) {
+    public TableSchemaExtractor(DatabaseConfig databaseConfig, ExcelGenerator excelGenerator,
+                                DiffResultStore diffResultStore, ComparisonPipeline comparisonPipeline,
+                                PipelineConfig pipelineConfig, SparkComparisonEngine sparkComparisonEngine,
+                                ComparisonMetrics metrics, KeySelector keySelector,
+                                RowHashComparison rowHashComparison, KeylessConfig keylessConfig,
+                                DialectRegistry dialectRegistry, CheckpointStore checkpointStore,
+                                LoadLimiter loadLimiter, FairScheduler fairScheduler,
+                                KeyFirstComparison keyFirstComparison) {
         this.databaseConfig = databaseConfig;
-//        this.sparkSession = sparkSession;
         this.excelGenerator = excelGenerator;
+        this.diffResultStore = diffResultStore;
+        this.comparisonPipeline = comparisonPipeline;
+        this.pipelineConfig = pipelineConfig;
+        this.sparkComparisonEngine = sparkComparisonEngine;
+        this.metrics = metrics;
+        this.keySelector = keySelector;
+        this.rowHashComparison = rowHashComparison;
+        this.keylessConfig = keylessConfig;
+        this.dialectRegistry = dialectRegistry;
+        this.checkpointStore = checkpointStore;
+        this.loadLimiter = loadLimiter;
+        this.fairScheduler = fairScheduler;
+        this.keyFirstComparison = keyFirstComparison;
 
         // Validate configuration on startup
         if (this.databaseConfig == null) {
@@ -82,82 +129,18 @@ public class TableSchemaExtractor {
                                         String schemaFilter,Integer maxTables) {
         String jdbcUrl = getJdbcUrl(dbType, host, port, dbName);
         List<String> tableNames = new ArrayList<>();
+        long started = System.nanoTime();
         try {
             testConnection(jdbcUrl, username, password);
             try (Connection conn = getConnection(jdbcUrl, username, password)) {
                 DatabaseMetaData metaData = conn.getMetaData();
 
-                //Apply schema filter for Oracle
-                String schema = null;
-                if(dbType.equalsIgnoreCase("oracle") && schemaFilter != null){
-                    // Handle Oracle schema names with special characters
-                    schema = schemaFilter.toUpperCase();
-                    
-                    // Verify if the provided schema exists
-                    String schemaQuery = "SELECT username FROM all_users WHERE username = ?";
-                    boolean schemaExists = false;
-                    
-                    try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                        stmt.setString(1, schema);
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            if (rs.next()) {
-                                schemaExists = true;
-                                logger.info("Schema '{}' exists, filtering Oracle tables by this schema", schema);
-                            }
-                        }
-                    }
-                    
-                    if (!schemaExists) {
-                        // Try checking with quotes (for special characters)
-                        schemaQuery = "SELECT username FROM all_users WHERE username = ?";
-                        try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                            stmt.setString(1, "\"" + schema + "\"");
-                            try (ResultSet rs = stmt.executeQuery()) {
-                                if (rs.next()) {
-                                    schema = "\"" + schema + "\"";
-                                    schemaExists = true;
-                                    logger.info("Schema '{}' (with quotes) exists, filtering Oracle tables", schema);
-                                }
-                            }
-                        } catch (SQLException e) {
-                            logger.warn("Error checking quoted schema: {}", e.getMessage());
-                        }
-                        
-                        if (!schemaExists) {
-                            logger.warn("Schema '{}' does not exist, falling back to user's schema", schema);
-                            schema = username.toUpperCase();
-                            logger.info("Using default schema (username): {}", schema);
-                        }
-                    }
-                } else if (dbType.equalsIgnoreCase("oracle")){
-                    schema = username.toUpperCase();
-                    logger.info("Using default schema (username): {}", schema);
-                }
-
-                // For Oracle, use direct SQL query to get tables in specific schema
-                if (dbType.equalsIgnoreCase("oracle") && schema != null) {
-                    // List available schemas for troubleshooting
-                    logger.info("Available schemas in the database:");
-                    try (Statement stmt = conn.createStatement();
-                         ResultSet rs = stmt.executeQuery("SELECT username FROM all_users ORDER BY username")) {
-                        while (rs.next()) {
-                            logger.info(" - {}", rs.getString(1));
-                        }
-                    } catch (SQLException e) {
-                        logger.warn("Could not list available schemas: {}", e.getMessage());
-                    }
-                    
-                    String query = "SELECT table_name FROM all_tables WHERE owner = ?";
-                    try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                        stmt.setString(1, schema.replace("\"", ""));  // Remove quotes for parameter binding
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            while (rs.next()) {
-                                tableNames.add(rs.getString(1).toLowerCase());
-                            }
-                        }
-                    }
+                Dialect dialect = dialectRegistry.forType(dbType);
+                String schema = dialectRegistry.resolveSchema(dbType, jdbcUrl, conn, username, schemaFilter);
+                CatalogQuery tablesQuery = schema != null ? dialect.tableNamesQuery(schema) : null;
+                if (tablesQuery != null) {
+                    tableNames.addAll(queryNames(conn, tablesQuery));
                 } else {
-                    // For other DBs, use standard metadata approach
                     try (ResultSet tables = metaData.getTables(null, schema, "%", new String[]{"TABLE"})) {
                         while (tables.next()) {
                             tableNames.add(tables.getString("TABLE_NAME").toLowerCase());
@@ -177,6 +160,9 @@ public class TableSchemaExtractor {
         } catch (SQLException e) {
             logger.error("Error fetching table names for database {}: {}", dbName, e.getMessage());
             throw new RuntimeException("Failed to fetch table names: " + e.getMessage(), e);
+        } finally {
+            metrics.recordPhase(ComparisonMetrics.PHASE_METADATA, dbType.toLowerCase(), ComparisonMetrics.ALL_TABLES,
+                    System.nanoTime() - started);
         }
     }
 
@@ -205,50 +191,14 @@ public class TableSchemaExtractor {
         String jdbcUrl = getJdbcUrl(dbType, host, port, dbName);
         List<String> primaryKeyColumns = new ArrayList<>();
         List<String> allColumns = new ArrayList<>();
+        long started = System.nanoTime();
         try {
             testConnection(jdbcUrl, username, password);
             try (Connection conn = getConnection(jdbcUrl, username, password)) {
                 DatabaseMetaData metaData = conn.getMetaData();
 
-                // Apply schema filter for Oracle
-                String schema = null;
-                if (dbType.equalsIgnoreCase("oracle") && schemaFilter != null) {
-                    schema = schemaFilter.toUpperCase();
-                    // Check if the schema exists and format it properly
-                    boolean schemaExists = false;
-                    String schemaQuery = "SELECT username FROM all_users WHERE username = ?";
-                    
-                    try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                        stmt.setString(1, schema);
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            if (rs.next()) {
-                                schemaExists = true;
-                            }
-                        }
-                    }
-                    
-                    if (!schemaExists) {
-                        // Try with quotes for special characters
-                        try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                            stmt.setString(1, "\"" + schema + "\"");
-                            try (ResultSet rs = stmt.executeQuery()) {
-                                if (rs.next()) {
-                                    schema = "\"" + schema + "\"";
-                                    schemaExists = true;
-                                }
-                            }
-                        } catch (SQLException e) {
-                            logger.warn("Error checking quoted schema: {}", e.getMessage());
-                        }
-                        
-                        if (!schemaExists) {
-                            logger.warn("Schema '{}' does not exist, falling back to user's schema", schema);
-                            schema = username.toUpperCase();
-                        }
-                    }
-                } else if (dbType.equalsIgnoreCase("oracle")) {
-                    schema = username.toUpperCase();
-                }
+                Dialect dialect = dialectRegistry.forType(dbType);
+                String schema = dialectRegistry.resolveSchema(dbType, jdbcUrl, conn, username, schemaFilter);
 
                 try (ResultSet primaryKeys = metaData.getPrimaryKeys(null, schema, tableName)) {
                     while (primaryKeys.next()) {
@@ -262,44 +212,15 @@ public class TableSchemaExtractor {
                     }
                 }
 
-                // For Oracle, if no columns found using metadata, try direct SQL query
-                if (allColumns.isEmpty() && dbType.equalsIgnoreCase("oracle") && schema != null) {
+                // Some drivers find no columns through metadata, e.g. Oracle tables of another schema
+                CatalogQuery columnsQuery = allColumns.isEmpty() && schema != null
+                        ? dialect.columnNamesQuery(schema, tableName) : null;
+                if (columnsQuery != null) {
                     logger.info("No columns found using metadata API for {}, trying direct SQL query", tableName);
-                    
-                    String schemaParam = schema.replace("\"", ""); // Remove quotes for parameter binding
-                    String query = "SELECT column_name FROM all_tab_columns WHERE owner = ? AND table_name = ?";
-                    try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                        stmt.setString(1, schemaParam);
-                        stmt.setString(2, tableName.toUpperCase());
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            while (rs.next()) {
-                                String columnName = rs.getString(1).toLowerCase();
-                                allColumns.add(columnName);
-                                logger.debug("Added column from direct SQL: {}", columnName);
-                            }
-                        }
-                    }
-                    
-                    // If we found columns but no primary keys, try to find primary keys using SQL
-                    if (!allColumns.isEmpty() && primaryKeyColumns.isEmpty()) {
-                        String pkQuery = "SELECT cols.column_name " +
-                                  "FROM all_constraints cons, all_cons_columns cols " +
-                                  "WHERE cons.constraint_type = 'P' " +
-                                  "AND cons.constraint_name = cols.constraint_name " +
-                                  "AND cons.owner = ? " +
-                                  "AND cols.table_name = ?";
-                        
-                        try (PreparedStatement stmt = conn.prepareStatement(pkQuery)) {
-                            stmt.setString(1, schemaParam);
-                            stmt.setString(2, tableName.toUpperCase());
-                            try (ResultSet rs = stmt.executeQuery()) {
-                                while (rs.next()) {
-                                    String columnName = rs.getString(1).toLowerCase();
-                                    primaryKeyColumns.add(columnName);
-                                    logger.info("Added primary key from direct SQL: {}", columnName);
-                                }
-                            }
-                        }
+                    allColumns.addAll(queryNames(conn, columnsQuery));
+                    CatalogQuery primaryKeyQuery = dialect.primaryKeyQuery(schema, tableName);
+                    if (!allColumns.isEmpty() && primaryKeyColumns.isEmpty() && primaryKeyQuery != null) {
+                        primaryKeyColumns.addAll(queryNames(conn, primaryKeyQuery));
                     }
                 }
 
@@ -310,6 +231,9 @@ public class TableSchemaExtractor {
         } catch (SQLException e) {
             logger.error("Error fetching table metadata for table {}: {}", tableName, e.getMessage());
             throw new RuntimeException("Failed to fetch table metadata: " + e.getMessage(), e);
+        } finally {
+            metrics.recordPhase(ComparisonMetrics.PHASE_METADATA, dbType.toLowerCase(), tableName,
+                    System.nanoTime() - started);
         }
     }
     /**
@@ -357,7 +281,7 @@ public class TableSchemaExtractor {
     }
 
     /**
-     * Identifies primary keys and unique constraints for a table
+     * Identifies the primary key columns of a table
      */
     private List<String> identifyPrimaryKeys(String dbType, String host, int port, String dbName,
                                            String username, String password, String tableName, String schemaFilter) {
@@ -367,49 +291,12 @@ public class TableSchemaExtractor {
             conn = getConnection(dbType, host, port, dbName, username, password);
             DatabaseMetaData metaData = conn.getMetaData();
 
-            // Apply schema filter for Oracle
-            String schema = null;
-            if (dbType.equalsIgnoreCase("oracle") && schemaFilter != null) {
-                schema = schemaFilter.toUpperCase();
-                // Check if the schema exists and format it properly
-                boolean schemaExists = false;
-                String schemaQuery = "SELECT username FROM all_users WHERE username = ?";
-                
-                try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                    stmt.setString(1, schema);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            schemaExists = true;
-                        }
-                    }
-                }
-                
-                if (!schemaExists) {
-                    // Try with quotes for special characters
-                    try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                        stmt.setString(1, "\"" + schema + "\"");
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            if (rs.next()) {
-                                schema = "\"" + schema + "\"";
-                                schemaExists = true;
-                            }
-                        }
-                    } catch (SQLException e) {
-                        logger.warn("Error checking quoted schema: {}", e.getMessage());
-                    }
-                    
-                    if (!schemaExists) {
-                        logger.warn("Schema '{}' does not exist, falling back to user's schema", schema);
-                        schema = username.toUpperCase();
-                    }
-                }
-            } else if (dbType.equalsIgnoreCase("oracle")) {
-                schema = username.toUpperCase();
-            }
+            Dialect dialect = dialectRegistry.forType(dbType);
+            String schema = dialectRegistry.resolveSchema(dbType, getJdbcUrl(dbType, host, port, dbName), conn,
+                    username, schemaFilter);
 
             logger.info("Attempting to identify primary keys for table: {} in schema: {}", tableName, schema);
 
-            // First try to get primary keys - For Oracle, use the schema qualified name directly in tables
             try (ResultSet pkRs = metaData.getPrimaryKeys(null, schema, tableName)) {
                 while (pkRs.next()) {
                     String columnName = pkRs.getString("COLUMN_NAME");
@@ -418,43 +305,15 @@ public class TableSchemaExtractor {
                 }
             }
 
-            // If no primary keys found, look for unique indices
-            if (primaryKeys.isEmpty()) {
-                logger.info("No primary keys found, checking unique indices for table: {}", tableName);
-                try (ResultSet indexRs = metaData.getIndexInfo(null, schema, tableName, true, false)) {
-                    while (indexRs.next()) {
-                        String columnName = indexRs.getString("COLUMN_NAME");
-                        if (!primaryKeys.contains(columnName.toLowerCase())) {
-                            primaryKeys.add(columnName.toLowerCase());
-                            logger.info("Found unique index column: {}", columnName);
-                        }
-                    }
-                }
-            }
-
-            // For Oracle, if still no primary keys found, try to look up primary keys directly using SQL
-            if (primaryKeys.isEmpty() && dbType.equalsIgnoreCase("oracle") && schema != null) {
-                String schemaParam = schema.replace("\"", ""); // Remove quotes for parameter binding
-                
-                String query = "SELECT cols.column_name " +
-                               "FROM all_constraints cons, all_cons_columns cols " +
-                               "WHERE cons.constraint_type = 'P' " +
-                               "AND cons.constraint_name = cols.constraint_name " +
-                               "AND cons.owner = ? " +
-                               "AND cols.table_name = ?";
-                
-                try (PreparedStatement stmt = conn.prepareStatement(query)) {
-                    stmt.setString(1, schemaParam);
-                    stmt.setString(2, tableName.toUpperCase());
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            String columnName = rs.getString(1);
-                            primaryKeys.add(columnName.toLowerCase());
-                            logger.info("Found primary key column from direct SQL: {}", columnName);
-                        }
-                    }
+            // Some drivers find no keys through metadata, e.g. Oracle tables of another schema
+            CatalogQuery primaryKeyQuery = primaryKeys.isEmpty() && schema != null
+                    ? dialect.primaryKeyQuery(schema, tableName) : null;
+            if (primaryKeyQuery != null) {
+                try {
+                    primaryKeys.addAll(queryNames(conn, primaryKeyQuery));
+                    logger.info("Found primary key columns from direct SQL: {}", primaryKeys);
                 } catch (SQLException e) {
-                    logger.error("Error querying Oracle primary keys: {}", e.getMessage());
+                    logger.error("Error querying primary keys from the catalog: {}", e.getMessage());
                 }
             }
 
@@ -465,7 +324,7 @@ public class TableSchemaExtractor {
         }
 
         if (primaryKeys.isEmpty()) {
-            logger.warn("No primary or unique keys found for table: {}. Will try business keys.", tableName);
+            logger.warn("No primary key found for table: {}. Will select a key from statistics.", tableName);
         } else {
             logger.info("Identified key columns for table {}: {}", tableName, primaryKeys);
         }
@@ -474,79 +333,26 @@ public class TableSchemaExtractor {
     }
 
     /**
-     * Identifies potential business keys based on column properties
+     * Select a unique column set among the given columns from index, catalog and sample evidence.
+     * Returns null if none was found or the table could not be read.
      */
-    private List<String> identifyBusinessKeys(String dbType, String host, int port, String dbName,
-                                            String username, String password, String tableName, String schemaFilter) {
-        List<String> businessKeys = new ArrayList<>();
+    private KeySelection selectKey(String dbType, String host, int port, String dbName, String username,
+                                   String password, String tableName, Collection<String> commonColumns,
+                                   RowFilter filter) {
+        Object rows = fetchTableStatistics(dbType, host, port, dbName, username, password, tableName).get("rows");
+        Dialect dialect = dialectRegistry.forType(dbType);
+        String schema = dialect.defaultSchema(username);
         Connection conn = null;
-
         try {
             conn = getConnection(dbType, host, port, dbName, username, password);
-            DatabaseMetaData metaData = conn.getMetaData();
-
-            // Apply schema filter for Oracle
-            String schema = null;
-            if (dbType.equalsIgnoreCase("oracle") && schemaFilter != null) {
-                schema = schemaFilter.toUpperCase();
-            } else if (dbType.equalsIgnoreCase("oracle")) {
-                schema = username.toUpperCase();
-            }
-
-            logger.debug("Analyzing columns for business keys in table: {}", tableName);
-
-            // Get column metadata
-            try (ResultSet columns = metaData.getColumns(null, schema, tableName, null)) {
-                while (columns.next()) {
-                    String columnName = columns.getString("COLUMN_NAME").toLowerCase();
-                    int nullable = columns.getInt("NULLABLE");
-                    String typeName = columns.getString("TYPE_NAME").toLowerCase();
-
-                    // Check for common business key patterns
-                    if (isBusinessKeyCandidate(columnName, nullable)) {
-                        businessKeys.add(columnName);
-                        logger.info("Identified business key for table {}: {} (Type: {}, Nullable: {})",
-                            tableName, columnName, typeName, nullable == DatabaseMetaData.columnNoNulls ? "NO" : "YES");
-                    }
-                }
-            }
-
+            return keySelector.selectKey(conn, dialect, schema, tableName, dialect.qualify(schema, tableName),
+                    commonColumns, (Long) rows, filter);
         } catch (SQLException e) {
-            logger.error("Error identifying business keys for table {}: {}", tableName, e.getMessage());
+            logger.error("Error selecting key columns for table {}: {}", tableName, e.getMessage());
+            return null;
         } finally {
             closeConnection(conn);
         }
-
-        return businessKeys;
-    }
-
-    /**
-     * Checks if a column is a potential business key
-     */
-    private boolean isBusinessKeyCandidate(String columnName, int nullable) {
-        // Common patterns for business keys
-        String[] patterns = {
-            "_id$", "id$", "_code$", "_number$", "reference", "email",
-            "^uuid", "^guid", "unique", "key$", "identifier$"
-        };
-
-        // Check if column name matches any business key pattern
-        boolean matchesPattern = false;
-        for (String pattern : patterns) {
-            if (columnName.matches(".*" + pattern + ".*")) {
-                logger.debug("Column {} matches business key pattern: {}", columnName, pattern);
-                matchesPattern = true;
-                break;
-            }
-        }
-
-        // Column should match pattern and preferably be NOT NULL
-        boolean isCandidate = matchesPattern && nullable == DatabaseMetaData.columnNoNulls;
-        if (isCandidate) {
-            logger.debug("Column {} is a business key candidate", columnName);
-        }
-
-        return isCandidate;
     }
 
     /**
@@ -592,37 +398,32 @@ public class TableSchemaExtractor {
                 }
             }
             keyColumns.addAll(commonPrimaryKeys);
+            mapping.setKeyStrategy(KeyStrategy.PRIMARY_KEY);
             logger.info("Using primary keys for table mapping: {}", keyColumns);
         }
 
-        // If no common primary keys, try to identify business keys
-        if (keyColumns.isEmpty()) {
-            List<String> srcBusinessKeys = identifyBusinessKeys(srcDbType, srcHost, srcPort, srcDbName, srcUsername, srcPassword, srcTable, null);
-            List<String> tgtBusinessKeys = identifyBusinessKeys(tgtDbType, tgtHost, tgtPort, tgtDbName, tgtUsername, tgtPassword, tgtTable, null);
-
-            Set<String> commonBusinessKeys = new HashSet<>();
-            for (String srcKey : srcBusinessKeys) {
-                for (String tgtKey : tgtBusinessKeys) {
-                    if (srcKey.equalsIgnoreCase(tgtKey)) {
-                        commonBusinessKeys.add(srcKey.toLowerCase());
-                    }
-                }
-            }
+        List<String> commonColumns = srcMetadata.getAllColumns().stream()
+                .filter(col -> tgtMetadata.getAllColumns().stream()
+                        .anyMatch(tgtCol -> tgtCol.equalsIgnoreCase(col)))
+                .map(String::toLowerCase)
+                .collect(Collectors.toList());
 
-            if (!commonBusinessKeys.isEmpty()) {
-                keyColumns.addAll(commonBusinessKeys);
-                logger.info("Using business keys for table mapping: {}", keyColumns);
+        // Without a common primary key, pick the narrowest column set that is unique in the source
+        if (keyColumns.isEmpty()) {
+            KeySelection selection = selectKey(srcDbType, srcHost, srcPort, srcDbName, srcUsername, srcPassword,
+                    srcTable, commonColumns, null);
+            if (selection != null) {
+                keyColumns.addAll(selection.getColumns());
+                mapping.setKeyStrategy(selection.getStrategy());
+                logger.info("Using selected keys for table mapping: {} ({})", keyColumns, selection.getEvidence());
             }
         }
 
-        // Last resort: use all common columns
+        // Last resort: compare all common columns, as row hashes or as one composite key
         if (keyColumns.isEmpty()) {
-            keyColumns.addAll(srcMetadata.getAllColumns().stream()
-                    .filter(col -> tgtMetadata.getAllColumns().stream()
-                            .anyMatch(tgtCol -> tgtCol.equalsIgnoreCase(col)))
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toList()));
-            logger.info("Using all common columns as keys for table mapping: {}", keyColumns);
+            keyColumns.addAll(commonColumns);
+            mapping.setKeyStrategy(keylessStrategy(srcDbType, tgtDbType, keyColumns));
+            logger.info("Using all common columns for table mapping ({}): {}", mapping.getKeyStrategy(), keyColumns);
         }
 
         mapping.setKeyColumns(keyColumns);
@@ -630,66 +431,308 @@ public class TableSchemaExtractor {
     }
 
     /**
-     * Main method to compare databases and generate Excel report
+     * Main method to compare databases and generate Excel report.
+     * When a job ID is given, results are also persisted to the job's result store and progress is
+     * checkpointed per table, so the job can be resumed with {@link #resumeComparison}.
+     * When a profile is given, it receives the measured time of every phase per table.
      */
     public File compareAndGenerateReport(
             String srcDbType, String tgtDbType,
             String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
             String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
-            String outputPath, List<TableMapping> selectedTables, 
-            String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables) {
+            String jobId, String outputPath, List<TableMapping> selectedTables, 
+            String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables, EngineMode engineMode,
+            ExecutionProfile profile) {
+        return compareAndGenerateReport(srcDbType, tgtDbType,
+                srcHost, srcPort, srcDbName, srcUsername, srcPassword,
+                tgtHost, tgtPort, tgtDbName, tgtUsername, tgtPassword,
+                jobId, outputPath, selectedTables, sourceSchemaFilter, targetSchemaFilter, maxTables, engineMode,
+                profile, null);
+    }
+
+    /**
+     * Compare with a scheduling priority from 1 to 10 that sets the job's share of table slots
+     */
+    @Override
+    public File compareAndGenerateReport(
+            String srcDbType, String tgtDbType,
+            String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+            String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+            String jobId, String outputPath, List<TableMapping> selectedTables,
+            String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables, EngineMode engineMode,
+            ExecutionProfile profile, Integer priority) {
+        long runStarted = System.nanoTime();
+        ComparisonCheckpoint checkpoint = null;
         try {
             logger.info("Starting database comparison...");
-            List<TableMapping> tableMappings = new ArrayList<>();
-            if (selectedTables != null && !selectedTables.isEmpty()) {
-                // Filter tables based on the provided mappings
-                tableMappings.addAll(selectedTables);
-
-                // Ensure all table mappings have database connection details
-                for (TableMapping mapping : tableMappings) {
-                    if (mapping.getSourceDbType() == null) {
-                        mapping.setSourceDbType(srcDbType);
-                        mapping.setSourceHost(srcHost);
-                        mapping.setSourcePort(srcPort);
-                        mapping.setSourceDbName(srcDbName);
-                        mapping.setSourceUsername(srcUsername);
-                        mapping.setSourcePassword(srcPassword);
-
-                        mapping.setTargetDbType(tgtDbType);
-                        mapping.setTargetHost(tgtHost);
-                        mapping.setTargetPort(tgtPort);
-                        mapping.setTargetDbName(tgtDbName);
-                        mapping.setTargetUsername(tgtUsername);
-                        mapping.setTargetPassword(tgtPassword);
-                    }
-                }
-            } else {
-                // Find all common tables if no mappings are provided
-                tableMappings = findCommonTables(
-                        srcDbType, tgtDbType,
-                        srcHost, srcPort, srcDbName, srcUsername, srcPassword,
-                        tgtHost, tgtPort, tgtDbName, tgtUsername, tgtPassword,
-                        sourceSchemaFilter, targetSchemaFilter, maxTables);
+            List<TableMapping> tableMappings = resolveTableMappings(srcDbType, tgtDbType,
+                    srcHost, srcPort, srcDbName, srcUsername, srcPassword,
+                    tgtHost, tgtPort, tgtDbName, tgtUsername, tgtPassword,
+                    selectedTables, sourceSchemaFilter, targetSchemaFilter, maxTables);
+            if (profile != null) {
+                profile.addPhase(null, ComparisonMetrics.PHASE_METADATA, System.nanoTime() - runStarted);
             }
             if (tableMappings.isEmpty()) {
                 logger.warn("No tables found for comparison.");
                 return null;
             }
-            Map<String, Object> allResults = compareTables(tableMappings);
-            // Generate Excel report
-            File excelFile = excelGenerator.generateExcelReport(allResults, outputPath, tableMappings);
-            logger.info("Excel report generated at: {}", excelFile.getAbsolutePath());
-            return excelFile;
+            if (engineMode == EngineMode.SPARK) {
+                return compareWithSpark(tableMappings, jobId, outputPath, profile);
+            }
+            if (jobId != null && checkpointStore.isEnabled() && checkpointStore.acquire(jobId)) {
+                ComparisonRequest request = new ComparisonRequest();
+                request.setSourceDbType(srcDbType);
+                request.setTargetDbType(tgtDbType);
+                request.setSourceHost(srcHost);
+                request.setSourcePort(srcPort);
+                request.setSourceDbName(srcDbName);
+                request.setSourceUsername(srcUsername);
+                request.setTargetHost(tgtHost);
+                request.setTargetPort(tgtPort);
+                request.setTargetDbName(tgtDbName);
+                request.setTargetUsername(tgtUsername);
+                request.setSourceSchemaFilter(sourceSchemaFilter);
+                request.setTargetSchemaFilter(targetSchemaFilter);
+                request.setMaxTables(maxTables);
+                request.setEngineMode(engineMode);
+                request.setPriority(priority);
+                checkpoint = checkpointStore.create(jobId, outputPath, request, tableMappings);
+            }
+            return compareAndReport(tableMappings, jobId, outputPath, srcDbType, tgtDbType, checkpoint, priority,
+                    engineMode, profile);
         } catch (Exception e) {
             logger.error("Error comparing databases: ", e);
+            markInterrupted(checkpoint, e);
             throw new RuntimeException("Database comparison failed: " + e.getMessage(), e);
+        } finally {
+            if (checkpoint != null) {
+                checkpointStore.release(jobId);
+            }
+            if (profile != null) {
+                profile.setTotalMillis((System.nanoTime() - runStarted) / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Continue a checkpointed job: tables committed by earlier runs are read back from the job's result
+     * store, the others are compared again, and the report is rewritten in place. Passwords are not part
+     * of the checkpoint and must be given again.
+     */
+    public File resumeComparison(String jobId, String srcPassword, String tgtPassword, ExecutionProfile profile) {
+        ComparisonCheckpoint checkpoint = checkpointStore.load(jobId);
+        if (ComparisonCheckpoint.COMPLETED.equals(checkpoint.getStatus())) {
+            throw new IllegalStateException("Job " + jobId + " has already completed");
+        }
+        if (!checkpointStore.acquire(jobId)) {
+            throw new IllegalStateException("Job " + jobId + " is already running");
+        }
+        long runStarted = System.nanoTime();
+        try {
+            List<TableMapping> tableMappings = checkpoint.getTableMappings();
+            for (TableMapping mapping : tableMappings) {
+                mapping.setSourcePassword(srcPassword);
+                mapping.setTargetPassword(tgtPassword);
+            }
+            logger.info("Resuming job {}: {} of {} tables completed by earlier runs", jobId,
+                    checkpoint.getCompletedTables().size(), tableMappings.size());
+            ComparisonRequest request = checkpoint.getRequest();
+            return compareAndReport(tableMappings, jobId, checkpoint.getOutputPath(),
+                    request.getSourceDbType(), request.getTargetDbType(), checkpoint, request.getPriority(),
+                    request.getEngineMode(), profile);
+        } catch (Exception e) {
+            logger.error("Error resuming comparison {}: ", jobId, e);
+            markInterrupted(checkpoint, e);
+            throw new RuntimeException("Database comparison failed: " + e.getMessage(), e);
+        } finally {
+            checkpointStore.release(jobId);
+            if (profile != null) {
+                profile.setTotalMillis((System.nanoTime() - runStarted) / 1_000_000);
+            }
+        }
+    }
+
+    private File compareAndReport(List<TableMapping> tableMappings, String jobId, String outputPath,
+                                  String srcDbType, String tgtDbType, ComparisonCheckpoint checkpoint,
+                                  Integer priority, EngineMode engineMode, ExecutionProfile profile) {
+        if (checkpoint != null) {
+            checkpoint.setStatus(ComparisonCheckpoint.RUNNING);
+            checkpoint.setRuns(checkpoint.getRuns() + 1);
+            checkpointStore.save(checkpoint);
+        }
+        Map<String, Object> allResults;
+        try (FairScheduler.Job job = fairScheduler.register(jobId != null ? jobId : "unsaved", priority)) {
+            if (jobId != null) {
+                try (DiffResultStore.Writer writer = diffResultStore.openWriter(jobId)) {
+                    allResults = compareTables(tableMappings, writer, checkpoint, job, engineMode, profile);
+                }
+            } else {
+                allResults = compareTables(tableMappings, null, null, job, engineMode, profile);
+            }
+        }
+        // Generate Excel report
+        long reportStarted = System.nanoTime();
+        ComparisonEvents.ReportWrite reportEvent = new ComparisonEvents.ReportWrite();
+        reportEvent.begin();
+        File excelFile = excelGenerator.generateExcelReport(allResults, outputPath, tableMappings);
+        if (reportEvent.shouldCommit()) {
+            reportEvent.tables = tableMappings.size();
+            reportEvent.rows = ((List<?>) allResults.get("differences")).size()
+                    + ((List<?>) allResults.get("unmatched_source")).size()
+                    + ((List<?>) allResults.get("unmatched_target")).size();
+            reportEvent.bytes = excelFile.length();
+            reportEvent.commit();
+        }
+        long reportNanos = System.nanoTime() - reportStarted;
+        metrics.recordPhase(ComparisonMetrics.PHASE_REPORT, ComparisonMetrics.dialect(srcDbType, tgtDbType),
+                ComparisonMetrics.ALL_TABLES, reportNanos);
+        if (profile != null) {
+            profile.addPhase(null, ComparisonMetrics.PHASE_REPORT, reportNanos);
+        }
+        if (checkpoint != null) {
+            // Failed tables stay resumable; the report covers the tables that did complete
+            checkpoint.setStatus(checkpoint.getFailedTables().isEmpty()
+                    ? ComparisonCheckpoint.COMPLETED : ComparisonCheckpoint.INCOMPLETE);
+            checkpoint.setLastError(null);
+            checkpointStore.save(checkpoint);
+        }
+        logger.info("Excel report generated at: {}", excelFile.getAbsolutePath());
+        return excelFile;
+    }
+
+    private void markInterrupted(ComparisonCheckpoint checkpoint, Exception e) {
+        if (checkpoint != null) {
+            checkpoint.setStatus(ComparisonCheckpoint.INCOMPLETE);
+            checkpoint.setLastError(e.getMessage());
+            checkpointStore.save(checkpoint);
+        }
+    }
+
+    /**
+     * Tables to compare: the selected mappings completed with the request's connection details,
+     * or all common tables when none were selected
+     */
+    @Override
+    public List<TableMapping> resolveTableMappings(
+            String srcDbType, String tgtDbType,
+            String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+            String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+            List<TableMapping> selectedTables,
+            String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables) {
+        List<TableMapping> tableMappings = new ArrayList<>();
+        if (selectedTables != null && !selectedTables.isEmpty()) {
+            // Filter tables based on the provided mappings
+            tableMappings.addAll(selectedTables);
+
+            // Ensure all table mappings have database connection details
+            for (TableMapping mapping : tableMappings) {
+                if (mapping.getSourceDbType() == null) {
+                    mapping.setSourceDbType(srcDbType);
+                    mapping.setSourceHost(srcHost);
+                    mapping.setSourcePort(srcPort);
+                    mapping.setSourceDbName(srcDbName);
+                    mapping.setSourceUsername(srcUsername);
+                    mapping.setSourcePassword(srcPassword);
+
+                    mapping.setTargetDbType(tgtDbType);
+                    mapping.setTargetHost(tgtHost);
+                    mapping.setTargetPort(tgtPort);
+                    mapping.setTargetDbName(tgtDbName);
+                    mapping.setTargetUsername(tgtUsername);
+                    mapping.setTargetPassword(tgtPassword);
+                }
+            }
+            validateRowFilters(tableMappings);
+            return tableMappings;
+        }
+        // Find all common tables if no mappings are provided
+        return findCommonTables(
+                srcDbType, tgtDbType,
+                srcHost, srcPort, srcDbName, srcUsername, srcPassword,
+                tgtHost, tgtPort, tgtDbName, tgtUsername, tgtPassword,
+                sourceSchemaFilter, targetSchemaFilter, maxTables);
+    }
+
+    /**
+     * Reject row filters that are not plain predicates before any query runs
+     *
+     * @throws IllegalArgumentException naming the table and side of the first invalid filter
+     */
+    public static void validateRowFilters(List<TableMapping> tableMappings) {
+        for (TableMapping mapping : tableMappings) {
+            SqlPredicates.validate(mapping.getSourceFilter(), "source filter of table " + mapping.getSourceTable());
+            SqlPredicates.validate(mapping.getTargetFilter(), "target filter of table " + mapping.getTargetTable());
+        }
+    }
+
+    /**
+     * Compare tables on Spark; differences are written per table and a CSV summary is returned
+     */
+    private File compareWithSpark(List<TableMapping> tableMappings, String jobId, String outputPath,
+                                  ExecutionProfile profile) throws IOException {
+        if (jobId == null) {
+            throw new IllegalArgumentException("Spark comparisons need a job ID for their output directory");
         }
+        Path jobDirectory = Paths.get(outputPath).getParent();
+        List<Map<String, Object>> tableResults = new ArrayList<>();
+        for (TableMapping mapping : tableMappings) {
+            try {
+                ensureKeyColumns(mapping);
+                SparkComparisonEngine.JdbcSource source = createJdbcSource(
+                        mapping.getSourceDbType(), mapping.getSourceHost(), mapping.getSourcePort(),
+                        mapping.getSourceDbName(), mapping.getSourceUsername(), mapping.getSourcePassword(),
+                        mapping.getSourceTable(), mapping.getSourceFilter());
+                SparkComparisonEngine.JdbcSource target = createJdbcSource(
+                        mapping.getTargetDbType(), mapping.getTargetHost(), mapping.getTargetPort(),
+                        mapping.getTargetDbName(), mapping.getTargetUsername(), mapping.getTargetPassword(),
+                        mapping.getTargetTable(), mapping.getTargetFilter());
+                Map<String, Object> result = sparkComparisonEngine.compareTable(mapping, source, target, jobDirectory);
+                metrics.recordDifferences(ComparisonMetrics.dialect(mapping.getSourceDbType(), mapping.getTargetDbType()),
+                        mapping.getSourceTable(), (Long) result.get("differences"), (Long) result.get("unmatched_source"),
+                        (Long) result.get("unmatched_target"));
+                tableResults.add(result);
+            } catch (Exception e) {
+                logger.error("Error comparing table {} on Spark: {}", mapping.getSourceTable(), e.getMessage());
+                tableResults.add(SparkComparisonEngine.failedTable(mapping.getSourceTable(), e.getMessage()));
+                if (profile != null) {
+                    profile.tableFailed(mapping.getSourceTable(), e.getMessage());
+                }
+            }
+        }
+
+        File summaryFile = new File(outputPath.replace(".xlsx", "") + "_summary.csv");
+        SparkComparisonEngine.writeSummary(summaryFile.toPath(), tableResults);
+        logger.info("Spark comparison summary written to: {}", summaryFile.getAbsolutePath());
+        return summaryFile;
+    }
+
+    /**
+     * Describe one side of a table comparison for the Spark JDBC reader
+     */
+    private SparkComparisonEngine.JdbcSource createJdbcSource(String dbType, String host, int port, String dbName,
+                                                              String username, String password, String tableName,
+                                                              RowFilter filter) {
+        String jdbcUrl = getJdbcUrl(dbType, host, port, dbName);
+        // Spark's JDBC reader cannot bind parameters, so the filter's values are written as literals
+        return new SparkComparisonEngine.JdbcSource(jdbcUrl, resolveDriverClass(jdbcUrl),
+                qualifyTableName(dbType, username, tableName), username, password,
+                SqlPredicates.inline(filter, dialectRegistry.forType(dbType)));
+    }
+
+    /**
+     * Table name in the user's default schema, e.g. the user's own schema on Oracle
+     */
+    private String qualifyTableName(String dbType, String username, String tableName) {
+        Dialect dialect = dialectRegistry.forType(dbType);
+        return dialect.qualify(dialect.defaultSchema(username), tableName);
     }
 
     /**
      * Compare tables between databases
      */
-    private Map<String, Object> compareTables(List<TableMapping> tableMappings) {
+    private Map<String, Object> compareTables(List<TableMapping> tableMappings, DiffResultStore.Writer writer,
+                                              ComparisonCheckpoint checkpoint, FairScheduler.Job job,
+                                              EngineMode engineMode, ExecutionProfile profile) {
         Map<String, Object> allResults = new HashMap<>();
         List<Map<String, Object>> allDifferences = new ArrayList<>();
         List<Map<String, Object>> allUnmatchedSource = new ArrayList<>();
@@ -698,61 +741,19 @@ public class TableSchemaExtractor {
 
         for (TableMapping mapping : tableMappings) {
             try {
-                logger.info("Starting comparison for table mapping: {}", mapping);
-
-                // Identify primary keys if not already set
-                if (mapping.getKeyColumns() == null || mapping.getKeyColumns().isEmpty()) {
-                    List<String> primaryKeys = identifyPrimaryKeys(
-                        mapping.getSourceDbType(), mapping.getSourceHost(),
-                        mapping.getSourcePort(), mapping.getSourceDbName(),
-                        mapping.getSourceUsername(), mapping.getSourcePassword(),
-                        mapping.getSourceTable(), null
-                    );
-
-                    if (!primaryKeys.isEmpty()) {
-                        mapping.setKeyColumns(primaryKeys);
-                        logger.info("Using identified primary keys for comparison: {}", primaryKeys);
-                    } else {
-                        logger.warn("No primary keys identified for table {}. Attempting to use business keys.",
-                            mapping.getSourceTable());
-                        List<String> businessKeys = identifyBusinessKeys(
-                            mapping.getSourceDbType(), mapping.getSourceHost(),
-                            mapping.getSourcePort(), mapping.getSourceDbName(),
-                            mapping.getSourceUsername(), mapping.getSourcePassword(),
-                            mapping.getSourceTable(), null
-                        );
-
-                        if (!businessKeys.isEmpty()) {
-                            mapping.setKeyColumns(businessKeys);
-                            logger.info("Using identified business keys for comparison: {}", businessKeys);
-                        } else {
-                            logger.error("No keys found for table {}. Comparison may be inaccurate.",
-                                mapping.getSourceTable());
-                        }
-                    }
+                Map<String, Object> comparisonResult;
+                if (checkpoint != null && checkpoint.getCompletedTables().contains(mapping.getSourceTable())) {
+                    logger.info("Table {} was completed by an earlier run of job {}", mapping.getSourceTable(),
+                            checkpoint.getJobId());
+                    comparisonResult = writer.readTable(mapping.getSourceTable());
+                } else {
+                    // Tables of all jobs share the scheduler's slots and per-endpoint caps
+                    comparisonResult = fairScheduler.run(job, List.of(
+                            LoadLimiter.endpoint(mapping.getSourceDbType(), mapping.getSourceHost(), mapping.getSourcePort()),
+                            LoadLimiter.endpoint(mapping.getTargetDbType(), mapping.getTargetHost(), mapping.getTargetPort())),
+                            () -> compareTable(mapping, writer, checkpoint, engineMode, profile));
                 }
 
-                // Get data from both databases
-                List<Map<String, Object>> sourceData = getTableData(
-                    mapping.getSourceDbType(), mapping.getSourceHost(),
-                    mapping.getSourcePort(), mapping.getSourceDbName(),
-                    mapping.getSourceUsername(), mapping.getSourcePassword(),
-                    mapping.getSourceTable(), null
-                );
-
-                List<Map<String, Object>> targetData = getTableData(
-                    mapping.getTargetDbType(), mapping.getTargetHost(),
-                    mapping.getTargetPort(), mapping.getTargetDbName(),
-                    mapping.getTargetUsername(), mapping.getTargetPassword(),
-                    mapping.getTargetTable(), null
-                );
-
-                logger.info("Retrieved {} records from source and {} records from target for table {}",
-                    sourceData.size(), targetData.size(), mapping.getSourceTable());
-
-                // Compare the data using the identified keys
-                Map<String, Object> comparisonResult = compareTableData(sourceData, targetData, mapping);
-
                 // Aggregate results
                 allDifferences.addAll((List<Map<String, Object>>) comparisonResult.get("differences"));
                 allUnmatchedSource.addAll((List<Map<String, Object>>) comparisonResult.get("unmatched_source"));
@@ -761,6 +762,16 @@ public class TableSchemaExtractor {
 
             } catch (Exception e) {
                 logger.error("Error comparing table {}: {}", mapping.getSourceTable(), e.getMessage());
+                if (profile != null) {
+                    profile.tableFailed(mapping.getSourceTable(), e.getMessage());
+                }
+                // Rows streamed to the store before the failure would otherwise be served as the table's result
+                if (writer != null) {
+                    discardQuietly(writer, mapping.getSourceTable());
+                }
+                if (checkpoint != null) {
+                    checkpointStore.tableFailed(checkpoint, mapping, e.getMessage());
+                }
             }
         }
 
@@ -773,159 +784,271 @@ public class TableSchemaExtractor {
     }
 
     /**
-     * Compares data between source and target tables using identified keys
+     * Compare one table pair; with a checkpoint, its results are committed and recorded once complete
      */
-    private Map<String, Object> compareTableData(List<Map<String, Object>> sourceData,
-                                               List<Map<String, Object>> targetData,
-                                               TableMapping mapping) {
-        Map<String, Object> results = new HashMap<>();
-        List<Map<String, Object>> differences = new ArrayList<>();
-        List<Map<String, Object>> unmatchedSource = new ArrayList<>();
-        List<Map<String, Object>> unmatchedTarget = new ArrayList<>();
-        int exactMatches = 0;
-
-        // Create maps for faster lookup using composite keys
-        Map<String, Map<String, Object>> sourceMap = new HashMap<>();
-        Map<String, Map<String, Object>> targetMap = new HashMap<>();
-
-        logger.info("Using key columns for comparison: {}", mapping.getKeyColumns());
-
-        // Build composite keys from all key columns
-        for (Map<String, Object> record : sourceData) {
-            String compositeKey = buildCompositeKey(record, mapping.getKeyColumns());
-            if (compositeKey != null) {
-                sourceMap.put(compositeKey, record);
-                logger.debug("Source record key: {}", compositeKey);
-            } else {
-                logger.warn("Could not build composite key for source record: {}", record);
-            }
+    private Map<String, Object> compareTable(TableMapping mapping, DiffResultStore.Writer writer,
+                                             ComparisonCheckpoint checkpoint, EngineMode engineMode,
+                                             ExecutionProfile profile)
+            throws Exception {
+        if (checkpoint != null && checkpoint.getRuns() > 1) {
+            // Partial output of an interrupted attempt would be counted twice
+            writer.discardTable(mapping.getSourceTable());
         }
+        logger.info("Starting comparison for table mapping: {}", mapping);
 
-        for (Map<String, Object> record : targetData) {
-            String compositeKey = buildCompositeKey(record, mapping.getKeyColumns());
-            if (compositeKey != null) {
-                targetMap.put(compositeKey, record);
-                logger.debug("Target record key: {}", compositeKey);
-            } else {
-                logger.warn("Could not build composite key for target record: {}", record);
-            }
+        long metadataStarted = System.nanoTime();
+        ensureKeyColumns(mapping);
+        if (profile != null) {
+            profile.addPhase(mapping.getSourceTable(), ComparisonMetrics.PHASE_METADATA,
+                    System.nanoTime() - metadataStarted);
         }
-
-        // Compare records
-        for (Map.Entry<String, Map<String, Object>> entry : sourceMap.entrySet()) {
-            String key = entry.getKey();
-            Map<String, Object> sourceRecord = entry.getValue();
-            Map<String, Object> targetRecord = targetMap.get(key);
-
-            if (targetRecord != null) {
-                // Compare fields
-                Map<String, Object> comparison = compareRecordFields(sourceRecord, targetRecord);
-                List<Map<String, String>> fieldDifferences = (List<Map<String, String>>) comparison.get("differences");
-
-                if (!fieldDifferences.isEmpty()) {
-                    Map<String, Object> diffRecord = new HashMap<>();
-                    diffRecord.put("table", mapping.getSourceTable());
-                    diffRecord.put("key", key);
-                    diffRecord.put("source_record", sourceRecord);
-                    diffRecord.put("target_record", targetRecord);
-                    diffRecord.put("differences", fieldDifferences);
-                    differences.add(diffRecord);
-                    logger.debug("Found differences for key {}: {}", key, fieldDifferences);
-                } else {
-                    exactMatches++;
-                    logger.debug("Exact match found for key: {}", key);
+        long pipelineStarted = System.nanoTime();
+        long spilledBefore = writer != null ? writer.getBytesWritten() : 0L;
+        AtomicLong bytesExtracted = new AtomicLong();
+
+        Map<String, Object> comparisonResult;
+        if (mapping.getKeyStrategy() == KeyStrategy.ROW_HASH) {
+            // Without a key, each database counts its row hashes and only differing rows are fetched
+            try (LoadLimiter.Permit permit = loadLimiter.acquire(
+                    LoadLimiter.endpoint(mapping.getSourceDbType(), mapping.getSourceHost(), mapping.getSourcePort()),
+                    LoadLimiter.endpoint(mapping.getTargetDbType(), mapping.getTargetHost(), mapping.getTargetPort()))) {
+                try {
+                    comparisonResult = rowHashComparison.compareTable(mapping,
+                        rowHashSide(mapping.getSourceDbType(), mapping.getSourceHost(),
+                            mapping.getSourcePort(), mapping.getSourceDbName(),
+                            mapping.getSourceUsername(), mapping.getSourcePassword(), mapping.getSourceTable(),
+                            mapping.getSourceFilter()),
+                        rowHashSide(mapping.getTargetDbType(), mapping.getTargetHost(),
+                            mapping.getTargetPort(), mapping.getTargetDbName(),
+                            mapping.getTargetUsername(), mapping.getTargetPassword(), mapping.getTargetTable(),
+                            mapping.getTargetFilter()),
+                        writer);
+                } catch (SQLException e) {
+                    permit.failed(e.getMessage());
+                    throw e;
                 }
-                targetMap.remove(key);
-            } else {
-                // Record exists in source but not in target
-                unmatchedSource.add(sourceRecord);
-                logger.debug("Record with key {} exists in source but not in target", key);
+            }
+        } else {
+            comparisonResult = null;
+            if (engineMode == EngineMode.KEY_FIRST && !mapping.getKeyColumns().isEmpty()) {
+                comparisonResult = compareKeyFirst(mapping, writer);
+            }
+            if (comparisonResult == null) {
+                // Extraction, matching and persistence run as one pipeline per table
+                comparisonResult = comparisonPipeline.compareTable(mapping,
+                    sink -> streamTableData(
+                        mapping.getSourceDbType(), mapping.getSourceHost(),
+                        mapping.getSourcePort(), mapping.getSourceDbName(),
+                        mapping.getSourceUsername(), mapping.getSourcePassword(),
+                        mapping.getSourceTable(), null, mapping.getSourceFilter(),
+                        ComparisonMetrics.SIDE_SOURCE, sink, bytesExtracted),
+                    sink -> streamTableData(
+                        mapping.getTargetDbType(), mapping.getTargetHost(),
+                        mapping.getTargetPort(), mapping.getTargetDbName(),
+                        mapping.getTargetUsername(), mapping.getTargetPassword(),
+                        mapping.getTargetTable(), null, mapping.getTargetFilter(),
+                        ComparisonMetrics.SIDE_TARGET, sink, bytesExtracted),
+                    writer);
             }
         }
-
-        // Remaining records in target are unmatched
-        unmatchedTarget.addAll(targetMap.values());
-        if (!targetMap.isEmpty()) {
-            logger.debug("Found {} records in target that don't exist in source", targetMap.size());
+        long bytesSpilled = writer != null ? writer.getBytesWritten() - spilledBefore : 0L;
+        if (writer != null) {
+            metrics.recordSpill(ComparisonMetrics.dialect(mapping.getSourceDbType(), mapping.getTargetDbType()),
+                    mapping.getSourceTable(), bytesSpilled);
         }
+        if (profile != null) {
+            recordTableProfile(profile, mapping, comparisonResult, System.nanoTime() - pipelineStarted);
+            profile.putTableValue(mapping.getSourceTable(), "bytesExtracted", bytesExtracted.get());
+            profile.putTableValue(mapping.getSourceTable(), "bytesSpilled", bytesSpilled);
+        }
+        if (checkpoint != null) {
+            writer.finishTable(mapping.getSourceTable());
+            checkpointStore.tableFinished(checkpoint, mapping);
+        }
+        return comparisonResult;
+    }
 
-        results.put("differences", differences);
-        results.put("unmatched_source", unmatchedSource);
-        results.put("unmatched_target", unmatchedTarget);
-        results.put("exact_matches", exactMatches);
+    /**
+     * Two-phase comparison of keys and row hashes, then of the rows that differ; null when the table
+     * should be read with the pipeline instead
+     */
+    private Map<String, Object> compareKeyFirst(TableMapping mapping, DiffResultStore.Writer writer)
+            throws SQLException, InterruptedException {
+        Dialect sourceDialect = dialectRegistry.forType(mapping.getSourceDbType());
+        Dialect targetDialect = dialectRegistry.forType(mapping.getTargetDbType());
+        try {
+            List<TypedColumn> probe = mapping.getKeyColumns().stream().map(TypedColumn::untyped)
+                    .collect(Collectors.toList());
+            sourceDialect.rowHashExpression(probe);
+            targetDialect.rowHashExpression(probe);
+        } catch (IllegalArgumentException e) {
+            logger.info("Key-first comparison is not available for table {}: {}", mapping.getSourceTable(),
+                    e.getMessage());
+            return null;
+        }
+        // Both phases hold the endpoints' permits, released before a fallback pipeline scan takes its own
+        try (LoadLimiter.Permit permit = loadLimiter.acquire(
+                LoadLimiter.endpoint(mapping.getSourceDbType(), mapping.getSourceHost(), mapping.getSourcePort()),
+                LoadLimiter.endpoint(mapping.getTargetDbType(), mapping.getTargetHost(), mapping.getTargetPort()))) {
+            try {
+                return keyFirstComparison.compareTable(mapping,
+                    rowHashSide(mapping.getSourceDbType(), mapping.getSourceHost(),
+                        mapping.getSourcePort(), mapping.getSourceDbName(),
+                        mapping.getSourceUsername(), mapping.getSourcePassword(), mapping.getSourceTable(),
+                        mapping.getSourceFilter()),
+                    rowHashSide(mapping.getTargetDbType(), mapping.getTargetHost(),
+                        mapping.getTargetPort(), mapping.getTargetDbName(),
+                        mapping.getTargetUsername(), mapping.getTargetPassword(), mapping.getTargetTable(),
+                        mapping.getTargetFilter()),
+                    writer);
+            } catch (SQLException e) {
+                permit.failed(e.getMessage());
+                throw e;
+            }
+        }
+    }
 
-        logger.info("Comparison results for table {}: {} differences, {} unmatched in source, {} unmatched in target, {} exact matches",
-            mapping.getSourceTable(), differences.size(), unmatchedSource.size(), unmatchedTarget.size(), exactMatches);
+    private static void discardQuietly(DiffResultStore.Writer writer, String table) {
+        try {
+            writer.discardTable(table);
+        } catch (RuntimeException e) {
+            logger.warn("Could not discard partial results of table {}: {}", table, e.getMessage());
+        }
+    }
 
-        return results;
+    /**
+     * Phases of the pipeline overlap, so the table's wall time is recorded next to the per-stage times
+     */
+    @SuppressWarnings("unchecked")
+    private void recordTableProfile(ExecutionProfile profile, TableMapping mapping, Map<String, Object> result,
+                                    long pipelineNanos) {
+        String table = mapping.getSourceTable();
+        Map<String, Long> phaseNanos = (Map<String, Long>) result.get("phase_nanos");
+        if (phaseNanos != null) {
+            phaseNanos.forEach((phase, nanos) -> profile.addPhase(table, phase, nanos));
+        }
+        profile.addPhase(table, "pipeline", pipelineNanos);
+        Object rows = result.get("rows_extracted");
+        if (rows instanceof Long) {
+            profile.putTableValue(table, "rowsExtracted", (Long) rows);
+        }
     }
 
     /**
-     * Compares individual fields between two records
+     * Identify primary keys, or select a unique column set, for a mapping if none were provided
      */
-    private Map<String, Object> compareRecordFields(Map<String, Object> sourceRecord, Map<String, Object> targetRecord) {
-        Map<String, Object> result = new HashMap<>();
-        List<Map<String, String>> differences = new ArrayList<>();
-
-        // Compare all fields in source record
-        for (Map.Entry<String, Object> entry : sourceRecord.entrySet()) {
-            String field = entry.getKey();
-            Object sourceValue = normalizeValue(entry.getValue()); // Normalize source value
-            Object targetValue = normalizeValue(targetRecord.get(field)); // Normalize target value
-
-            if (!Objects.equals(sourceValue, targetValue)) {
-                Map<String, String> difference = new HashMap<>();
-                difference.put("field", field);
-                difference.put("source", sourceValue != null ? sourceValue.toString() : "<NULL>");
-                difference.put("target", targetValue != null ? targetValue.toString() : "<NULL>");
-                differences.add(difference);
-            }
+    @Override
+    public void ensureKeyColumns(TableMapping mapping) {
+        if (mapping.getKeyColumns() != null && !mapping.getKeyColumns().isEmpty() && mapping.getKeyStrategy() == null) {
+            mapping.setKeyStrategy(KeyStrategy.PROVIDED);
         }
+        if (mapping.getKeyColumns() == null || mapping.getKeyColumns().isEmpty()) {
+            long started = System.nanoTime();
+            List<String> primaryKeys = identifyPrimaryKeys(
+                mapping.getSourceDbType(), mapping.getSourceHost(),
+                mapping.getSourcePort(), mapping.getSourceDbName(),
+                mapping.getSourceUsername(), mapping.getSourcePassword(),
+                mapping.getSourceTable(), null
+            );
+
+            if (!primaryKeys.isEmpty()) {
+                mapping.setKeyColumns(primaryKeys);
+                mapping.setKeyStrategy(KeyStrategy.PRIMARY_KEY);
+                logger.info("Using identified primary keys for comparison: {}", primaryKeys);
+            } else {
+                logger.warn("No primary keys identified for table {}. Selecting a key from statistics.",
+                    mapping.getSourceTable());
+                List<String> sourceColumns = fetchTableMetadata(
+                    mapping.getSourceDbType(), mapping.getSourceHost(),
+                    mapping.getSourcePort(), mapping.getSourceDbName(),
+                    mapping.getSourceUsername(), mapping.getSourcePassword(),
+                    mapping.getSourceTable(), null
+                ).getAllColumns();
+                List<String> targetColumns = fetchTableMetadata(
+                    mapping.getTargetDbType(), mapping.getTargetHost(),
+                    mapping.getTargetPort(), mapping.getTargetDbName(),
+                    mapping.getTargetUsername(), mapping.getTargetPassword(),
+                    mapping.getTargetTable(), null
+                ).getAllColumns();
+                List<String> commonColumns = sourceColumns.stream()
+                    .filter(col -> targetColumns.stream().anyMatch(tgtCol -> tgtCol.equalsIgnoreCase(col)))
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toList());
+                KeySelection selection = selectKey(
+                    mapping.getSourceDbType(), mapping.getSourceHost(),
+                    mapping.getSourcePort(), mapping.getSourceDbName(),
+                    mapping.getSourceUsername(), mapping.getSourcePassword(),
+                    mapping.getSourceTable(), commonColumns, mapping.getSourceFilter()
+                );
 
-        // Check for fields only in target
-        for (String field : targetRecord.keySet()) {
-            if (!sourceRecord.containsKey(field)) {
-                Object targetValue = normalizeValue(targetRecord.get(field)); // Normalize target value
-                Map<String, String> difference = new HashMap<>();
-                difference.put("field", field);
-                difference.put("source", "<NULL>");
-                difference.put("target", targetValue != null ? targetValue.toString() : "<NULL>");
-                differences.add(difference);
+                if (selection != null) {
+                    mapping.setKeyColumns(selection.getColumns());
+                    mapping.setKeyStrategy(selection.getStrategy());
+                    logger.info("Using selected keys for comparison: {} ({})", selection.getColumns(),
+                        selection.getEvidence());
+                } else {
+                    mapping.setKeyColumns(commonColumns);
+                    mapping.setKeyStrategy(keylessStrategy(mapping.getSourceDbType(), mapping.getTargetDbType(),
+                        commonColumns));
+                    if (commonColumns.isEmpty()) {
+                        logger.error("No keys found for table {}. Comparison may be inaccurate.",
+                            mapping.getSourceTable());
+                    } else {
+                        logger.warn("No keys found for table {}. Comparing all common columns ({}).",
+                            mapping.getSourceTable(), mapping.getKeyStrategy());
+                    }
+                }
             }
+            metrics.recordPhase(ComparisonMetrics.PHASE_METADATA, mapping.getSourceDbType().toLowerCase(),
+                    mapping.getSourceTable(), System.nanoTime() - started);
         }
+    }
 
-        result.put("differences", differences);
-        return result;
+    /**
+     * Strategy of a table compared on all its common columns; row hashes only when both dialects build
+     * them the same way, since otherwise no row of the two sides could ever match
+     */
+    private KeyStrategy keylessStrategy(String srcDbType, String tgtDbType, List<String> commonColumns) {
+        if (commonColumns.isEmpty()) {
+            return KeyStrategy.NONE;
+        }
+        if (!keylessConfig.isEnabled()) {
+            return KeyStrategy.ALL_COLUMNS;
+        }
+        String sourceConstruction = dialectRegistry.forType(srcDbType).rowHashConstruction();
+        String targetConstruction = dialectRegistry.forType(tgtDbType).rowHashConstruction();
+        if (!sourceConstruction.equals(targetConstruction)) {
+            logger.info("Row hashes of {} ({}) and {} ({}) are not comparable; using all common columns as key",
+                    srcDbType, sourceConstruction, tgtDbType, targetConstruction);
+            return KeyStrategy.ALL_COLUMNS;
+        }
+        return KeyStrategy.ROW_HASH;
     }
 
-    /*Normalize values to ensure consistent comparison across databases*/
-    private Object normalizeValue(Object value) {
-        return NormalizationUtils.normalizeValue(value);
+    /**
+     * Describe one side of a keyless comparison
+     */
+    private RowHashComparison.Side rowHashSide(String dbType, String host, int port, String dbName,
+                                               String username, String password, String tableName,
+                                               RowFilter filter) {
+        return new RowHashComparison.Side(dialectRegistry.forType(dbType), qualifyTableName(dbType, username, tableName),
+                () -> getConnection(dbType, host, port, dbName, username, password), filter);
     }
 
     /**
-     * Builds a composite key from multiple columns
+     * Lower-cased first column of a catalog query, e.g. table or column names
      */
-    private String buildCompositeKey(Map<String, Object> record, List<String> keyColumns) {
-        if (keyColumns == null || keyColumns.isEmpty() || record == null) {
-            return null;
-        }
-        StringBuilder key = new StringBuilder();
-        for (String column : keyColumns) {
-            Object value = record.get(column);
-            if (value != null) {
-                if (key.length() > 0) {
-                    key.append(":");
-                }
-                // Normalize the value before building the composite key
-                value = normalizeValue(value);
-                key.append(value.toString());
+    private List<String> queryNames(Connection conn, CatalogQuery query) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement stmt = query.prepare(conn);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                names.add(rs.getString(1).toLowerCase());
             }
         }
-        return key.length() > 0 ? key.toString() : null;
+        return names;
     }
 
-
     /**
      * Get JDBC URL dynamically from configuration
      */
@@ -992,43 +1115,16 @@ public class TableSchemaExtractor {
     private Connection getConnection(String jdbcUrl, String username, String password) throws SQLException {
         try {
             // Load the driver class dynamically based on the JDBC URL
-            String driverClass = null;
-            
-            // Extract database type from JDBC URL
-            String dbType = null;
-            if (jdbcUrl.contains("mysql")) {
-                dbType = "mysql";
-            } else if (jdbcUrl.contains("postgresql")) {
-                dbType = "postgresql";
-            } else if (jdbcUrl.contains("sqlserver")) {
-                dbType = "sqlserver";
-            } else if (jdbcUrl.contains("oracle")) {
-                dbType = "oracle";
-            }
-            
-            // Get driver class from configuration
-            if (dbType != null && databaseConfig != null && databaseConfig.getDriver() != null) {
-                driverClass = databaseConfig.getDriver().get(dbType);
-            }
-            
-            // Fallback to hardcoded values if configuration is not available
-            if (driverClass == null) {
-                if (jdbcUrl.contains("mysql")) {
-                    driverClass = "com.mysql.cj.jdbc.Driver";
-                } else if (jdbcUrl.contains("postgresql")) {
-                    driverClass = "org.postgresql.Driver";
-                } else if (jdbcUrl.contains("sqlserver")) {
-                    driverClass = "com.microsoft.sqlserver.jdbc.SQLServerDriver";
-                } else if (jdbcUrl.contains("oracle")) {
-                    driverClass = "oracle.jdbc.OracleDriver";
-                }
-            }
-
+            String driverClass = resolveDriverClass(jdbcUrl);
             if (driverClass != null) {
                 Class.forName(driverClass);
             }
 
-            return DriverManager.getConnection(jdbcUrl, username, password);
+            long started = System.nanoTime();
+            Connection conn = DriverManager.getConnection(jdbcUrl, username, password);
+            metrics.recordPhase(ComparisonMetrics.PHASE_CONNECTION, ComparisonMetrics.dialectOf(jdbcUrl),
+                    ComparisonMetrics.ALL_TABLES, System.nanoTime() - started);
+            return conn;
         } catch (ClassNotFoundException e) {
             logger.error("Database driver not found: {}", e.getMessage());
             throw new SQLException("Database driver not found", e);
@@ -1036,9 +1132,47 @@ public class TableSchemaExtractor {
     }
 
     /**
-     * Get a database connection using individual connection parameters
+     * Resolve the JDBC driver class for a JDBC URL
+     */
+    private String resolveDriverClass(String jdbcUrl) {
+        String driverClass = null;
+
+        // Extract database type from JDBC URL
+        String dbType = null;
+        if (jdbcUrl.contains("mysql")) {
+            dbType = "mysql";
+        } else if (jdbcUrl.contains("postgresql")) {
+            dbType = "postgresql";
+        } else if (jdbcUrl.contains("sqlserver")) {
+            dbType = "sqlserver";
+        } else if (jdbcUrl.contains("oracle")) {
+            dbType = "oracle";
+        }
+
+        // Get driver class from configuration
+        if (dbType != null && databaseConfig != null && databaseConfig.getDriver() != null) {
+            driverClass = databaseConfig.getDriver().get(dbType);
+        }
+
+        // Fallback to hardcoded values if configuration is not available
+        if (driverClass == null) {
+            if (jdbcUrl.contains("mysql")) {
+                driverClass = "com.mysql.cj.jdbc.Driver";
+            } else if (jdbcUrl.contains("postgresql")) {
+                driverClass = "org.postgresql.Driver";
+            } else if (jdbcUrl.contains("sqlserver")) {
+                driverClass = "com.microsoft.sqlserver.jdbc.SQLServerDriver";
+            } else if (jdbcUrl.contains("oracle")) {
+                driverClass = "oracle.jdbc.OracleDriver";
+            }
+        }
+        return driverClass;
+    }
+
+    /**
+     * Get a database connection using individual connection parameters; the caller closes it
      */
-    private Connection getConnection(String dbType, String host, int port, String dbName,
+    public Connection getConnection(String dbType, String host, int port, String dbName,
                                    String username, String password) throws SQLException {
         String jdbcUrl = getJdbcUrl(dbType, host, port, dbName);
         return getConnection(jdbcUrl, username, password);
@@ -1059,223 +1193,144 @@ public class TableSchemaExtractor {
     }
 
     /**
-     * Get table data as a list of maps
+     * Row count and size of a table from the database catalog, without scanning it.
+     * Returns rows and bytes (null when the catalog has no figure) and the statistics source.
      */
-    private List<Map<String, Object>> getTableData(String dbType, String host, int port, String dbName, String username, String password, String tableName, String schemaFilter) {
-        Connection conn = null;
-        try {
-            conn = getConnection(dbType, host, port, dbName, username, password);
-            // For Oracle with schema filter, use schema-qualified table name
-            String queryTable = tableName;
-            String schema = null;
-            
-            if (dbType.equalsIgnoreCase("oracle") && schemaFilter != null) {
-                schema = schemaFilter.toUpperCase();
-                // Check if the schema exists and format it properly
-                boolean schemaExists = false;
-                String schemaQuery = "SELECT username FROM all_users WHERE username = ?";
-                
-                try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                    stmt.setString(1, schema);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            schemaExists = true;
-                        }
-                    }
-                }
-                
-                if (!schemaExists) {
-                    // Try with quotes for special characters
-                    try (PreparedStatement stmt = conn.prepareStatement(schemaQuery)) {
-                        stmt.setString(1, "\"" + schema + "\"");
-                        try (ResultSet rs = stmt.executeQuery()) {
-                            if (rs.next()) {
-                                schema = "\"" + schema + "\"";
-                                schemaExists = true;
-                            }
-                        }
-                    } catch (SQLException e) {
-                        logger.warn("Error checking quoted schema: {}", e.getMessage());
-                    }
-                    
-                    if (!schemaExists) {
-                        logger.warn("Schema '{}' does not exist, falling back to user's schema", schema);
-                        schema = username.toUpperCase();
+    @Override
+    public Map<String, Object> fetchTableStatistics(String dbType, String host, int port, String dbName,
+                                                    String username, String password, String tableName) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("rows", null);
+        statistics.put("bytes", null);
+        statistics.put("statistics", "unavailable");
+        Dialect dialect = dialectRegistry.forType(dbType);
+        CatalogQuery query = dialect.tableStatisticsQuery(dialect.defaultSchema(username), tableName);
+        if (query == null) {
+            logger.info("No catalog statistics query for database type {}", dbType);
+            return statistics;
+        }
+        try (Connection conn = getConnection(dbType, host, port, dbName, username, password);
+             PreparedStatement stmt = query.prepare(conn)) {
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getObject(1) != null) {
+                    // PostgreSQL reports -1 tuples for tables that were never analyzed
+                    long rows = rs.getBigDecimal(1).longValue();
+                    if (rows >= 0) {
+                        statistics.put("rows", rows);
+                        statistics.put("bytes", rs.getObject(2) != null ? rs.getBigDecimal(2).longValue() : null);
+                        statistics.put("statistics", "catalog");
                     }
                 }
-                
-                queryTable = schema + "." + tableName;
-                logger.info("Using schema-qualified table name: {}", queryTable);
-            } else if (dbType.equalsIgnoreCase("oracle")) {
-                schema = username.toUpperCase();
-                queryTable = schema + "." + tableName;
-                logger.info("Using schema-qualified table name with default schema: {}", queryTable);
-            }
-            
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM " + queryTable);
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            List<Map<String, Object>> data = new ArrayList<>();
-
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i).toLowerCase();
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
-                }
-                data.add(row);
             }
-
-            return data;
         } catch (SQLException e) {
-            logger.error("Error fetching data from table {}: {}", tableName, e.getMessage());
-            throw new RuntimeException("Failed to fetch table data", e);
-        } finally {
-            closeConnection(conn);
+            logger.warn("Could not read catalog statistics of table {}: {}", tableName, e.getMessage());
         }
+        return statistics;
     }
 
-    public List<Map<String, Object>> executeCustomQuery(String dbType, String host, int port,
-                                                        String dbName, String username, String password,
-                                                        String query) {
+    /**
+     * Stream table rows into the comparison pipeline without materializing the table. A row filter is
+     * applied by the database, so rows outside it are never transferred.
+     */
+    private void streamTableData(String dbType, String host, int port, String dbName, String username, String password,
+                                 String tableName, String schemaFilter, RowFilter filter, String side,
+                                 ComparisonPipeline.RowSink sink, AtomicLong bytesRead) throws InterruptedException {
         Connection conn = null;
-        List<Map<String, Object>> results = new ArrayList<>();
-
+        long rows = 0;
+        long bytes = 0;
+        long started = System.nanoTime();
+        // The scan holds a slot of its endpoint and reports database time per chunk so the limit can adapt
+        LoadLimiter.Permit permit = loadLimiter.acquire(LoadLimiter.endpoint(dbType, host, port));
         try {
             conn = getConnection(dbType, host, port, dbName, username, password);
-            
-            // For Oracle, add a special handling for schema queries
-            if (dbType.equalsIgnoreCase("oracle") && query.contains("all_tables") && query.contains("owner")) {
-                logger.info("Oracle schema tables query detected: {}", query);
-                // Extract schema name from query for debugging
-                String schemaName = "";
-                if (query.contains("'")) {
-                    schemaName = query.substring(query.indexOf("'") + 1, query.lastIndexOf("'"));
-                    logger.info("Detected schema name from query: {}", schemaName);
-                    
-                    // Try both with and without quotes for schema name
-                    // First try with the exact query
-                    boolean success = executeAndPopulateResults(conn, query, results);
-                    
-                    // If no results, try with quoted schema name
-                    if (!success && !schemaName.startsWith("\"")) {
-                        String quotedQuery = query.replace("'" + schemaName + "'", "'" + "\"" + schemaName + "\"" + "'");
-                        logger.info("Trying with quoted schema name: {}", quotedQuery);
-                        success = executeAndPopulateResults(conn, quotedQuery, results);
+            Dialect dialect = dialectRegistry.forType(dbType);
+            String schema = dialectRegistry.resolveSchema(dbType, getJdbcUrl(dbType, host, port, dbName), conn,
+                    username, schemaFilter);
+            String queryTable = dialect.qualify(schema, tableName);
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT * FROM " + queryTable
+                    + SqlPredicates.where(filter), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                dialect.configureStreaming(conn, stmt, pipelineConfig.getFetchSize());
+                SqlPredicates.bind(stmt, filter, 1);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    int columnCount = metaData.getColumnCount();
+                    String[] columnNames = new String[columnCount];
+                    for (int i = 1; i <= columnCount; i++) {
+                        columnNames[i - 1] = metaData.getColumnName(i).toLowerCase();
                     }
-                    
-                    // If still no results, try with uppercase schema name
-                    if (!success) {
-                        String upperQuery = query.replace("'" + schemaName + "'", "'" + schemaName.toUpperCase() + "'");
-                        logger.info("Trying with uppercase schema name: {}", upperQuery);
-                        success = executeAndPopulateResults(conn, upperQuery, results);
+
+                    // One flight recorder event per fetch-size chunk of rows
+                    int chunkSize = Math.max(1, pipelineConfig.getFetchSize());
+                    ComparisonEvents.ExtractionChunk chunk = new ComparisonEvents.ExtractionChunk();
+                    chunk.begin();
+                    long chunkStartBytes = 0;
+                    long fetchNanos = 0;
+                    while (true) {
+                        long fetchStarted = System.nanoTime();
+                        boolean more = rs.next();
+                        fetchNanos += System.nanoTime() - fetchStarted;
+                        if (!more) {
+                            break;
+                        }
+                        Map<String, Object> row = new HashMap<>(columnCount * 2);
+                        for (int i = 1; i <= columnCount; i++) {
+                            Object value = rs.getObject(i);
+                            row.put(columnNames[i - 1], value);
+                            bytes += estimateSize(value);
+                        }
+                        sink.accept(row);
+                        rows++;
+                        if (rows % chunkSize == 0) {
+                            commitChunk(chunk, tableName, side, chunkSize, bytes - chunkStartBytes);
+                            permit.chunk(chunkSize, bytes - chunkStartBytes, fetchNanos);
+                            chunkStartBytes = bytes;
+                            fetchNanos = 0;
+                            chunk = new ComparisonEvents.ExtractionChunk();
+                            chunk.begin();
+                        }
                     }
-                    
-                    // If we got results, return them
-                    if (success) {
-                        return results;
+                    if (rows % chunkSize != 0) {
+                        commitChunk(chunk, tableName, side, rows % chunkSize, bytes - chunkStartBytes);
+                        permit.chunk(rows % chunkSize, bytes - chunkStartBytes, fetchNanos);
                     }
-                    
-                    // Last resort - list all tables the user has access to
-                    logger.info("Listing all tables user has access to");
-                    String allTablesQuery = "SELECT table_name FROM user_tables";
-                    return executeSimpleQuery(conn, allTablesQuery);
-                }
-            }
-            
-            // Standard execution for other queries
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
                 }
-                results.add(row);
             }
-
-            return results;
         } catch (SQLException e) {
-            logger.error("Error executing custom query: {}", e.getMessage());
-            
-            // For Oracle schema access issues, try a fallback query to user's own tables
-            if (dbType.equalsIgnoreCase("oracle") && 
-                (e.getMessage().contains("table or view does not exist") || 
-                 e.getMessage().contains("insufficient privileges"))) {
-                logger.info("Oracle access issue detected, trying fallback to user_tables");
-                try {
-                    String fallbackQuery = "SELECT table_name FROM user_tables";
-                    return executeSimpleQuery(conn, fallbackQuery);
-                } catch (Exception fallbackEx) {
-                    logger.error("Fallback query also failed: {}", fallbackEx.getMessage());
-                }
-            }
-            
-            throw new RuntimeException("Failed to execute query: " + e.getMessage(), e);
+            logger.error("Error fetching data from table {}: {}", tableName, e.getMessage());
+            permit.failed(e.getMessage());
+            throw new RuntimeException("Failed to fetch table data", e);
         } finally {
             closeConnection(conn);
+            permit.close();
+            bytesRead.addAndGet(bytes);
+            metrics.recordExtraction(dbType.toLowerCase(), tableName, side, rows, bytes, System.nanoTime() - started);
         }
     }
-    
-    // Helper method to execute a query and populate results list
-    private boolean executeAndPopulateResults(Connection conn, String query, List<Map<String, Object>> results) {
-        try {
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            boolean hasRows = false;
-            
-            while (rs.next()) {
-                hasRows = true;
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
-                }
-                results.add(row);
-            }
-            
-            return hasRows;
-        } catch (SQLException e) {
-            logger.warn("Query execution failed: {}", e.getMessage());
-            return false;
+
+    private static void commitChunk(ComparisonEvents.ExtractionChunk chunk, String tableName, String side,
+                                    long rows, long bytes) {
+        if (chunk.shouldCommit()) {
+            chunk.table = tableName;
+            chunk.side = side;
+            chunk.rows = rows;
+            chunk.bytes = bytes;
+            chunk.commit();
         }
     }
-    
-    // Execute a simple query and return results
-    private List<Map<String, Object>> executeSimpleQuery(Connection conn, String query) {
-        List<Map<String, Object>> results = new ArrayList<>();
-        try {
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(query);
-            
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
-                }
-                results.add(row);
-            }
-        } catch (SQLException e) {
-            logger.error("Simple query execution failed: {}", e.getMessage());
+
+    /**
+     * Approximate size of a fetched value: characters of text, length of binary values, 8 bytes otherwise
+     */
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
         }
-        return results;
+        return 8;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,379 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.WorkQueueConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dao.entities.WorkUnit;
+import com.DBCompareX.DBCompareX.util.CredentialCipher;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Work queue of distributed comparisons in the application datasource. A job is split into one unit
+ * per table; worker nodes claim units with a conditional update, hold them with a lease they renew by
+ * heartbeat, and write the unit's table summaries back when done. A unit whose lease runs out, because
+ * its node died or lost the database, is claimed again by another node until it has used up its attempts.
+ * <p>
+ * Lease times are wall-clock milliseconds of the nodes, so their clocks must agree to well within the
+ * lease time.
+ */
+@Service
+public class WorkQueue {
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueue.class);
+
+    static final String TABLE = "dbcx_work_unit";
+    private static final int CLAIM_CANDIDATES = 16;
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final TypeReference<Map<String, Object>> TABLE_SUMMARY = new TypeReference<Map<String, Object>>() {
+    };
+
+    private static final String COLUMNS = "id, job_id, unit_no, source_table, target_table, payload, status, "
+            + "claimed_by, lease_until, heartbeat_at, attempts, unit_result, error_message, created_at, finished_at";
+
+    private final WorkQueueConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final LongSupplier clock;
+    private volatile boolean schemaReady;
+
+    @Autowired
+    public WorkQueue(WorkQueueConfig config, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this(config, jdbcTemplate, objectMapper, System::currentTimeMillis);
+    }
+
+    WorkQueue(WorkQueueConfig config, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, LongSupplier clock) {
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    private static final RowMapper<WorkUnit> UNIT_MAPPER = (rs, rowNum) -> {
+        WorkUnit unit = new WorkUnit();
+        unit.setId(rs.getString("id"));
+        unit.setJobId(rs.getString("job_id"));
+        unit.setUnitNo(rs.getInt("unit_no"));
+        unit.setSourceTable(rs.getString("source_table"));
+        unit.setTargetTable(rs.getString("target_table"));
+        unit.setPayload(rs.getString("payload"));
+        unit.setStatus(rs.getString("status"));
+        unit.setClaimedBy(rs.getString("claimed_by"));
+        unit.setLeaseUntil(nullableLong(rs, "lease_until"));
+        unit.setHeartbeatAt(nullableLong(rs, "heartbeat_at"));
+        unit.setAttempts(rs.getInt("attempts"));
+        unit.setResult(rs.getString("unit_result"));
+        unit.setError(rs.getString("error_message"));
+        unit.setCreatedAt(rs.getLong("created_at"));
+        unit.setFinishedAt(nullableLong(rs, "finished_at"));
+        return unit;
+    };
+
+    private static Long nullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    /**
+     * Queue one unit per table mapping of the request and return the job ID.
+     * Passwords are stored encrypted with the key shared by all nodes.
+     */
+    public String submit(ComparisonRequest request) {
+        List<TableMapping> mappings = request.getTableMappings();
+        if (mappings == null || mappings.isEmpty()) {
+            throw new IllegalArgumentException("No tables selected for comparison");
+        }
+        TableSchemaExtractor.validateRowFilters(mappings);
+        CredentialCipher cipher = cipher();
+        ensureSchema();
+        String jobId = UUID.randomUUID().toString();
+        long now = clock.getAsLong();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < mappings.size(); i++) {
+            TableMapping mapping = mappings.get(i);
+            ComparisonRequest unitRequest = objectMapper.convertValue(request, ComparisonRequest.class);
+            TableMapping unitMapping = objectMapper.convertValue(mapping, TableMapping.class);
+            unitMapping.setSourcePassword(cipher.encrypt(mapping.getSourcePassword()));
+            unitMapping.setTargetPassword(cipher.encrypt(mapping.getTargetPassword()));
+            unitRequest.setTableMappings(List.of(unitMapping));
+            unitRequest.setSourcePassword(cipher.encrypt(request.getSourcePassword()));
+            unitRequest.setTargetPassword(cipher.encrypt(request.getTargetPassword()));
+            rows.add(new Object[] {UUID.randomUUID().toString(), jobId, i, mapping.getSourceTable(),
+                    mapping.getTargetTable(), toJson(unitRequest), WorkUnit.PENDING, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (id, job_id, unit_no, source_table, target_table, "
+                + "payload, status, attempts, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?)", rows);
+        logger.info("Queued distributed comparison {} with {} table units", jobId, rows.size());
+        return jobId;
+    }
+
+    /**
+     * Claim the oldest unit that is pending or whose lease has run out, or empty when there is none.
+     * Units whose lease ran out on their last attempt are marked failed instead.
+     */
+    public Optional<WorkUnit> claim(String nodeId) {
+        ensureSchema();
+        long now = clock.getAsLong();
+        int abandoned = jdbcTemplate.update("UPDATE " + TABLE + " SET status = ?, finished_at = ?, error_message = ? "
+                        + "WHERE status = ? AND lease_until < ? AND attempts >= ?",
+                WorkUnit.FAILED, now, "Lease expired on the last attempt", WorkUnit.RUNNING, now,
+                config.getMaxAttempts());
+        if (abandoned > 0) {
+            logger.warn("Marked {} work units failed after their last lease expired", abandoned);
+        }
+
+        List<WorkUnit> candidates = jdbcTemplate.query(conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT " + COLUMNS + " FROM " + TABLE
+                    + " WHERE status = ? OR (status = ? AND lease_until < ?) ORDER BY created_at, unit_no");
+            ps.setString(1, WorkUnit.PENDING);
+            ps.setString(2, WorkUnit.RUNNING);
+            ps.setLong(3, now);
+            ps.setMaxRows(CLAIM_CANDIDATES);
+            return ps;
+        }, UNIT_MAPPER);
+
+        long leaseUntil = now + config.getLeaseSeconds() * 1000;
+        for (WorkUnit candidate : candidates) {
+            // Only one node's update matches the unit in the state it was read in
+            int claimed = jdbcTemplate.update("UPDATE " + TABLE + " SET status = ?, claimed_by = ?, lease_until = ?, "
+                            + "heartbeat_at = ?, attempts = attempts + 1 WHERE id = ? AND attempts = ? "
+                            + "AND (status = ? OR (status = ? AND lease_until < ?))",
+                    WorkUnit.RUNNING, nodeId, leaseUntil, now, candidate.getId(), candidate.getAttempts(),
+                    WorkUnit.PENDING, WorkUnit.RUNNING, now);
+            if (claimed == 1) {
+                if (WorkUnit.RUNNING.equals(candidate.getStatus())) {
+                    logger.warn("Node {} took over unit {} of job {} from {} after its lease expired",
+                            nodeId, candidate.getUnitNo(), candidate.getJobId(), candidate.getClaimedBy());
+                }
+                candidate.setStatus(WorkUnit.RUNNING);
+                candidate.setClaimedBy(nodeId);
+                candidate.setLeaseUntil(leaseUntil);
+                candidate.setHeartbeatAt(now);
+                candidate.setAttempts(candidate.getAttempts() + 1);
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Extend the lease of a unit this node runs; false when the unit was taken over in the meantime
+     */
+    public boolean heartbeat(String unitId, String nodeId) {
+        long now = clock.getAsLong();
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET lease_until = ?, heartbeat_at = ? "
+                        + "WHERE id = ? AND claimed_by = ? AND status = ?",
+                now + config.getLeaseSeconds() * 1000, now, unitId, nodeId, WorkUnit.RUNNING) == 1;
+    }
+
+    /**
+     * Store the result of a unit; false when this node no longer holds it
+     */
+    public boolean complete(String unitId, String nodeId, Map<String, Object> result) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET status = ?, unit_result = ?, error_message = NULL, "
+                        + "lease_until = NULL, finished_at = ? WHERE id = ? AND claimed_by = ? AND status = ?",
+                WorkUnit.DONE, toJson(result), clock.getAsLong(), unitId, nodeId, WorkUnit.RUNNING) == 1;
+    }
+
+    /**
+     * Record a failed run of a unit. It is queued again unless it has used up its attempts.
+     */
+    public boolean fail(String unitId, String nodeId, String error) {
+        String message = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET "
+                        + "status = CASE WHEN attempts >= ? THEN ? ELSE ? END, "
+                        + "finished_at = CASE WHEN attempts >= ? THEN ? ELSE NULL END, "
+                        + "error_message = ?, lease_until = NULL WHERE id = ? AND claimed_by = ? AND status = ?",
+                config.getMaxAttempts(), WorkUnit.FAILED, WorkUnit.PENDING, config.getMaxAttempts(),
+                clock.getAsLong(), message, unitId, nodeId, WorkUnit.RUNNING) == 1;
+    }
+
+    /**
+     * The comparison request of a claimed unit with its passwords decrypted
+     */
+    public ComparisonRequest unitRequest(WorkUnit unit) {
+        CredentialCipher cipher = cipher();
+        try {
+            ComparisonRequest request = objectMapper.readValue(unit.getPayload(), ComparisonRequest.class);
+            request.setSourcePassword(cipher.decrypt(request.getSourcePassword()));
+            request.setTargetPassword(cipher.decrypt(request.getTargetPassword()));
+            for (TableMapping mapping : request.getTableMappings()) {
+                mapping.setSourcePassword(cipher.decrypt(mapping.getSourcePassword()));
+                mapping.setTargetPassword(cipher.decrypt(mapping.getTargetPassword()));
+            }
+            return request;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload of work unit " + unit.getId(), e);
+        }
+    }
+
+    /**
+     * Merged progress of a job: its status, per-unit states and the table summaries of finished units
+     */
+    public Map<String, Object> progress(String jobId) {
+        ensureSchema();
+        List<WorkUnit> units = jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE
+                + " WHERE job_id = ? ORDER BY unit_no", UNIT_MAPPER, jobId);
+        if (units.isEmpty()) {
+            throw new IllegalArgumentException("No distributed comparison found for job: " + jobId);
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String status : List.of(WorkUnit.PENDING, WorkUnit.RUNNING, WorkUnit.DONE, WorkUnit.FAILED)) {
+            counts.put(status.toLowerCase(), 0);
+        }
+        Map<String, Long> totals = new LinkedHashMap<>();
+        List<Map<String, Object>> tables = new ArrayList<>();
+        List<Map<String, Object>> unitDetails = new ArrayList<>();
+        for (WorkUnit unit : units) {
+            counts.merge(unit.getStatus().toLowerCase(), 1, Integer::sum);
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("unit", unit.getUnitNo());
+            detail.put("sourceTable", unit.getSourceTable());
+            detail.put("targetTable", unit.getTargetTable());
+            detail.put("status", unit.getStatus());
+            detail.put("node", unit.getClaimedBy());
+            detail.put("attempts", unit.getAttempts());
+            if (unit.getHeartbeatAt() != null) {
+                detail.put("lastHeartbeat", new Date(unit.getHeartbeatAt()));
+            }
+            if (unit.getError() != null) {
+                detail.put("error", unit.getError());
+            }
+            if (unit.getResult() != null) {
+                JsonNode result = readTree(unit.getResult());
+                detail.put("reportJobId", result.path("reportJobId").asText(null));
+                detail.put("totalMillis", result.path("totalMillis").asLong());
+                for (JsonNode summary : result.path("tables")) {
+                    Map<String, Object> table = objectMapper.convertValue(summary, TABLE_SUMMARY);
+                    tables.add(table);
+                    summary.fields().forEachRemaining(field -> {
+                        if (field.getValue().isNumber()) {
+                            totals.merge(field.getKey(), field.getValue().asLong(), Long::sum);
+                        }
+                    });
+                }
+            }
+            unitDetails.add(detail);
+        }
+
+        String status;
+        if (counts.get("pending") + counts.get("running") > 0) {
+            status = counts.get("running") > 0 || counts.get("done") + counts.get("failed") > 0 ? "RUNNING" : "QUEUED";
+        } else {
+            status = counts.get("failed") > 0 ? "FAILED" : "DONE";
+        }
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("jobId", jobId);
+        progress.put("status", status);
+        progress.put("units", counts);
+        progress.put("totals", totals);
+        progress.put("tables", tables);
+        progress.put("unitDetails", unitDetails);
+        return progress;
+    }
+
+    private CredentialCipher cipher() {
+        String key = config.getCredentialKey();
+        if (key == null || key.trim().isEmpty()) {
+            throw new IllegalStateException("work-queue.credential-key must be set on all nodes to queue credentials");
+        }
+        return new CredentialCipher(key);
+    }
+
+    /**
+     * Create the queue table on first use, tolerating another node creating it at the same time
+     */
+    void ensureSchema() {
+        if (schemaReady) {
+            return;
+        }
+        synchronized (this) {
+            if (schemaReady) {
+                return;
+            }
+            String product = jdbcTemplate.execute((Connection conn) -> {
+                if (!tableExists(conn.getMetaData())) {
+                    return conn.getMetaData().getDatabaseProductName();
+                }
+                return null;
+            });
+            if (product != null) {
+                String text = textType(product);
+                String bigint = product.toLowerCase().contains("oracle") ? "NUMBER(19)" : "BIGINT";
+                try {
+                    jdbcTemplate.execute("CREATE TABLE " + TABLE + " (id VARCHAR(36) NOT NULL PRIMARY KEY, "
+                            + "job_id VARCHAR(36) NOT NULL, unit_no INT NOT NULL, source_table VARCHAR(512), "
+                            + "target_table VARCHAR(512), payload " + text + " NOT NULL, status VARCHAR(16) NOT NULL, "
+                            + "claimed_by VARCHAR(255), lease_until " + bigint + ", heartbeat_at " + bigint + ", "
+                            + "attempts INT NOT NULL, unit_result " + text + ", error_message VARCHAR(2000), "
+                            + "created_at " + bigint + " NOT NULL, finished_at " + bigint + ")");
+                    jdbcTemplate.execute("CREATE INDEX idx_" + TABLE + "_claim ON " + TABLE + " (status, lease_until)");
+                    jdbcTemplate.execute("CREATE INDEX idx_" + TABLE + "_job ON " + TABLE + " (job_id, unit_no)");
+                    logger.info("Created work queue table {} on {}", TABLE, product);
+                } catch (DataAccessException e) {
+                    Boolean exists = jdbcTemplate.execute((Connection conn) -> tableExists(conn.getMetaData()));
+                    if (!Boolean.TRUE.equals(exists)) {
+                        throw e;
+                    }
+                }
+            }
+            schemaReady = true;
+        }
+    }
+
+    private static boolean tableExists(DatabaseMetaData metaData) throws SQLException {
+        for (String name : new String[] {TABLE, TABLE.toUpperCase()}) {
+            try (ResultSet rs = metaData.getTables(null, null, name, new String[] {"TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String textType(String product) {
+        String name = product.toLowerCase();
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return "LONGTEXT";
+        } else if (name.contains("postgres")) {
+            return "TEXT";
+        } else if (name.contains("microsoft")) {
+            return "NVARCHAR(MAX)";
+        }
+        return "CLOB";
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize work unit data", e);
+        }
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable work unit result", e);
+        }
+    }
+}
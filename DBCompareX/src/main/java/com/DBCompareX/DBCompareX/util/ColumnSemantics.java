@@ -0,0 +1,68 @@
+package com.DBCompareX.DBCompareX.util;
+
+/**
+ * Display semantics of a column, classified once per column name. They only shape how values are
+ * shown in reports; whether two values match is decided on the normalized values alone.
+ */
+public enum ColumnSemantics {
+    PHONE,
+    ID,
+    DATE,
+    GENERIC;
+
+    private static final String NULL_DISPLAY = "<NULL>";
+    private static final String[] DATE_TIME_SUFFIXES = {"00:00", " 00:", "T00:", ".000", "+0000"};
+
+    /**
+     * Classify a column by its name. ID columns are named {@code id} or {@code *_id}; names arrive
+     * lowercased from the metadata, so camel case cannot be told apart.
+     */
+    public static ColumnSemantics classify(String columnName) {
+        String lowerName = columnName.toLowerCase();
+        if (lowerName.contains("phone")) {
+            return PHONE;
+        }
+        if (lowerName.equals("id") || lowerName.endsWith("_id")) {
+            return ID;
+        }
+        if (lowerName.contains("date") ||
+                lowerName.contains("time") ||
+                lowerName.contains("created") ||
+                lowerName.contains("modified") ||
+                lowerName.contains("updated") ||
+                lowerName.contains("birth") ||
+                lowerName.endsWith("_at") ||
+                lowerName.endsWith("_on")) {
+            return DATE;
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Value to show in reports for a normalized value: numbers stay numeric, phones lose date/time residue
+     */
+    public Object toDisplay(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (this == PHONE) {
+            String phone = stripDateTimeSuffix(value.toString());
+            return phone.isEmpty() ? NULL_DISPLAY : phone;
+        }
+        if (value instanceof Number) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    private static String stripDateTimeSuffix(String phone) {
+        // Remove common date/time patterns that might be appended to phone numbers
+        for (String part : DATE_TIME_SUFFIXES) {
+            int index = phone.indexOf(part);
+            if (index >= 0) {
+                phone = phone.substring(0, index).trim();
+            }
+        }
+        return phone;
+    }
+}
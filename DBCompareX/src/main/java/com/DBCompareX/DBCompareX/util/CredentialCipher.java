@@ -0,0 +1,64 @@
+package com.DBCompareX.DBCompareX.util;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * AES-GCM encryption of credentials that leave the process, e.g. in the shared work queue.
+ * Cipher texts are Base64 of a random 12-byte IV followed by the encrypted text and its tag.
+ */
+public final class CredentialCipher {
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKeySpec key;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param base64Key Base64 of a 16, 24 or 32 byte AES key
+     */
+    public CredentialCipher(String base64Key) {
+        byte[] bytes = Base64.getDecoder().decode(base64Key.trim());
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalArgumentException("Credential key must be 16, 24 or 32 bytes, got " + bytes.length);
+        }
+        this.key = new SecretKeySpec(bytes, "AES");
+    }
+
+    public String encrypt(String plainText) {
+        if (plainText == null) {
+            return null;
+        }
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(IV_BYTES + encrypted.length)
+                    .put(iv).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt credential", e);
+        }
+    }
+
+    public String decrypt(String cipherText) {
+        if (cipherText == null) {
+            return null;
+        }
+        try {
+            byte[] bytes = Base64.getDecoder().decode(cipherText);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+            return new String(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Could not decrypt credential; do all nodes share the same key?", e);
+        }
+    }
+}
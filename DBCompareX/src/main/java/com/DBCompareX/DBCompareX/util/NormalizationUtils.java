@@ -14,14 +14,15 @@ public class NormalizationUtils {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private static final SimpleDateFormat[] DATE_PARSERS = {
+    // SimpleDateFormat is not thread-safe and values are normalized by several pipeline workers
+    private static final ThreadLocal<SimpleDateFormat[]> DATE_PARSERS = ThreadLocal.withInitial(() -> new SimpleDateFormat[] {
         new SimpleDateFormat("yyyy-MM-dd"),
         new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"),
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss"),
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS"),
         new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS"),
         new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.S")
-    };
+    });
 
     // Pattern to identify phone number-like strings
     private static final Pattern PHONE_PATTERN = Pattern.compile("^\\d{3,4}-\\d{2}-\\d{2}.*$");
@@ -76,7 +77,7 @@ public class NormalizationUtils {
                         return dateTime.format(TIMESTAMP_FORMATTER);
                     } catch (DateTimeParseException e2) {
                         // If DateTimeFormatter fails, try SimpleDateFormat
-                        for (SimpleDateFormat parser : DATE_PARSERS) {
+                        for (SimpleDateFormat parser : DATE_PARSERS.get()) {
                             try {
                                 java.util.Date parsedDate = parser.parse(strValue);
                                 // Remove fractional seconds for consistent comparison
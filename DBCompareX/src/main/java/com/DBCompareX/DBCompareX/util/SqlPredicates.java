@@ -0,0 +1,205 @@
+package com.DBCompareX.DBCompareX.util;
+
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validation and placement of user-supplied row filters. A filter is a single boolean expression over
+ * the table's own columns; it may not contain statements, comments, subqueries or inline values that
+ * belong in its parameters. Everything outside string literals and quoted identifiers is checked.
+ */
+public final class SqlPredicates {
+    private static final int MAX_LENGTH = 4000;
+    private static final Pattern FORBIDDEN_KEYWORD = Pattern.compile(
+            "\\b(SELECT|INSERT|UPDATE|DELETE|MERGE|DROP|ALTER|CREATE|TRUNCATE|GRANT|REVOKE|EXEC|EXECUTE|CALL"
+                    + "|UNION|INTERSECT|EXCEPT|MINUS|INTO|DECLARE|BEGIN|COMMIT|ROLLBACK|OUTFILE|DUMPFILE|SHUTDOWN"
+                    + "|WAITFOR|SLEEP|PG_SLEEP|BENCHMARK|LOAD_FILE|LO_IMPORT|PG_READ_FILE|DBMS_\\w*|UTL_\\w*"
+                    + "|XP_\\w*)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private SqlPredicates() {
+    }
+
+    /**
+     * True if the filter restricts nothing
+     */
+    public static boolean isEmpty(RowFilter filter) {
+        return filter == null || filter.getWhere() == null || filter.getWhere().isBlank();
+    }
+
+    /**
+     * Check a filter before any of its SQL reaches a database
+     *
+     * @param label names the filter in error messages, e.g. "source filter of table orders"
+     * @throws IllegalArgumentException if the predicate is not a plain expression or its parameters do not fit it
+     */
+    public static void validate(RowFilter filter, String label) {
+        if (isEmpty(filter)) {
+            if (filter != null && filter.getParameters() != null && !filter.getParameters().isEmpty()) {
+                throw new IllegalArgumentException("The " + label + " has parameters but no predicate");
+            }
+            return;
+        }
+        String where = filter.getWhere();
+        if (where.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("The " + label + " is longer than " + MAX_LENGTH + " characters");
+        }
+        // Some databases let a backslash escape the closing quote of a literal, which would hide code from
+        // the checks below
+        if (where.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("The " + label + " may not contain backslashes; pass values as parameters");
+        }
+        String code = code(where, label);
+        for (String token : new String[]{";", "--", "/*", "*/", "#"}) {
+            if (code.contains(token)) {
+                throw new IllegalArgumentException("The " + label + " may not contain '" + token + "'");
+            }
+        }
+        Matcher keyword = FORBIDDEN_KEYWORD.matcher(code);
+        if (keyword.find()) {
+            throw new IllegalArgumentException("The " + label + " may not contain " + keyword.group(1).toUpperCase()
+                    + "; use a plain condition on the table's columns");
+        }
+        int depth = 0;
+        int placeholders = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth < 0) {
+                break;
+            } else if (c == '?') {
+                placeholders++;
+            }
+        }
+        if (depth != 0) {
+            throw new IllegalArgumentException("The " + label + " has unbalanced parentheses");
+        }
+        List<Object> parameters = filter.getParameters();
+        int given = parameters != null ? parameters.size() : 0;
+        if (placeholders != given) {
+            throw new IllegalArgumentException("The " + label + " has " + placeholders + " placeholders but "
+                    + given + " parameters");
+        }
+        for (int i = 0; i < given; i++) {
+            Object value = parameters.get(i);
+            if (value == null) {
+                throw new IllegalArgumentException("Parameter " + (i + 1) + " of the " + label
+                        + " is null; write IS NULL in the predicate instead");
+            }
+            if (!(value instanceof String || value instanceof Number || value instanceof Boolean)) {
+                throw new IllegalArgumentException("Parameter " + (i + 1) + " of the " + label
+                        + " must be a string, number or boolean");
+            }
+        }
+    }
+
+    /**
+     * WHERE clause to append to a query over the whole table, or an empty string without a filter
+     */
+    public static String where(RowFilter filter) {
+        return isEmpty(filter) ? "" : " WHERE (" + filter.getWhere() + ")";
+    }
+
+    /**
+     * Condition to add to a query's own WHERE clause, or an empty string without a filter
+     */
+    public static String and(RowFilter filter) {
+        return isEmpty(filter) ? "" : " AND (" + filter.getWhere() + ")";
+    }
+
+    /**
+     * Bind the filter's parameters from the given placeholder index on; returns the next free index
+     */
+    public static int bind(PreparedStatement stmt, RowFilter filter, int index) throws SQLException {
+        if (isEmpty(filter) || filter.getParameters() == null) {
+            return index;
+        }
+        for (Object value : filter.getParameters()) {
+            stmt.setObject(index++, value);
+        }
+        return index;
+    }
+
+    /**
+     * Predicate with its parameters written as SQL literals, for readers that cannot bind parameters.
+     * Strings are quoted with doubled quotes; strings containing a backslash are refused because
+     * some databases treat it as an escape character inside literals. Booleans are written as the
+     * dialect spells them.
+     */
+    public static String inline(RowFilter filter, Dialect dialect) {
+        if (isEmpty(filter)) {
+            return null;
+        }
+        String where = filter.getWhere();
+        StringBuilder sql = new StringBuilder(where.length() + 32);
+        String code = code(where, "filter");
+        int parameter = 0;
+        for (int i = 0; i < where.length(); i++) {
+            if (code.charAt(i) == '?') {
+                sql.append(literal(filter.getParameters().get(parameter++), dialect));
+            } else {
+                sql.append(where.charAt(i));
+            }
+        }
+        return sql.toString();
+    }
+
+    private static String literal(Object value, Dialect dialect) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Number) {
+            return new BigDecimal(value.toString()).toPlainString();
+        }
+        if (value instanceof Boolean) {
+            return dialect.booleanLiteral((Boolean) value);
+        }
+        String text = value.toString();
+        if (text.indexOf('\\') >= 0 || text.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("String parameters with backslashes cannot be written into the query");
+        }
+        return "'" + text.replace("'", "''") + "'";
+    }
+
+    /**
+     * The predicate with string literals and quoted identifiers blanked out, at the same positions
+     */
+    private static String code(String where, String label) {
+        StringBuilder code = new StringBuilder(where.length());
+        char quote = 0;
+        for (int i = 0; i < where.length(); i++) {
+            char c = where.charAt(i);
+            if (quote == 0) {
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                    code.append(' ');
+                } else {
+                    code.append(c);
+                }
+            } else {
+                if (c == quote) {
+                    if (i + 1 < where.length() && where.charAt(i + 1) == quote) {
+                        // Doubled quote inside a literal
+                        code.append("  ");
+                        i++;
+                        continue;
+                    }
+                    quote = 0;
+                }
+                code.append(' ');
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("The " + label + " has an unterminated " + (quote == '\'' ? "string" : "identifier"));
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package com.DBCompareX.DBCompareX.controller;
+
+import com.DBCompareX.DBCompareX.config.CheckpointConfig;
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonCheckpoint;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.service.CheckpointStore;
+import com.DBCompareX.DBCompareX.service.ReportStorageService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableSchemaExtractorControllerTests {
+
+	private static final String REPORT = "id,name\n1,alpha\n2,beta\n";
+
+	@TempDir
+	Path storageDir;
+
+	private ReportStorageService reportStorageService;
+	private TableSchemaExtractorController controller;
+	private String jobId;
+
+	@BeforeEach
+	void writeReport() throws IOException {
+		ReportStorageConfig config = new ReportStorageConfig();
+		config.setStorageDir(storageDir.toString());
+		reportStorageService = new ReportStorageService(config);
+		controller = new TableSchemaExtractorController(null, reportStorageService, null, null, null, null, null,
+				new ObjectMapper());
+		jobId = reportStorageService.newJobId();
+		Path report = Paths.get(reportStorageService.getOutputPath(jobId, "report_summary.csv"));
+		Files.createDirectories(report.getParent());
+		Files.write(report, REPORT.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void downloadsTheWholeReportWithoutARange() throws IOException {
+		ResponseEntity<StreamingResponseBody> response = controller.downloadReport(jobId, null, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+		assertEquals(REPORT.length(), response.getHeaders().getContentLength());
+		assertEquals(REPORT, body(response));
+	}
+
+	@Test
+	void servesASingleByteRange() throws IOException {
+		ResponseEntity<StreamingResponseBody> response = controller.downloadReport(jobId, "bytes=8-14", null);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 8-14/" + REPORT.length(), response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(7, response.getHeaders().getContentLength());
+		assertEquals("1,alpha", body(response));
+	}
+
+	@Test
+	void servesOpenEndedAndSuffixRangesToTheEndOfTheReport() throws IOException {
+		int length = REPORT.length();
+
+		ResponseEntity<StreamingResponseBody> openEnded = controller.downloadReport(jobId, "bytes=16-", null);
+		assertEquals(HttpStatus.PARTIAL_CONTENT, openEnded.getStatusCode());
+		assertEquals("bytes 16-" + (length - 1) + "/" + length,
+				openEnded.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("2,beta\n", body(openEnded));
+
+		// An end past the report is cut to its last byte
+		assertEquals("2,beta\n", body(controller.downloadReport(jobId, "bytes=16-1000", null)));
+		assertEquals("beta\n", body(controller.downloadReport(jobId, "bytes=-5", null)));
+	}
+
+	@Test
+	void rejectsRangesStartingPastTheReport() {
+		ResponseEntity<StreamingResponseBody> response = controller.downloadReport(jobId,
+				"bytes=" + REPORT.length() + "-", null);
+
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+		assertEquals("bytes */" + REPORT.length(), response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertNull(response.getBody());
+		// An empty suffix is well-formed but selects no byte
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+				controller.downloadReport(jobId, "bytes=-0", null).getStatusCode());
+	}
+
+	@Test
+	void ignoresMalformedAndMultipleRanges() throws IOException {
+		for (String range : new String[]{"bytes=abc-", "bytes=5", "bytes=9-3", "bytes=-", "items=0-4",
+				"bytes=0-1,4-5"}) {
+			ResponseEntity<StreamingResponseBody> response = controller.downloadReport(jobId, range, null);
+			assertEquals(HttpStatus.OK, response.getStatusCode(), range);
+			assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE), range);
+			assertEquals(REPORT, body(response), range);
+		}
+	}
+
+	@Test
+	void compressesTextReportsUnlessARangeIsRequested() throws IOException {
+		ResponseEntity<StreamingResponseBody> gzip = controller.downloadReport(jobId, null, "gzip, deflate");
+		assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		gzip.getBody().writeTo(compressed);
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+			assertEquals(REPORT, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		}
+
+		ResponseEntity<StreamingResponseBody> ranged = controller.downloadReport(jobId, "bytes=0-1", "gzip");
+		assertNull(ranged.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+		assertEquals("id", body(ranged));
+	}
+
+	@Test
+	void compressesOnlyWhenGzipHasANonZeroQuality() throws IOException {
+		for (String refused : new String[]{"gzip;q=0", "deflate, gzip; q=0.0", "*;q=0", "*, gzip;q=0", "br"}) {
+			ResponseEntity<StreamingResponseBody> response = controller.downloadReport(jobId, null, refused);
+			assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), refused);
+			assertEquals(REPORT, body(response), refused);
+		}
+		for (String accepted : new String[]{"gzip;q=0.5", "GZIP", "br;q=1, *;q=0.1", "x-gzip"}) {
+			assertEquals("gzip", controller.downloadReport(jobId, null, accepted).getHeaders()
+					.getFirst(HttpHeaders.CONTENT_ENCODING), accepted);
+		}
+	}
+
+	@Test
+	void servesTheReportRatherThanTheCheckpointSavedAfterIt() throws IOException {
+		CheckpointStore checkpointStore = new CheckpointStore(new CheckpointConfig(), reportStorageService,
+				new ObjectMapper());
+		assertTrue(checkpointStore.isEnabled());
+		ComparisonCheckpoint checkpoint = checkpointStore.create(jobId, "report_summary.csv", new ComparisonRequest(),
+				List.of(new TableMapping("orders", "orders")));
+		checkpoint.setStatus(ComparisonCheckpoint.COMPLETED);
+		checkpointStore.save(checkpoint);
+
+		ResponseEntity<StreamingResponseBody> response = controller.downloadReport(jobId, null, null);
+
+		assertEquals("attachment; filename=\"report_summary.csv\"",
+				response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+		assertEquals(REPORT, body(response));
+	}
+
+	@Test
+	void answersNotFoundForUnknownAndInvalidJobs() {
+		assertEquals(HttpStatus.NOT_FOUND,
+				controller.downloadReport(reportStorageService.newJobId(), null, null).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, controller.downloadReport("../etc", null, null).getStatusCode());
+	}
+
+	@Test
+	void rejectsANonNumericPageSize() throws IOException {
+		ResponseEntity<StreamingResponseBody> response = controller.executeQuery(Map.of("pageSize", "abc",
+				"query", "SELECT 1"));
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertTrue(body(response).contains("abc"));
+	}
+
+	private static String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,66 @@
+package com.DBCompareX.DBCompareX.dao.entities;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelGeneratorTests {
+
+	@TempDir
+	Path reportDir;
+
+	@Test
+	void generatesConcurrentReportsWithTheirOwnStyles() throws Exception {
+		// One generator is shared by all requests, as the singleton bean is
+		ExcelGenerator generator = new ExcelGenerator();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<File>> reports = new ArrayList<>();
+		try {
+			for (int i = 0; i < 32; i++) {
+				String outputPath = reportDir.resolve("report_" + i + ".xlsx").toString();
+				Callable<File> report = () -> generator.generateExcelReport(results(), outputPath, List.of());
+				reports.add(executor.submit(report));
+			}
+			for (Future<File> report : reports) {
+				File file = report.get();
+				try (Workbook workbook = new XSSFWorkbook(new FileInputStream(file))) {
+					Sheet sheet = workbook.getSheetAt(0);
+					Cell differing = sheet.getRow(2).getCell(2);
+					assertEquals("Alicia", differing.getStringCellValue());
+					assertEquals(IndexedColors.RED.getIndex(), differing.getCellStyle().getFillForegroundColor());
+					assertNotEquals(IndexedColors.RED.getIndex(),
+							sheet.getRow(2).getCell(1).getCellStyle().getFillForegroundColor());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Map<String, Object> results() {
+		ColumnLayout layout = new ColumnLayout(List.of("id", "name"));
+		BitSet differences = new BitSet();
+		differences.set(1);
+		FieldVerdicts verdicts = new FieldVerdicts(layout, differences, new Object[]{"1", "Alice"},
+				new Object[]{"1", "Alicia"});
+		return Map.of("differences", List.of(Map.of("verdicts", verdicts)));
+	}
+}
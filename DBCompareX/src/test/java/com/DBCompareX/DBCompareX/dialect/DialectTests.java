@@ -0,0 +1,168 @@
+package com.DBCompareX.DBCompareX.dialect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DialectTests {
+
+	private Connection conn;
+
+	@BeforeEach
+	void createTable() throws Exception {
+		conn = DriverManager.getConnection("jdbc:h2:mem:dialect;DB_CLOSE_DELAY=-1", "sa", "");
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE pages (a INT, b INT, PRIMARY KEY (a, b))");
+			for (int a = 0; a < 3; a++) {
+				for (int b = 0; b < 4; b++) {
+					stmt.execute("INSERT INTO pages VALUES (" + a + ", " + b + ")");
+				}
+			}
+		}
+	}
+
+	@AfterEach
+	void dropTable() throws Exception {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		conn.close();
+	}
+
+	@Test
+	void keysetPagesVisitEveryRowOnceInKeyOrder() throws Exception {
+		Dialect dialect = new H2Dialect();
+		List<String> key = List.of("a", "b");
+		List<String> visited = new ArrayList<>();
+		List<Object> lastKey = null;
+		while (true) {
+			String query = dialect.keysetPageQuery("pages", key, key, lastKey == null, 5);
+			List<Object> pageLast = null;
+			try (PreparedStatement stmt = conn.prepareStatement(query)) {
+				if (lastKey != null) {
+					Object[] parameters = Dialect.expandKeysetParameters(lastKey);
+					for (int i = 0; i < parameters.length; i++) {
+						stmt.setObject(i + 1, parameters[i]);
+					}
+				}
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						visited.add(rs.getInt(1) + "/" + rs.getInt(2));
+						pageLast = List.of(rs.getInt(1), rs.getInt(2));
+					}
+				}
+			}
+			if (pageLast == null) {
+				break;
+			}
+			lastKey = pageLast;
+		}
+
+		assertEquals(12, visited.size());
+		assertEquals("0/0", visited.get(0));
+		assertEquals("1/0", visited.get(4));
+		assertEquals("2/3", visited.get(11));
+	}
+
+	@Test
+	void quotesOnlyIdentifiersThatNeedIt() {
+		assertEquals("amount", new H2Dialect().identifier("amount"));
+		assertEquals("\"order total\"", new H2Dialect().identifier("order total"));
+		assertEquals("`order total`", new MySqlDialect().identifier("order total"));
+		assertEquals("[order total]", new SqlServerDialect().identifier("order total"));
+	}
+
+	@Test
+	void resolvesSchemaOncePerTargetAndFallsBackForUnknownTypes() throws Exception {
+		AtomicInteger lookups = new AtomicInteger();
+		Dialect counting = new GenericDialect("counting") {
+			@Override
+			public String resolveSchema(Connection conn, String username, String schemaFilter) {
+				lookups.incrementAndGet();
+				return schemaFilter.toUpperCase();
+			}
+		};
+		DialectRegistry registry = new DialectRegistry(List.of(counting));
+
+		assertEquals("SALES", registry.resolveSchema("counting", "db1", conn, "scott", "sales"));
+		assertEquals("SALES", registry.resolveSchema("COUNTING", "db1", conn, "scott", "sales"));
+		assertEquals("SALES", registry.resolveSchema("counting", "db2", conn, "scott", "sales"));
+		assertEquals(2, lookups.get());
+		assertNull(registry.resolveSchema("counting", "db1", conn, "scott", null));
+
+		Dialect unknown = registry.forType("db2");
+		assertEquals("db2", unknown.name());
+		assertEquals("SELECT x FROM t FETCH FIRST 1 ROWS ONLY", unknown.limit("SELECT x FROM t", 1));
+		assertThrows(IllegalArgumentException.class, () -> unknown.rowHashExpression(List.of(TypedColumn.untyped("x"))));
+	}
+
+	@Test
+	void oracleRendersHashedValuesWithExplicitFormats() throws Exception {
+		OracleDialect oracle = new OracleDialect();
+		// H2's Oracle mode evaluates the same TO_CHAR format models
+		try (Connection oracleMode = DriverManager.getConnection("jdbc:h2:mem:dialect_oracle;MODE=Oracle", "sa", "");
+			 Statement stmt = oracleMode.createStatement()) {
+			stmt.execute("CREATE TABLE events (created DATE, logged TIMESTAMP(9), amount NUMBER(12, 3))");
+			stmt.execute("INSERT INTO events VALUES (TIMESTAMP '2024-01-02 10:30:15', "
+					+ "TIMESTAMP '2024-01-02 10:30:15.123456789', 1234.5)");
+			String query = "SELECT " + oracle.hashText(new TypedColumn("created", Types.TIMESTAMP, "DATE")) + ", "
+					+ oracle.hashText(new TypedColumn("logged", Types.TIMESTAMP, "TIMESTAMP")) + ", "
+					+ oracle.hashText(new TypedColumn("amount", Types.NUMERIC, "NUMBER")) + " FROM events";
+			try (ResultSet rs = stmt.executeQuery(query)) {
+				assertTrue(rs.next());
+				assertEquals("2024-01-02T10:30:15", rs.getString(1));
+				assertEquals("2024-01-02T10:30:15.123456789", rs.getString(2));
+				assertEquals("1234.5", rs.getString(3));
+			}
+		}
+	}
+
+	@Test
+	void rowHashesKeepTheTimeOfDayAndStayShortOnWideRows() {
+		String sqlServer = new SqlServerDialect().rowHashExpression(
+				List.of(new TypedColumn("created", Types.TIMESTAMP, "datetime")));
+		assertTrue(sqlServer.contains("CONVERT(NVARCHAR(40), created, 126)"), sqlServer);
+
+		List<TypedColumn> wide = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			wide.add(new TypedColumn("c" + i, Types.VARCHAR, "VARCHAR2"));
+		}
+		String oracle = new OracleDialect().rowHashExpression(wide);
+		// Three groups of column hashes, hashed once more; no single concatenation of all 250 columns
+		assertTrue(oracle.startsWith("LOWER(RAWTOHEX(STANDARD_HASH("), oracle);
+		assertEquals(250 + 3 + 1, oracle.split("STANDARD_HASH\\(", -1).length - 1);
+	}
+
+	@Test
+	void onlyDialectsHashingTheSameBytesShareARowHashConstruction() {
+		DialectRegistry registry = DialectRegistry.builtIn();
+		String joined = registry.forType("mysql").rowHashConstruction();
+		assertEquals(joined, registry.forType("postgresql").rowHashConstruction());
+		assertEquals(joined, registry.forType("h2").rowHashConstruction());
+		// Oracle hashes groups of column hashes and SQL Server hashes UTF-16 text
+		assertNotEquals(joined, registry.forType("oracle").rowHashConstruction());
+		assertNotEquals(joined, registry.forType("sqlserver").rowHashConstruction());
+		assertNotEquals(registry.forType("oracle").rowHashConstruction(),
+				registry.forType("sqlserver").rowHashConstruction());
+	}
+
+	@Test
+	void oracleUsesTheUsersSchemaByDefault() {
+		Dialect oracle = DialectRegistry.builtIn().forType("oracle");
+		assertEquals("SCOTT", oracle.defaultSchema("scott"));
+		assertEquals("SCOTT.emp", oracle.qualify(oracle.defaultSchema("scott"), "emp"));
+		assertEquals(List.of("SCOTT", "EMP"), oracle.primaryKeyQuery("SCOTT", "emp").getParameters());
+	}
+}
@@ -0,0 +1,82 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.CheckpointConfig;
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonCheckpoint;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.KeyStrategy;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointStoreTests {
+
+	@TempDir
+	Path storageDir;
+
+	private ReportStorageService reportStorageService;
+	private CheckpointStore store;
+
+	@BeforeEach
+	void setUp() {
+		ReportStorageConfig config = new ReportStorageConfig();
+		config.setStorageDir(storageDir.toString());
+		reportStorageService = new ReportStorageService(config);
+		store = new CheckpointStore(new CheckpointConfig(), reportStorageService, new ObjectMapper());
+	}
+
+	@Test
+	void recordsTablesWithoutPasswords() throws Exception {
+		String jobId = reportStorageService.newJobId();
+		ComparisonRequest request = new ComparisonRequest();
+		request.setSourceDbType("mysql");
+		request.setSourcePassword("secret");
+		TableMapping orders = mapping("orders");
+		TableMapping customers = mapping("customers");
+		ComparisonCheckpoint checkpoint = store.create(jobId, "report.xlsx", request, List.of(orders, customers));
+		store.save(checkpoint);
+
+		orders.setKeyColumns(List.of("id"));
+		orders.setKeyStrategy(KeyStrategy.PRIMARY_KEY);
+		store.tableFinished(checkpoint, orders);
+		store.tableFailed(checkpoint, customers, "connection reset");
+
+		String json = Files.readString(reportStorageService.getJobDirectory(jobId).resolve("checkpoint")
+				.resolve("checkpoint.json"));
+		assertFalse(json.contains("secret"));
+		ComparisonCheckpoint loaded = store.load(jobId);
+		assertEquals(List.of("orders"), loaded.getCompletedTables());
+		assertEquals("connection reset", loaded.getFailedTables().get("customers"));
+		assertEquals(List.of("id"), loaded.getTableMappings().get(0).getKeyColumns());
+		assertEquals(KeyStrategy.PRIMARY_KEY, loaded.getTableMappings().get(0).getKeyStrategy());
+		assertEquals("mysql", loaded.getRequest().getSourceDbType());
+		assertNull(loaded.getRequest().getSourcePassword());
+
+		store.tableFinished(loaded, customers);
+		assertTrue(store.load(jobId).getFailedTables().isEmpty());
+	}
+
+	@Test
+	void guardsAgainstConcurrentRunsAndMissingJobs() {
+		assertTrue(store.acquire("job"));
+		assertFalse(store.acquire("job"));
+		store.release("job");
+		assertTrue(store.acquire("job"));
+		assertThrows(IllegalArgumentException.class, () -> store.load(reportStorageService.newJobId()));
+	}
+
+	private static TableMapping mapping(String table) {
+		TableMapping mapping = new TableMapping(table, table);
+		mapping.setSourcePassword("secret");
+		mapping.setTargetPassword("secret");
+		return mapping;
+	}
+}
@@ -0,0 +1,184 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeyFirstConfig;
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.config.SparkEngineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
+import com.DBCompareX.DBCompareX.dao.entities.KeyStrategy;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComparisonEstimatorTests {
+
+	private final PipelineConfig pipelineConfig = new PipelineConfig();
+	private final SparkEngineConfig sparkConfig = new SparkEngineConfig();
+	private final KeyFirstConfig keyFirstConfig = new KeyFirstConfig();
+	private final ComparisonMetrics metrics = new ComparisonMetrics(new SimpleMeterRegistry());
+	private final ComparisonEstimator estimator = new ComparisonEstimator(new FixedCatalog(),
+			pipelineConfig, sparkConfig, keyFirstConfig, metrics);
+
+	@Test
+	void parsesJvmStyleMemorySizes() {
+		assertEquals(512L << 20, ComparisonEstimator.parseMemory("512m"));
+		assertEquals(2L << 30, ComparisonEstimator.parseMemory(" 2G "));
+		assertEquals(64L << 10, ComparisonEstimator.parseMemory("64k"));
+		assertEquals(1L << 40, ComparisonEstimator.parseMemory("1t"));
+		assertEquals(4096, ComparisonEstimator.parseMemory("4096"));
+		assertEquals(0, ComparisonEstimator.parseMemory(""));
+		assertEquals(0, ComparisonEstimator.parseMemory(null));
+		assertThrows(NumberFormatException.class, () -> ComparisonEstimator.parseMemory("lots"));
+	}
+
+	@Test
+	void projectsPipelineMemoryAndRuntimeFromCatalogStatistics() {
+		pipelineConfig.setEstimatedRowsPerSecond(500);
+
+		Map<String, Object> explanation = estimator.explain(request(EngineMode.JDBC,
+				keyed("customers", "mysql"), keyed("orders", "mysql")));
+
+		// customers: 1000 + 1000 rows of 100 bytes; orders: 3000 + 3000 rows of 100 bytes
+		long buffered = pipelineConfig.getExtractQueueCapacity()
+				+ (long) pipelineConfig.getMatchQueueCapacity() * pipelineConfig.getMatchParallelism()
+				+ pipelineConfig.getWriteQueueCapacity();
+		Map<String, Object> customers = table(explanation, 0);
+		assertEquals(2000L, customers.get("estimatedRows"));
+		assertEquals(4.0, customers.get("projectedSeconds"));
+		assertEquals("configured", customers.get("throughputSource"));
+		assertEquals((Math.min(buffered, 2000) + 1000) * 100 * 4, customers.get("projectedMemoryBytes"));
+		assertEquals(KeyStrategy.PROVIDED, customers.get("keyStrategy"));
+		assertEquals(List.of(), customers.get("warnings"));
+
+		assertEquals(8000L, explanation.get("estimatedRows"));
+		assertEquals(16L, explanation.get("projectedSeconds"));
+		// Tables run one after another, so the largest one bounds the memory
+		assertEquals((Math.min(buffered, 6000) + 3000) * 100 * 4, explanation.get("projectedMemoryBytes"));
+	}
+
+	@Test
+	void usesMeasuredThroughputOnceAvailable() {
+		metrics.recordThroughput("mysql", "earlier", 10_000, 1_000_000_000L);
+
+		Map<String, Object> customers = table(estimator.explain(request(EngineMode.JDBC, keyed("customers", "mysql"))), 0);
+
+		assertEquals("measured", customers.get("throughputSource"));
+		assertEquals(10_000L, customers.get("rowsPerSecond"));
+		assertEquals(0.2, customers.get("projectedSeconds"));
+	}
+
+	@Test
+	void projectsEngineSpecificMemory() {
+		sparkConfig.setDriverMemory("1g");
+		sparkConfig.setNumPartitions(4);
+		pipelineConfig.setEstimatedRowsPerSecond(500);
+		Map<String, Object> spark = table(estimator.explain(request(EngineMode.SPARK, keyed("customers", "mysql"))), 0);
+		assertEquals(1L << 30, spark.get("projectedMemoryBytes"));
+		assertEquals(2000L, spark.get("rowsPerSecond"));
+
+		keyFirstConfig.setFetchBatchSize(50);
+		Map<String, Object> keyFirst = table(estimator.explain(request(EngineMode.KEY_FIRST,
+				keyed("customers", "mysql"))), 0);
+		assertEquals(1000L * 160 + 2L * 50 * 100 * 4, keyFirst.get("projectedMemoryBytes"));
+	}
+
+	@Test
+	void warnsAboutTheKeyStrategyOfEachTable() {
+		TableMapping rowHash = keyed("customers", "postgresql");
+		rowHash.setKeyStrategy(KeyStrategy.ROW_HASH);
+		TableMapping allColumns = keyed("orders", "mysql");
+		allColumns.setKeyStrategy(KeyStrategy.ALL_COLUMNS);
+		TableMapping unknown = keyed("audit", "mysql");
+
+		Map<String, Object> explanation = estimator.explain(request(EngineMode.KEY_FIRST, rowHash, allColumns, unknown));
+
+		Map<String, Object> keyless = table(explanation, 0);
+		assertEquals(KeyStrategy.ROW_HASH, keyless.get("keyStrategy"));
+		assertTrue(warnings(keyless).get(0).startsWith("Keyless comparison across dialects"));
+		// Keyless tables are compared by the pipeline even in key-first mode
+		long buffered = pipelineConfig.getExtractQueueCapacity()
+				+ (long) pipelineConfig.getMatchQueueCapacity() * pipelineConfig.getMatchParallelism()
+				+ pipelineConfig.getWriteQueueCapacity();
+		assertEquals((Math.min(buffered, 2000) + 1000) * 100 * 4, keyless.get("projectedMemoryBytes"));
+
+		Map<String, Object> orders = table(explanation, 1);
+		assertEquals(KeyStrategy.ALL_COLUMNS, orders.get("keyStrategy"));
+		assertTrue(warnings(orders).get(0).startsWith("All common columns are used as key"));
+
+		Map<String, Object> audit = table(explanation, 2);
+		assertEquals(KeyStrategy.PROVIDED, audit.get("keyStrategy"));
+		assertEquals(List.of("Catalog statistics unavailable for one side; row counts are incomplete"),
+				warnings(audit));
+		assertEquals(0L, audit.get("estimatedRows"));
+	}
+
+	private static ComparisonRequest request(EngineMode engineMode, TableMapping... mappings) {
+		ComparisonRequest request = new ComparisonRequest();
+		request.setEngineMode(engineMode);
+		request.setTableMappings(List.of(mappings));
+		return request;
+	}
+
+	/**
+	 * Mapping with a given key whose target side is a MySQL table of the same name
+	 */
+	private static TableMapping keyed(String table, String sourceDbType) {
+		TableMapping mapping = new TableMapping(table, table);
+		mapping.setSourceDbType(sourceDbType);
+		mapping.setTargetDbType("mysql");
+		mapping.setKeyColumns(List.of("id"));
+		return mapping;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> table(Map<String, Object> explanation, int index) {
+		return ((List<Map<String, Object>>) explanation.get("tables")).get(index);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<String> warnings(Map<String, Object> table) {
+		return (List<String>) table.get("warnings");
+	}
+
+	/**
+	 * Catalog of the selected tables, keyed as given, answering statistics from fixed figures: 1000 rows
+	 * per side of customers, 3000 of orders, 100 bytes per row, and no statistics for other tables
+	 */
+	private static class FixedCatalog implements TableCatalog {
+		private static final Map<String, Long> ROWS = Map.of("customers", 1000L, "orders", 3000L);
+
+		@Override
+		public List<TableMapping> resolveTableMappings(
+				String srcDbType, String tgtDbType,
+				String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+				String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+				List<TableMapping> selectedTables,
+				String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables) {
+			return selectedTables;
+		}
+
+		@Override
+		public void ensureKeyColumns(TableMapping mapping) {
+			if (mapping.getKeyStrategy() == null) {
+				mapping.setKeyStrategy(KeyStrategy.PROVIDED);
+			}
+		}
+
+		@Override
+		public Map<String, Object> fetchTableStatistics(String dbType, String host, int port, String dbName,
+														String username, String password, String tableName) {
+			Long rows = ROWS.get(tableName);
+			Map<String, Object> statistics = new LinkedHashMap<>();
+			statistics.put("rows", rows);
+			statistics.put("bytes", rows != null ? rows * 100 : null);
+			statistics.put("statistics", rows != null ? "catalog" : "unavailable");
+			return statistics;
+		}
+	}
+}
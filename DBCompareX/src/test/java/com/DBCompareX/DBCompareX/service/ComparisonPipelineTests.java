@@ -0,0 +1,156 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComparisonPipelineTests {
+
+	@Test
+	void matchesRowsThroughSmallBoundedQueues() throws Exception {
+		PipelineConfig config = new PipelineConfig();
+		// Queues far smaller than the tables force every stage to block on backpressure
+		config.setExtractQueueCapacity(4);
+		config.setMatchQueueCapacity(4);
+		config.setWriteQueueCapacity(2);
+		config.setNormalizeParallelism(3);
+		config.setMatchParallelism(3);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		ComparisonPipeline pipeline = new ComparisonPipeline(config, new RecordComparator(),
+				new ComparisonMetrics(registry));
+
+		TableMapping mapping = new TableMapping();
+		mapping.setSourceTable("customers");
+		mapping.setSourceDbType("mysql");
+		mapping.setTargetDbType("oracle");
+		mapping.setKeyColumns(List.of("id"));
+
+		Map<String, Object> results = pipeline.compareTable(mapping,
+				sink -> {
+					for (int i = 0; i < 1000; i++) {
+						sink.accept(row(i, "name" + i));
+					}
+				},
+				sink -> {
+					// Target arrives in reverse order, misses ids 0-9 and has ids 1000-1004 extra
+					for (int i = 1004; i >= 10; i--) {
+						sink.accept(row(i, i % 100 == 0 ? "changed" : "name" + i));
+					}
+				},
+				null);
+
+		List<?> differences = (List<?>) results.get("differences");
+		assertEquals(9, differences.size());
+		FieldVerdicts verdicts = (FieldVerdicts) ((Map<?, ?>) differences.get(0)).get("verdicts");
+		assertEquals(List.of("name"), verdicts.getDifferingColumns());
+		assertEquals(10, ((List<?>) results.get("unmatched_source")).size());
+		assertEquals(5, ((List<?>) results.get("unmatched_target")).size());
+		assertEquals(981, results.get("exact_matches"));
+		assertEquals(1995L, results.get("rows_extracted"));
+		assertTrue(((Map<?, ?>) results.get("phase_nanos")).containsKey("extractTarget"));
+		assertEquals(0, pipeline.getBufferedRows());
+		assertEquals(9, registry.get("dbcomparex.differences")
+				.tags("dialect", "mysql/oracle", "table", "customers", "kind", "difference").counter().count());
+		assertEquals(1, registry.get("dbcomparex.phase").tags("phase", "compare").timer().count());
+	}
+
+	@Test
+	void pairsDuplicateKeysInExtractionOrder() throws Exception {
+		PipelineConfig config = new PipelineConfig();
+		config.setNormalizeParallelism(4);
+		config.setMatchParallelism(2);
+		ComparisonPipeline pipeline = new ComparisonPipeline(config, new RecordComparator(),
+				new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping();
+		mapping.setSourceTable("customers");
+		mapping.setKeyColumns(List.of("id"));
+
+		// Thread timing varies between runs; the pairing must not
+		for (int run = 0; run < 50; run++) {
+			Map<String, Object> results = pipeline.compareTable(mapping,
+					sink -> {
+						sink.accept(row(1, "a"));
+						sink.accept(row(1, "b"));
+						sink.accept(row(2, "c"));
+						sink.accept(row(2, "c"));
+					},
+					sink -> {
+						sink.accept(row(2, "c"));
+						sink.accept(row(1, "b"));
+						sink.accept(row(2, "c"));
+						sink.accept(row(2, "c"));
+					},
+					null);
+
+			// The first source row of id 1 meets its only target row; the second has no counterpart
+			List<?> differences = (List<?>) results.get("differences");
+			assertEquals(1, differences.size());
+			assertEquals("a", ((Map<?, ?>) ((Map<?, ?>) differences.get(0)).get("source_record")).get("name"));
+			List<?> unmatchedSource = (List<?>) results.get("unmatched_source");
+			assertEquals(1, unmatchedSource.size());
+			assertEquals("b", ((Map<?, ?>) unmatchedSource.get(0)).get("name"));
+			assertEquals(1, ((List<?>) results.get("unmatched_target")).size());
+			assertEquals(2, results.get("exact_matches"));
+		}
+	}
+
+	@Test
+	void propagatesExtractionFailures() {
+		PipelineConfig config = new PipelineConfig();
+		config.setExtractQueueCapacity(2);
+		ComparisonPipeline pipeline = new ComparisonPipeline(config, new RecordComparator(),
+				new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping();
+		mapping.setSourceTable("orders");
+		mapping.setKeyColumns(List.of("id"));
+
+		assertThrows(IllegalStateException.class, () -> pipeline.compareTable(mapping,
+				sink -> {
+					throw new IllegalStateException("connection lost");
+				},
+				sink -> {
+					for (int i = 0; i < 100; i++) {
+						sink.accept(row(i, "x"));
+					}
+				},
+				null));
+	}
+
+	@Test
+	void stopsEveryNormalizerWhenTheTablesAreEmpty() {
+		PipelineConfig config = new PipelineConfig();
+		// Idle normalizers take each END marker as soon as it is queued, and stop while the rest are sent
+		config.setExtractQueueCapacity(1);
+		config.setNormalizeParallelism(16);
+		ComparisonPipeline pipeline = new ComparisonPipeline(config, new RecordComparator(),
+				new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping();
+		mapping.setSourceTable("empty");
+		mapping.setKeyColumns(List.of("id"));
+
+		assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+			for (int run = 0; run < 20; run++) {
+				Map<String, Object> results = pipeline.compareTable(mapping, sink -> {
+				}, sink -> {
+				}, null);
+				assertEquals(0, results.get("exact_matches"));
+			}
+		});
+	}
+
+	private static Map<String, Object> row(int id, String name) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", id);
+		row.put("name", name);
+		return row;
+	}
+}
@@ -0,0 +1,120 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.config.ResultStoreConfig;
+import com.DBCompareX.DBCompareX.config.WorkQueueConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComparisonWorkerTests {
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+			new DriverManagerDataSource("jdbc:h2:mem:worker_queue;DB_CLOSE_DELAY=-1", "sa", ""));
+	private final WorkQueueConfig config = new WorkQueueConfig();
+
+	@TempDir
+	Path storageDir;
+
+	private WorkQueue queue;
+	private ComparisonWorker worker;
+
+	@BeforeEach
+	void createWorker() {
+		config.setCredentialKey(Base64.getEncoder().encodeToString(new byte[32]));
+		config.setNodeId("node-a");
+		config.setMaxAttempts(2);
+		queue = new WorkQueue(config, jdbcTemplate, new ObjectMapper(), System::currentTimeMillis);
+
+		ReportStorageConfig storageConfig = new ReportStorageConfig();
+		storageConfig.setStorageDir(storageDir.toString());
+		ReportStorageService reportStorageService = new ReportStorageService(storageConfig);
+		worker = new ComparisonWorker(config, queue, new FailingRunner("orders"), reportStorageService,
+				new DiffResultStore(new ResultStoreConfig(), reportStorageService, new ObjectMapper()));
+	}
+
+	@AfterEach
+	void dropQueue() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void unitWithAFailedTableIsRetriedAndThenFailed() {
+		String jobId = queue.submit(request("orders", "customers"));
+
+		assertTrue(worker.runOnce());
+		assertTrue(worker.runOnce());
+		assertTrue(worker.runOnce());
+		assertFalse(worker.runOnce());
+
+		Map<String, Object> progress = queue.progress(jobId);
+		assertEquals("FAILED", progress.get("status"));
+		Map<?, ?> units = (Map<?, ?>) progress.get("units");
+		assertEquals(1, units.get("done"));
+		assertEquals(1, units.get("failed"));
+		Map<?, ?> orders = ((List<?>) progress.get("unitDetails")).stream().map(Map.class::cast)
+				.filter(detail -> "orders".equals(detail.get("sourceTable"))).findFirst().orElseThrow();
+		assertEquals(2, orders.get("attempts"));
+		assertTrue(((String) orders.get("error")).contains("Table not found"));
+	}
+
+	private static ComparisonRequest request(String... tables) {
+		ComparisonRequest request = new ComparisonRequest();
+		request.setSourceDbType("mysql");
+		request.setTargetDbType("mysql");
+		request.setSourceHost("db1");
+		request.setTargetHost("db2");
+		request.setSourceDbName("shop");
+		request.setTargetDbName("shop");
+		request.setSourcePassword("secret");
+		request.setTargetPassword("secret");
+		request.setTableMappings(Arrays.stream(tables).map(table -> new TableMapping(table, table))
+				.collect(Collectors.toList()));
+		return request;
+	}
+
+	/**
+	 * Runner that fails one table the way compareTables does: logged in the profile, left out of the report
+	 */
+	private static class FailingRunner implements ComparisonRunner {
+		private final String failingTable;
+
+		FailingRunner(String failingTable) {
+			this.failingTable = failingTable;
+		}
+
+		@Override
+		public File compareAndGenerateReport(
+				String srcDbType, String tgtDbType,
+				String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+				String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+				String jobId, String outputPath, List<TableMapping> selectedTables,
+				String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables, EngineMode engineMode,
+				ExecutionProfile profile, Integer priority) {
+			for (TableMapping mapping : selectedTables) {
+				if (mapping.getSourceTable().equals(failingTable)) {
+					profile.tableFailed(mapping.getSourceTable(), "Table not found: " + failingTable);
+				}
+			}
+			return null;
+		}
+	}
+}
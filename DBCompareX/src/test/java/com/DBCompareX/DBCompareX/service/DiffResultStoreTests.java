@@ -0,0 +1,112 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.config.ResultStoreConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnDiffCount;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.DiffPage;
+import com.DBCompareX.DBCompareX.dao.entities.DiffQuery;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DiffResultStoreTests {
+
+	@TempDir
+	Path storageDir;
+
+	private DiffResultStore store;
+	private String jobId;
+
+	@BeforeEach
+	void setUp() {
+		ReportStorageConfig config = new ReportStorageConfig();
+		config.setStorageDir(storageDir.toString());
+		ReportStorageService reportStorageService = new ReportStorageService(config);
+		ResultStoreConfig storeConfig = new ResultStoreConfig();
+		storeConfig.setBatchSize(7);
+		storeConfig.setDefaultPageSize(10);
+		storeConfig.setMaxPageSize(50);
+		store = new DiffResultStore(storeConfig, reportStorageService, new ObjectMapper());
+		jobId = reportStorageService.newJobId();
+
+		RecordComparator comparator = new RecordComparator();
+		ColumnLayout layout = new ColumnLayout(List.of("id", "name", "email"));
+		try (DiffResultStore.Writer writer = store.openWriter(jobId)) {
+			for (int i = 0; i < 25; i++) {
+				Map<String, Object> source = Map.of("id", i, "name", "a" + i, "email", "same");
+				Map<String, Object> target = Map.of("id", i, "name", "b" + i, "email", i % 5 == 0 ? "changed" : "same");
+				writer.writeDifference("customers", "c" + i, comparator.compareRecordFields(layout, source, target));
+			}
+			writer.writeUnmatched("orders", "o1", DiffRow.KIND_SOURCE_ONLY, Map.of("id", 1));
+			writer.addExactMatches("customers", 3);
+		}
+	}
+
+	@Test
+	void pagesThroughAllRowsWithoutGapsOrDuplicates() {
+		Set<String> keys = new HashSet<>();
+		DiffQuery query = new DiffQuery();
+		query.setTable("customers");
+		query.setLimit(10);
+		int pages = 0;
+		do {
+			DiffPage page = store.findDifferences(jobId, query);
+			page.getItems().forEach(row -> assertTrue(keys.add(row.getKey())));
+			query.setCursor(page.getNextCursor());
+			pages++;
+		} while (query.getCursor() != null);
+
+		assertEquals(25, keys.size());
+		assertEquals(3, pages);
+	}
+
+	@Test
+	void filtersByColumnAndKeyPrefix() {
+		DiffQuery byColumn = new DiffQuery();
+		byColumn.setColumn("email");
+		assertEquals(5, store.findDifferences(jobId, byColumn).getItems().size());
+
+		DiffQuery byPrefix = new DiffQuery();
+		byPrefix.setKeyPrefix("c1");
+		// c1 and c10..c19
+		assertEquals(10, store.findDifferences(jobId, byPrefix).getItems().size());
+	}
+
+	@Test
+	void countsDifferencesPerColumn() {
+		List<ColumnDiffCount> counts = store.countDifferencesByColumn(jobId, "customers");
+		assertEquals(new ColumnDiffCount("customers", "name", 25), counts.get(0));
+		assertEquals(new ColumnDiffCount("customers", "email", 5), counts.get(1));
+	}
+
+	@Test
+	void finishedTablesSurviveAndPartialTablesAreDiscarded() {
+		try (DiffResultStore.Writer writer = store.openWriter(jobId)) {
+			writer.writeUnmatched("orders", "o2", DiffRow.KIND_TARGET_ONLY, Map.of("id", 2));
+			writer.discardTable("orders");
+			writer.writeUnmatched("payments", "p1", DiffRow.KIND_SOURCE_ONLY, Map.of("id", 1));
+			writer.finishTable("payments");
+
+			Map<String, Object> customers = writer.readTable("customers");
+			assertEquals(25, ((List<?>) customers.get("differences")).size());
+			assertEquals(3, customers.get("exact_matches"));
+			assertTrue(((List<?>) writer.readTable("orders").get("unmatched_target")).isEmpty());
+		}
+		assertTrue(store.getTableSummaries(jobId).stream().noneMatch(summary -> "orders".equals(summary.get("table"))));
+		assertEquals(1L, store.getTableSummaries(jobId).stream()
+				.filter(summary -> "payments".equals(summary.get("table")))
+				.findFirst().orElseThrow().get("unmatched_source"));
+		assertEquals(2, store.countDifferencesByColumn(jobId, "customers").size());
+	}
+}
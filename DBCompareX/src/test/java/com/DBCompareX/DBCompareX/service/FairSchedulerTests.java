@@ -0,0 +1,106 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.SchedulerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairSchedulerTests {
+
+	private final SchedulerConfig config = new SchedulerConfig();
+	private final FairScheduler scheduler = new FairScheduler(config);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@Test
+	void smallJobGoesBeforeQueuedTablesOfLargeJob() throws Exception {
+		config.setMaxConcurrentTables(1);
+		List<String> order = new CopyOnWriteArrayList<>();
+		CountDownLatch release = new CountDownLatch(1);
+		try (FairScheduler.Job batch = scheduler.register("batch", 5)) {
+			// The batch job's first table holds the only slot and charges its job time when done
+			Future<?> first = executor.submit(() -> scheduler.run(batch, List.of("a"), () -> {
+				release.await();
+				Thread.sleep(50);
+				return order.add("batch-1");
+			}));
+			awaitRunning(1);
+			Future<?> second = executor.submit(() -> scheduler.run(batch, List.of("a"), () -> order.add("batch-2")));
+			awaitWaiting(1);
+
+			try (FairScheduler.Job interactive = scheduler.register("interactive", 5)) {
+				Future<?> small = executor.submit(() -> scheduler.run(interactive, List.of("b"), () -> order.add("small")));
+				awaitWaiting(2);
+				release.countDown();
+				first.get(5, TimeUnit.SECONDS);
+				second.get(5, TimeUnit.SECONDS);
+				small.get(5, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(List.of("batch-1", "small", "batch-2"), order);
+	}
+
+	@Test
+	void endpointCapLeavesOtherEndpointsRunning() throws Exception {
+		config.setMaxTablesPerEndpoint(1);
+		CountDownLatch release = new CountDownLatch(1);
+		try (FairScheduler.Job job = scheduler.register("job", null)) {
+			Future<?> busy = executor.submit(() -> scheduler.run(job, List.of("db1", "db2"),
+					() -> release.await(5, TimeUnit.SECONDS)));
+			awaitRunning(1);
+			Future<?> blocked = executor.submit(() -> scheduler.run(job, List.of("db1", "db3"), () -> "blocked"));
+			awaitWaiting(1);
+
+			// Another pair of endpoints is admitted while db1 is at its cap
+			assertEquals("free", executor.submit(() -> scheduler.run(job, List.of("db3", "db4"), () -> "free"))
+					.get(5, TimeUnit.SECONDS));
+			assertFalse(blocked.isDone());
+
+			release.countDown();
+			busy.get(5, TimeUnit.SECONDS);
+			assertEquals("blocked", blocked.get(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(0, scheduler.snapshot().get("running"));
+	}
+
+	@Test
+	void failedTableFreesItsSlot() throws Exception {
+		config.setMaxConcurrentTables(1);
+		try (FairScheduler.Job job = scheduler.register("job", 10)) {
+			assertThrows(IllegalStateException.class, () -> scheduler.run(job, List.of("db1"), () -> {
+				throw new IllegalStateException("connection refused");
+			}));
+			assertEquals("next", scheduler.run(job, List.of("db1"), () -> "next"));
+
+			Map<?, ?> state = (Map<?, ?>) ((List<?>) scheduler.snapshot().get("jobs")).get(0);
+			assertEquals(10, state.get("priority"));
+			assertEquals(2, state.get("finishedTables"));
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(((List<?>) scheduler.snapshot().get("jobs")).isEmpty());
+	}
+
+	private void awaitRunning(int count) throws InterruptedException {
+		await("running", count);
+	}
+
+	private void awaitWaiting(int count) throws InterruptedException {
+		await("waiting", count);
+	}
+
+	private void await(String state, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (((Number) scheduler.snapshot().get(state)).intValue() != count) {
+			assertTrue(System.currentTimeMillis() < deadline, "timed out waiting for " + count + " " + state);
+			Thread.sleep(10);
+		}
+	}
+}
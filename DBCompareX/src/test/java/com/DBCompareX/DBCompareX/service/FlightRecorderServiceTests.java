@@ -0,0 +1,54 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.PipelineConfig;
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTests {
+
+	@TempDir
+	Path storageDir;
+
+	@Test
+	void dumpsTableComparisonEvents() throws Exception {
+		ReportStorageConfig storageConfig = new ReportStorageConfig();
+		storageConfig.setStorageDir(storageDir.toString());
+		ReportStorageService reportStorageService = new ReportStorageService(storageConfig);
+		FlightRecorderService recorder = new FlightRecorderService(reportStorageService);
+		ComparisonPipeline pipeline = new ComparisonPipeline(new PipelineConfig(), new RecordComparator(),
+				new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping();
+		mapping.setSourceTable("accounts");
+		mapping.setKeyColumns(List.of("id"));
+
+		recorder.start("default", Duration.ofMinutes(5));
+		assertThrows(IllegalStateException.class, () -> recorder.start("default", Duration.ofMinutes(5)));
+		pipeline.compareTable(mapping,
+				sink -> sink.accept(Map.of("id", 1, "name", "a")),
+				sink -> sink.accept(Map.of("id", 1, "name", "b")),
+				null);
+		Map<String, Object> dump = recorder.dump(true);
+
+		Path file = reportStorageService.getJobDirectory((String) dump.get("jobId")).resolve("recording.jfr");
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		RecordedEvent comparison = events.stream()
+				.filter(e -> e.getEventType().getName().equals("dbcomparex.TableComparison"))
+				.findFirst()
+				.orElseThrow();
+		assertEquals("accounts", comparison.getString("table"));
+		assertEquals(1L, comparison.getLong("differences"));
+		assertFalse((Boolean) recorder.status().get("running"));
+	}
+}
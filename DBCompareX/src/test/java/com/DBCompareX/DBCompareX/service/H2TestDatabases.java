@@ -0,0 +1,84 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dialect.H2Dialect;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Source and target database of a test: two named in-memory H2 databases that live until {@link #drop()}
+ */
+final class H2TestDatabases {
+
+	private final String sourceUrl;
+	private final String targetUrl;
+
+	H2TestDatabases(String name) {
+		this.sourceUrl = "jdbc:h2:mem:" + name + "_source;DB_CLOSE_DELAY=-1";
+		this.targetUrl = "jdbc:h2:mem:" + name + "_target;DB_CLOSE_DELAY=-1";
+	}
+
+	String sourceUrl() {
+		return sourceUrl;
+	}
+
+	String targetUrl() {
+		return targetUrl;
+	}
+
+	void source(String... statements) throws SQLException {
+		execute(sourceUrl, statements);
+	}
+
+	void target(String... statements) throws SQLException {
+		execute(targetUrl, statements);
+	}
+
+	/**
+	 * Run the same statements on both databases, e.g. to create a table on each side
+	 */
+	void both(String... statements) throws SQLException {
+		source(statements);
+		target(statements);
+	}
+
+	Connection openSource() throws SQLException {
+		return DriverManager.getConnection(sourceUrl, "sa", "");
+	}
+
+	Connection openTarget() throws SQLException {
+		return DriverManager.getConnection(targetUrl, "sa", "");
+	}
+
+	RowHashComparison.Side sourceSide(String table) {
+		return sourceSide(table, null);
+	}
+
+	RowHashComparison.Side sourceSide(String table, RowFilter filter) {
+		return new RowHashComparison.Side(new H2Dialect(), table, this::openSource, filter);
+	}
+
+	RowHashComparison.Side targetSide(String table) {
+		return targetSide(table, null);
+	}
+
+	RowHashComparison.Side targetSide(String table, RowFilter filter) {
+		return new RowHashComparison.Side(new H2Dialect(), table, this::openTarget, filter);
+	}
+
+	void drop() throws SQLException {
+		both("DROP ALL OBJECTS");
+	}
+
+	private static void execute(String url, String... statements) throws SQLException {
+		try (Connection conn = DriverManager.getConnection(url, "sa", "");
+			 Statement stmt = conn.createStatement()) {
+			for (String sql : statements) {
+				stmt.execute(sql);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeyFirstConfig;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dialect.H2Dialect;
+import com.DBCompareX.DBCompareX.dialect.TypedColumn;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyFirstComparisonTests {
+
+	private final H2TestDatabases databases = new H2TestDatabases("keyfirst");
+	private final KeyFirstConfig config = new KeyFirstConfig();
+	private final KeyFirstComparison comparison = new KeyFirstComparison(config, new RecordComparator(),
+			new ComparisonMetrics(new SimpleMeterRegistry()));
+
+	@BeforeEach
+	void createTables() throws Exception {
+		String table = "CREATE TABLE customers (region VARCHAR(10), id INT, name VARCHAR(20), amount INT, "
+				+ "PRIMARY KEY (region, id))";
+		databases.both(table);
+		for (int id = 1; id <= 10; id++) {
+			databases.source("INSERT INTO customers VALUES ('eu', " + id + ", 'n" + id + "', " + id * 10 + ")");
+			if (id == 3) {
+				continue;
+			}
+			String name = id == 5 ? "changed" : id == 7 ? "n7 " : "n" + id;
+			databases.target("INSERT INTO customers VALUES ('eu', " + id + ", '" + name + "', " + id * 10 + ")");
+		}
+		databases.target("INSERT INTO customers VALUES ('us', 11, 'n11', 110)");
+	}
+
+	@AfterEach
+	void dropTables() throws Exception {
+		databases.drop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void fetchesFullRowsOnlyForMissingKeysAndDifferingHashes() throws Exception {
+		config.setFetchBatchSize(1);
+
+		Map<String, Object> results = comparison.compareTable(mapping(), databases.sourceSide("customers"),
+				databases.targetSide("customers"), null);
+
+		assertNotNull(results);
+		List<Map<String, Object>> differences = (List<Map<String, Object>>) results.get("differences");
+		List<Map<String, Object>> sourceOnly = (List<Map<String, Object>>) results.get("unmatched_source");
+		List<Map<String, Object>> targetOnly = (List<Map<String, Object>>) results.get("unmatched_target");
+		assertEquals(1, differences.size());
+		assertEquals(List.of("name"), ((FieldVerdicts) differences.get(0).get("verdicts")).getDifferingColumns());
+		assertEquals(1, sourceOnly.size());
+		assertEquals(3, sourceOnly.get(0).get("id"));
+		assertEquals(1, targetOnly.size());
+		assertEquals("us", targetOnly.get(0).get("region"));
+		// Seven rows match by hash; 'n7 ' hashes differently but is equal once normalized
+		assertEquals(8, results.get("exact_matches"));
+		assertEquals(20L, results.get("rows_extracted"));
+		assertEquals(6L, results.get("rows_fetched"));
+	}
+
+	@Test
+	void fallsBackWhenTooManyRowsNeedFetching() throws Exception {
+		config.setMaxFetchRatio(0.1);
+
+		assertNull(comparison.compareTable(mapping(), databases.sourceSide("customers"),
+				databases.targetSide("customers"), null));
+	}
+
+	@Test
+	void fallsBackWhenARowHashCannotBeComputed() throws Exception {
+		H2Dialect unhashable = new H2Dialect() {
+			@Override
+			public String rowHashExpression(List<TypedColumn> columns) {
+				return "NO_SUCH_HASH(1)";
+			}
+		};
+		RowHashComparison.Side target = new RowHashComparison.Side(unhashable, "customers", databases::openTarget);
+
+		assertNull(comparison.compareTable(mapping(), databases.sourceSide("customers"), target, null));
+	}
+
+	private static TableMapping mapping() {
+		TableMapping mapping = new TableMapping("customers", "customers");
+		mapping.setSourceDbType("h2");
+		mapping.setTargetDbType("h2");
+		mapping.setKeyColumns(List.of("region", "id"));
+		return mapping;
+	}
+}
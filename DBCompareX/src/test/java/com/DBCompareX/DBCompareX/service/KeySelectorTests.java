@@ -0,0 +1,98 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeySelectionConfig;
+import com.DBCompareX.DBCompareX.dao.entities.KeySelection;
+import com.DBCompareX.DBCompareX.dao.entities.KeyStrategy;
+import com.DBCompareX.DBCompareX.dialect.Dialect;
+import com.DBCompareX.DBCompareX.dialect.H2Dialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeySelectorTests {
+
+	private static final Dialect H2 = new H2Dialect();
+
+	private Connection conn;
+	private final KeySelector keySelector = new KeySelector(new KeySelectionConfig());
+
+	@BeforeEach
+	void createTables() throws Exception {
+		conn = DriverManager.getConnection("jdbc:h2:mem:keys;DB_CLOSE_DELAY=-1", "sa", "");
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE orders (region VARCHAR(8) NOT NULL, order_no INT NOT NULL, note VARCHAR(100))");
+			stmt.execute("CREATE UNIQUE INDEX orders_region_no ON orders (region, order_no)");
+			stmt.execute("CREATE TABLE events (code VARCHAR(20) NOT NULL, category INT NOT NULL, seq INT NOT NULL)");
+			stmt.execute("CREATE TABLE readings (sensor INT NOT NULL, slot INT NOT NULL, reading INT)");
+			stmt.execute("CREATE TABLE duplicates (name VARCHAR(20) NOT NULL)");
+		}
+		try (PreparedStatement events = conn.prepareStatement("INSERT INTO events VALUES (?, ?, ?)");
+			 PreparedStatement readings = conn.prepareStatement("INSERT INTO readings VALUES (?, ?, ?)");
+			 PreparedStatement duplicates = conn.prepareStatement("INSERT INTO duplicates VALUES (?)")) {
+			for (int i = 0; i < 200; i++) {
+				events.setString(1, "EV-" + i);
+				events.setInt(2, i % 5);
+				events.setInt(3, i % 7);
+				events.addBatch();
+				readings.setInt(1, i / 10);
+				readings.setInt(2, i % 10);
+				readings.setInt(3, i % 3);
+				readings.addBatch();
+				duplicates.setString(1, "name-" + (i % 150));
+				duplicates.addBatch();
+			}
+			events.executeBatch();
+			readings.executeBatch();
+			duplicates.executeBatch();
+		}
+	}
+
+	@AfterEach
+	void dropTables() throws Exception {
+		try (Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		conn.close();
+	}
+
+	@Test
+	void prefersUniqueIndexOverNotNullColumns() throws Exception {
+		KeySelection selection = keySelector.selectKey(conn, H2, null, "orders", "orders",
+				List.of("region", "order_no", "note"), null);
+
+		assertEquals(KeyStrategy.UNIQUE_INDEX, selection.getStrategy());
+		assertEquals(List.of("region", "order_no"), selection.getColumns());
+	}
+
+	@Test
+	void findsUniqueColumnBySampling() throws Exception {
+		KeySelection selection = keySelector.selectKey(conn, H2, null, "events", "events",
+				List.of("code", "category", "seq"), 200L);
+
+		assertEquals(KeyStrategy.SAMPLED, selection.getStrategy());
+		assertEquals(List.of("code"), selection.getColumns());
+	}
+
+	@Test
+	void combinesColumnsWhenNoSingleColumnIsUnique() throws Exception {
+		KeySelection selection = keySelector.selectKey(conn, H2, null, "readings", "readings",
+				List.of("sensor", "slot", "reading"), 200L);
+
+		assertEquals(KeyStrategy.SAMPLED, selection.getStrategy());
+		assertEquals(2, selection.getColumns().size());
+		assertTrue(selection.getColumns().containsAll(List.of("sensor", "slot")));
+	}
+
+	@Test
+	void returnsNullWhenColumnsHaveDuplicates() throws Exception {
+		assertNull(keySelector.selectKey(conn, H2, null, "duplicates", "duplicates", List.of("name"), 200L));
+	}
+}
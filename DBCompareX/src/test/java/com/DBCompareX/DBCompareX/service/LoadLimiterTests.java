@@ -0,0 +1,129 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.LoadLimitConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadLimiterTests {
+
+	private static final String DB = LoadLimiter.endpoint("postgresql", "db1", 5432);
+
+	private final LoadLimitConfig config = new LoadLimitConfig();
+
+	@Test
+	void shrinksOnRisingLatencyAndGrowsBack() throws Exception {
+		config.setInitialConcurrency(8);
+		config.setDecreaseCooldownMs(0);
+		LoadLimiter limiter = new LoadLimiter(config);
+
+		try (LoadLimiter.Permit permit = limiter.acquire(DB)) {
+			for (int i = 0; i < 5; i++) {
+				permit.chunk(1000, 100_000, 1_000_000);
+			}
+			assertEquals(8, limit(limiter));
+			// Fetches turn ten times slower per byte
+			for (int i = 0; i < 5; i++) {
+				permit.chunk(1000, 100_000, 10_000_000);
+			}
+		}
+		int lowered = limit(limiter);
+		assertTrue(lowered < 8);
+		assertTrue(lowered >= config.getMinConcurrency());
+
+		try (LoadLimiter.Permit permit = limiter.acquire(DB)) {
+			for (int i = 0; i < 200; i++) {
+				permit.chunk(1000, 100_000, 1_000_000);
+			}
+		}
+		assertTrue(limit(limiter) > lowered);
+	}
+
+	@Test
+	void blocksScansBeyondTheLimitAndBacksOffOnErrors() throws Exception {
+		config.setInitialConcurrency(2);
+		LoadLimiter limiter = new LoadLimiter(config);
+		LoadLimiter.Permit first = limiter.acquire(DB);
+		// A scan over both sides of one server takes a single slot
+		LoadLimiter.Permit second = limiter.acquire(DB, DB);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<LoadLimiter.Permit> third = executor.submit(() -> limiter.acquire(DB));
+			assertThrows(TimeoutException.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+			first.failed("connection reset");
+			first.close();
+			third.get(5, TimeUnit.SECONDS).close();
+		} finally {
+			second.close();
+			executor.shutdownNow();
+		}
+		assertEquals(2, limit(limiter));
+		assertEquals(0, limiter.snapshot().get(0).get("inFlight"));
+	}
+
+	@Test
+	void pacesScansToTheRateCeiling() throws Exception {
+		config.getEndpoints().put("db1", new LoadLimitConfig.Endpoint());
+		config.getEndpoints().get("db1").setMaxRowsPerSecond(10_000L);
+		LoadLimiter limiter = new LoadLimiter(config);
+
+		long started = System.nanoTime();
+		try (LoadLimiter.Permit permit = limiter.acquire(DB)) {
+			// One second of burst, then half a second of debt
+			permit.chunk(15_000, 0, 0);
+		}
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		assertTrue(millis >= 400, "paced for " + millis + " ms");
+		assertEquals(10_000L, limiter.snapshot().get(0).get("maxRowsPerSecond"));
+	}
+
+	@Test
+	void holdsNoSlotWhileWaitingForAnotherEndpointsWindow() throws Exception {
+		String nightly = LoadLimiter.endpoint("postgresql", "db2", 5432);
+		config.setInitialConcurrency(1);
+		config.setMinConcurrency(1);
+		config.getEndpoints().put("db2", new LoadLimitConfig.Endpoint());
+		config.getEndpoints().get("db2").setWindows("22:00-06:00");
+		AtomicReference<LocalTime> now = new AtomicReference<>(LocalTime.of(12, 0));
+		LoadLimiter limiter = new LoadLimiter(config, now::get, 10);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			// The scan over both endpoints waits for the window of db2 without taking the slot of db1
+			Future<LoadLimiter.Permit> both = executor.submit(() -> limiter.acquire(DB, nightly));
+			assertThrows(TimeoutException.class, () -> both.get(200, TimeUnit.MILLISECONDS));
+			assertTimeoutPreemptively(Duration.ofSeconds(5), () -> limiter.acquire(DB).close());
+
+			now.set(LocalTime.of(22, 30));
+			both.get(5, TimeUnit.SECONDS).close();
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(limiter.snapshot().stream().allMatch(endpoint -> endpoint.get("inFlight").equals(0)));
+	}
+
+	@Test
+	void windowsMayWrapPastMidnight() {
+		List<LocalTime[]> windows = LoadLimiter.parseWindows("22:00-06:00, 12:00-13:00");
+		assertTrue(LoadLimiter.inWindow(windows, LocalTime.of(23, 30)));
+		assertTrue(LoadLimiter.inWindow(windows, LocalTime.of(5, 59)));
+		assertTrue(LoadLimiter.inWindow(windows, LocalTime.of(12, 0)));
+		assertFalse(LoadLimiter.inWindow(windows, LocalTime.of(13, 0)));
+		assertFalse(LoadLimiter.inWindow(windows, LocalTime.of(9, 0)));
+		assertTrue(LoadLimiter.inWindow(LoadLimiter.parseWindows(""), LocalTime.of(9, 0)));
+		assertThrows(IllegalArgumentException.class, () -> LoadLimiter.parseWindows("22:00"));
+	}
+
+	private static int limit(LoadLimiter limiter) {
+		Map<String, Object> endpoint = limiter.snapshot().get(0);
+		return (Integer) endpoint.get("limit");
+	}
+}
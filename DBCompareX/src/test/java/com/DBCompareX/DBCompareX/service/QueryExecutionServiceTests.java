@@ -0,0 +1,122 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.QueryConfig;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import com.DBCompareX.DBCompareX.dialect.H2Dialect;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryExecutionServiceTests {
+
+	private static final String URL = "jdbc:h2:mem:query;DB_CLOSE_DELAY=-1";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final QueryConfig config = new QueryConfig();
+	private QueryExecutionService service;
+
+	@BeforeEach
+	void createTable() throws Exception {
+		config.setMaxRows(40);
+		config.setFetchSize(10);
+		service = new QueryExecutionService(config, null, DialectRegistry.builtIn(), objectMapper);
+		try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+			 Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE item (id INT PRIMARY KEY, label VARCHAR(200))");
+			stmt.execute("INSERT INTO item SELECT x, REPEAT('x', 100) FROM SYSTEM_RANGE(1, 100)");
+		}
+	}
+
+	@AfterEach
+	void dropTable() throws Exception {
+		service.closeAll();
+		try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+			 Statement stmt = conn.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+	}
+
+	@Test
+	void pagesThroughResultWithCursor() throws Exception {
+		QueryExecutionService.QueryCursor cursor = open("SELECT id, label FROM item ORDER BY id");
+
+		JsonNode first = page(cursor, 1000);
+		assertEquals(40, first.get("rowCount").asInt());
+		assertEquals("rows", first.get("limitedBy").asText());
+		assertEquals(1, first.get("results").get(0).get("ID").asInt());
+		String token = first.get("nextCursor").asText();
+		assertEquals(1, service.openCursors());
+
+		JsonNode second = page(service.resume(token), 40);
+		assertEquals(41, second.get("results").get(0).get("ID").asInt());
+		JsonNode last = page(service.resume(second.get("nextCursor").asText()), 40);
+		assertEquals(20, last.get("rowCount").asInt());
+		assertEquals(100, last.get("totalRows").asInt());
+		assertTrue(last.get("nextCursor").isNull());
+		assertEquals(0, service.openCursors());
+		assertThrows(IllegalArgumentException.class, () -> service.resume(token));
+	}
+
+	@Test
+	void endsPageAtByteCap() throws Exception {
+		config.setMaxBytes(1000);
+		JsonNode page = page(open("SELECT id, label FROM item ORDER BY id"), 40);
+
+		assertEquals("bytes", page.get("limitedBy").asText());
+		assertTrue(page.get("rowCount").asInt() < 10);
+		assertTrue(page.get("rowCount").asInt() > 0);
+		assertTrue(service.release(page.get("nextCursor").asText()));
+	}
+
+	@Test
+	void writesWholeResultWithoutCursorWhenUnpaged() throws Exception {
+		JsonNode all = all(open("SELECT id, label FROM item ORDER BY id"));
+		assertEquals(100, all.get("rowCount").asInt());
+		assertTrue(all.get("limitedBy").isNull());
+		assertTrue(all.get("nextCursor").isNull());
+
+		config.setMaxBytes(1000);
+		JsonNode capped = all(open("SELECT id, label FROM item ORDER BY id"));
+		assertEquals("bytes", capped.get("limitedBy").asText());
+		assertTrue(capped.get("rowCount").asInt() < 10);
+		assertTrue(capped.get("nextCursor").isNull());
+		assertEquals(0, service.openCursors());
+	}
+
+	@Test
+	void fallsBackToNextQueryWhenEmpty() throws Exception {
+		try (Connection conn = DriverManager.getConnection(URL, "sa", "")) {
+			QueryExecutionService.QueryCursor cursor = service.open(new H2Dialect(), conn,
+					List.of("SELECT id FROM item WHERE id < 0", "SELECT id FROM item WHERE id = 7"));
+			JsonNode page = page(cursor, null);
+			assertEquals(1, page.get("rowCount").asInt());
+			assertEquals(7, page.get("results").get(0).get("ID").asInt());
+		}
+	}
+
+	private QueryExecutionService.QueryCursor open(String query) throws Exception {
+		return service.open(new H2Dialect(), DriverManager.getConnection(URL, "sa", ""), List.of(query));
+	}
+
+	private JsonNode page(QueryExecutionService.QueryCursor cursor, Integer pageSize) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.writePage(cursor, pageSize, out);
+		return objectMapper.readTree(out.toByteArray());
+	}
+
+	private JsonNode all(QueryExecutionService.QueryCursor cursor) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.writeAll(cursor, out);
+		return objectMapper.readTree(out.toByteArray());
+	}
+}
@@ -0,0 +1,55 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.FieldVerdicts;
+import com.DBCompareX.DBCompareX.util.ColumnSemantics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordComparatorTests {
+
+	private final RecordComparator comparator = new RecordComparator();
+
+	@Test
+	void usesColumnSemanticsOnlyForDisplay() {
+		ColumnLayout layout = new ColumnLayout(List.of("customer_id", "phone", "birth_date", "width", "name"));
+		Map<String, Object> source = Map.of("customer_id", 42, "phone", "0612-34-56 00:00",
+				"birth_date", "1990-01-02 10:00:00", "width", 10, "name", "Alice");
+		Map<String, Object> target = Map.of("customer_id", new BigDecimal("42.0"), "phone", "0612-34-56",
+				"birth_date", "1990-01-02", "width", new BigDecimal("10.0005"), "name", "Alice");
+
+		FieldVerdicts verdicts = comparator.compareRecordFields(layout, source, target);
+
+		// A changed time of day and a small numeric change are real differences whatever the column name
+		assertEquals(List.of("phone", "birth_date", "width"), verdicts.getDifferingColumns());
+		assertEquals("0612-34-56", verdicts.getSourceValue(1));
+		assertEquals(42, verdicts.getSourceValue(0));
+	}
+
+	@Test
+	void classifiesIdColumnsByNameToken() {
+		for (String column : List.of("id", "ID", "customer_id")) {
+			assertEquals(ColumnSemantics.ID, ColumnSemantics.classify(column), column);
+		}
+		for (String column : List.of("width", "valid", "paid", "provider_code", "uuid")) {
+			assertEquals(ColumnSemantics.GENERIC, ColumnSemantics.classify(column), column);
+		}
+	}
+
+	@Test
+	void reportsMissingValuesAsDifferences() {
+		ColumnLayout layout = new ColumnLayout(List.of("id", "note"));
+		Map<String, Object> source = Map.of("id", 1, "note", "x");
+		Map<String, Object> target = Map.of("id", 1);
+
+		FieldVerdicts verdicts = comparator.compareRecordFields(layout, source, target);
+
+		assertTrue(verdicts.isDifferent(1));
+		assertNull(verdicts.getTargetValue(1));
+	}
+}
@@ -0,0 +1,126 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.CoalescingConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTests {
+
+	private final CoalescingConfig config = new CoalescingConfig();
+	private final RequestCoalescer coalescer = new RequestCoalescer(config, new SimpleMeterRegistry());
+
+	@Test
+	void concurrentIdenticalRequestsShareOneExecution() throws Exception {
+		config.setResultTtlSeconds(0);
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executor.submit(() -> coalescer.execute("compare", "key", () -> {
+					executions.incrementAndGet();
+					release.await();
+					return "report";
+				})));
+			}
+			// Let every caller reach the coalescer before the first one finishes
+			Thread.sleep(200);
+			release.countDown();
+			for (Future<String> result : results) {
+				assertEquals("report", result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, executions.get());
+
+		// Without a result cache the next request runs again
+		coalescer.execute("compare", "key", executions::incrementAndGet);
+		assertEquals(2, executions.get());
+	}
+
+	@Test
+	void cachesResultsButNotFailures() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		assertThrows(IllegalStateException.class, () -> coalescer.execute("tables", "key", () -> {
+			executions.incrementAndGet();
+			throw new IllegalStateException("connection refused");
+		}));
+		assertEquals(2, coalescer.execute("tables", "key", executions::incrementAndGet));
+		assertEquals(2, coalescer.execute("tables", "key", executions::incrementAndGet));
+		assertEquals(2, executions.get());
+	}
+
+	@Test
+	void keyIgnoresTableOrderButNotTableCaseOrCredentials() {
+		ComparisonRequest request = request("secret", "orders", "customers");
+		String key = coalescer.requestKey("compare", request);
+
+		assertEquals(key, coalescer.requestKey("compare", request("secret", "customers", "orders")));
+		// Quoted, "CUSTOMERS" and customers are different tables
+		assertNotEquals(key, coalescer.requestKey("compare", request("secret", "CUSTOMERS", "orders")));
+		assertNotEquals(key, coalescer.requestKey("compare", request("other", "orders", "customers")));
+		assertNotEquals(key, coalescer.requestKey("tables", request));
+		assertFalse(key.contains("secret"));
+		// The password HMAC is keyed per process
+		assertNotEquals(key, new RequestCoalescer(config, new SimpleMeterRegistry()).requestKey("compare", request));
+	}
+
+	@Test
+	void keyIncludesTheConnectionsOfMappingsThatOverrideTheRequest() {
+		String key = coalescer.requestKey("compare", withOverride(request("secret", "orders"), "db3", "secret"));
+
+		assertEquals(key, coalescer.requestKey("compare", withOverride(request("secret", "orders"), "DB3", "secret")));
+		assertNotEquals(key, coalescer.requestKey("compare", request("secret", "orders")));
+		assertNotEquals(key, coalescer.requestKey("compare", withOverride(request("secret", "orders"), "db4", "secret")));
+		assertNotEquals(key, coalescer.requestKey("compare", withOverride(request("secret", "orders"), "db3", "other")));
+	}
+
+	/**
+	 * Point the first mapping at its own source host with its own target password
+	 */
+	private static ComparisonRequest withOverride(ComparisonRequest request, String sourceHost, String targetPassword) {
+		TableMapping mapping = request.getTableMappings().get(0);
+		mapping.setSourceDbType("mysql");
+		mapping.setSourceHost(sourceHost);
+		mapping.setSourceDbName("shop");
+		mapping.setSourceUsername("app");
+		mapping.setSourcePassword("secret");
+		mapping.setTargetDbType("postgresql");
+		mapping.setTargetHost("db2");
+		mapping.setTargetDbName("shop");
+		mapping.setTargetUsername("app");
+		mapping.setTargetPassword(targetPassword);
+		return request;
+	}
+
+	private static ComparisonRequest request(String password, String... tables) {
+		ComparisonRequest request = new ComparisonRequest();
+		request.setSourceDbType("mysql");
+		request.setTargetDbType("postgresql");
+		request.setSourceHost("db1");
+		request.setTargetHost("db2");
+		request.setSourceDbName("shop");
+		request.setTargetDbName("shop");
+		request.setSourceUsername("app");
+		request.setTargetUsername("app");
+		request.setSourcePassword(password);
+		request.setTargetPassword(password);
+		List<TableMapping> mappings = new ArrayList<>();
+		for (String table : tables) {
+			mappings.add(new TableMapping(table, table));
+		}
+		request.setTableMappings(mappings);
+		return request;
+	}
+}
@@ -0,0 +1,121 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.KeylessConfig;
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dialect.OracleDialect;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowHashComparisonTests {
+
+	private final H2TestDatabases databases = new H2TestDatabases("keyless");
+
+	@BeforeEach
+	void createTables() throws Exception {
+		databases.both("CREATE TABLE ledger (account VARCHAR(10), amount INT)");
+		databases.source("INSERT INTO ledger VALUES ('a', 1), ('a', 1), ('b', 2), ('c', 3), (NULL, 5)");
+		databases.target("INSERT INTO ledger VALUES ('a', 1), ('b', 2), ('b', 2), ('d', 4), (NULL, 5)");
+	}
+
+	@AfterEach
+	void dropTables() throws Exception {
+		databases.drop();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void comparesDuplicateRowsAsMultiset() throws Exception {
+		KeylessConfig config = new KeylessConfig();
+		config.setFetchBatchSize(2);
+		RowHashComparison comparison = new RowHashComparison(config, new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping("ledger", "ledger");
+		mapping.setSourceDbType("h2");
+		mapping.setTargetDbType("h2");
+		mapping.setKeyColumns(List.of("account", "amount"));
+
+		Map<String, Object> results = comparison.compareTable(mapping,
+				databases.sourceSide("ledger"), databases.targetSide("ledger"), null);
+
+		List<Map<String, Object>> sourceOnly = (List<Map<String, Object>>) results.get("unmatched_source");
+		List<Map<String, Object>> targetOnly = (List<Map<String, Object>>) results.get("unmatched_target");
+		assertEquals(3, results.get("exact_matches"));
+		assertEquals(2, sourceOnly.size());
+		assertTrue(sourceOnly.stream().anyMatch(row -> "a".equals(row.get("account"))));
+		assertTrue(sourceOnly.stream().anyMatch(row -> "c".equals(row.get("account"))));
+		assertEquals(2, targetOnly.size());
+		assertTrue(targetOnly.stream().anyMatch(row -> "b".equals(row.get("account"))));
+		assertTrue(targetOnly.stream().anyMatch(row -> "d".equals(row.get("account"))));
+		assertTrue(((List<?>) results.get("differences")).isEmpty());
+	}
+
+	@Test
+	void refusesDialectsWhoseRowHashesNeverMatch() {
+		RowHashComparison comparison = new RowHashComparison(new KeylessConfig(),
+				new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping("ledger", "ledger");
+		mapping.setSourceDbType("oracle");
+		mapping.setTargetDbType("h2");
+		mapping.setKeyColumns(List.of("account", "amount"));
+		RowHashComparison.Side oracle = new RowHashComparison.Side(new OracleDialect(), "ledger", databases::openSource);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> comparison.compareTable(mapping, oracle, databases.targetSide("ledger"), null));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void countsAndFetchesOnlyFilteredRows() throws Exception {
+		KeylessConfig config = new KeylessConfig();
+		config.setFetchBatchSize(1);
+		RowHashComparison comparison = new RowHashComparison(config, new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping("ledger", "ledger");
+		mapping.setSourceDbType("h2");
+		mapping.setTargetDbType("h2");
+		mapping.setKeyColumns(List.of("account", "amount"));
+		RowFilter belowFour = new RowFilter("amount < ?", List.of(4));
+
+		Map<String, Object> results = comparison.compareTable(mapping,
+				databases.sourceSide("ledger", belowFour), databases.targetSide("ledger", belowFour), null);
+
+		// ('d', 4) and the NULL rows are outside the filter on both sides
+		List<Map<String, Object>> sourceOnly = (List<Map<String, Object>>) results.get("unmatched_source");
+		List<Map<String, Object>> targetOnly = (List<Map<String, Object>>) results.get("unmatched_target");
+		assertEquals(2, results.get("exact_matches"));
+		assertEquals(2, sourceOnly.size());
+		assertEquals(1, targetOnly.size());
+		assertEquals("b", targetOnly.get(0).get("account"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void rowsDifferingOnlyInTheirTimeOfDayDoNotMatch() throws Exception {
+		databases.both("CREATE TABLE events (name VARCHAR(10), happened TIMESTAMP(9))");
+		databases.source("INSERT INTO events VALUES ('a', TIMESTAMP '2024-01-02 10:00:00'), "
+				+ "('b', TIMESTAMP '2024-01-02 11:00:00.000000001')");
+		databases.target("INSERT INTO events VALUES ('a', TIMESTAMP '2024-01-02 10:00:00'), "
+				+ "('b', TIMESTAMP '2024-01-02 11:00:00.000000002')");
+		RowHashComparison comparison = new RowHashComparison(new KeylessConfig(),
+				new ComparisonMetrics(new SimpleMeterRegistry()));
+		TableMapping mapping = new TableMapping("events", "events");
+		mapping.setSourceDbType("h2");
+		mapping.setTargetDbType("h2");
+		mapping.setKeyColumns(List.of("name", "happened"));
+
+		Map<String, Object> results = comparison.compareTable(mapping,
+				databases.sourceSide("events"), databases.targetSide("events"), null);
+
+		assertEquals(1, results.get("exact_matches"));
+		List<Map<String, Object>> sourceOnly = (List<Map<String, Object>>) results.get("unmatched_source");
+		assertEquals(1, sourceOnly.size());
+		assertEquals("b", sourceOnly.get(0).get("name"));
+		assertEquals(1, ((List<?>) results.get("unmatched_target")).size());
+	}
+}
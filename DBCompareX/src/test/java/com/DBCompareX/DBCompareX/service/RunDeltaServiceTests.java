@@ -0,0 +1,118 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.DeltaConfig;
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.config.ResultStoreConfig;
+import com.DBCompareX.DBCompareX.config.ScheduledComparisonConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ColumnLayout;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunDeltaServiceTests {
+
+	@TempDir
+	Path storageDir;
+
+	private final RecordComparator comparator = new RecordComparator();
+	private final ColumnLayout layout = new ColumnLayout(List.of("id", "name"));
+	private ReportStorageService reportStorageService;
+	private DiffResultStore store;
+	private RunDeltaService deltaService;
+
+	@BeforeEach
+	void setUp() {
+		ReportStorageConfig config = new ReportStorageConfig();
+		config.setStorageDir(storageDir.toString());
+		reportStorageService = new ReportStorageService(config);
+		ResultStoreConfig storeConfig = new ResultStoreConfig();
+		storeConfig.setBatchSize(5);
+		store = new DiffResultStore(storeConfig, reportStorageService, new ObjectMapper());
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(
+				new DriverManagerDataSource("jdbc:h2:mem:delta;DB_CLOSE_DELAY=-1", "sa", ""));
+		DeltaConfig deltaConfig = new DeltaConfig();
+		// Small chunks so the fingerprint files are built from several sorted runs
+		deltaConfig.setSortChunkSize(4);
+		deltaConfig.setMaxSamples(100);
+		deltaService = new RunDeltaService(deltaConfig, reportStorageService, store,
+				new RunHistoryStore(new ScheduledComparisonConfig(), jdbcTemplate));
+	}
+
+	@Test
+	void classifiesNewResolvedAndPersistingKeys() {
+		String base = reportStorageService.newJobId();
+		try (DiffResultStore.Writer writer = store.openWriter(base)) {
+			for (int i = 0; i < 10; i++) {
+				writeDifference(writer, "c" + i, "old");
+			}
+			writer.writeUnmatched("orders", "o1", DiffRow.KIND_SOURCE_ONLY, Map.of("id", 1));
+		}
+		String current = reportStorageService.newJobId();
+		try (DiffResultStore.Writer writer = store.openWriter(current)) {
+			// c0-c5 persist, c4 and c5 with other values; c6-c9 resolved; c10-c12 new
+			for (int i = 12; i >= 0; i--) {
+				if (i <= 5 || i >= 10) {
+					writeDifference(writer, "c" + i, i == 4 || i == 5 ? "changed" : "old");
+				}
+			}
+			writer.writeUnmatched("orders", "o1", DiffRow.KIND_SOURCE_ONLY, Map.of("id", 1));
+		}
+
+		Map<String, Object> delta = deltaService.delta(current, base, null, 2);
+		assertEquals(3L, delta.get("new"));
+		assertEquals(4L, delta.get("resolved"));
+		assertEquals(7L, delta.get("persisting"));
+		assertEquals(2L, delta.get("changed"));
+		List<?> tables = (List<?>) delta.get("tables");
+		assertEquals("customers", ((Map<?, ?>) tables.get(0)).get("table"));
+		assertEquals(1L, ((Map<?, ?>) tables.get(1)).get("persisting"));
+		List<?> newSamples = (List<?>) ((Map<?, ?>) delta.get("samples")).get("new");
+		assertEquals(2, newSamples.size());
+		assertEquals("c10", ((Map<?, ?>) newSamples.get(0)).get("key"));
+
+		Map<String, Object> orders = deltaService.delta(current, base, "orders", 10);
+		assertEquals(0L, orders.get("new"));
+		assertEquals(1L, orders.get("persisting"));
+	}
+
+	@Test
+	void exportsCsvAndRebuildsAfterTheStoreChanges() throws Exception {
+		String base = reportStorageService.newJobId();
+		try (DiffResultStore.Writer writer = store.openWriter(base)) {
+			writeDifference(writer, "a,1", "x");
+		}
+		String current = reportStorageService.newJobId();
+		try (DiffResultStore.Writer writer = store.openWriter(current)) {
+			writeDifference(writer, "b", "x");
+		}
+		assertEquals(1L, deltaService.delta(current, base, null, 0).get("new"));
+
+		// A resumed job appends to its store; its fingerprints must follow
+		try (DiffResultStore.Writer writer = store.openWriter(current)) {
+			writeDifference(writer, "a,1", "x");
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		deltaService.export(current, base, null, Set.of(RunDeltaService.PERSISTING), out);
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("customers,\"a,1\",PERSISTING,false,DIFFERENCE,DIFFERENCE", lines[1]);
+	}
+
+	private void writeDifference(DiffResultStore.Writer writer, String key, String targetName) {
+		writer.writeDifference("customers", key, comparator.compareRecordFields(layout,
+				Map.of("id", key, "name", "source"), Map.of("id", key, "name", targetName)));
+	}
+}
@@ -0,0 +1,96 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.ScheduledComparisonConfig;
+import com.DBCompareX.DBCompareX.dao.entities.TableRunRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunHistoryStoreTests {
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+			new DriverManagerDataSource("jdbc:h2:mem:runhistory;DB_CLOSE_DELAY=-1", "sa", ""));
+	private final ScheduledComparisonConfig config = new ScheduledComparisonConfig();
+	private final RunHistoryStore store = new RunHistoryStore(config, jdbcTemplate);
+
+	@AfterEach
+	void dropTable() {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + RunHistoryStore.TABLE);
+	}
+
+	@Test
+	void recordsRunsInBatchesAndSummarizesThem() {
+		config.setHistoryBatchSize(2);
+		List<TableRunRecord> run = new ArrayList<>();
+		run.add(record("run-1", "orders", 1000, 2000, 4, TableRunRecord.COMPLETED));
+		run.add(record("run-1", "customers", 1000, 500, 0, TableRunRecord.COMPLETED));
+		run.add(record("run-1", "payments", 1000, 0, 0, TableRunRecord.FAILED));
+		store.record(run);
+		store.record(List.of(record("run-2", "orders", 2000, 2000, 1, TableRunRecord.COMPLETED)));
+
+		List<Map<String, Object>> runs = store.runs("nightly", 10);
+		assertEquals(2, runs.size());
+		assertEquals("run-2", runs.get(0).get("runId"));
+		assertEquals(3, runs.get(1).get("tables"));
+		assertEquals(1, runs.get(1).get("failedTables"));
+		assertEquals(4L, runs.get(1).get("differences"));
+
+		List<TableRunRecord> orders = store.history("nightly", "orders", 10);
+		assertEquals(2, orders.size());
+		assertEquals(1, orders.get(0).getDifferences());
+		assertTrue(store.history("other", null, 10).isEmpty());
+
+		assertEquals("job-run-1", store.previousJobId("job-run-2").orElse(null));
+		assertTrue(store.previousJobId("job-run-1").isEmpty());
+	}
+
+	@Test
+	void flagsThroughputRegressionAgainstEarlierRuns() {
+		config.setTrendBaselineRuns(3);
+		config.setRegressionThreshold(0.7);
+		long[] rowsPerSecond = {1000, 1100, 900, 1000, 400};
+		for (int i = 0; i < rowsPerSecond.length; i++) {
+			store.record(List.of(
+					record("run-" + i, "orders", 1000 + i, rowsPerSecond[i], i, TableRunRecord.COMPLETED),
+					record("run-" + i, "customers", 1000 + i, 500, 0, TableRunRecord.COMPLETED)));
+		}
+
+		List<Map<String, Object>> trends = store.trends("nightly", 2);
+		assertEquals(2, trends.size());
+		Map<String, Object> customers = trends.get(0);
+		Map<String, Object> orders = trends.get(1);
+		assertEquals("orders", orders.get("table"));
+		// Two runs shown, the baseline is the median of the three runs before the latest
+		assertEquals(2, ((List<?>) orders.get("runs")).size());
+		assertEquals(1000.0, orders.get("baselineRowsPerSecond"));
+		assertEquals(0.4, (Double) orders.get("throughputRatio"), 1e-9);
+		assertEquals(true, orders.get("regression"));
+		assertEquals(false, customers.get("regression"));
+	}
+
+	private static TableRunRecord record(String runId, String table, long startedAt, double rowsPerSecond,
+										 long differences, String status) {
+		TableRunRecord record = new TableRunRecord();
+		record.setRunId(runId);
+		record.setProfileName("nightly");
+		record.setJobId("job-" + runId);
+		record.setTrigger(ScheduledComparisonService.TRIGGER_SCHEDULE);
+		record.setTableName(table);
+		record.setStatus(status);
+		record.setStartedAt(startedAt);
+		record.setDurationMillis(1000);
+		record.setRowsExtracted((long) rowsPerSecond);
+		record.setExactMatches(100);
+		record.setDifferences(differences);
+		record.setDiffRate(differences / 100.0);
+		record.setRowsPerSecond(rowsPerSecond);
+		return record;
+	}
+}
@@ -0,0 +1,127 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.DeltaConfig;
+import com.DBCompareX.DBCompareX.config.ReportStorageConfig;
+import com.DBCompareX.DBCompareX.config.ResultStoreConfig;
+import com.DBCompareX.DBCompareX.config.ScheduledComparisonConfig;
+import com.DBCompareX.DBCompareX.dao.entities.EngineMode;
+import com.DBCompareX.DBCompareX.dao.entities.ExecutionProfile;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduledComparisonServiceTests {
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+			new DriverManagerDataSource("jdbc:h2:mem:scheduled;DB_CLOSE_DELAY=-1", "sa", ""));
+	private final BlockingRunner runner = new BlockingRunner();
+
+	@TempDir
+	Path storageDir;
+
+	private RunHistoryStore runHistoryStore;
+	private ScheduledComparisonService service;
+
+	@BeforeEach
+	void createService() {
+		ScheduledComparisonConfig config = new ScheduledComparisonConfig();
+		config.getProfiles().put("nightly", new ScheduledComparisonConfig.Profile());
+		ReportStorageConfig storageConfig = new ReportStorageConfig();
+		storageConfig.setStorageDir(storageDir.toString());
+		ReportStorageService reportStorageService = new ReportStorageService(storageConfig);
+		DiffResultStore diffResultStore = new DiffResultStore(new ResultStoreConfig(), reportStorageService,
+				new ObjectMapper());
+		runHistoryStore = new RunHistoryStore(config, jdbcTemplate);
+		service = new ScheduledComparisonService(config, runner, reportStorageService, diffResultStore, runHistoryStore,
+				new RunDeltaService(new DeltaConfig(), reportStorageService, diffResultStore, runHistoryStore),
+				new ObjectMapper());
+	}
+
+	@AfterEach
+	void stopService() {
+		runner.release.countDown();
+		service.stop();
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + RunHistoryStore.TABLE);
+	}
+
+	@Test
+	void rejectsAManualRunWhileTheProfileIsRunning() throws Exception {
+		String jobId = service.runNow("nightly");
+		assertTrue(runner.started.await(10, TimeUnit.SECONDS));
+
+		IllegalStateException conflict = assertThrows(IllegalStateException.class, () -> service.runNow("nightly"));
+		assertEquals("Profile nightly is already running", conflict.getMessage());
+		// A scheduled run firing meanwhile is skipped without comparing or leaving a job directory behind
+		service.run("nightly", ScheduledComparisonService.TRIGGER_SCHEDULE);
+		assertEquals(1, runner.calls.get());
+		try (Stream<Path> jobs = Files.list(storageDir)) {
+			assertEquals(List.of(jobId), jobs.map(job -> job.getFileName().toString()).collect(Collectors.toList()));
+		}
+
+		runner.release.countDown();
+		List<Map<String, Object>> runs = awaitRuns();
+		assertEquals(1, runs.size());
+		assertEquals(jobId, runs.get(0).get("jobId"));
+		assertEquals(ScheduledComparisonService.TRIGGER_MANUAL, runs.get(0).get("trigger"));
+	}
+
+	@Test
+	void rejectsAnUnknownProfile() {
+		assertThrows(IllegalArgumentException.class, () -> service.runNow("weekly"));
+	}
+
+	private List<Map<String, Object>> awaitRuns() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		List<Map<String, Object>> runs = runHistoryStore.runs("nightly", 10);
+		while (runs.isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+			runs = runHistoryStore.runs("nightly", 10);
+		}
+		return runs;
+	}
+
+	/**
+	 * Runner whose comparison blocks until released and then fails, so each run leaves one history record
+	 */
+	private static class BlockingRunner implements ComparisonRunner {
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public File compareAndGenerateReport(
+				String srcDbType, String tgtDbType,
+				String srcHost, int srcPort, String srcDbName, String srcUsername, String srcPassword,
+				String tgtHost, int tgtPort, String tgtDbName, String tgtUsername, String tgtPassword,
+				String jobId, String outputPath, List<TableMapping> selectedTables,
+				String sourceSchemaFilter, String targetSchemaFilter, Integer maxTables, EngineMode engineMode,
+				ExecutionProfile profile, Integer priority) {
+			calls.incrementAndGet();
+			started.countDown();
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IllegalStateException("Source database unreachable");
+		}
+	}
+}
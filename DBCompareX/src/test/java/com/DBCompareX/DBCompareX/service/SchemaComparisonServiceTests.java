@@ -0,0 +1,76 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.dao.entities.SchemaDifference;
+import com.DBCompareX.DBCompareX.dao.entities.SchemaSnapshot;
+import com.DBCompareX.DBCompareX.dialect.DialectRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaComparisonServiceTests {
+
+	private final H2TestDatabases databases = new H2TestDatabases("schema");
+	private final SchemaCatalogReader reader = new SchemaCatalogReader(DialectRegistry.builtIn());
+	private final SchemaComparisonService service = new SchemaComparisonService(null, reader, DialectRegistry.builtIn());
+
+	@AfterEach
+	void dropSchemas() throws Exception {
+		databases.drop();
+	}
+
+	@Test
+	void readsKeysIndexesAndForeignKeysInBulk() throws Exception {
+		databases.source(
+				"CREATE TABLE customer (id INT PRIMARY KEY, email VARCHAR(100) NOT NULL, UNIQUE (email))",
+				"CREATE TABLE orders (id INT PRIMARY KEY, customer_id INT, total DECIMAL(10, 2) DEFAULT 0, "
+						+ "FOREIGN KEY (customer_id) REFERENCES customer (id))",
+				"CREATE INDEX orders_total ON orders (total)");
+
+		SchemaSnapshot snapshot = read(databases::openSource);
+
+		SchemaSnapshot.TableDefinition orders = snapshot.getTables().get("orders");
+		assertEquals(List.of("id"), orders.getPrimaryKey());
+		assertTrue(orders.getForeignKeys().contains("(customer_id) -> customer (id)"));
+		assertTrue(orders.getIndexes().contains("(total)"));
+		assertEquals("0", orders.getColumns().get("total").getDefaultValue());
+		assertTrue(snapshot.getTables().get("customer").getUniqueKeys().contains("(email)"));
+	}
+
+	@Test
+	void reportsStructuralDrift() throws Exception {
+		databases.source(
+				"CREATE TABLE customer (id INT PRIMARY KEY, email VARCHAR(100) NOT NULL, name VARCHAR(50))",
+				"CREATE TABLE audit (id INT)");
+		databases.target(
+				"CREATE TABLE customer (id INT PRIMARY KEY, email VARCHAR(120), phone VARCHAR(20))",
+				"CREATE INDEX customer_email ON customer (email)");
+
+		List<SchemaDifference> differences = service.compare(read(databases::openSource), read(databases::openTarget));
+
+		assertTrue(contains(differences, "TABLE", "audit", null, SchemaDifference.MISSING_IN_TARGET, null));
+		assertTrue(contains(differences, "COLUMN", "customer", "email", SchemaDifference.CHANGED, "size"));
+		assertTrue(contains(differences, "COLUMN", "customer", "email", SchemaDifference.CHANGED, "nullable"));
+		assertTrue(contains(differences, "COLUMN", "customer", "name", SchemaDifference.MISSING_IN_TARGET, null));
+		assertTrue(contains(differences, "COLUMN", "customer", "phone", SchemaDifference.MISSING_IN_SOURCE, null));
+		assertTrue(contains(differences, "INDEX", "customer", "(email)", SchemaDifference.MISSING_IN_SOURCE, null));
+		assertEquals(6, differences.size());
+	}
+
+	private SchemaSnapshot read(RowHashComparison.ConnectionSource connections) throws Exception {
+		try (Connection conn = connections.open()) {
+			return reader.read(conn, "h2", null);
+		}
+	}
+
+	private static boolean contains(List<SchemaDifference> differences, String objectType, String table, String object,
+									String change, String attribute) {
+		return differences.stream().anyMatch(d -> d.getObjectType().equals(objectType) && d.getTable().equals(table)
+				&& Objects.equals(d.getObject(), object) && d.getChange().equals(change)
+				&& Objects.equals(d.getAttribute(), attribute));
+	}
+}
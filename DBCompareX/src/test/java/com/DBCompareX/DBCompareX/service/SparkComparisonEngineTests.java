@@ -0,0 +1,141 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.SparkEngineConfig;
+import com.DBCompareX.DBCompareX.dao.entities.DiffRow;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import org.apache.spark.sql.SparkSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparkComparisonEngineTests {
+
+	private final H2TestDatabases databases = new H2TestDatabases("spark");
+
+	@TempDir
+	Path outputDir;
+
+	@AfterEach
+	void dropTables() throws Exception {
+		databases.drop();
+	}
+
+	@Test
+	void comparesTwoTablesInLocalMode() throws Exception {
+		String table = "CREATE TABLE customers (id INT PRIMARY KEY, name VARCHAR(20), amount DECIMAL(10, 2))";
+		databases.both(table);
+		for (int id = 1; id <= 20; id++) {
+			databases.source("INSERT INTO customers VALUES (" + id + ", 'n" + id + "', " + id + ".50)");
+			if (id == 3) {
+				continue;
+			}
+			String name = id == 5 ? "changed" : "n" + id;
+			databases.target("INSERT INTO customers VALUES (" + id + ", '" + name + "', " + id + ".50)");
+		}
+		databases.target("INSERT INTO customers VALUES (21, 'n21', 21.50)");
+		TableMapping mapping = new TableMapping("customers", "customers");
+		mapping.setKeyColumns(List.of("id"));
+		SparkEngineConfig config = new SparkEngineConfig();
+		config.setNumPartitions(2);
+
+		SparkSession spark = localSpark();
+		try {
+			Map<String, Object> results = engine(spark, config).compareTable(mapping, source(databases.sourceUrl()),
+					source(databases.targetUrl()), outputDir);
+
+			assertEquals("COMPLETED", results.get("status"));
+			assertEquals(1L, results.get("differences"));
+			assertEquals(1L, results.get("unmatched_source"));
+			assertEquals(1L, results.get("unmatched_target"));
+			assertEquals(18L, results.get("exact_matches"));
+			List<String> rows = spark.read().option("header", "true").csv(results.get("output").toString())
+					.collectAsList().stream().map(row -> row.getString(0) + ":" + row.getString(1))
+					.sorted().collect(Collectors.toList());
+			assertEquals(List.of(DiffRow.KIND_DIFFERENCE + ":5", DiffRow.KIND_SOURCE_ONLY + ":3",
+					DiffRow.KIND_TARGET_ONLY + ":21"), rows);
+		} finally {
+			spark.stop();
+		}
+	}
+
+	@Test
+	void comparesValuesAndNullKeyPartsLikeTheJdbcEngine() throws Exception {
+		databases.source("CREATE TABLE customers (id INT NOT NULL, region VARCHAR(8), name VARCHAR(20), "
+				+ "amount DECIMAL(10, 2), seen TIMESTAMP)");
+		databases.target("CREATE TABLE customers (id INT NOT NULL, region VARCHAR(8), name VARCHAR(20), "
+				+ "amount DECIMAL(10, 3), seen TIMESTAMP)");
+		databases.source("INSERT INTO customers VALUES (1, NULL, 'a', 1.50, TIMESTAMP '2024-01-02 03:04:05.120')",
+				"INSERT INTO customers VALUES (2, 'eu', ' b ', 2.00, NULL)",
+				"INSERT INTO customers VALUES (3, NULL, 'c', 3.00, NULL)",
+				"INSERT INTO customers VALUES (4, 'eu', 'd', 4.00, NULL)");
+		// Scale, fractional seconds and padding differ only in representation; amount 4 really changed
+		databases.target("INSERT INTO customers VALUES (1, NULL, 'a', 1.500, TIMESTAMP '2024-01-02 03:04:05')",
+				"INSERT INTO customers VALUES (2, 'eu', 'b', 2.000, NULL)",
+				"INSERT INTO customers VALUES (4, 'eu', 'd', 4.010, NULL)");
+		TableMapping mapping = new TableMapping("customers", "customers");
+		mapping.setKeyColumns(List.of("id", "region"));
+
+		SparkSession spark = localSpark();
+		try {
+			Map<String, Object> results = engine(spark, new SparkEngineConfig()).compareTable(mapping,
+					source(databases.sourceUrl()), source(databases.targetUrl()), outputDir);
+
+			assertEquals(1L, results.get("differences"));
+			assertEquals(1L, results.get("unmatched_source"));
+			assertEquals(0L, results.get("unmatched_target"));
+			assertEquals(2L, results.get("exact_matches"));
+		} finally {
+			spark.stop();
+		}
+	}
+
+	@Test
+	void summaryListsFailedTablesWithTheirError() throws Exception {
+		Map<String, Object> completed = new LinkedHashMap<>();
+		completed.put("table", "customers");
+		completed.put("status", "COMPLETED");
+		completed.put("differences", 2L);
+		completed.put("unmatched_source", 1L);
+		completed.put("unmatched_target", 0L);
+		completed.put("exact_matches", 7L);
+		completed.put("output", "/reports/spark/customers");
+		Path summary = outputDir.resolve("report_summary.csv");
+
+		SparkComparisonEngine.writeSummary(summary, List.of(completed,
+				SparkComparisonEngine.failedTable("orders", "Table \"ORDERS\" not found, SQL statement: SELECT *")));
+
+		assertEquals(List.of(
+				"table,differences,unmatched_source,unmatched_target,exact_matches,output,status,error",
+				"customers,2,1,0,7,/reports/spark/customers,COMPLETED,",
+				"orders,,,,,,FAILED,\"Table \"\"ORDERS\"\" not found, SQL statement: SELECT *\""),
+				Files.readAllLines(summary, StandardCharsets.UTF_8));
+	}
+
+	private static SparkSession localSpark() {
+		return SparkSession.builder().appName("SparkComparisonEngineTests").master("local[1]")
+				.config("spark.sql.shuffle.partitions", "2")
+				.config("spark.ui.enabled", "false")
+				.getOrCreate();
+	}
+
+	private static SparkComparisonEngine engine(SparkSession spark, SparkEngineConfig config) {
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("sparkSession", spark);
+		return new SparkComparisonEngine(beans.getBeanProvider(SparkSession.class), config);
+	}
+
+	private static SparkComparisonEngine.JdbcSource source(String url) {
+		return new SparkComparisonEngine.JdbcSource(url, "org.h2.Driver", "customers", "sa", "");
+	}
+}
@@ -0,0 +1,126 @@
+package com.DBCompareX.DBCompareX.service;
+
+import com.DBCompareX.DBCompareX.config.WorkQueueConfig;
+import com.DBCompareX.DBCompareX.dao.entities.ComparisonRequest;
+import com.DBCompareX.DBCompareX.dao.entities.TableMapping;
+import com.DBCompareX.DBCompareX.dao.entities.WorkUnit;
+import com.DBCompareX.DBCompareX.util.CredentialCipher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkQueueTests {
+
+	private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(
+			new DriverManagerDataSource("jdbc:h2:mem:workqueue;DB_CLOSE_DELAY=-1", "sa", ""));
+	private final WorkQueueConfig config = new WorkQueueConfig();
+	private final AtomicLong clock = new AtomicLong(1_000_000);
+	private WorkQueue queue;
+
+	@BeforeEach
+	void createQueue() {
+		config.setCredentialKey(KEY);
+		config.setLeaseSeconds(60);
+		config.setMaxAttempts(2);
+		queue = new WorkQueue(config, jdbcTemplate, new ObjectMapper(), clock::get);
+	}
+
+	@AfterEach
+	void dropQueue() {
+		jdbcTemplate.execute("DROP ALL OBJECTS");
+	}
+
+	@Test
+	void expiredLeaseIsReclaimedByAnotherNode() {
+		String jobId = queue.submit(request("orders", "customers"));
+
+		WorkUnit first = queue.claim("node-a").orElseThrow();
+		WorkUnit second = queue.claim("node-b").orElseThrow();
+		assertNotEquals(first.getId(), second.getId());
+		assertFalse(queue.claim("node-c").isPresent());
+
+		// node-a keeps its unit alive, node-b dies
+		clock.addAndGet(40_000);
+		assertTrue(queue.heartbeat(first.getId(), "node-a"));
+		clock.addAndGet(30_000);
+		WorkUnit reclaimed = queue.claim("node-c").orElseThrow();
+		assertEquals(second.getId(), reclaimed.getId());
+		assertEquals(2, reclaimed.getAttempts());
+
+		// The dead node's late result is rejected; the new owner's is kept
+		assertFalse(queue.complete(second.getId(), "node-b", Map.of("tables", List.of())));
+		assertFalse(queue.heartbeat(second.getId(), "node-b"));
+		assertTrue(queue.complete(reclaimed.getId(), "node-c", Map.of("reportJobId", "r2",
+				"tables", List.of(Map.of("table", "customers", "differences", 3)))));
+		assertTrue(queue.complete(first.getId(), "node-a", Map.of("reportJobId", "r1",
+				"tables", List.of(Map.of("table", "orders", "differences", 4)))));
+
+		Map<String, Object> progress = queue.progress(jobId);
+		assertEquals("DONE", progress.get("status"));
+		assertEquals(7L, ((Map<?, ?>) progress.get("totals")).get("differences"));
+		assertEquals(2, ((List<?>) progress.get("tables")).size());
+	}
+
+	@Test
+	void failedUnitIsRetriedUntilAttemptsRunOut() {
+		String jobId = queue.submit(request("orders"));
+
+		WorkUnit unit = queue.claim("node-a").orElseThrow();
+		assertTrue(queue.fail(unit.getId(), "node-a", "connection refused"));
+		unit = queue.claim("node-b").orElseThrow();
+		assertEquals(2, unit.getAttempts());
+		assertTrue(queue.fail(unit.getId(), "node-b", "connection refused"));
+		assertFalse(queue.claim("node-c").isPresent());
+
+		Map<String, Object> progress = queue.progress(jobId);
+		assertEquals("FAILED", progress.get("status"));
+		assertThrows(IllegalArgumentException.class, () -> queue.progress("unknown"));
+	}
+
+	@Test
+	void passwordsAreEncryptedInTheQueue() {
+		queue.submit(request("orders"));
+		WorkUnit unit = queue.claim("node-a").orElseThrow();
+
+		assertFalse(unit.getPayload().contains("secret"));
+		ComparisonRequest request = queue.unitRequest(unit);
+		assertEquals("secret", request.getSourcePassword());
+		assertEquals("orders", request.getTableMappings().get(0).getSourceTable());
+
+		CredentialCipher otherKey = new CredentialCipher(Base64.getEncoder().encodeToString(new byte[16]));
+		assertThrows(IllegalStateException.class, () -> otherKey.decrypt(new CredentialCipher(KEY).encrypt("x")));
+		config.setCredentialKey(null);
+		assertThrows(IllegalStateException.class, () -> queue.submit(request("orders")));
+	}
+
+	private static ComparisonRequest request(String... tables) {
+		ComparisonRequest request = new ComparisonRequest();
+		request.setSourceDbType("mysql");
+		request.setTargetDbType("postgresql");
+		request.setSourceHost("db1");
+		request.setTargetHost("db2");
+		request.setSourceDbName("shop");
+		request.setTargetDbName("shop");
+		request.setSourceUsername("app");
+		request.setTargetUsername("app");
+		request.setSourcePassword("secret");
+		request.setTargetPassword("secret");
+		request.setTableMappings(Arrays.stream(tables).map(table -> new TableMapping(table, table))
+				.collect(Collectors.toList()));
+		return request;
+	}
+}
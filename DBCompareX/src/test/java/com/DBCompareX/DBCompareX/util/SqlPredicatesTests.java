@@ -0,0 +1,66 @@
+package com.DBCompareX.DBCompareX.util;
+
+import com.DBCompareX.DBCompareX.dao.entities.RowFilter;
+import com.DBCompareX.DBCompareX.dialect.OracleDialect;
+import com.DBCompareX.DBCompareX.dialect.PostgreSqlDialect;
+import com.DBCompareX.DBCompareX.dialect.SqlServerDialect;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlPredicatesTests {
+
+	@Test
+	void acceptsParameterizedPredicates() {
+		RowFilter filter = new RowFilter("tenant_id = ? AND (status IN ('A', 'it''s; -- fine') OR created_at >= ?)",
+				List.of(7, "2024-01-01"));
+		SqlPredicates.validate(filter, "filter");
+		assertEquals(" WHERE (" + filter.getWhere() + ")", SqlPredicates.where(filter));
+		assertEquals("", SqlPredicates.where(null));
+		// Placeholders inside literals are text, not parameters
+		SqlPredicates.validate(new RowFilter("note <> '?'", List.of()), "filter");
+	}
+
+	@Test
+	void rejectsStatementsCommentsAndMismatchedParameters() {
+		List<String> invalid = List.of(
+				"1 = 1; DROP TABLE orders",
+				"id = 1 -- and the rest",
+				"id = 1 /* comment */",
+				"id IN (SELECT id FROM other)",
+				"id = 1 UNION ALL SELECT 1",
+				"(id = 1",
+				"name = 'open",
+				"name = '\\' OR 1 = 1",
+				"pg_sleep(10) IS NULL");
+		for (String where : invalid) {
+			assertThrows(IllegalArgumentException.class,
+					() -> SqlPredicates.validate(new RowFilter(where, List.of()), "filter"), where);
+		}
+		assertThrows(IllegalArgumentException.class,
+				() -> SqlPredicates.validate(new RowFilter("id = ? AND region = ?", List.of(1)), "filter"));
+		assertThrows(IllegalArgumentException.class,
+				() -> SqlPredicates.validate(new RowFilter(null, List.of(1)), "filter"));
+		assertThrows(IllegalArgumentException.class,
+				() -> SqlPredicates.validate(new RowFilter("id = ?", List.of(List.of(1))), "filter"));
+	}
+
+	@Test
+	void inlinesParametersAsLiterals() {
+		RowFilter filter = new RowFilter("name = ? AND note <> '?' AND amount > ? AND active = ?",
+				List.of("O'Brien", 2.5, true));
+		assertEquals("name = 'O''Brien' AND note <> '?' AND amount > 2.5 AND active = TRUE",
+				SqlPredicates.inline(filter, new PostgreSqlDialect()));
+		assertThrows(IllegalArgumentException.class,
+				() -> SqlPredicates.inline(new RowFilter("name = ?", List.of("a\\")), new PostgreSqlDialect()));
+	}
+
+	@Test
+	void inlinesBooleansAsTheDialectSpellsThem() {
+		RowFilter filter = new RowFilter("active = ? AND deleted = ?", List.of(true, false));
+		assertEquals("active = 1 AND deleted = 0", SqlPredicates.inline(filter, new OracleDialect()));
+		assertEquals("active = 1 AND deleted = 0", SqlPredicates.inline(filter, new SqlServerDialect()));
+	}
+}
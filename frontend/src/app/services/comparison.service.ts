@@ -71,11 +71,11 @@ export class ComparisonService {
   }
   
   getComparisonResults(comparisonId: string): Observable<ComparisonResult> {
-    return this.http.get<ComparisonResult>(`${this.apiUrl}/download?filePath=${comparisonId}`);
+    return this.http.get<ComparisonResult>(`${this.apiUrl}/download/${comparisonId}`);
   }
   
   exportToExcel(comparisonId: string): Observable<Blob> {
-    return this.http.get(`${this.apiUrl}/download?filePath=${comparisonId}`, {
+    return this.http.get(`${this.apiUrl}/download/${comparisonId}`, {
       responseType: 'blob'
     });
   }